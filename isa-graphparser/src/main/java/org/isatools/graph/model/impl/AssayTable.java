@@ -0,0 +1,150 @@
+package org.isatools.graph.model.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Columnar representation of a study or assay table.
+ *
+ * Each column is dictionary encoded: the cells hold int codes into the distinct values of the column, and empty cells
+ * (empty strings, nulls or missing cells in short rows) hold the EMPTY code. Repeated values are stored once, and two cells
+ * of the same column hold the same value if and only if they hold the same code. The values are shared between columns.
+ *
+ * The rows are numbered as in the Object[][] matrix the table is built from: row 0 is the header row and the data rows
+ * go from 1 to getRowCount() - 1.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class AssayTable {
+
+    public static final int EMPTY = -1;
+
+    private String[] header;
+    private int rowCount;
+
+    //<column, codes of the data rows>
+    private int[][] codes;
+
+    //<column, distinct values>
+    private String[][] dictionaries;
+
+    /**
+     * Builds the table from a matrix with the header in the first row.
+     *
+     * @param data the matrix, as returned by Assay.getAssayDataMatrix()
+     */
+    public AssayTable(Object[][] data) {
+        rowCount = data.length;
+        int columnCount = data.length == 0 ? 0 : data[0].length;
+        header = new String[columnCount];
+        codes = new int[columnCount][];
+        dictionaries = new String[columnCount][];
+
+        //shared by all the columns
+        Map<String, String> values = new HashMap<String, String>();
+
+        for (int col = 0; col < columnCount; col++) {
+            header[col] = data[0][col] == null ? "" : data[0][col].toString();
+
+            Map<String, Integer> encoder = new HashMap<String, Integer>();
+            List<String> dictionary = new ArrayList<String>();
+            int[] columnCodes = new int[Math.max(0, rowCount - 1)];
+
+            for (int row = 1; row < rowCount; row++) {
+                Object cell = col < data[row].length ? data[row][col] : null;
+                String value = cell == null ? "" : cell.toString();
+                if (value.equals("")) {
+                    columnCodes[row - 1] = EMPTY;
+                    continue;
+                }
+
+                Integer code = encoder.get(value);
+                if (code == null) {
+                    String shared = values.get(value);
+                    if (shared == null) {
+                        shared = value;
+                        values.put(shared, shared);
+                    }
+                    code = dictionary.size();
+                    dictionary.add(shared);
+                    encoder.put(shared, code);
+                }
+                columnCodes[row - 1] = code;
+            }
+
+            codes[col] = columnCodes;
+            dictionaries[col] = dictionary.toArray(new String[dictionary.size()]);
+        }
+    }
+
+    /**
+     * @return the number of rows, including the header row
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return header.length;
+    }
+
+    public String getColumnName(int col) {
+        return header[col];
+    }
+
+    /**
+     * @return a copy of the header row
+     */
+    public String[] getHeader() {
+        return header.clone();
+    }
+
+    /**
+     * @param row a data row (from 1)
+     * @param col the column
+     * @return the code of the cell, or EMPTY
+     */
+    public int getCode(int row, int col) {
+        return codes[col][row - 1];
+    }
+
+    /**
+     * @param row a row; 0 for the header row
+     * @param col the column
+     * @return the value of the cell, or an empty string if the cell is empty
+     */
+    public String getValue(int row, int col) {
+        if (row == 0) {
+            return header[col];
+        }
+        int code = codes[col][row - 1];
+        return code == EMPTY ? "" : dictionaries[col][code];
+    }
+
+    public boolean isEmpty(int row, int col) {
+        return codes[col][row - 1] == EMPTY;
+    }
+
+    /**
+     * @param col the column
+     * @param code a code of the column, other than EMPTY
+     * @return the value with that code
+     */
+    public String getDictionaryValue(int col, int code) {
+        return dictionaries[col][code];
+    }
+
+    /**
+     * @param col the column
+     * @return the number of distinct non-empty values in the column
+     */
+    public int getCardinality(int col) {
+        return dictionaries[col].length;
+    }
+
+}
@@ -3,8 +3,7 @@ package org.isatools.graph.model.impl;
 import org.isatools.graph.model.ISAGraph;
 import org.isatools.graph.model.ISANode;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 /**
  * Created by the ISA team
@@ -14,57 +13,80 @@ import java.util.List;
  *         <p/>
  *         Date: 10/10/2011
  *         Time: 10:15
+ *
+ * The nodes are indexed as they are added: by column index, so that getNode does not scan the list of nodes, and by
+ * NodeType, so that getNodes(NodeType) does not filter it.
  */
 public class Graph implements ISAGraph {
 
     private List<ISANode> nodeList;
 
+    //node at each column index (the first one added, if there are several)
+    private ISANode[] nodesByIndex;
+
+    private Map<NodeType, List<ISANode>> nodesByType;
+
     public Graph() {
         this.nodeList = new ArrayList<ISANode>();
+        this.nodesByIndex = new ISANode[16];
+        this.nodesByType = new EnumMap<NodeType, List<ISANode>>(NodeType.class);
+        for (NodeType nodeType : NodeType.values()) {
+            nodesByType.put(nodeType, new ArrayList<ISANode>());
+        }
     }
 
     public void addNode(ISANode node) {
         nodeList.add(node);
+
+        int index = node.getIndex();
+        if (index >= 0) {
+            if (index >= nodesByIndex.length) {
+                nodesByIndex = Arrays.copyOf(nodesByIndex, Math.max(index + 1, nodesByIndex.length * 2));
+            }
+            if (nodesByIndex[index] == null) {
+                nodesByIndex[index] = node;
+            }
+        }
+
+        NodeType nodeType = getNodeType(node);
+        if (nodeType != null) {
+            nodesByType.get(nodeType).add(node);
+        }
+    }
+
+    /**
+     * @return the type under which getNodes(NodeType) returns the node, or null if it is none of them
+     */
+    private static NodeType getNodeType(ISANode n) {
+        if (n instanceof MaterialNode) {
+            return NodeType.MATERIAL_NODE;
+        } else if (n instanceof ProtocolExecutionNode) {
+            return NodeType.PROTOCOL_EXECUTION_NODE;
+        } else if (n instanceof ProcessNode) {
+            return n.getName().endsWith("Assay Name") ? NodeType.ASSAY_NODE : NodeType.PROCESS_NODE;
+        } else if (n instanceof DataNode) {
+            return NodeType.DATA_NODE;
+        }
+        return null;
     }
 
     public List<ISANode> getNodes() {
         return nodeList;
     }
 
+    /**
+     * @param nodeType the type of the nodes
+     * @return a new list with the nodes of the given type, in the order they were added
+     */
     public List<ISANode> getNodes(NodeType nodeType) {
-        List<ISANode> nodes = new ArrayList<ISANode>();
-
-        for (ISANode n : nodeList) {
-            // there will be more materials in general, so to make this method quicker, it's good to check the most
-            // expected element first.
-            if (nodeType == NodeType.MATERIAL_NODE) {
-                if (n instanceof MaterialNode) {
-                    nodes.add(n);
-                }
-            } else if (nodeType == NodeType.PROCESS_NODE) {
-                if (n instanceof ProcessNode && !(n instanceof ProtocolExecutionNode) && !(n.getName().endsWith("Assay Name") )) {
-                    nodes.add(n);
-                }
-            } else if (nodeType == NodeType.ASSAY_NODE) {
-                if (n instanceof ProcessNode && !(n instanceof ProtocolExecutionNode) && n.getName().endsWith("Assay Name"))  {
-                    nodes.add(n);
-                }
-
-            }else if (nodeType == NodeType.DATA_NODE) {
-                if (n instanceof DataNode) {
-                    nodes.add(n);
-                }
-            }  else if (nodeType == NodeType.PROTOCOL_EXECUTION_NODE){
-                if (n instanceof ProtocolExecutionNode) {
-                    nodes.add(n);
-                }
-            }
-        }
-
-        return nodes;
+        return new ArrayList<ISANode>(nodesByType.get(nodeType));
     }
 
     public ISANode getNode(int index) {
+        if (index >= 0) {
+            return index < nodesByIndex.length ? nodesByIndex[index] : null;
+        }
+
         for (ISANode n : nodeList) {
             if (n.getIndex() == index) {
                 return n;
@@ -84,4 +106,4 @@ public class Graph implements ISAGraph {
     }
 
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,217 @@
+package org.isatools.graph.parser;
+
+import org.isatools.graph.model.impl.AssayTable;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Reads an ISA-TAB study sample or assay file (tab separated, with optionally double-quoted fields) in batches of rows,
+ * so that a large table does not need to be held in memory as a whole.
+ *
+ * The header row is read once, when the reader is created. Each call to next() returns an AssayTable with the header and
+ * at most batchSize data rows, so the rows of a batch are numbered from 1 as in a complete table. Rows shorter than the
+ * header are padded with empty cells and longer rows are truncated. Blank lines are skipped.
+ *
+ * The cells are returned as they are in the file, unless setNormalizeTerms is set: the value of a column followed by
+ * Term Source REF and Term Accession Number columns is then given as source:value, as the ISAcreator importer does
+ * with the tables it loads, so that the values can be looked up among the ontology terms of the dataset.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class AssayTableReader {
+
+    private static final char SEPARATOR = '\t';
+    private static final char QUOTE = '"';
+    private static final String TERM_SOURCE_REF = "Term Source REF";
+    private static final String TERM_ACCESSION_NUMBER = "Term Accession Number";
+
+    private Reader reader;
+    private int batchSize;
+    private String[] header;
+    private int rowsRead = 0;
+    private boolean finished = false;
+    private boolean normalizeTerms = false;
+
+    /**
+     * Constructor
+     *
+     * @param file the study sample or assay file
+     * @param batchSize maximum number of data rows in each batch
+     * @throws IOException if the file cannot be read or it has no header
+     */
+    public AssayTableReader(File file, int batchSize) throws IOException {
+        this(new InputStreamReader(new FileInputStream(file), "UTF-8"), batchSize);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param r the reader for the table
+     * @param batchSize maximum number of data rows in each batch
+     * @throws IOException if the table cannot be read or it has no header
+     */
+    public AssayTableReader(Reader r, int batchSize) throws IOException {
+        reader = r instanceof BufferedReader ? r : new BufferedReader(r);
+        this.batchSize = Math.max(1, batchSize);
+        List<String> row = readRow();
+        if (row == null) {
+            close();
+            throw new IOException("The table has no header row");
+        }
+        header = row.toArray(new String[row.size()]);
+    }
+
+    /**
+     * @return a copy of the header row
+     */
+    public String[] getHeader() {
+        return header.clone();
+    }
+
+    /**
+     * @return a table with the header row only, enough to build the graph of the table
+     */
+    public AssayTable getHeaderTable() {
+        return new AssayTable(new Object[][]{ header });
+    }
+
+    /**
+     * @param normalize true to give the value of each ontology term column as source:value, as the ISAcreator importer does
+     */
+    public void setNormalizeTerms(boolean normalize) {
+        normalizeTerms = normalize;
+    }
+
+    public boolean isNormalizeTerms() {
+        return normalizeTerms;
+    }
+
+    /**
+     * @return the number of data rows returned so far
+     */
+    public int getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     * Reads the next batch of rows.
+     *
+     * @return a table with the header row and up to batchSize data rows, or null if there are no more rows
+     * @throws IOException
+     */
+    public AssayTable next() throws IOException {
+        if (finished)
+            return null;
+
+        List<Object[]> rows = new ArrayList<Object[]>();
+        rows.add(header);
+        while (rows.size() <= batchSize) {
+            List<String> row = readRow();
+            if (row == null) {
+                finished = true;
+                break;
+            }
+            String[] cells = new String[header.length];
+            for (int col = 0; col < cells.length; col++) {
+                cells[col] = col < row.size() ? row.get(col) : "";
+            }
+            if (normalizeTerms)
+                normalizeTerms(cells);
+            rows.add(cells);
+        }
+
+        if (rows.size() == 1)
+            return null;
+
+        rowsRead += rows.size() - 1;
+        return new AssayTable(rows.toArray(new Object[rows.size()][]));
+    }
+
+    /**
+     * Prefixes the value of each ontology term column with its term source, when both are given.
+     */
+    private void normalizeTerms(String[] cells) {
+        for (int col = 0; col + 2 < header.length; col++) {
+            if (!header[col + 1].equals(TERM_SOURCE_REF) || !header[col + 2].startsWith(TERM_ACCESSION_NUMBER))
+                continue;
+            String source = cells[col + 1];
+            if (cells[col].length() > 0 && source.length() > 0)
+                cells[col] = source + ":" + cells[col];
+        }
+    }
+
+    public void close() throws IOException {
+        finished = true;
+        reader.close();
+    }
+
+    /**
+     * Reads the next non-blank row. A quoted field may contain separators, line breaks and doubled quotes.
+     *
+     * @return the fields of the row, or null at the end of the input
+     * @throws IOException
+     */
+    private List<String> readRow() throws IOException {
+        while (true) {
+            List<String> fields = new ArrayList<String>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean blank = true;
+            int c = reader.read();
+            if (c == -1)
+                return null;
+
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        break;
+                    } else if (c == QUOTE) {
+                        reader.mark(1);
+                        int next = reader.read();
+                        if (next == QUOTE) {
+                            field.append(QUOTE);
+                        } else {
+                            quoted = false;
+                            if (next != -1)
+                                reader.reset();
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == -1 || c == '\n') {
+                    break;
+                } else if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n')
+                        reader.reset();
+                    break;
+                } else if (c == SEPARATOR) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    blank = false;
+                } else if (c == QUOTE && field.length() == 0) {
+                    quoted = true;
+                    blank = false;
+                } else {
+                    field.append((char) c);
+                    if (!Character.isWhitespace(c))
+                        blank = false;
+                }
+                c = reader.read();
+            }
+
+            if (!blank) {
+                fields.add(field.toString());
+                return fields;
+            }
+            if (c == -1)
+                return null;
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package org.isatools.graph.parser;
+
+import org.isatools.graph.model.*;
+import org.isatools.graph.model.impl.*;
+import org.isatools.graph.model.impl.Date;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Classifies the columns of a study or assay table by their header, using the REGEXP constants of the node classes
+ * compiled once, and tried in the order GraphParser has always used.
+ *
+ * As most of the tables of a dataset share the same header, the classification of whole header rows is cached.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class ColumnClassifier {
+
+    private static final Pattern DATE = Pattern.compile(Date.REGEXP);
+    private static final Pattern PERFORMER = Pattern.compile(Performer.REGEXP);
+    private static final Pattern PROTOCOL_EXECUTION_NODE = Pattern.compile(ProtocolExecutionNode.REGEXP);
+    private static final Pattern PROCESS_NODE = Pattern.compile(ProcessNode.REGEXP);
+    private static final Pattern MATERIAL_ATTRIBUTE = Pattern.compile(ISAMaterialAttribute.REGEXP);
+    private static final Pattern MATERIAL_NODE = Pattern.compile(MaterialNode.REGEXP);
+    private static final Pattern SAMPLE_NODE = Pattern.compile(ISASampleNode.REGEXP);
+    private static final Pattern FACTOR_VALUE = Pattern.compile(ISAFactorValue.REGEXP);
+    private static final Pattern UNIT = Pattern.compile(ISAUnit.REGEXP);
+    private static final Pattern PROCESS_PARAMETER = Pattern.compile(ProcessParameter.REGEXP);
+    private static final Pattern COMMENT = Pattern.compile(CommentNode.REGEXP);
+
+    private static final int MAX_CACHED_HEADERS = 1024;
+
+    //<header row, kinds of its columns>
+    private static final Map<String, ColumnKind[]> headerCache = new ConcurrentHashMap<String, ColumnKind[]>();
+
+    private ColumnClassifier() {
+    }
+
+    /**
+     * @param column the header of the column
+     * @return the kind of the column
+     */
+    public static ColumnKind classify(String column) {
+        if (DATE.matcher(column).matches()) {
+            return ColumnKind.DATE;
+        } else if (PERFORMER.matcher(column).matches()) {
+            return ColumnKind.PERFORMER;
+        } else if (PROTOCOL_EXECUTION_NODE.matcher(column).matches()) {
+            return ColumnKind.PROTOCOL_EXECUTION_NODE;
+        } else if (PROCESS_NODE.matcher(column).matches()) {
+            return ColumnKind.PROCESS_NODE;
+        } else if (column.contains(ISADataNode.CONTAINS) && !column.contains("Comment")) {
+            return ColumnKind.DATA_NODE;
+        } else if (MATERIAL_ATTRIBUTE.matcher(column).matches()) {
+            return ColumnKind.MATERIAL_ATTRIBUTE;
+        } else if (MATERIAL_NODE.matcher(column).matches()) {
+            return SAMPLE_NODE.matcher(column).matches() ? ColumnKind.SAMPLE_NODE : ColumnKind.MATERIAL_NODE;
+        } else if (FACTOR_VALUE.matcher(column).matches()) {
+            return ColumnKind.FACTOR_VALUE;
+        } else if (UNIT.matcher(column).matches()) {
+            return ColumnKind.UNIT;
+        } else if (PROCESS_PARAMETER.matcher(column).matches()) {
+            return ColumnKind.PROCESS_PARAMETER;
+        } else if (COMMENT.matcher(column).matches()) {
+            return ColumnKind.COMMENT;
+        }
+        return ColumnKind.OTHER;
+    }
+
+    /**
+     * @param columns the header row of a table
+     * @return the kinds of its columns, in the same order
+     */
+    public static ColumnKind[] classify(String[] columns) {
+        StringBuilder signature = new StringBuilder();
+        for (String column : columns) {
+            signature.append(column).append('\t');
+        }
+        String key = signature.toString();
+
+        ColumnKind[] kinds = headerCache.get(key);
+        if (kinds == null) {
+            kinds = new ColumnKind[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                kinds[i] = classify(columns[i]);
+            }
+            if (headerCache.size() >= MAX_CACHED_HEADERS) {
+                headerCache.clear();
+            }
+            headerCache.put(key, kinds);
+        }
+        return kinds.clone();
+    }
+
+}
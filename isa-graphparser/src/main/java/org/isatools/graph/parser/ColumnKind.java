@@ -0,0 +1,16 @@
+package org.isatools.graph.parser;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Kinds of column of an ISA-tab study or assay table, as identified by ColumnClassifier.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public enum ColumnKind {
+
+    DATE, PERFORMER, PROTOCOL_EXECUTION_NODE, PROCESS_NODE, DATA_NODE, MATERIAL_ATTRIBUTE, SAMPLE_NODE, MATERIAL_NODE,
+    FACTOR_VALUE, UNIT, PROCESS_PARAMETER, COMMENT, OTHER
+
+}
@@ -0,0 +1,122 @@
+package org.isatools.graph.parser;
+
+import org.isatools.graph.model.impl.AssayTable;
+
+import java.util.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Frequencies of the values of every column of a table, computed in a single scan of the table with one primitive counter
+ * per distinct value.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class ColumnStatistics {
+
+    private AssayTable table;
+
+    //<column, <code, number of rows>>
+    private int[][] counts;
+
+    //<column, number of non empty rows>
+    private int[] nonEmptyCounts;
+
+    public ColumnStatistics(AssayTable table) {
+        this.table = table;
+        int columnCount = table.getColumnCount();
+        counts = new int[columnCount][];
+        nonEmptyCounts = new int[columnCount];
+
+        for (int col = 0; col < columnCount; col++) {
+            int[] columnCounts = new int[table.getCardinality(col)];
+            int nonEmpty = 0;
+            for (int row = 1; row < table.getRowCount(); row++) {
+                int code = table.getCode(row, col);
+                if (code != AssayTable.EMPTY) {
+                    columnCounts[code]++;
+                    nonEmpty++;
+                }
+            }
+            counts[col] = columnCounts;
+            nonEmptyCounts[col] = nonEmpty;
+        }
+    }
+
+    /**
+     * @param col the column
+     * @return the number of distinct non-empty values in the column
+     */
+    public int getCardinality(int col) {
+        return counts[col].length;
+    }
+
+    /**
+     * @param col the column
+     * @return the number of rows with a non-empty value in the column
+     */
+    public int getNonEmptyCount(int col) {
+        return nonEmptyCounts[col];
+    }
+
+    /**
+     * @param col the column
+     * @param code the code of a value of the column (see AssayTable)
+     * @return the number of rows with that value in the column
+     */
+    public int getCount(int col, int code) {
+        return counts[col][code];
+    }
+
+    /**
+     * @param col the column
+     * @return a map with the number of rows with each non-empty value of the column, in order of first appearance
+     */
+    public Map<String, Integer> getFrequencies(int col) {
+        Map<String, Integer> frequencies = new LinkedHashMap<String, Integer>();
+        addFrequencies(col, frequencies);
+        return frequencies;
+    }
+
+    /**
+     * Adds the frequencies of the values of a column to the ones in a map.
+     *
+     * @param col the column
+     * @param frequencies map with <value, number of rows>
+     */
+    public void addFrequencies(int col, Map<String, Integer> frequencies) {
+        int[] columnCounts = counts[col];
+        for (int code = 0; code < columnCounts.length; code++) {
+            String value = table.getDictionaryValue(col, code);
+            Integer previous = frequencies.get(value);
+            frequencies.put(value, previous == null ? columnCounts[code] : previous + columnCounts[code]);
+        }
+    }
+
+    /**
+     * @param col the column
+     * @param k the maximum number of values
+     * @return the k most frequent values of the column, the most frequent first; values as frequent keep their order of first appearance
+     */
+    public List<String> getTopValues(int col, int k) {
+        final int[] columnCounts = counts[col];
+        Integer[] codes = new Integer[columnCounts.length];
+        for (int code = 0; code < codes.length; code++) {
+            codes[code] = code;
+        }
+        //stable sort
+        Arrays.sort(codes, new Comparator<Integer>() {
+            public int compare(Integer code1, Integer code2) {
+                return columnCounts[code2] - columnCounts[code1];
+            }
+        });
+
+        List<String> values = new ArrayList<String>();
+        for (int i = 0; i < Math.min(k, codes.length); i++) {
+            values.add(table.getDictionaryValue(col, codes[i]));
+        }
+        return values;
+    }
+
+}
@@ -22,7 +22,8 @@ import java.util.*;
  */
 public class GraphParser {
 
-    private Object[][] assayTable;
+    private AssayTable table;
+    private ColumnStatistics statistics;
 
     private Graph graph;
     private Map<String, StudyGroup> groups;
@@ -33,7 +34,16 @@ public class GraphParser {
      * @param assayTable matrix of objects - either an study sample table or an assay table
      */
     public GraphParser(Object[][] assayTable) {
-        this.assayTable = assayTable;
+        this(new AssayTable(assayTable));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param table a study sample table or an assay table
+     */
+    public GraphParser(AssayTable table) {
+        this.table = table;
         groups = new HashMap<String, StudyGroup>();
     }
 
@@ -44,7 +54,7 @@ public class GraphParser {
 
     private void createGraph() {
         graph = new Graph();
-        String[] columns = Arrays.copyOf(assayTable[0], assayTable[0].length, String[].class);
+        String[] columns = table.getHeader();
 
         int index = 0;
 
@@ -55,21 +65,25 @@ public class GraphParser {
         ProtocolExecutionNode lastProtocolExecutionNode = null;
         List<ProtocolExecutionNode> protocolExecutionNodes = new ArrayList<ProtocolExecutionNode>();
 
+        ColumnKind[] kinds = ColumnClassifier.classify(columns);
+
         for (String column : columns) {
 
-            if (column.matches(Date.REGEXP)) {
+            ColumnKind kind = kinds[index];
+
+            if (kind == ColumnKind.DATE) {
                 Date date = new Date(index, column);
                 if (lastProtocolExecutionNode!=null){
                     lastProtocolExecutionNode.addDate(date);
                 }
 
-            }else if (column.matches(Performer.REGEXP)) {
+            }else if (kind == ColumnKind.PERFORMER) {
                 Performer performer = new Performer(index, column);
                 if (lastProtocolExecutionNode!=null){
                     lastProtocolExecutionNode.addPerformer(performer);
                 }
 
-            } else if (column.matches(ProtocolExecutionNode.REGEXP)){
+            } else if (kind == ColumnKind.PROTOCOL_EXECUTION_NODE){
                 ProtocolExecutionNode protocolExecutionNode = new ProtocolExecutionNode(index, column);
                 protocolExecutionNodes.add(protocolExecutionNode);
                 lastProtocolExecutionNode = protocolExecutionNode;
@@ -80,7 +94,7 @@ public class GraphParser {
 
                 graph.addNode(protocolExecutionNode);
 
-            }else if (column.matches(ProcessNode.REGEXP)) {
+            }else if (kind == ColumnKind.PROCESS_NODE) {
                 ProcessNode processNode = new ProcessNode(index, column);
 
                 graph.addNode(processNode);
@@ -96,7 +110,7 @@ public class GraphParser {
                     protocolExecutionNodes =  new ArrayList<ProtocolExecutionNode>();
                 }
 
-            }  else if (column.contains(ISADataNode.CONTAINS) && !column.contains("Comment")) {
+            }  else if (kind == ColumnKind.DATA_NODE) {
                 NodeWithComments dataNode = new DataNode(index, column);
                 graph.addNode(dataNode);
                 lastMaterialOrData = dataNode;
@@ -114,17 +128,17 @@ public class GraphParser {
                     protocolExecutionNodes =  new ArrayList<ProtocolExecutionNode>();
                 }
 
-            } else if (column.matches(ISAMaterialAttribute.REGEXP)) {
+            } else if (kind == ColumnKind.MATERIAL_ATTRIBUTE) {
 
                 ISAMaterialAttribute materialAttribute = new MaterialAttribute(index, column);
                 if (lastMaterialOrData != null && lastMaterialOrData instanceof MaterialNode) {
                     ((MaterialNode) graph.getNode(lastMaterialOrData.getIndex())).addMaterialAttribute(materialAttribute);
                 }
 
-            } else if (column.matches(MaterialNode.REGEXP)) {
+            } else if (kind == ColumnKind.MATERIAL_NODE || kind == ColumnKind.SAMPLE_NODE) {
 
                 NodeWithComments materialNode = null;
-                if (column.matches(ISASampleNode.REGEXP)) {
+                if (kind == ColumnKind.SAMPLE_NODE) {
                     materialNode = new SampleNode(index, column);
                     lastSample = materialNode;
                 } else {
@@ -145,7 +159,7 @@ public class GraphParser {
                     lastProcess = null;
                 }
 
-            } else if (column.matches(ISAFactorValue.REGEXP)) {
+            } else if (kind == ColumnKind.FACTOR_VALUE) {
 
                 ISAFactorValue factorValue = new FactorValue(index, column);
                 lastFactorValue = factorValue;
@@ -153,7 +167,7 @@ public class GraphParser {
                     ((SampleNode) graph.getNode(lastSample.getIndex())).addFactorValue(factorValue);
                 }
 
-            }else if (column.matches(ISAUnit.REGEXP)) {
+            }else if (kind == ColumnKind.UNIT) {
 
                 ISAUnit unit = new Unit(index, column);
                 if (lastFactorValue!=null){
@@ -161,7 +175,7 @@ public class GraphParser {
                 }
 
 
-            } else if (column.matches(ProcessParameter.REGEXP)){
+            } else if (kind == ColumnKind.PROCESS_PARAMETER){
 
                 ProcessParameter parameter = new ProcessParameter(index, column);
 
@@ -169,7 +183,7 @@ public class GraphParser {
                     ((ProcessNode)graph.getNode(lastProtocolExecutionNode.getIndex())).addParameter(parameter);
                 }
 
-            } else if (column.matches(CommentNode.REGEXP)){
+            } else if (kind == ColumnKind.COMMENT){
 
                 CommentNode commentNode = new CommentNode(index, column);
 
@@ -255,6 +269,7 @@ public class GraphParser {
         Map<String, Map<String, Integer>> resultNodes
                 = new HashMap<String, Map<String, Integer>>();
 
+        ColumnStatistics statistics = getColumnStatistics();
         List<ISANode> node = graph.getNodes(NodeType.MATERIAL_NODE);
 
         for (ISANode nodeOfInterest : node) {
@@ -263,26 +278,12 @@ public class GraphParser {
 
             for (ISANode property : materialNode.getMaterialAttributes()) {
 
-                for (int rowIndex = 1; rowIndex < assayTable.length; rowIndex++) {
+                if (property.getIndex() < table.getColumnCount() && statistics.getNonEmptyCount(property.getIndex()) > 0) {
 
-                    if (property.getIndex() < assayTable[rowIndex].length) {
-                        String[] row = Arrays.copyOf(assayTable[rowIndex], assayTable[rowIndex].length, String[].class);
-
-                        String value = row[property.getIndex()];
-                        if (value != null && !value.equals("")) {
-
-                            if (!resultNodes.containsKey(property.getName())) {
-                                resultNodes.put(property.getName(), new HashMap<String, Integer>());
-                            }
-
-                            if (!resultNodes.get(property.getName()).containsKey(value)) {
-                                resultNodes.get(property.getName()).put(value, 1);
-                            } else {
-                                int newCount = resultNodes.get(property.getName()).get(value) + 1;
-                                resultNodes.get(property.getName()).put(value, newCount);
-                            }
-                        }
+                    if (!resultNodes.containsKey(property.getName())) {
+                        resultNodes.put(property.getName(), new HashMap<String, Integer>());
                     }
+                    statistics.addFrequencies(property.getIndex(), resultNodes.get(property.getName()));
                 }
             }
         }
@@ -297,33 +298,51 @@ public class GraphParser {
     private Map<String, Integer> extractNodes(NodeType type) {
         Map<String, Integer> resultNodes = new HashMap<String, Integer>();
 
+        ColumnStatistics statistics = getColumnStatistics();
         List<ISANode> node = graph.getNodes(type);
 
         for (ISANode nodeOfInterest : node) {
             // extract the values!
-            for (int rowIndex = 1; rowIndex < assayTable.length; rowIndex++) {
-                if (nodeOfInterest.getIndex() < assayTable[rowIndex].length) {
-
-                    String[] row = Arrays.copyOf(assayTable[rowIndex], assayTable[rowIndex].length, String[].class);
-                    String value = row[nodeOfInterest.getIndex()];
-                    if (value != null && !value.equals("")) {
-                        if (!resultNodes.containsKey(value)) {
-                            resultNodes.put(value, 1);
-                        } else {
-                            int newCount = resultNodes.get(value) + 1;
-                            resultNodes.put(value, newCount);
-                        }
-
-                    }
-                }
+            if (nodeOfInterest.getIndex() < table.getColumnCount()) {
+                statistics.addFrequencies(nodeOfInterest.getIndex(), resultNodes);
             }
         }
 
         return resultNodes;
     }
 
+    /**
+     * @return the frequencies of the values of all the columns of the table, computed the first time they are needed
+     */
+    public ColumnStatistics getColumnStatistics() {
+        if (statistics == null) {
+            statistics = new ColumnStatistics(table);
+        }
+        return statistics;
+    }
+
     private void extractGroups() {
-        groups = getDataGroupsWithTypeByColumn(assayTable, "Factor", false, false);
+        groups = getDataGroupsWithTypeByColumn(table, "Factor", false, false);
+    }
+
+    /**
+     * Adds the groups of a batch of rows with the same header as the table parsed, as read by an AssayTableReader.
+     * The members of a group found in several batches are merged.
+     *
+     * @param batch the rows
+     */
+    public void addGroups(AssayTable batch) {
+        Map<String, StudyGroup> batchGroups = getDataGroupsWithTypeByColumn(batch, "Factor", false, false);
+        for (Map.Entry<String, StudyGroup> entry : batchGroups.entrySet()) {
+            StudyGroup studyGroup = groups.get(entry.getKey());
+            if (studyGroup == null) {
+                groups.put(entry.getKey(), entry.getValue());
+            } else {
+                for (String member : entry.getValue().getGroupMembers()) {
+                    studyGroup.addGroupMember(member);
+                }
+            }
+        }
     }
 
     public Map<String, StudyGroup> getGroups() {
@@ -334,98 +353,28 @@ public class GraphParser {
         return graph;
     }
 
+    public AssayTable getTable() {
+        return table;
+    }
+
 
     /***
      *
      * Method to create the data groups.
      * This method determines the labels to be used for groups.
      *
-     * @param fileContents a matrix of Objects, which is the contents of the spreadsheet
+     * @param fileContents the contents of the spreadsheet
      * @param group a string indicating the column to consider to form the groups, e.g. Factor
      * @param exactMatch true or false indicating whether the string match is exact or not
      * @param includeColumnNames true or false indicating if the columns names are included in the result
      *                           (e.g if true the result will be 'Factor Value[<specific value>]', otherwise it will be '<specific value>' only)
      * @return Map<String, String>
      */
-    private Map<String, StudyGroup> getDataGroupsWithTypeByColumn(Object[][] fileContents,
+    private Map<String, StudyGroup> getDataGroupsWithTypeByColumn(AssayTable fileContents,
                                                                    String group,
                                                                    boolean exactMatch,
                                                                    boolean includeColumnNames) {
-
-        //map for resulting groups
-        //group name, study group object
-        Map<String, StudyGroup> groups = new HashMap<String, StudyGroup>();
-
-
-        String[] columnNames = Arrays.copyOf(fileContents[0],fileContents[0].length, String[].class);
-
-        boolean allowedUnit = false;
-        for (int row = 1; row < fileContents.length; row++) {
-            Map<String, String> groupDefinition = new HashMap<String, String>();
-
-            String groupVal = "";
-            int elementsNumber = 0;
-            for (int col = 0; col < columnNames.length; col++) {
-                String column = columnNames[col];
-
-                boolean match = false;
-
-                if (exactMatch) {
-                    if (column.equalsIgnoreCase(group)) {
-                        match = true;
-                    } else if (allowedUnit && column.equalsIgnoreCase("unit")) {
-                        match = true;
-                    }
-                } else {
-                    if (column.contains(group)) {
-                        match = true;
-                    } else if (allowedUnit && column.equalsIgnoreCase("unit")) {
-                        match = true;
-                    }
-                }
-
-                if (match) {
-                    if (!fileContents[row][col].equals("")) {
-                        groupVal += (elementsNumber>0? "|": "") + (includeColumnNames ? extractColumnType(column)+"=" : " ") + fileContents[row][col];
-                        groupDefinition.put(extractColumnType(column), (String) fileContents[row][col]);
-                        elementsNumber++;
-                        allowedUnit = true;
-                    }
-                } else allowedUnit = column.contains("Term Source REF") || column.contains("Term Accession Number");
-            }
-            if (!groupVal.equals("")) {
-                groupVal = groupVal.trim();
-
-
-                if (!groups.containsKey(groupVal)) {
-                    groups.put(groupVal, new StudyGroup(group, groupVal));
-                }
-
-                StudyGroup studyGroup = groups.get(groupVal);
-                studyGroup.addGroupMember(getColValAtRow(fileContents, columnNames, "Sample Name", row));
-                studyGroup.setGroupDefinition(groupDefinition);
-            }
-        }
-
-        return groups;
-    }
-
-    private String extractColumnType(String column){
-        if (column.indexOf('[')!=-1)
-            return column.substring(column.indexOf('[')+1, column.indexOf(']'));
-        else
-            return column;
-    }
-
-    private String getColValAtRow(Object[][] fileContents, String[] columnNames, String colName, int rowNumber) {
-        for (int col = 0; col < columnNames.length; col++) {
-
-            if (columnNames[col].equalsIgnoreCase(colName)) {
-                // safety precaution to finalise any cells. otherwise their value would be missed!
-                return (String)fileContents[rowNumber][col];
-            }
-        }
-        return "";
+        return new GroupExtractor(group, exactMatch, includeColumnNames).extract(fileContents);
     }
 }
 
@@ -0,0 +1,201 @@
+package org.isatools.graph.parser;
+
+import org.isatools.graph.model.impl.AssayTable;
+import org.isatools.graph.model.impl.StudyGroup;
+
+import java.util.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Builds the study groups of a table: the rows with the same values in the group columns (e.g. the Factor Value columns,
+ * and the Unit columns following them) form a group, whose members are the values in the Sample Name column.
+ *
+ * The group columns, their types and the Sample Name column are resolved once from the header. Each row is then reduced
+ * to the tuple of codes of its group cells, which is hashed directly; the name and definition of a group are only built
+ * the first time its tuple is found. The groups are built in one pass over the rows.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class GroupExtractor {
+
+    private static final String SAMPLE_NAME = "Sample Name";
+
+    //code for a Unit column not used as part of the group in a row
+    private static final int NOT_USED = -2;
+
+    private String group;
+    private boolean exactMatch;
+    private boolean includeColumnNames;
+
+    /**
+     * Constructor
+     *
+     * @param group a string indicating the columns to consider to form the groups, e.g. Factor
+     * @param exactMatch true or false indicating whether the string match is exact or not
+     * @param includeColumnNames true or false indicating if the columns names are included in the group names
+     *                           (e.g if true the name will be 'Factor Value[<specific value>]', otherwise it will be '<specific value>' only)
+     */
+    public GroupExtractor(String group, boolean exactMatch, boolean includeColumnNames) {
+        this.group = group;
+        this.exactMatch = exactMatch;
+        this.includeColumnNames = includeColumnNames;
+    }
+
+    /**
+     * @param table the table
+     * @return the groups, by name
+     */
+    public Map<String, StudyGroup> extract(AssayTable table) {
+        Map<String, StudyGroup> groups = new HashMap<String, StudyGroup>();
+
+        String[] columnNames = table.getHeader();
+        int columnCount = columnNames.length;
+
+        //resolve the columns once
+        boolean[] groupColumn = new boolean[columnCount];
+        boolean[] unitColumn = new boolean[columnCount];
+        boolean[] termColumn = new boolean[columnCount];
+        String[] columnTypes = new String[columnCount];
+        int sampleNameColumn = -1;
+        int candidates = 0;
+        for (int col = 0; col < columnCount; col++) {
+            String column = columnNames[col];
+            groupColumn[col] = exactMatch ? column.equalsIgnoreCase(group) : column.contains(group);
+            unitColumn[col] = column.equalsIgnoreCase("unit");
+            termColumn[col] = column.contains("Term Source REF") || column.contains("Term Accession Number");
+            columnTypes[col] = extractColumnType(column);
+            if (groupColumn[col] || unitColumn[col]) {
+                candidates++;
+            }
+            if (sampleNameColumn == -1 && column.equalsIgnoreCase(SAMPLE_NAME)) {
+                sampleNameColumn = col;
+            }
+        }
+
+        int[] candidateColumns = new int[candidates];
+        for (int col = 0, i = 0; col < columnCount; col++) {
+            if (groupColumn[col] || unitColumn[col]) {
+                candidateColumns[i++] = col;
+            }
+        }
+
+        //<tuple of codes, group>
+        Map<GroupKey, StudyGroup> groupsByKey = new HashMap<GroupKey, StudyGroup>();
+        Map<GroupKey, Map<String, String>> definitionsByKey = new HashMap<GroupKey, Map<String, String>>();
+
+        //whether a unit column is part of the group carries over from the previous cells, as it always did
+        boolean allowedUnit = false;
+        int[] codes = new int[candidates];
+        for (int row = 1; row < table.getRowCount(); row++) {
+
+            int hash = 1;
+            boolean nonEmpty = false;
+            for (int col = 0, i = 0; col < columnCount; col++) {
+                boolean match = groupColumn[col] || (allowedUnit && unitColumn[col]);
+
+                if (match) {
+                    int code = table.getCode(row, col);
+                    codes[i] = code;
+                    if (code != AssayTable.EMPTY) {
+                        nonEmpty = true;
+                        allowedUnit = true;
+                    }
+                } else {
+                    if (unitColumn[col]) {
+                        codes[i] = NOT_USED;
+                    }
+                    allowedUnit = termColumn[col];
+                }
+
+                if (groupColumn[col] || unitColumn[col]) {
+                    hash = 31 * hash + codes[i];
+                    i++;
+                }
+            }
+
+            if (!nonEmpty) {
+                continue;
+            }
+
+            GroupKey key = new GroupKey(codes, hash);
+            StudyGroup studyGroup = groupsByKey.get(key);
+            if (studyGroup == null) {
+                String groupName = buildGroupName(table, row, candidateColumns, codes, columnTypes);
+                studyGroup = groups.get(groupName);
+                if (studyGroup == null) {
+                    studyGroup = new StudyGroup(group, groupName);
+                    groups.put(groupName, studyGroup);
+                }
+                key = new GroupKey(codes.clone(), hash);
+                groupsByKey.put(key, studyGroup);
+                definitionsByKey.put(key, buildGroupDefinition(table, row, candidateColumns, codes, columnTypes));
+            }
+
+            studyGroup.addGroupMember(sampleNameColumn == -1 ? "" : table.getValue(row, sampleNameColumn));
+            studyGroup.setGroupDefinition(definitionsByKey.get(key));
+        }
+
+        return groups;
+    }
+
+    private String buildGroupName(AssayTable table, int row, int[] candidateColumns, int[] codes, String[] columnTypes) {
+        StringBuilder groupVal = new StringBuilder();
+        int elementsNumber = 0;
+        for (int i = 0; i < candidateColumns.length; i++) {
+            if (codes[i] == AssayTable.EMPTY || codes[i] == NOT_USED) {
+                continue;
+            }
+            int col = candidateColumns[i];
+            if (elementsNumber > 0) {
+                groupVal.append('|');
+            }
+            groupVal.append(includeColumnNames ? columnTypes[col] + "=" : " ").append(table.getValue(row, col));
+            elementsNumber++;
+        }
+        return groupVal.toString().trim();
+    }
+
+    private Map<String, String> buildGroupDefinition(AssayTable table, int row, int[] candidateColumns, int[] codes, String[] columnTypes) {
+        Map<String, String> groupDefinition = new HashMap<String, String>();
+        for (int i = 0; i < candidateColumns.length; i++) {
+            if (codes[i] == AssayTable.EMPTY || codes[i] == NOT_USED) {
+                continue;
+            }
+            groupDefinition.put(columnTypes[candidateColumns[i]], table.getValue(row, candidateColumns[i]));
+        }
+        return groupDefinition;
+    }
+
+    static String extractColumnType(String column) {
+        if (column.indexOf('[') != -1)
+            return column.substring(column.indexOf('[') + 1, column.indexOf(']'));
+        else
+            return column;
+    }
+
+    /**
+     * The codes of the group cells of a row, with their hash computed once.
+     */
+    private static class GroupKey {
+        private final int[] codes;
+        private final int hash;
+
+        GroupKey(int[] codes, int hash) {
+            this.codes = codes;
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof GroupKey && Arrays.equals(codes, ((GroupKey) o).codes);
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+package org.isatools.graph.model.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Test class for AssayTable
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class AssayTableTest {
+
+    @Test
+    public void testEncoding() {
+        Object[][] data = new Object[][]{
+                { "Source Name", "Characteristics[organism]", "Sample Name" },
+                { "source1", "Homo sapiens", "sample1" },
+                { "source1", "", "sample2" },
+                { "source2", "Homo sapiens", null },
+                { "source3" }
+        };
+        AssayTable table = new AssayTable(data);
+
+        assertEquals(5, table.getRowCount());
+        assertEquals(3, table.getColumnCount());
+        assertEquals("Sample Name", table.getColumnName(2));
+        assertEquals("Sample Name", table.getValue(0, 2));
+
+        assertEquals("source1", table.getValue(1, 0));
+        assertEquals(table.getCode(1, 0), table.getCode(2, 0));
+        assertFalse(table.getCode(1, 0) == table.getCode(3, 0));
+        assertEquals(3, table.getCardinality(0));
+
+        assertTrue(table.isEmpty(2, 1));
+        assertEquals("", table.getValue(2, 1));
+        assertEquals(AssayTable.EMPTY, table.getCode(3, 2));
+        assertTrue(table.isEmpty(4, 1));
+        assertTrue(table.isEmpty(4, 2));
+        assertEquals(1, table.getCardinality(1));
+        assertEquals("Homo sapiens", table.getDictionaryValue(1, table.getCode(3, 1)));
+    }
+
+}
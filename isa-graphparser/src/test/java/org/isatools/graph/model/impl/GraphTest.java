@@ -0,0 +1,48 @@
+package org.isatools.graph.model.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Test class for the node indexes of Graph
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class GraphTest {
+
+    @Test
+    public void testIndexes() {
+        Graph graph = new Graph();
+        MaterialNode source = new MaterialNode(0, "Source Name");
+        ProtocolExecutionNode protocol = new ProtocolExecutionNode(1, "Protocol REF");
+        SampleNode sample = new SampleNode(2, "Sample Name");
+        ProcessNode assay = new ProcessNode(40, "Assay Name");
+        ProcessNode normalization = new ProcessNode(41, "Normalization Name");
+        DataNode data = new DataNode(42, "Raw Data File");
+        graph.addNode(source);
+        graph.addNode(protocol);
+        graph.addNode(sample);
+        graph.addNode(assay);
+        graph.addNode(normalization);
+        graph.addNode(data);
+
+        assertSame(sample, graph.getNode(2));
+        assertSame(data, graph.getNode(42));
+        assertNull(graph.getNode(3));
+        assertNull(graph.getNode(100));
+
+        assertEquals(2, graph.getNodes(NodeType.MATERIAL_NODE).size());
+        assertSame(source, graph.getNodes(NodeType.MATERIAL_NODE).get(0));
+        assertEquals(1, graph.getNodes(NodeType.PROTOCOL_EXECUTION_NODE).size());
+        assertSame(assay, graph.getNodes(NodeType.ASSAY_NODE).get(0));
+        assertSame(normalization, graph.getNodes(NodeType.PROCESS_NODE).get(0));
+        assertEquals(1, graph.getNodes(NodeType.PROCESS_NODE).size());
+        assertSame(data, graph.getNodes(NodeType.DATA_NODE).get(0));
+        assertEquals(6, graph.getNodes().size());
+    }
+
+}
@@ -0,0 +1,98 @@
+package org.isatools.graph.parser;
+
+import org.isatools.graph.model.impl.AssayTable;
+import org.isatools.graph.model.impl.StudyGroup;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Test class for AssayTableReader
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class AssayTableReaderTest {
+
+    private static final String TABLE =
+            "\"Source Name\"\t\"Sample Name\"\t\"Factor Value[dose]\"\t\"Comment[note]\"\n" +
+            "\"source1\"\t\"sample1\"\t\"10\"\t\"a \"\"quoted\"\" note\"\n" +
+            "\"source2\"\t\"sample2\"\t\"10\"\t\"two\nlines\"\r\n" +
+            "\n" +
+            "source3\tsample3\t20\n" +
+            "\"source4\"\t\"sample4\"\t\"20\"\t\"tab\tinside\"\t\"extra\"\n";
+
+    @Test
+    public void testBatches() throws IOException {
+        AssayTableReader reader = new AssayTableReader(new StringReader(TABLE), 3);
+
+        assertArrayEquals(new String[]{ "Source Name", "Sample Name", "Factor Value[dose]", "Comment[note]" }, reader.getHeader());
+        assertEquals(1, reader.getHeaderTable().getRowCount());
+
+        AssayTable batch = reader.next();
+        assertEquals(4, batch.getRowCount());
+        assertEquals("a \"quoted\" note", batch.getValue(1, 3));
+        assertEquals("two\nlines", batch.getValue(2, 3));
+        assertEquals("source3", batch.getValue(3, 0));
+        assertTrue(batch.isEmpty(3, 3));
+
+        batch = reader.next();
+        assertEquals(2, batch.getRowCount());
+        assertEquals(4, batch.getColumnCount());
+        assertEquals("tab\tinside", batch.getValue(1, 3));
+
+        assertNull(reader.next());
+        assertEquals(4, reader.getRowsRead());
+        reader.close();
+    }
+
+    @Test
+    public void testNormalizeTerms() throws IOException {
+        String table = "Source Name\tCharacteristics[organism]\tTerm Source REF\tTerm Accession Number\tComment[note]\n" +
+                "source1\tHomo sapiens\tNCBITAXON\t9606\tnote\n" +
+                "source2\tMus musculus\t\t\tnote\n";
+
+        AssayTableReader reader = new AssayTableReader(new StringReader(table), 10);
+        assertEquals("Homo sapiens", reader.next().getValue(1, 1));
+        reader.close();
+
+        reader = new AssayTableReader(new StringReader(table), 10);
+        reader.setNormalizeTerms(true);
+        AssayTable batch = reader.next();
+        assertEquals("NCBITAXON:Homo sapiens", batch.getValue(1, 1));
+        assertEquals("NCBITAXON", batch.getValue(1, 2));
+        assertEquals("Mus musculus", batch.getValue(2, 1));
+        assertEquals("source1", batch.getValue(1, 0));
+        reader.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void testNoHeader() throws IOException {
+        new AssayTableReader(new StringReader("\n\n"), 10);
+    }
+
+    @Test
+    public void testGroupsInBatches() throws IOException {
+        AssayTableReader reader = new AssayTableReader(new StringReader(TABLE), 1);
+        GraphParser parser = new GraphParser(reader.getHeaderTable());
+        parser.parse();
+        assertTrue(parser.getGroups().isEmpty());
+
+        AssayTable batch = null;
+        while ((batch = reader.next()) != null) {
+            parser.addGroups(batch);
+        }
+
+        Map<String, StudyGroup> groups = parser.getGroups();
+        assertEquals(2, groups.size());
+        assertEquals(new HashSet<String>(Arrays.asList("sample1", "sample2")), groups.get("10").getGroupMembers());
+        assertEquals(new HashSet<String>(Arrays.asList("sample3", "sample4")), groups.get("20").getGroupMembers());
+    }
+
+}
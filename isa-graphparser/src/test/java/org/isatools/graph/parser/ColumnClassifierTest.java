@@ -0,0 +1,48 @@
+package org.isatools.graph.parser;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Test class for ColumnClassifier
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class ColumnClassifierTest {
+
+    @Test
+    public void testClassify() {
+        assertEquals(ColumnKind.MATERIAL_NODE, ColumnClassifier.classify("Source Name"));
+        assertEquals(ColumnKind.SAMPLE_NODE, ColumnClassifier.classify("Sample Name"));
+        assertEquals(ColumnKind.MATERIAL_NODE, ColumnClassifier.classify("Labeled Extract Name"));
+        assertEquals(ColumnKind.MATERIAL_ATTRIBUTE, ColumnClassifier.classify("Characteristics[organism]"));
+        assertEquals(ColumnKind.PROTOCOL_EXECUTION_NODE, ColumnClassifier.classify("Protocol REF"));
+        assertEquals(ColumnKind.PROTOCOL_EXECUTION_NODE, ColumnClassifier.classify("protocol ref"));
+        assertEquals(ColumnKind.PROCESS_NODE, ColumnClassifier.classify("Hybridization Assay Name"));
+        assertEquals(ColumnKind.PROCESS_NODE, ColumnClassifier.classify("Normalization Name"));
+        assertEquals(ColumnKind.DATA_NODE, ColumnClassifier.classify("Raw Data File"));
+        assertEquals(ColumnKind.COMMENT, ColumnClassifier.classify("Comment[Data File]"));
+        assertEquals(ColumnKind.PROCESS_PARAMETER, ColumnClassifier.classify("Parameter Value[instrument]"));
+        assertEquals(ColumnKind.FACTOR_VALUE, ColumnClassifier.classify("Factor Value[dose]"));
+        assertEquals(ColumnKind.UNIT, ColumnClassifier.classify("Unit"));
+        assertEquals(ColumnKind.PERFORMER, ColumnClassifier.classify("Performer"));
+        assertEquals(ColumnKind.DATE, ColumnClassifier.classify("Date"));
+        assertEquals(ColumnKind.OTHER, ColumnClassifier.classify("Term Source REF"));
+    }
+
+    @Test
+    public void testClassifyHeader() {
+        String[] header = new String[]{ "Source Name", "Protocol REF", "Sample Name", "Term Source REF" };
+        ColumnKind[] kinds = ColumnClassifier.classify(header);
+        assertArrayEquals(new ColumnKind[]{ ColumnKind.MATERIAL_NODE, ColumnKind.PROTOCOL_EXECUTION_NODE, ColumnKind.SAMPLE_NODE, ColumnKind.OTHER }, kinds);
+
+        //cached result is not shared with the caller
+        kinds[0] = null;
+        assertEquals(ColumnKind.MATERIAL_NODE, ColumnClassifier.classify(header)[0]);
+    }
+
+}
@@ -0,0 +1,59 @@
+package org.isatools.graph.parser;
+
+import org.isatools.graph.model.impl.AssayTable;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Test class for ColumnStatistics and the GraphParser methods relying on it
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class ColumnStatisticsTest {
+
+    private static final Object[][] DATA = new Object[][]{
+            { "Source Name", "Characteristics[organism]", "Protocol REF", "Sample Name", "Raw Data File", "Derived Data File" },
+            { "source1", "Homo sapiens", "extraction", "sample1", "file1", "file2" },
+            { "source2", "Mus musculus", "extraction", "sample2", "file1", "" },
+            { "source3", "Mus musculus", "extraction", "sample3", "file3", "file1" },
+            { "source4", "", "extraction", "sample4", "", "" }
+    };
+
+    @Test
+    public void testStatistics() {
+        ColumnStatistics statistics = new ColumnStatistics(new AssayTable(DATA));
+
+        assertEquals(2, statistics.getCardinality(1));
+        assertEquals(3, statistics.getNonEmptyCount(1));
+        assertEquals(Arrays.asList("Mus musculus", "Homo sapiens"), statistics.getTopValues(1, 5));
+        assertEquals(Arrays.asList("Mus musculus"), statistics.getTopValues(1, 1));
+
+        Map<String, Integer> frequencies = statistics.getFrequencies(4);
+        assertEquals(Integer.valueOf(2), frequencies.get("file1"));
+        assertEquals(Integer.valueOf(1), frequencies.get("file3"));
+        assertEquals(2, frequencies.size());
+    }
+
+    @Test
+    public void testExtract() {
+        GraphParser parser = new GraphParser(DATA);
+        parser.parse();
+
+        Map<String, Integer> dataNodes = parser.extractDataNodes();
+        assertEquals(Integer.valueOf(3), dataNodes.get("file1"));
+        assertEquals(Integer.valueOf(1), dataNodes.get("file2"));
+        assertEquals(Integer.valueOf(1), dataNodes.get("file3"));
+
+        Map<String, Map<String, Integer>> attributes = parser.extractMaterialAttributes();
+        assertEquals(Integer.valueOf(2), attributes.get("Characteristics[organism]").get("Mus musculus"));
+        assertEquals(1, attributes.size());
+    }
+
+}
@@ -0,0 +1,100 @@
+package org.isatools.graph.parser;
+
+import org.isatools.graph.model.impl.AssayTable;
+import org.isatools.graph.model.impl.StudyGroup;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Test class for GroupExtractor
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class GroupExtractorTest {
+
+    private static final String[] HEADER = new String[]{ "Source Name", "Sample Name", "Factor Value[dose]", "Unit",
+            "Term Source REF", "Term Accession Number", "Factor Value[compound]", "Term Source REF", "Comment[note]" };
+
+    @Test
+    public void testGroups() {
+        Object[][] data = new Object[][]{
+                HEADER,
+                { "source1", "sample1", "10", "mg", "UO", "UO_0000022", "aspirin", "CHEBI", "a" },
+                { "source2", "sample2", "10", "mg", "UO", "UO_0000022", "aspirin", "CHEBI", "b" },
+                { "source3", "sample3", "20", "mg", "UO", "UO_0000022", "aspirin", "CHEBI", "" },
+                { "source4", "sample4", "", "", "", "", "", "", "" }
+        };
+        Map<String, StudyGroup> groups = new GroupExtractor("Factor", false, false).extract(new AssayTable(data));
+
+        assertEquals(2, groups.size());
+        StudyGroup group = groups.get("10| mg| aspirin");
+        assertNotNull(group);
+        assertEquals(new HashSet<String>(Arrays.asList("sample1", "sample2")), group.getGroupMembers());
+        assertEquals("aspirin", group.getGroupDefinition().get("compound"));
+        assertEquals("mg", group.getGroupDefinition().get("Unit"));
+        assertEquals(new HashSet<String>(Arrays.asList("sample3")), groups.get("20| mg| aspirin").getGroupMembers());
+    }
+
+    @Test
+    public void testSameAsStringConcatenation() {
+        Random random = new Random(42);
+        String[] doses = new String[]{ "", "1", "10", "100" };
+        String[] units = new String[]{ "", "mg", "g" };
+        String[] compounds = new String[]{ "", "aspirin", "placebo" };
+
+        Object[][] data = new Object[2001][];
+        data[0] = HEADER;
+        for (int row = 1; row < data.length; row++) {
+            data[row] = new Object[]{ "source" + row, "sample" + row, doses[random.nextInt(doses.length)],
+                    units[random.nextInt(units.length)], "UO", "", compounds[random.nextInt(compounds.length)], "", "" };
+        }
+
+        for (boolean includeColumnNames : new boolean[]{ false, true }) {
+            Map<String, StudyGroup> groups = new GroupExtractor("Factor", false, includeColumnNames).extract(new AssayTable(data));
+            Map<String, Set<String>> expected = concatenationGroups(data, "Factor", includeColumnNames);
+
+            assertEquals(expected.keySet(), groups.keySet());
+            for (String name : expected.keySet()) {
+                assertEquals(expected.get(name), groups.get(name).getGroupMembers());
+            }
+        }
+    }
+
+    //the grouping as it was done by building the group name for every row
+    private static Map<String, Set<String>> concatenationGroups(Object[][] fileContents, String group, boolean includeColumnNames) {
+        Map<String, Set<String>> groups = new HashMap<String, Set<String>>();
+        String[] columnNames = Arrays.copyOf(fileContents[0], fileContents[0].length, String[].class);
+
+        boolean allowedUnit = false;
+        for (int row = 1; row < fileContents.length; row++) {
+            String groupVal = "";
+            int elementsNumber = 0;
+            for (int col = 0; col < columnNames.length; col++) {
+                String column = columnNames[col];
+                boolean match = column.contains(group) || (allowedUnit && column.equalsIgnoreCase("unit"));
+                if (match) {
+                    if (!fileContents[row][col].equals("")) {
+                        groupVal += (elementsNumber > 0 ? "|" : "") + (includeColumnNames ? GroupExtractor.extractColumnType(column) + "=" : " ") + fileContents[row][col];
+                        elementsNumber++;
+                        allowedUnit = true;
+                    }
+                } else allowedUnit = column.contains("Term Source REF") || column.contains("Term Accession Number");
+            }
+            if (!groupVal.equals("")) {
+                groupVal = groupVal.trim();
+                if (!groups.containsKey(groupVal)) {
+                    groups.put(groupVal, new HashSet<String>());
+                }
+                groups.get(groupVal).add((String) fileContents[row][1]);
+            }
+        }
+        return groups;
+    }
+
+}
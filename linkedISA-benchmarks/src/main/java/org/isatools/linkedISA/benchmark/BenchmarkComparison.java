@@ -0,0 +1,209 @@
+package org.isatools.linkedISA.benchmark;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Compares the results of two runs of the benchmarks, saved by JMH as CSV files (-rf csv -rff file.csv), e.g. those of a
+ * change with those of the commit it is based on.
+ *
+ * The scores are matched by benchmark, mode and parameters, including the secondary results of the profilers such as
+ * gc.alloc.rate.norm. For each pair, it prints the change relative to the baseline and flags it as a regression when the
+ * score got worse by more than the threshold: higher for times and allocations, lower for throughputs.
+ *
+ * Run with: java -cp linkedISA-benchmarks/target/benchmarks.jar org.isatools.linkedISA.benchmark.BenchmarkComparison baseline.csv current.csv [threshold %]
+ *
+ * The exit status is 1 if there is any regression, so that it can be used to check a change automatically.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class BenchmarkComparison {
+
+    public static final double DEFAULT_THRESHOLD = 10.0;
+
+    private static final String BENCHMARK = "Benchmark";
+    private static final String MODE = "Mode";
+    private static final String SCORE = "Score";
+    private static final String UNIT = "Unit";
+    private static final String PARAM_PREFIX = "Param: ";
+
+    /**
+     * Score of a benchmark, with its unit.
+     */
+    public static class Result {
+
+        private final String mode;
+        private final double score;
+        private final String unit;
+
+        public Result(String mode, double score, String unit){
+            this.mode = mode;
+            this.score = score;
+            this.unit = unit;
+        }
+
+        public String getMode(){
+            return mode;
+        }
+
+        public double getScore(){
+            return score;
+        }
+
+        public String getUnit(){
+            return unit;
+        }
+
+        /**
+         * @return true if higher scores are better, i.e. for throughputs
+         */
+        public boolean isHigherBetter(){
+            return mode.equals("thrpt") && !unit.startsWith("B/") && !unit.startsWith("MB/");
+        }
+    }
+
+    private BenchmarkComparison(){
+    }
+
+    /**
+     * Reads the results of a run.
+     *
+     * @param csv the CSV file written by JMH
+     * @return the results, by benchmark, mode and parameters, in the order of the file
+     * @throws IOException if the file cannot be read or it is not a JMH result file
+     */
+    public static Map<String, Result> read(File csv) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(csv), "UTF-8"));
+        try {
+            String line = reader.readLine();
+            if (line == null)
+                throw new IOException("The file " + csv + " is empty");
+            List<String> header = parseLine(line);
+            int benchmarkColumn = header.indexOf(BENCHMARK);
+            int modeColumn = header.indexOf(MODE);
+            int scoreColumn = header.indexOf(SCORE);
+            int unitColumn = header.indexOf(UNIT);
+            if (benchmarkColumn < 0 || modeColumn < 0 || scoreColumn < 0 || unitColumn < 0)
+                throw new IOException("The file " + csv + " is not a JMH CSV result file");
+
+            Map<String, Result> results = new LinkedHashMap<String, Result>();
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().length() == 0)
+                    continue;
+                List<String> fields = parseLine(line);
+                StringBuilder key = new StringBuilder(fields.get(benchmarkColumn)).append(" (").append(fields.get(modeColumn));
+                for (int i = 0; i < header.size() && i < fields.size(); i++) {
+                    if (header.get(i).startsWith(PARAM_PREFIX) && fields.get(i).length() > 0)
+                        key.append(", ").append(header.get(i).substring(PARAM_PREFIX.length())).append('=').append(fields.get(i));
+                }
+                key.append(')');
+                results.put(key.toString(), new Result(fields.get(modeColumn), parseScore(fields.get(scoreColumn)), fields.get(unitColumn)));
+            }
+            return results;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Compares two runs, printing a line for each result in both of them.
+     *
+     * @param baseline the results of the reference run
+     * @param current the results of the run being checked
+     * @param threshold the change, in percentage, above which a worse score is a regression
+     * @param out where the comparison is printed
+     * @return the number of regressions
+     */
+    public static int compare(Map<String, Result> baseline, Map<String, Result> current, double threshold, PrintStream out){
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                out.println("NEW        " + entry.getKey() + ": " + format(entry.getValue()));
+                continue;
+            }
+            Result after = entry.getValue();
+            double change = before.getScore() == 0 ? 0 : 100.0 * (after.getScore() - before.getScore()) / before.getScore();
+            double worse = after.isHigherBetter() ? -change : change;
+            String status = "";
+            if (worse > threshold) {
+                status = "REGRESSION";
+                regressions++;
+            } else if (worse < -threshold) {
+                status = "IMPROVED";
+            }
+            out.println(pad(status) + " " + entry.getKey() + ": " + format(before) + " to " + format(after)
+                    + String.format(Locale.ENGLISH, " (%+.1f%%)", change));
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key))
+                out.println("MISSING    " + key);
+        }
+        return regressions;
+    }
+
+    private static String format(Result result){
+        return String.format(Locale.ENGLISH, "%.3f %s", result.getScore(), result.getUnit());
+    }
+
+    private static String pad(String status){
+        StringBuilder padded = new StringBuilder(status);
+        while (padded.length() < 10)
+            padded.append(' ');
+        return padded.toString();
+    }
+
+    private static double parseScore(String score){
+        try {
+            return Double.parseDouble(score);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Splits a line of a CSV file, with optionally double-quoted fields.
+     */
+    static List<String> parseLine(String line){
+        List<String> fields = new ArrayList<String>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison baseline.csv current.csv [threshold %]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        int regressions = compare(read(new File(args[0])), read(new File(args[1])), threshold, System.out);
+        System.out.println(regressions + " regression(s) above " + threshold + "%");
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+}
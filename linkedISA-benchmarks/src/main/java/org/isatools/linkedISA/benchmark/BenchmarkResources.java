@@ -0,0 +1,94 @@
+package org.isatools.linkedISA.benchmark;
+
+import org.isatools.linkedISA.mapping.ISASyntax2LinkedMapping;
+import org.isatools.linkedISA.mapping.ISASyntax2LinkedMappingFiles;
+import org.isatools.linkedISA.mapping.LinkedISAMappingParser;
+
+import java.io.File;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Locates the datasets, configurations and mapping files used by the benchmarks in the sources of linkedISA-core.
+ *
+ * The converter reads the ISA-tab datasets from directories, so they are used where they are rather than copied into the
+ * benchmarks jar. The sources are found from the linkedISA.core system property, if set, or otherwise from the working
+ * directory, which can be the root of the project or any of its modules.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class BenchmarkResources {
+
+    public static final String CORE_PROPERTY = "linkedISA.core";
+    public static final String CONFIGURATION = "isaconfig-default_v2014-01-16";
+
+    private static final String[] MAPPING_FILENAMES = {
+            ISASyntax2LinkedMappingFiles.ISA_OBI_MAPPING_FILENAME,
+            ISASyntax2LinkedMappingFiles.ISA_ISA_MAPPING_FILENAME,
+            ISASyntax2LinkedMappingFiles.ISA_PROV_O_MAPPING_FILENAME
+    };
+
+    private BenchmarkResources(){
+    }
+
+    /**
+     * @return the src directory of linkedISA-core
+     * @throws IllegalStateException if it cannot be found
+     */
+    public static File getCoreSourceDirectory(){
+        String core = System.getProperty(CORE_PROPERTY);
+        if (core != null)
+            return checkDirectory(new File(core, "src"));
+
+        File workingDir = new File(System.getProperty("user.dir")).getAbsoluteFile();
+        for(File dir = workingDir; dir != null; dir = dir.getParentFile()){
+            File src = new File(new File(dir, "linkedISA-core"), "src");
+            if (src.isDirectory())
+                return src;
+        }
+        throw new IllegalStateException("The sources of linkedISA-core were not found from " + workingDir
+                + "; set the " + CORE_PROPERTY + " property to the linkedISA-core directory");
+    }
+
+    /**
+     * @param dataset the name of a directory under ISAtab-Datasets, e.g. BII-I-1
+     * @return the directory of the dataset
+     */
+    public static File getDatasetDirectory(String dataset){
+        return checkDirectory(new File(getTestResourcesDirectory(), "ISAtab-Datasets" + File.separator + dataset));
+    }
+
+    /**
+     * @return the ISA configuration used by the tests of linkedISA-core
+     */
+    public static File getConfigurationDirectory(){
+        return checkDirectory(new File(getTestResourcesDirectory(), "configurations" + File.separator + CONFIGURATION));
+    }
+
+    /**
+     * @return the ISA-OBI, ISA-ISA and ISA-PROV-O mappings, as used by ISAtab2LinkedConverterTest
+     */
+    public static ISASyntax2LinkedMapping getMapping(){
+        File resources = new File(getCoreSourceDirectory(), "main" + File.separator + "resources");
+        LinkedISAMappingParser parser = new LinkedISAMappingParser();
+        for(String filename: MAPPING_FILENAMES){
+            File mappingFile = new File(resources, filename);
+            if (!mappingFile.isFile())
+                throw new IllegalStateException("The mapping file " + mappingFile + " was not found");
+            parser.parseCSVMappingFile(mappingFile.getAbsolutePath());
+        }
+        return parser.getMapping();
+    }
+
+    private static File getTestResourcesDirectory(){
+        return checkDirectory(new File(getCoreSourceDirectory(), "test" + File.separator + "resources"));
+    }
+
+    private static File checkDirectory(File dir){
+        if (!dir.isDirectory())
+            throw new IllegalStateException("The directory " + dir + " was not found");
+        return dir;
+    }
+
+}
@@ -0,0 +1,85 @@
+package org.isatools.linkedISA.benchmark;
+
+import org.isatools.linkedISA.converter.ISAtab2LinkedConverter;
+import org.isatools.linkedISA.converter.OntologyLookup;
+import org.isatools.linkedISA.mapping.ISASyntax2LinkedMapping;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * JMH benchmark of the end-to-end conversion of the datasets bundled with the tests of linkedISA-core, from the ISA-tab
+ * files to the OWL ontology held in memory, with the default settings of ISAtab2LinkedConverter.
+ *
+ * The mapping is parsed once per trial, as a long running process would do, and each operation converts the dataset with
+ * a new converter. The term lookups run offline, so the figures do not depend on BioPortal.
+ *
+ * Run with: java -jar linkedISA-benchmarks/target/benchmarks.jar ConversionBenchmark -prof gc
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConversionBenchmark {
+
+    @Param({"BII-I-1",
+            "BII-S-3",
+            "MTBLS2",
+            "MTBLS6",
+            "E-GEOD-25835-MPBRCA1",
+            "GWAS-E-GEOD-11948-corrected-with-publication",
+            "faahKO",
+            "T1-2x2-strain-sex",
+            "T3",
+            "T4",
+            "BGI-SOAPdenovo2",
+            "ISA-composite-test"})
+    public String dataset;
+
+    private String configDir;
+    private String datasetDir;
+    private ISASyntax2LinkedMapping mapping;
+    private boolean offline;
+
+    @Setup
+    public void setUp() {
+        configDir = BenchmarkResources.getConfigurationDirectory().getAbsolutePath();
+        datasetDir = BenchmarkResources.getDatasetDirectory(dataset).getAbsolutePath();
+        mapping = BenchmarkResources.getMapping();
+
+        offline = OntologyLookup.isOffline();
+        OntologyLookup.setOffline(true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        OntologyLookup.setOffline(offline);
+    }
+
+    @Benchmark
+    public long convert() {
+        ISAtab2LinkedConverter converter = new ISAtab2LinkedConverter(configDir, mapping);
+        if (!converter.convert(datasetDir, "http://isa-tools.org/isa/" + dataset + ".owl"))
+            throw new IllegalStateException("The conversion of " + dataset + " failed");
+        return converter.getContext().getAxiomCount();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(ConversionBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+
+}
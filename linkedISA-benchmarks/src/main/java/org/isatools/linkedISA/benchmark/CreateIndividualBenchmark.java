@@ -0,0 +1,112 @@
+package org.isatools.linkedISA.benchmark;
+
+import org.isatools.linkedISA.converter.AxiomSink;
+import org.isatools.linkedISA.converter.ConversionContext;
+import org.isatools.linkedISA.converter.LinkedISA;
+import org.isatools.linkedISA.mapping.ISASyntax2LinkedMapping;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * JMH benchmark of LinkedISA.createIndividual for the types of the nodes of an assay table, with the ISA-OBI, ISA-ISA and
+ * ISA-PROV-O mappings. The axioms go through the buffer of the context to a sink that only counts them, so the cost of
+ * adding them to an ontology is left out.
+ *
+ * The context keeps every individual created, so a new one is used for each iteration.
+ *
+ * Run with: java -jar linkedISA-benchmarks/target/benchmarks.jar CreateIndividualBenchmark -prof gc
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreateIndividualBenchmark {
+
+    private static final int LABELS = 1000;
+
+    @Param({"Source Name", "Sample Name", "Raw Data File"})
+    public String type;
+
+    private ISASyntax2LinkedMapping mapping;
+    private String[] labels;
+    private ConversionContext context;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        mapping = BenchmarkResources.getMapping();
+        if (mapping.getTypeMapping(type) == null)
+            throw new IllegalStateException("The mappings do not define the type " + type);
+
+        labels = new String[LABELS];
+        for (int i = 0; i < LABELS; i++) {
+            labels[i] = type.toLowerCase().replace(' ', '-') + "-" + i;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        context = new ConversionContext("http://isa-tools.org/isa/benchmark.owl", mapping, new CountingSink());
+    }
+
+    @Benchmark
+    public OWLNamedIndividual createIndividual() {
+        String label = labels[next];
+        next = (next + 1) % LABELS;
+        return LinkedISA.createIndividual(context, type, label);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(CreateIndividualBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * Sink that only counts the axioms it receives.
+     */
+    private static class CountingSink implements AxiomSink {
+
+        private long count = 0;
+
+        public void open(IRI ontologyIRI) {
+        }
+
+        public void addImport(IRI importIRI) {
+        }
+
+        public void addAxiom(OWLAxiom axiom) {
+            count++;
+        }
+
+        public void addAxioms(List<OWLAxiom> axioms) {
+            count += axioms.size();
+        }
+
+        public long getAxiomCount() {
+            return count;
+        }
+
+        public void close() {
+        }
+
+    }
+
+}
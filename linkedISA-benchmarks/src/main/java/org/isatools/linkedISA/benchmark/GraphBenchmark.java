@@ -0,0 +1,162 @@
+package org.isatools.linkedISA.benchmark;
+
+import org.isatools.graph.model.ISANode;
+import org.isatools.graph.model.impl.*;
+import org.isatools.graph.parser.GraphParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * JMH benchmark of the node lookups of Graph on wide assay tables, comparing the column and NodeType indexes with the
+ * linear scans of the list of nodes they replaced.
+ *
+ * Run with: java -jar linkedISA-benchmarks/target/benchmarks.jar GraphBenchmark
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBenchmark {
+
+    //number of (material, characteristics, protocol, parameter, data) column groups in the table
+    @Param({"10", "50", "200"})
+    public int groups;
+
+    private Object[][] table;
+    private Graph graph;
+
+    @Setup
+    public void setUp() {
+        table = createTable(groups, 10);
+        GraphParser parser = new GraphParser(table);
+        parser.parse();
+        graph = parser.getGraph();
+    }
+
+    /**
+     * Builds a table with the given number of groups of columns, each with a material node, two characteristics, a
+     * protocol REF with a parameter and a data node.
+     */
+    static Object[][] createTable(int groups, int rows) {
+        List<String> header = new ArrayList<String>();
+        header.add("Source Name");
+        for (int g = 0; g < groups; g++) {
+            header.add("Extract Name");
+            header.add("Characteristics[organism part]");
+            header.add("Characteristics[strain]");
+            header.add("Protocol REF");
+            header.add("Parameter Value[instrument]");
+            header.add("Raw Data File");
+        }
+        header.add("Sample Name");
+        header.add("Factor Value[dose]");
+
+        Object[][] table = new Object[rows + 1][];
+        table[0] = header.toArray(new String[header.size()]);
+        for (int row = 1; row <= rows; row++) {
+            table[row] = new String[header.size()];
+            for (int col = 0; col < header.size(); col++) {
+                table[row][col] = "value" + (row % 3) + "_" + col;
+            }
+        }
+        return table;
+    }
+
+    @Benchmark
+    public Graph parse() {
+        GraphParser parser = new GraphParser(table);
+        parser.parse();
+        return parser.getGraph();
+    }
+
+    @Benchmark
+    public void getNodeIndexed(Blackhole blackhole) {
+        int columns = table[0].length;
+        for (int index = 0; index < columns; index++) {
+            blackhole.consume(graph.getNode(index));
+        }
+    }
+
+    @Benchmark
+    public void getNodeLinear(Blackhole blackhole) {
+        int columns = table[0].length;
+        for (int index = 0; index < columns; index++) {
+            blackhole.consume(getNodeLinear(graph.getNodes(), index));
+        }
+    }
+
+    @Benchmark
+    public void getNodesByTypeIndexed(Blackhole blackhole) {
+        for (NodeType nodeType : NodeType.values()) {
+            blackhole.consume(graph.getNodes(nodeType));
+        }
+    }
+
+    @Benchmark
+    public void getNodesByTypeLinear(Blackhole blackhole) {
+        for (NodeType nodeType : NodeType.values()) {
+            blackhole.consume(getNodesLinear(graph.getNodes(), nodeType));
+        }
+    }
+
+    //the lookups as Graph did them before the indexes
+
+    private static ISANode getNodeLinear(List<ISANode> nodeList, int index) {
+        for (ISANode n : nodeList) {
+            if (n.getIndex() == index) {
+                return n;
+            }
+        }
+        return null;
+    }
+
+    private static List<ISANode> getNodesLinear(List<ISANode> nodeList, NodeType nodeType) {
+        List<ISANode> nodes = new ArrayList<ISANode>();
+        for (ISANode n : nodeList) {
+            if (nodeType == NodeType.MATERIAL_NODE) {
+                if (n instanceof MaterialNode) {
+                    nodes.add(n);
+                }
+            } else if (nodeType == NodeType.PROCESS_NODE) {
+                if (n instanceof ProcessNode && !(n instanceof ProtocolExecutionNode) && !(n.getName().endsWith("Assay Name"))) {
+                    nodes.add(n);
+                }
+            } else if (nodeType == NodeType.ASSAY_NODE) {
+                if (n instanceof ProcessNode && !(n instanceof ProtocolExecutionNode) && n.getName().endsWith("Assay Name")) {
+                    nodes.add(n);
+                }
+            } else if (nodeType == NodeType.DATA_NODE) {
+                if (n instanceof DataNode) {
+                    nodes.add(n);
+                }
+            } else if (nodeType == NodeType.PROTOCOL_EXECUTION_NODE) {
+                if (n instanceof ProtocolExecutionNode) {
+                    nodes.add(n);
+                }
+            }
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(GraphBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+}
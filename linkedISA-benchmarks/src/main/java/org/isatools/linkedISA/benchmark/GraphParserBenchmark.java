@@ -0,0 +1,74 @@
+package org.isatools.linkedISA.benchmark;
+
+import org.isatools.graph.model.impl.AssayTable;
+import org.isatools.graph.model.impl.Graph;
+import org.isatools.graph.parser.AssayTableReader;
+import org.isatools.graph.parser.GraphParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * JMH benchmark of GraphParser.parse on the study sample and assay tables of the bundled datasets. The tables are read
+ * once per trial, so only the building of the graph is measured.
+ *
+ * Run with: java -jar linkedISA-benchmarks/target/benchmarks.jar GraphParserBenchmark -prof gc
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphParserBenchmark {
+
+    @Param({"BII-I-1/s_BII-S-1.txt",
+            "BII-I-1/a_transcriptome.txt",
+            "MTBLS2/s_MTBL2.txt",
+            "MTBLS2/a_mtbl2_metabolite profiling_mass spectrometry.txt",
+            "E-GEOD-25835-MPBRCA1/s_E-GEOD-25835_study_samples.txt",
+            "E-GEOD-25835-MPBRCA1/a_E-GEOD-25835_GeneChip_assay.txt",
+            "faahKO/s_faahko.txt",
+            "faahKO/a_metabolite.txt",
+            "GWAS-E-GEOD-11948-corrected-with-publication/a_E-GEOD-11948_SNPChip_assay.txt"})
+    public String file;
+
+    private AssayTable table;
+
+    @Setup
+    public void setUp() throws Exception {
+        String dataset = file.substring(0, file.indexOf('/'));
+        File tableFile = new File(BenchmarkResources.getDatasetDirectory(dataset), file.substring(file.indexOf('/') + 1));
+        AssayTableReader reader = new AssayTableReader(tableFile, Integer.MAX_VALUE - 1);
+        try {
+            table = reader.next();
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Benchmark
+    public Graph parse() {
+        GraphParser parser = new GraphParser(table);
+        parser.parse();
+        return parser.getGraph();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(GraphParserBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.isatools.linkedISA.benchmark;
+
+import org.isatools.linkedISA.converter.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.semanticweb.owlapi.model.IRI;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * JMH benchmark of IRIGenerator.getIRI with each IRI minting strategy. The types alternate between a mapping label and a
+ * class IRI, and the content between a fixed set of sample names.
+ *
+ * Run with: java -jar linkedISA-benchmarks/target/benchmarks.jar IRIGeneratorBenchmark -prof gc
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IRIGeneratorBenchmark {
+
+    private static final int CONTENTS = 1000;
+
+    @Param({"sequential", "uuid", "content-hash"})
+    public String strategy;
+
+    private final IRI baseIRI = IRI.create("http://isa-tools.org/isa/benchmark.owl");
+    private final String[] types = { "Sample Name", "http://purl.obolibrary.org/obo/OBI_0000747" };
+    private String[] contents;
+    private IRIGenerator generator;
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        IRIMintingStrategy mintingStrategy = null;
+        if (strategy.equals("sequential"))
+            mintingStrategy = new SequentialIRIMintingStrategy();
+        else if (strategy.equals("uuid"))
+            mintingStrategy = new UUIDIRIMintingStrategy();
+        else if (strategy.equals("content-hash"))
+            mintingStrategy = new ContentHashIRIMintingStrategy();
+        else
+            throw new IllegalArgumentException("Unknown IRI minting strategy " + strategy);
+        generator = new IRIGenerator(mintingStrategy);
+        generator.setDatasetId("benchmark");
+
+        contents = new String[CONTENTS];
+        for (int i = 0; i < CONTENTS; i++) {
+            contents[i] = "sample-" + i + "\tliver\t" + (i % 7) + " mg/kg";
+        }
+    }
+
+    @Benchmark
+    public IRI getIRI() {
+        int i = next;
+        next = (next + 1) % (2 * CONTENTS);
+        return generator.getIRI(baseIRI, types[i & 1], contents[i >> 1]);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(IRIGeneratorBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+
+}
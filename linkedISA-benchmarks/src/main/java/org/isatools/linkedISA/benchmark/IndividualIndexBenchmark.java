@@ -0,0 +1,151 @@
+package org.isatools.linkedISA.benchmark;
+
+import org.isatools.graph.model.ISAMaterialAttribute;
+import org.isatools.graph.model.ISANode;
+import org.isatools.graph.model.impl.*;
+import org.isatools.graph.parser.AssayTableReader;
+import org.isatools.graph.parser.GraphParser;
+import org.isatools.linkedISA.converter.IndividualIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * JMH benchmark of the memory used to keep the individuals of the cells of the bundled MTBLS and E-GEOD tables, comparing
+ * IndividualIndex with the OWLNamedIndividual[rows][columns] matrix it replaced in Assay2LinkedConverter.
+ *
+ * The cells are filled as the converter does: the node, attribute and parameter columns get one individual per value, and
+ * the protocol REF columns get one individual per (value, input, output). Each operation only allocates the structure, so
+ * the gc.alloc.rate.norm figure reported by the GC profiler is its size in bytes.
+ *
+ * Run with: java -jar linkedISA-benchmarks/target/benchmarks.jar IndividualIndexBenchmark -prof gc
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndividualIndexBenchmark {
+
+    @Param({"MTBLS2/a_mtbl2_metabolite profiling_mass spectrometry.txt",
+            "MTBLS2/s_MTBL2.txt",
+            "MTBLS6/a_live10_mtbl_metabolite profiling_mass spectrometry.txt",
+            "MTBLS6/s_live10_mtbl.txt",
+            "E-GEOD-25835-MPBRCA1/a_E-GEOD-25835_GeneChip_assay.txt",
+            "E-GEOD-25835-MPBRCA1/s_E-GEOD-25835_study_samples.txt",
+            "GWAS-E-GEOD-11948-corrected-with-publication/a_E-GEOD-11948_SNPChip_assay.txt",
+            "GWAS-E-GEOD-11948-corrected-with-publication/s_E-GEOD-11948_study_samples.txt"})
+    public String file;
+
+    private AssayTable table;
+
+    //the cells to fill, as {row, column} and the individual for each
+    private int[][] cells;
+    private OWLNamedIndividual[] individuals;
+
+    @Setup
+    public void setUp() throws Exception {
+        int slash = file.indexOf('/');
+        File tableFile = new File(BenchmarkResources.getDatasetDirectory(file.substring(0, slash)), file.substring(slash + 1));
+        AssayTableReader reader = new AssayTableReader(tableFile, Integer.MAX_VALUE - 1);
+        try {
+            table = reader.next();
+        } finally {
+            reader.close();
+        }
+
+        GraphParser parser = new GraphParser(table);
+        parser.parse();
+        Graph graph = parser.getGraph();
+
+        //<column, value columns identifying the individual>
+        Map<Integer, int[]> keyColumns = new TreeMap<Integer, int[]>();
+        for (ISANode node : graph.getNodes()) {
+            if (node instanceof ProtocolExecutionNode) {
+                ProcessNode process = (ProcessNode) node;
+                int input = process.getInputNode() == null ? -1 : process.getInputNode().getIndex();
+                int output = process.getOutputNode() == null ? -1 : process.getOutputNode().getIndex();
+                keyColumns.put(node.getIndex(), new int[]{ node.getIndex(), input, output });
+                for (ProcessParameter parameter : process.getParameters()) {
+                    keyColumns.put(parameter.getIndex(), new int[]{ parameter.getIndex() });
+                }
+            } else if (node instanceof MaterialNode || node instanceof DataNode || node instanceof ProcessNode) {
+                keyColumns.put(node.getIndex(), new int[]{ node.getIndex() });
+                if (node instanceof MaterialNode) {
+                    for (ISAMaterialAttribute attribute : ((MaterialNode) node).getMaterialAttributes()) {
+                        keyColumns.put(attribute.getIndex(), new int[]{ attribute.getIndex() });
+                    }
+                }
+            }
+        }
+
+        OWLDataFactory factory = OWLManager.getOWLDataFactory();
+        Map<String, OWLNamedIndividual> created = new HashMap<String, OWLNamedIndividual>();
+        List<int[]> cellList = new ArrayList<int[]>();
+        List<OWLNamedIndividual> individualList = new ArrayList<OWLNamedIndividual>();
+        for (Map.Entry<Integer, int[]> entry : keyColumns.entrySet()) {
+            int col = entry.getKey();
+            if (col < 0 || col >= table.getColumnCount())
+                continue;
+            for (int row = 1; row < table.getRowCount(); row++) {
+                if (table.isEmpty(row, col))
+                    continue;
+                StringBuilder key = new StringBuilder().append(col);
+                for (int keyCol : entry.getValue()) {
+                    key.append('\t').append(keyCol < 0 ? "" : table.getValue(row, keyCol));
+                }
+                OWLNamedIndividual individual = created.get(key.toString());
+                if (individual == null) {
+                    individual = factory.getOWLNamedIndividual(IRI.create("http://example.org/individual/" + created.size()));
+                    created.put(key.toString(), individual);
+                }
+                cellList.add(new int[]{ row, col });
+                individualList.add(individual);
+            }
+        }
+        cells = cellList.toArray(new int[cellList.size()][]);
+        individuals = individualList.toArray(new OWLNamedIndividual[individualList.size()]);
+    }
+
+    @Benchmark
+    public OWLNamedIndividual[][] matrix() {
+        OWLNamedIndividual[][] individualMatrix = new OWLNamedIndividual[table.getRowCount()][table.getColumnCount()];
+        for (int i = 0; i < cells.length; i++) {
+            individualMatrix[cells[i][0]][cells[i][1]] = individuals[i];
+        }
+        return individualMatrix;
+    }
+
+    @Benchmark
+    public IndividualIndex index() {
+        IndividualIndex individualIndex = new IndividualIndex(table);
+        for (int i = 0; i < cells.length; i++) {
+            individualIndex.put(cells[i][0], cells[i][1], individuals[i]);
+        }
+        return individualIndex;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(IndividualIndexBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,188 @@
+package org.isatools.linkedISA.benchmark;
+
+import org.isatools.linkedISA.converter.ISAtab2LinkedConverter;
+import org.isatools.linkedISA.converter.OntologyLookup;
+import org.isatools.linkedISA.mapping.ISASyntax2LinkedMapping;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Converts a dataset and prints the memory it took, as measured by the JMX memory beans. It is run by
+ * MemoryRegressionHarness in a JVM of its own, so that the figures are not affected by other conversions.
+ *
+ * The peak is the largest live heap seen during the conversion: the usage of the tenured pools right after each of
+ * their collections (MemoryPoolMXBean.getCollectionUsage), sampled while the conversion runs, and the heap used after a
+ * System.gc() at its end, whichever is larger. The young pools are left out, as what they hold between two collections
+ * is mostly garbage and depends on the size the JVM gives them rather than on the conversion. The retained heap is the
+ * heap used after that last System.gc(), while the converter still holds the ontology, the individuals and the mapping.
+ * The GC figures are the collections and the time spent in them during the conversion.
+ *
+ * The dataset is either the name of a bundled dataset, e.g. BII-I-1, or template@rows or template@rowsxcolumns for a
+ * dataset written by SyntheticDatasetGenerator, e.g. T1-2x2-strain-sex@2000x20 for 2000 samples with 20 synthetic
+ * factors and 20 synthetic characteristics. A synthetic dataset is written before the measures start.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class MemoryProbe {
+
+    //prefix of the line with the results
+    public static final String RESULT_PREFIX = "linkedISA-memory ";
+
+    public static final int SYNTHETIC_CARDINALITY = 4;
+
+    private static final long SAMPLING_MILLIS = 5;
+
+    private MemoryProbe(){
+    }
+
+    /**
+     * @param dataset the dataset, as a bundled name or a template@rowsxcolumns specification
+     * @param tmpDir the directory where a synthetic dataset is written
+     * @return the directory of the dataset
+     */
+    static File getDatasetDirectory(String dataset, File tmpDir) throws Exception {
+        int at = dataset.indexOf('@');
+        if (at < 0)
+            return BenchmarkResources.getDatasetDirectory(dataset);
+
+        String template = dataset.substring(0, at);
+        String size = dataset.substring(at + 1);
+        int x = size.indexOf('x');
+        SyntheticDatasetGenerator generator = new SyntheticDatasetGenerator();
+        generator.setRows(Integer.parseInt(x < 0 ? size : size.substring(0, x)));
+        if (x >= 0) {
+            generator.setFactors(Integer.parseInt(size.substring(x + 1)));
+            generator.setCharacteristics(Integer.parseInt(size.substring(x + 1)));
+        }
+        generator.setCardinality(SYNTHETIC_CARDINALITY);
+        generator.generate(BenchmarkResources.getDatasetDirectory(template), tmpDir);
+        return tmpDir;
+    }
+
+    /**
+     * @return the heap pools holding the long-lived objects, e.g. "PS Old Gen", "G1 Old Gen" or "Tenured Gen"
+     */
+    private static List<MemoryPoolMXBean> getTenuredPools(){
+        List<MemoryPoolMXBean> pools = new ArrayList<MemoryPoolMXBean>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && (pool.getName().contains("Old") || pool.getName().contains("Tenured")))
+                pools.add(pool);
+        }
+        return pools;
+    }
+
+    /**
+     * Keeps the largest usage of the tenured pools after a collection, until it is stopped.
+     */
+    private static class TenuredSampler extends Thread {
+
+        private final List<MemoryPoolMXBean> pools = getTenuredPools();
+        private volatile boolean running = true;
+        private long peak = 0;
+
+        private TenuredSampler(){
+            super("linkedISA-memory-sampler");
+            setDaemon(true);
+        }
+
+        private synchronized void sample(){
+            long used = 0;
+            for (MemoryPoolMXBean pool : pools) {
+                MemoryUsage usage = pool.getCollectionUsage();
+                if (usage != null)
+                    used += usage.getUsed();
+            }
+            peak = Math.max(peak, used);
+        }
+
+        public void run(){
+            while (running) {
+                sample();
+                try {
+                    Thread.sleep(SAMPLING_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return the largest usage sampled
+         */
+        private long finish() throws InterruptedException {
+            running = false;
+            interrupt();
+            join();
+            sample();
+            synchronized (this) {
+                return peak;
+            }
+        }
+    }
+
+    private static long[] getGC(){
+        long[] gc = new long[2];
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gc[0] += Math.max(0, collector.getCollectionCount());
+            gc[1] += Math.max(0, collector.getCollectionTime());
+        }
+        return gc;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("Usage: MemoryProbe <dataset>");
+            System.exit(2);
+        }
+        String dataset = args[0];
+
+        File tmpDir = File.createTempFile("linkedISA-memory-", "");
+        tmpDir.delete();
+        try {
+            File datasetDir = getDatasetDirectory(dataset, tmpDir);
+            String configDir = BenchmarkResources.getConfigurationDirectory().getAbsolutePath();
+            OntologyLookup.setOffline(true);
+
+            System.gc();
+            long[] gcBefore = getGC();
+            TenuredSampler sampler = new TenuredSampler();
+            sampler.start();
+
+            //the mapping is part of what the conversion keeps in memory
+            ISASyntax2LinkedMapping mapping = BenchmarkResources.getMapping();
+            ISAtab2LinkedConverter converter = new ISAtab2LinkedConverter(configDir, mapping);
+            if (!converter.convert(datasetDir.getAbsolutePath(), "http://isa-tools.org/isa/memory.owl"))
+                throw new IllegalStateException("The conversion of " + dataset + " failed");
+
+            long[] gcAfter = getGC();
+            System.gc();
+            long retained = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            //the tenured pools also hold what was live before the conversion, as does the retained heap
+            long peak = Math.max(sampler.finish(), retained);
+            //the converter is used after the collection, so that what it holds is counted as retained
+            long axioms = converter.getContext().getAxiomCount();
+
+            System.out.println(RESULT_PREFIX + "peakBytes=" + peak + " retainedBytes=" + retained
+                    + " gcCount=" + (gcAfter[0] - gcBefore[0]) + " gcMillis=" + (gcAfter[1] - gcBefore[1])
+                    + " axioms=" + axioms);
+        } finally {
+            File[] files = tmpDir.listFiles();
+            if (files != null) {
+                for (File file : files)
+                    file.delete();
+            }
+            tmpDir.delete();
+        }
+    }
+
+}
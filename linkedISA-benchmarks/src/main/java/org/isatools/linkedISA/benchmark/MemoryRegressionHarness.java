@@ -0,0 +1,343 @@
+package org.isatools.linkedISA.benchmark;
+
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Guards the memory taken by the conversion of each dataset. Each dataset is converted by MemoryProbe in a forked JVM
+ * with a fixed maximum heap, and the conversion fails the check when its peak live heap, as measured by MemoryProbe, is
+ * above the budget of the dataset or when it runs out of memory.
+ *
+ * The budgets are kept in a file with one line per dataset, budget.&lt;dataset&gt;=&lt;megabytes&gt;, and the maximum heap
+ * of the forked JVMs as xmx=&lt;size&gt;. The datasets are named as for MemoryProbe, so synthetic datasets can be
+ * guarded as well as the bundled ones. Lines starting with # are comments.
+ *
+ * When a change is meant to alter the memory used, the budgets can be set again from the measured peaks with --update,
+ * which leaves UPDATE_HEADROOM of margin above each of them.
+ *
+ * Run with: java -cp linkedISA-benchmarks/target/benchmarks.jar org.isatools.linkedISA.benchmark.MemoryRegressionHarness
+ *              linkedISA-benchmarks/src/test/resources/memory-budgets.properties [--update]
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class MemoryRegressionHarness {
+
+    private static final Logger log = Logger.getLogger(MemoryRegressionHarness.class);
+
+    public static final String XMX = "xmx";
+    public static final String BUDGET_PREFIX = "budget.";
+    public static final String DEFAULT_XMX = "512m";
+    public static final double UPDATE_HEADROOM = 1.25;
+
+    private static final long MB = 1024 * 1024;
+    private static final int OUTPUT_TAIL = 20;
+
+    /**
+     * Memory taken by the conversion of a dataset.
+     */
+    public static class Result {
+
+        private final String dataset;
+        private final long budgetBytes;
+        private long peakBytes = -1;
+        private long retainedBytes = -1;
+        private long gcCount = -1;
+        private long gcMillis = -1;
+        private long axioms = -1;
+        private String error = null;
+
+        public Result(String dataset, long budgetBytes){
+            this.dataset = dataset;
+            this.budgetBytes = budgetBytes;
+        }
+
+        public String getDataset(){
+            return dataset;
+        }
+
+        public long getBudgetBytes(){
+            return budgetBytes;
+        }
+
+        public long getPeakBytes(){
+            return peakBytes;
+        }
+
+        public long getRetainedBytes(){
+            return retainedBytes;
+        }
+
+        public long getGCCount(){
+            return gcCount;
+        }
+
+        public long getGCMillis(){
+            return gcMillis;
+        }
+
+        public long getAxioms(){
+            return axioms;
+        }
+
+        /**
+         * @return why the conversion did not finish, e.g. an OutOfMemoryError, or null if it did
+         */
+        public String getError(){
+            return error;
+        }
+
+        public boolean isWithinBudget(){
+            return error == null && peakBytes >= 0 && peakBytes <= budgetBytes;
+        }
+
+        public String toString(){
+            if (error != null)
+                return dataset + ": FAILED, " + error;
+            return dataset + ": " + (isWithinBudget() ? "OK" : "OVER BUDGET") + ", peak " + (peakBytes / MB) + " MB of "
+                    + (budgetBytes / MB) + " MB, retained " + (retainedBytes / MB) + " MB, " + gcCount + " GCs in "
+                    + gcMillis + " ms, " + axioms + " axioms";
+        }
+    }
+
+    private final File budgetsFile;
+    private String xmx = DEFAULT_XMX;
+    //<dataset, budget in MB>, in the order of the file
+    private final Map<String, Long> budgets = new LinkedHashMap<String, Long>();
+
+    /**
+     * @param file the file with the budgets
+     * @throws IOException if the file cannot be read or a line is not valid
+     */
+    public MemoryRegressionHarness(File file) throws IOException {
+        budgetsFile = file;
+        for (String line : readLines(file)) {
+            String trimmed = line.trim();
+            if (trimmed.length() == 0 || trimmed.startsWith("#"))
+                continue;
+            int equals = trimmed.indexOf('=');
+            if (equals < 0)
+                throw new IOException("The line '" + line + "' of " + file + " is not a key=value pair");
+            String key = trimmed.substring(0, equals).trim();
+            String value = trimmed.substring(equals + 1).trim();
+            if (key.equals(XMX)) {
+                xmx = value;
+            } else if (key.startsWith(BUDGET_PREFIX)) {
+                try {
+                    budgets.put(key.substring(BUDGET_PREFIX.length()), Long.parseLong(value));
+                } catch (NumberFormatException e) {
+                    throw new IOException("The budget of " + key + " in " + file + " is not a number of megabytes: " + value);
+                }
+            } else {
+                throw new IOException("Unknown key " + key + " in " + file);
+            }
+        }
+    }
+
+    public String getXmx(){
+        return xmx;
+    }
+
+    /**
+     * @return the budgets, in MB, by dataset
+     */
+    public Map<String, Long> getBudgets(){
+        return Collections.unmodifiableMap(budgets);
+    }
+
+    /**
+     * Converts every dataset with a budget, one after the other.
+     *
+     * @return the results, in the order of the budgets file
+     */
+    public List<Result> runAll() throws IOException, InterruptedException {
+        List<Result> results = new ArrayList<Result>();
+        for (String dataset : budgets.keySet()) {
+            Result result = run(dataset);
+            log.info(result);
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Converts a dataset in a forked JVM.
+     *
+     * @param dataset the name of the dataset, as in the budgets file
+     * @return the result of the conversion
+     */
+    public Result run(String dataset) throws IOException, InterruptedException {
+        Long budget = budgets.get(dataset);
+        if (budget == null)
+            throw new IllegalArgumentException("There is no budget for " + dataset + " in " + budgetsFile);
+
+        List<String> command = new ArrayList<String>();
+        command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+        command.add("-Xmx" + xmx);
+        String core = System.getProperty(BenchmarkResources.CORE_PROPERTY);
+        if (core != null)
+            command.add("-D" + BenchmarkResources.CORE_PROPERTY + "=" + core);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(MemoryProbe.class.getName());
+        command.add(dataset);
+
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectErrorStream(true);
+        Process process = builder.start();
+
+        String resultLine = null;
+        boolean outOfMemory = false;
+        LinkedList<String> tail = new LinkedList<String>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(MemoryProbe.RESULT_PREFIX))
+                    resultLine = line;
+                if (line.contains("OutOfMemoryError"))
+                    outOfMemory = true;
+                tail.add(line);
+                if (tail.size() > OUTPUT_TAIL)
+                    tail.removeFirst();
+            }
+        } finally {
+            reader.close();
+        }
+        int status = process.waitFor();
+
+        if (status == 0 && resultLine != null)
+            return parse(dataset, budget * MB, resultLine);
+
+        Result result = new Result(dataset, budget * MB);
+        StringBuilder error = new StringBuilder();
+        if (outOfMemory)
+            error.append("OutOfMemoryError with -Xmx").append(xmx);
+        else
+            error.append("exit status ").append(status);
+        for (String line : tail)
+            error.append('\n').append(line);
+        result.error = error.toString();
+        return result;
+    }
+
+    /**
+     * @param line the line printed by MemoryProbe
+     */
+    static Result parse(String dataset, long budgetBytes, String line){
+        Result result = new Result(dataset, budgetBytes);
+        for (String field : line.substring(MemoryProbe.RESULT_PREFIX.length()).trim().split(" ")) {
+            int equals = field.indexOf('=');
+            if (equals < 0)
+                continue;
+            String name = field.substring(0, equals);
+            long value = Long.parseLong(field.substring(equals + 1));
+            if (name.equals("peakBytes"))
+                result.peakBytes = value;
+            else if (name.equals("retainedBytes"))
+                result.retainedBytes = value;
+            else if (name.equals("gcCount"))
+                result.gcCount = value;
+            else if (name.equals("gcMillis"))
+                result.gcMillis = value;
+            else if (name.equals("axioms"))
+                result.axioms = value;
+        }
+        if (result.peakBytes < 0)
+            result.error = "no peak in '" + line + "'";
+        return result;
+    }
+
+    /**
+     * Writes the results as CSV, so that the memory taken by each dataset can be tracked over time.
+     */
+    public static void writeReport(List<Result> results, File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory())
+            dir.mkdirs();
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        try {
+            writer.println("dataset,budgetBytes,peakBytes,retainedBytes,gcCount,gcMillis,axioms,withinBudget");
+            for (Result result : results) {
+                writer.println(result.getDataset() + "," + result.getBudgetBytes() + "," + result.getPeakBytes() + ","
+                        + result.getRetainedBytes() + "," + result.getGCCount() + "," + result.getGCMillis() + ","
+                        + result.getAxioms() + "," + result.isWithinBudget());
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Sets the budget of each dataset converted to its peak plus UPDATE_HEADROOM, keeping the rest of the budgets file as
+     * it is.
+     */
+    public void updateBudgets(List<Result> results) throws IOException {
+        Map<String, Long> updated = new HashMap<String, Long>();
+        for (Result result : results) {
+            if (result.getError() == null) {
+                long budget = (long) Math.ceil(result.getPeakBytes() * UPDATE_HEADROOM / MB);
+                updated.put(result.getDataset(), budget);
+                budgets.put(result.getDataset(), budget);
+            }
+        }
+
+        List<String> lines = readLines(budgetsFile);
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(budgetsFile), "UTF-8"));
+        try {
+            for (String line : lines) {
+                String trimmed = line.trim();
+                int equals = trimmed.indexOf('=');
+                if (trimmed.startsWith(BUDGET_PREFIX) && equals > 0) {
+                    String dataset = trimmed.substring(BUDGET_PREFIX.length(), equals).trim();
+                    if (updated.containsKey(dataset))
+                        line = BUDGET_PREFIX + dataset + "=" + updated.get(dataset);
+                }
+                writer.println(line);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static List<String> readLines(File file) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            List<String> lines = new ArrayList<String>();
+            String line;
+            while ((line = reader.readLine()) != null)
+                lines.add(line);
+            return lines;
+        } finally {
+            reader.close();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: MemoryRegressionHarness <budgets file> [--update]");
+            System.exit(2);
+        }
+        MemoryRegressionHarness harness = new MemoryRegressionHarness(new File(args[0]));
+        List<Result> results = harness.runAll();
+
+        int failures = 0;
+        for (Result result : results) {
+            System.out.println(result);
+            if (!result.isWithinBudget())
+                failures++;
+        }
+        if (args.length > 1 && args[1].equals("--update")) {
+            harness.updateBudgets(results);
+            System.out.println("Budgets updated in " + args[0]);
+        } else {
+            System.out.println(failures + " dataset(s) over budget or failed");
+            System.exit(failures > 0 ? 1 : 0);
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package org.isatools.linkedISA.benchmark;
+
+import org.isatools.linkedISA.converter.ISAtab2LinkedConverter;
+import org.isatools.linkedISA.converter.OntologyLookup;
+import org.isatools.linkedISA.mapping.ISASyntax2LinkedMapping;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * JMH benchmark of the conversion of datasets written by SyntheticDatasetGenerator from a bundled template, to see how
+ * the conversion scales with the number of rows and of factor and characteristic columns.
+ *
+ * The dataset is generated once per trial in a temporary directory. Each conversion takes seconds to minutes, so each
+ * iteration is a single conversion. Larger datasets can be measured with e.g. -p rows=100000,1000000.
+ *
+ * Run with: java -jar linkedISA-benchmarks/target/benchmarks.jar ScaledConversionBenchmark -prof gc
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ScaledConversionBenchmark {
+
+    @Param({"T1-2x2-strain-sex", "BII-S-3"})
+    public String template;
+
+    @Param({"1000", "10000"})
+    public int rows;
+
+    //synthetic factors and characteristics, each
+    @Param({"0", "50"})
+    public int columns;
+
+    @Param({"4"})
+    public int cardinality;
+
+    private File datasetDir;
+    private String configDir;
+    private ISASyntax2LinkedMapping mapping;
+    private boolean offline;
+
+    @Setup
+    public void setUp() throws Exception {
+        datasetDir = File.createTempFile("linkedISA-" + template + "-" + rows + "-", "");
+        datasetDir.delete();
+
+        SyntheticDatasetGenerator generator = new SyntheticDatasetGenerator();
+        generator.setRows(rows);
+        generator.setFactors(columns);
+        generator.setCharacteristics(columns);
+        generator.setCardinality(cardinality);
+        generator.generate(BenchmarkResources.getDatasetDirectory(template), datasetDir);
+
+        configDir = BenchmarkResources.getConfigurationDirectory().getAbsolutePath();
+        mapping = BenchmarkResources.getMapping();
+
+        offline = OntologyLookup.isOffline();
+        OntologyLookup.setOffline(true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        OntologyLookup.setOffline(offline);
+
+        File[] files = datasetDir.listFiles();
+        if (files != null) {
+            for (File file : files)
+                file.delete();
+        }
+        datasetDir.delete();
+    }
+
+    @Benchmark
+    public long convert() {
+        ISAtab2LinkedConverter converter = new ISAtab2LinkedConverter(configDir, mapping);
+        if (!converter.convert(datasetDir.getAbsolutePath(), "http://isa-tools.org/isa/" + template + "-" + rows + ".owl"))
+            throw new IllegalStateException("The conversion of " + datasetDir + " failed");
+        return converter.getContext().getAxiomCount();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(ScaledConversionBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+
+}
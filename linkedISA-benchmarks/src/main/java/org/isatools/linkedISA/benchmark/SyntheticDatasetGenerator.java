@@ -0,0 +1,582 @@
+package org.isatools.linkedISA.benchmark;
+
+import org.apache.log4j.Logger;
+import org.isatools.graph.model.impl.AssayTable;
+import org.isatools.graph.parser.AssayTableReader;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Writes scaled-up ISA-tab datasets for scale testing, taking an existing dataset as a template.
+ *
+ * The first study of the template investigation is repeated as many times as studies are requested, each one with its own
+ * study sample file and the requested number of assays, which cycle through the assays of the template study. The rows of
+ * the template tables are repeated up to the requested number of samples per study, and each sample gets the assay rows
+ * the template has for the sample it was copied from. The names of the nodes (the Name and File columns) get a suffix with
+ * the study and the copy of the template rows, so that the graph of each copy has the shape of the template one.
+ *
+ * Synthetic Characteristics columns are added after the Sample Name, and synthetic Factor Value columns at the end of the
+ * study sample and assay tables, with their factors declared in the investigation. Each synthetic column has cardinality
+ * distinct values. The factors vary like the digits of the sample number in base cardinality, so the samples fall into up
+ * to cardinality^factors groups.
+ *
+ * The rows are written as they are generated, so the size of the dataset is not limited by the memory available.
+ *
+ * Run with: java -cp linkedISA-benchmarks/target/benchmarks.jar org.isatools.linkedISA.benchmark.SyntheticDatasetGenerator
+ *              --template linkedISA-core/src/test/resources/ISAtab-Datasets/T1-2x2-strain-sex --output /tmp/T1-100000
+ *              --rows 100000 --factors 100 --characteristics 100 --cardinality 4
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class SyntheticDatasetGenerator {
+
+    private static final Logger log = Logger.getLogger(SyntheticDatasetGenerator.class);
+
+    public static final String SYNTHETIC_CHARACTERISTIC = "synthetic characteristic ";
+    public static final String SYNTHETIC_FACTOR = "synthetic factor ";
+
+    private static final String STUDY_SECTION = "STUDY";
+    private static final String STUDY_FACTORS_SECTION = "STUDY FACTORS";
+    private static final String STUDY_ASSAYS_SECTION = "STUDY ASSAYS";
+    private static final String STUDY_IDENTIFIER = "Study Identifier";
+    private static final String STUDY_FILE_NAME = "Study File Name";
+    private static final String STUDY_ASSAY_FILE_NAME = "Study Assay File Name";
+    private static final String STUDY_FACTOR_NAME = "Study Factor Name";
+    private static final String STUDY_FACTOR_TYPE = "Study Factor Type";
+    private static final String SAMPLE_NAME = "Sample Name";
+
+    private static final char SEPARATOR = '\t';
+    private static final char QUOTE = '"';
+
+    private int studies = 1;
+    //0 for as many as in the template
+    private int assays = 0;
+    private int rows = 0;
+    private int characteristics = 0;
+    private int factors = 0;
+    private int cardinality = 2;
+
+    public SyntheticDatasetGenerator(){
+    }
+
+    /**
+     * @param n the number of studies of the investigation
+     */
+    public void setStudies(int n){
+        if (n < 1)
+            throw new IllegalArgumentException("The number of studies must be at least 1, not " + n);
+        studies = n;
+    }
+
+    public int getStudies(){
+        return studies;
+    }
+
+    /**
+     * @param n the number of assays of each study, or 0 for as many as in the template study
+     */
+    public void setAssays(int n){
+        if (n < 0)
+            throw new IllegalArgumentException("The number of assays cannot be negative: " + n);
+        assays = n;
+    }
+
+    public int getAssays(){
+        return assays;
+    }
+
+    /**
+     * @param n the number of samples (rows of the study sample table) of each study, or 0 for as many as in the template
+     */
+    public void setRows(int n){
+        if (n < 0)
+            throw new IllegalArgumentException("The number of rows cannot be negative: " + n);
+        rows = n;
+    }
+
+    public int getRows(){
+        return rows;
+    }
+
+    /**
+     * @param n the number of synthetic Characteristics columns added to the study sample tables
+     */
+    public void setCharacteristics(int n){
+        if (n < 0)
+            throw new IllegalArgumentException("The number of characteristics cannot be negative: " + n);
+        characteristics = n;
+    }
+
+    public int getCharacteristics(){
+        return characteristics;
+    }
+
+    /**
+     * @param n the number of synthetic factors, added as Factor Value columns to the study sample and assay tables
+     */
+    public void setFactors(int n){
+        if (n < 0)
+            throw new IllegalArgumentException("The number of factors cannot be negative: " + n);
+        factors = n;
+    }
+
+    public int getFactors(){
+        return factors;
+    }
+
+    /**
+     * @param n the number of distinct values of each synthetic column
+     */
+    public void setCardinality(int n){
+        if (n < 1)
+            throw new IllegalArgumentException("The cardinality must be at least 1, not " + n);
+        cardinality = n;
+    }
+
+    public int getCardinality(){
+        return cardinality;
+    }
+
+    /**
+     * Writes the scaled-up dataset.
+     *
+     * @param templateDir the directory of the template dataset
+     * @param outputDir the directory where the dataset is written, created if it does not exist
+     * @return the investigation file written
+     * @throws IOException if the template cannot be read or the dataset cannot be written
+     */
+    public File generate(File templateDir, File outputDir) throws IOException {
+        File investigationFile = findInvestigationFile(templateDir);
+        List<String> lines = readLines(investigationFile);
+
+        //the lines before the first study, and those of the first study
+        int studyStart = -1, studyEnd = lines.size();
+        for (int i = 0; i < lines.size(); i++) {
+            if (isSection(lines.get(i), STUDY_SECTION)) {
+                if (studyStart < 0) {
+                    studyStart = i;
+                } else {
+                    studyEnd = i;
+                    break;
+                }
+            }
+        }
+        if (studyStart < 0)
+            throw new IOException("The investigation " + investigationFile + " has no study");
+        List<String> head = lines.subList(0, studyStart);
+        List<String> study = lines.subList(studyStart, studyEnd);
+
+        String studyId = getValues(study, STUDY_IDENTIFIER).get(0);
+        String studyFileName = getValues(study, STUDY_FILE_NAME).get(0);
+        List<String> assayFileNames = getValues(study, STUDY_ASSAY_FILE_NAME);
+        int templateFactors = getValues(study, STUDY_FACTOR_NAME).size();
+
+        AssayTable studyTable = readTable(new File(templateDir, studyFileName));
+        List<AssayTable> assayTables = new ArrayList<AssayTable>();
+        for (String assayFileName : assayFileNames) {
+            assayTables.add(readTable(new File(templateDir, assayFileName)));
+        }
+        int assayCount = assayTables.isEmpty() ? 0 : (assays == 0 ? assayTables.size() : assays);
+        int rowCount = rows == 0 ? studyTable.getRowCount() - 1 : rows;
+
+        if (!outputDir.isDirectory() && !outputDir.mkdirs())
+            throw new IOException("The directory " + outputDir + " could not be created");
+
+        File outputInvestigationFile = new File(outputDir, investigationFile.getName());
+        Writer writer = openWriter(outputInvestigationFile);
+        try {
+            for (String line : head) {
+                writer.write(line);
+                writer.write('\n');
+            }
+            for (int s = 1; s <= studies; s++) {
+                writeStudySection(writer, study, getStudyId(studyId, s), assayCount, assayFileNames.size(), templateFactors);
+            }
+        } finally {
+            writer.close();
+        }
+
+        for (int s = 1; s <= studies; s++) {
+            String id = getStudyId(studyId, s);
+            writeStudyTable(new File(outputDir, getStudyFileName(id)), studyTable, s, rowCount);
+            for (int a = 0; a < assayCount; a++) {
+                writeAssayTable(new File(outputDir, getAssayFileName(id, a + 1)), assayTables.get(a % assayTables.size()),
+                        a / assayTables.size(), studyTable, s, rowCount);
+            }
+        }
+
+        log.info("Generated " + studies + " studies with " + rowCount + " samples and " + assayCount + " assays each in " + outputDir);
+        return outputInvestigationFile;
+    }
+
+    /**
+     * Writes a copy of the section of the template study, with its own identifier, files and factors.
+     */
+    private void writeStudySection(Writer writer, List<String> study, String id, int assayCount, int templateAssays,
+                                   int templateFactors) throws IOException {
+        String section = null;
+        for (String line : study) {
+            if (isSectionHeader(line)) {
+                section = unquote(line.trim());
+                writer.write(line);
+            } else {
+                List<String> fields = splitLine(line);
+                String key = fields.get(0);
+                List<String> values = trim(fields.subList(1, fields.size()));
+
+                if (key.equals(STUDY_IDENTIFIER)) {
+                    writeRow(writer, key, Collections.singletonList(id));
+                } else if (key.equals(STUDY_FILE_NAME)) {
+                    writeRow(writer, key, Collections.singletonList(getStudyFileName(id)));
+                } else if (STUDY_ASSAYS_SECTION.equals(section) && templateAssays > 0) {
+                    List<String> assayValues = new ArrayList<String>();
+                    for (int a = 0; a < assayCount; a++) {
+                        if (key.equals(STUDY_ASSAY_FILE_NAME))
+                            assayValues.add(getAssayFileName(id, a + 1));
+                        else
+                            assayValues.add(a % templateAssays < values.size() ? values.get(a % templateAssays) : "");
+                    }
+                    writeRow(writer, key, assayValues);
+                } else if (STUDY_FACTORS_SECTION.equals(section) && factors > 0) {
+                    List<String> factorValues = new ArrayList<String>(values);
+                    while (factorValues.size() < templateFactors)
+                        factorValues.add("");
+                    for (int f = 1; f <= factors; f++) {
+                        boolean named = key.equals(STUDY_FACTOR_NAME) || key.equals(STUDY_FACTOR_TYPE);
+                        factorValues.add(named ? SYNTHETIC_FACTOR + f : "");
+                    }
+                    writeRow(writer, key, factorValues);
+                } else {
+                    writer.write(line);
+                }
+            }
+            writer.write('\n');
+        }
+    }
+
+    private void writeStudyTable(File file, AssayTable template, int study, int rowCount) throws IOException {
+        boolean[] nodeColumns = getNodeColumns(template);
+        int sampleColumn = getColumn(template, SAMPLE_NAME);
+        int templateRows = template.getRowCount() - 1;
+
+        Writer writer = openWriter(file);
+        try {
+            List<String> header = new ArrayList<String>();
+            for (int col = 0; col < template.getColumnCount(); col++) {
+                header.add(template.getColumnName(col));
+                if (col == sampleColumn) {
+                    for (int c = 1; c <= characteristics; c++)
+                        header.add("Characteristics[" + SYNTHETIC_CHARACTERISTIC + c + "]");
+                }
+            }
+            addFactorHeaders(header);
+            writeTableRow(writer, header);
+
+            List<String> cells = new ArrayList<String>();
+            for (int r = 0; r < rowCount; r++) {
+                int templateRow = r % templateRows + 1;
+                String suffix = getSuffix(study, r / templateRows);
+                cells.clear();
+                for (int col = 0; col < template.getColumnCount(); col++) {
+                    cells.add(getCell(template, templateRow, col, nodeColumns, suffix));
+                    if (col == sampleColumn) {
+                        for (int c = 0; c < characteristics; c++)
+                            cells.add("value " + ((r + c) % cardinality));
+                    }
+                }
+                addFactorValues(cells, r, rowCount);
+                writeTableRow(writer, cells);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void writeAssayTable(File file, AssayTable template, int copy, AssayTable studyTemplate, int study,
+                                 int rowCount) throws IOException {
+        boolean[] nodeColumns = getNodeColumns(template);
+        int sampleColumn = getColumn(template, SAMPLE_NAME);
+        int studySampleColumn = getColumn(studyTemplate, SAMPLE_NAME);
+        int templateRows = template.getRowCount() - 1;
+        int templateSamples = studyTemplate.getRowCount() - 1;
+
+        //<sample name, rows of the template assay for the sample>
+        Map<String, List<Integer>> sampleRows = new HashMap<String, List<Integer>>();
+        if (sampleColumn >= 0) {
+            for (int row = 1; row <= templateRows; row++) {
+                String sample = template.getValue(row, sampleColumn);
+                List<Integer> list = sampleRows.get(sample);
+                if (list == null) {
+                    list = new ArrayList<Integer>();
+                    sampleRows.put(sample, list);
+                }
+                list.add(row);
+            }
+        }
+
+        Writer writer = openWriter(file);
+        try {
+            List<String> header = new ArrayList<String>(Arrays.asList(template.getHeader()));
+            addFactorHeaders(header);
+            writeTableRow(writer, header);
+
+            List<String> cells = new ArrayList<String>();
+            for (int r = 0; r < rowCount; r++) {
+                int templateSample = r % templateSamples + 1;
+                String studySuffix = getSuffix(study, r / templateSamples);
+                String sample = studySampleColumn < 0 ? "" : studyTemplate.getValue(templateSample, studySampleColumn);
+
+                //the sample gets the assay rows of the template sample or, if it has none, a row of its own
+                List<Integer> assayRows = sampleRows.get(sample);
+                String suffix = studySuffix + (copy > 0 ? "-a" + copy : "");
+                if (assayRows == null) {
+                    assayRows = Collections.singletonList(r % templateRows + 1);
+                    suffix = suffix + "." + templateSample;
+                }
+
+                for (int assayRow : assayRows) {
+                    cells.clear();
+                    for (int col = 0; col < template.getColumnCount(); col++) {
+                        if (col == sampleColumn)
+                            cells.add(sample.length() == 0 ? "" : sample + studySuffix);
+                        else
+                            cells.add(getCell(template, assayRow, col, nodeColumns, suffix));
+                    }
+                    addFactorValues(cells, r, rowCount);
+                    writeTableRow(writer, cells);
+                }
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void addFactorHeaders(List<String> header){
+        for (int f = 1; f <= factors; f++)
+            header.add("Factor Value[" + SYNTHETIC_FACTOR + f + "]");
+    }
+
+    /**
+     * Adds the levels of the synthetic factors for a sample: the digits of its number in base cardinality, repeated for
+     * the factors beyond the number of digits of the number of samples.
+     */
+    private void addFactorValues(List<String> cells, int sample, int rowCount){
+        if (factors == 0)
+            return;
+        int digits = 1;
+        long divisor = cardinality;
+        while (cardinality > 1 && divisor < rowCount) {
+            digits++;
+            divisor *= cardinality;
+        }
+        for (int f = 0; f < factors; f++) {
+            long level = sample;
+            for (int d = 0; d < f % digits; d++)
+                level /= cardinality;
+            cells.add("level " + (level % cardinality));
+        }
+    }
+
+    private static String getCell(AssayTable template, int row, int col, boolean[] nodeColumns, String suffix){
+        String value = template.getValue(row, col);
+        if (value == null)
+            return "";
+        if (nodeColumns[col] && value.length() > 0)
+            return value + suffix;
+        return value;
+    }
+
+    /**
+     * @return for each column, whether it holds the names of nodes (materials, assays and data files)
+     */
+    private static boolean[] getNodeColumns(AssayTable table){
+        boolean[] nodeColumns = new boolean[table.getColumnCount()];
+        for (int col = 0; col < nodeColumns.length; col++) {
+            String name = table.getColumnName(col);
+            nodeColumns[col] = name.indexOf('[') < 0 && (name.endsWith(" Name") || name.endsWith(" File"));
+        }
+        return nodeColumns;
+    }
+
+    private static int getColumn(AssayTable table, String name){
+        for (int col = 0; col < table.getColumnCount(); col++) {
+            if (table.getColumnName(col).equals(name))
+                return col;
+        }
+        return -1;
+    }
+
+    private static String getSuffix(int study, int copy){
+        return "-s" + study + "-" + copy;
+    }
+
+    private static String getStudyId(String templateId, int study){
+        return templateId + "-" + study;
+    }
+
+    private static String getStudyFileName(String studyId){
+        return "s_" + studyId + ".txt";
+    }
+
+    private static String getAssayFileName(String studyId, int assay){
+        return "a_" + studyId + "-" + assay + ".txt";
+    }
+
+    private static File findInvestigationFile(File dir) throws IOException {
+        File[] files = dir.listFiles();
+        if (files == null)
+            throw new IOException("The template directory " + dir + " cannot be read");
+        Arrays.sort(files);
+        for (File file : files) {
+            if (file.getName().startsWith("i_") && file.getName().endsWith(".txt"))
+                return file;
+        }
+        throw new IOException("The template directory " + dir + " has no investigation file");
+    }
+
+    private static AssayTable readTable(File file) throws IOException {
+        AssayTableReader reader = new AssayTableReader(file, Integer.MAX_VALUE - 1);
+        try {
+            AssayTable table = reader.next();
+            if (table == null)
+                throw new IOException("The table " + file + " has no rows");
+            return table;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static List<String> readLines(File file) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            List<String> lines = new ArrayList<String>();
+            String line;
+            while ((line = reader.readLine()) != null)
+                lines.add(line);
+            return lines;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static Writer openWriter(File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"), 1 << 16);
+    }
+
+    /**
+     * @return the values of the first row of the section with the given key, without the trailing empty ones
+     */
+    private static List<String> getValues(List<String> lines, String key) throws IOException {
+        for (String line : lines) {
+            List<String> fields = splitLine(line);
+            if (fields.get(0).equals(key))
+                return trim(fields.subList(1, fields.size()));
+        }
+        throw new IOException("The template investigation has no " + key);
+    }
+
+    private static boolean isSection(String line, String section){
+        return isSectionHeader(line) && unquote(line.trim()).equals(section);
+    }
+
+    private static boolean isSectionHeader(String line){
+        String name = unquote(line.trim());
+        return name.length() > 0 && name.indexOf(SEPARATOR) < 0 && name.equals(name.toUpperCase()) && !name.equals(name.toLowerCase());
+    }
+
+    private static List<String> splitLine(String line){
+        List<String> fields = new ArrayList<String>();
+        for (String field : line.split(String.valueOf(SEPARATOR), -1))
+            fields.add(unquote(field));
+        return fields;
+    }
+
+    private static List<String> trim(List<String> values){
+        int end = values.size();
+        while (end > 0 && values.get(end - 1).length() == 0)
+            end--;
+        return new ArrayList<String>(values.subList(0, end));
+    }
+
+    private static String unquote(String field){
+        if (field.length() >= 2 && field.charAt(0) == QUOTE && field.charAt(field.length() - 1) == QUOTE)
+            return field.substring(1, field.length() - 1).replace("\"\"", "\"");
+        return field;
+    }
+
+    private static void writeRow(Writer writer, String key, List<String> values) throws IOException {
+        writer.write(key);
+        for (String value : values) {
+            writer.write(SEPARATOR);
+            writeQuoted(writer, value);
+        }
+    }
+
+    private static void writeTableRow(Writer writer, List<String> cells) throws IOException {
+        for (int i = 0; i < cells.size(); i++) {
+            if (i > 0)
+                writer.write(SEPARATOR);
+            writeQuoted(writer, cells.get(i));
+        }
+        writer.write('\n');
+    }
+
+    private static void writeQuoted(Writer writer, String value) throws IOException {
+        writer.write(QUOTE);
+        writer.write(value.indexOf(QUOTE) < 0 ? value : value.replace("\"", "\"\""));
+        writer.write(QUOTE);
+    }
+
+    public static void main(String[] args) throws IOException {
+        SyntheticDatasetGenerator generator = new SyntheticDatasetGenerator();
+        File template = null, output = null;
+
+        int i = 0;
+        while (i < args.length && args[i].startsWith("--")) {
+            String option = args[i++].toLowerCase();
+            String arg = i < args.length ? args[i++] : null;
+
+            if (option.equals("--help") || arg == null) {
+                System.out.println("usage: SyntheticDatasetGenerator --template <path> --output <path> [--studies <n>] [--assays <n>] [--rows <n>]\n" +
+                        "\t[--characteristics <n>] [--factors <n>] [--cardinality <n>] [--help]\n");
+                System.out.println("\t--template\tThe directory of the ISA-tab dataset used as a template, e.g. T1-2x2-strain-sex");
+                System.out.println("\t--output\tThe directory where the dataset is written");
+                System.out.println("\t--studies\tThe number of studies (1 by default)");
+                System.out.println("\t--assays\tThe number of assays of each study (as in the template by default)");
+                System.out.println("\t--rows\tThe number of samples of each study (as in the template by default)");
+                System.out.println("\t--characteristics\tThe number of synthetic Characteristics columns (0 by default)");
+                System.out.println("\t--factors\tThe number of synthetic factors (0 by default)");
+                System.out.println("\t--cardinality\tThe number of distinct values of each synthetic column (2 by default)");
+                System.out.println("\t--help\tShows this message ");
+                System.exit(0);
+            } else if (option.equals("--template")) {
+                template = new File(arg);
+            } else if (option.equals("--output")) {
+                output = new File(arg);
+            } else if (option.equals("--studies")) {
+                generator.setStudies(Integer.parseInt(arg));
+            } else if (option.equals("--assays")) {
+                generator.setAssays(Integer.parseInt(arg));
+            } else if (option.equals("--rows")) {
+                generator.setRows(Integer.parseInt(arg));
+            } else if (option.equals("--characteristics")) {
+                generator.setCharacteristics(Integer.parseInt(arg));
+            } else if (option.equals("--factors")) {
+                generator.setFactors(Integer.parseInt(arg));
+            } else if (option.equals("--cardinality")) {
+                generator.setCardinality(Integer.parseInt(arg));
+            } else {
+                throw new IllegalArgumentException("Unknown option " + option + "; use --help for the list of options");
+            }
+        }
+        if (template == null || output == null)
+            throw new IllegalArgumentException("Both --template and --output are required; use --help for the list of options");
+
+        generator.generate(template, output);
+    }
+
+}
@@ -0,0 +1,48 @@
+package org.isatools.linkedISA.benchmark;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Converts each dataset in memory-budgets.properties in a forked JVM and checks that its peak heap is within its budget.
+ * The figures of every dataset are written to target/memory-report.csv.
+ *
+ * As it converts every dataset, it is run by failsafe in the memory-regression profile only:
+ * mvn -Pmemory-regression verify
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class MemoryRegressionIT {
+
+    private MemoryRegressionHarness harness = null;
+
+    @Before
+    public void setUp() throws Exception {
+        File budgets = new File(getClass().getResource("/memory-budgets.properties").toURI());
+        harness = new MemoryRegressionHarness(budgets);
+    }
+
+    @Test
+    public void testBudgets() throws Exception {
+        assertFalse(harness.getBudgets().isEmpty());
+        List<MemoryRegressionHarness.Result> results = harness.runAll();
+        MemoryRegressionHarness.writeReport(results, new File("target/memory-report.csv"));
+
+        StringBuilder failures = new StringBuilder();
+        for (MemoryRegressionHarness.Result result : results) {
+            if (!result.isWithinBudget())
+                failures.append(result).append('\n');
+        }
+        assertTrue("Datasets over their memory budget (heap limit -Xmx" + harness.getXmx() + "):\n" + failures,
+                failures.length() == 0);
+    }
+
+}
@@ -0,0 +1,37 @@
+package org.isatools.linkedISA.benchmark;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Test class for MemoryRegressionHarness. The budgets themselves are checked by MemoryRegressionIT.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class MemoryRegressionTest {
+
+    @Test
+    public void testParse() {
+        MemoryRegressionHarness.Result result = MemoryRegressionHarness.parse("T4", 100L * 1024 * 1024,
+                MemoryProbe.RESULT_PREFIX + "peakBytes=52428800 retainedBytes=20971520 gcCount=12 gcMillis=85 axioms=4321");
+        assertNull(result.getError());
+        assertEquals(52428800L, result.getPeakBytes());
+        assertEquals(20971520L, result.getRetainedBytes());
+        assertEquals(12, result.getGCCount());
+        assertEquals(85, result.getGCMillis());
+        assertEquals(4321, result.getAxioms());
+        assertTrue(result.isWithinBudget());
+
+        result = MemoryRegressionHarness.parse("T4", 40L * 1024 * 1024, MemoryProbe.RESULT_PREFIX + "peakBytes=52428800");
+        assertFalse(result.isWithinBudget());
+
+        result = MemoryRegressionHarness.parse("T4", 40L * 1024 * 1024, MemoryProbe.RESULT_PREFIX + "axioms=1");
+        assertNotNull(result.getError());
+        assertFalse(result.isWithinBudget());
+    }
+
+}
@@ -0,0 +1,162 @@
+package org.isatools.linkedISA.benchmark;
+
+import org.isatools.graph.model.impl.AssayTable;
+import org.isatools.graph.parser.AssayTableReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Test class for SyntheticDatasetGenerator
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class SyntheticDatasetGeneratorTest {
+
+    private File outputDir = null;
+
+    @Before
+    public void setUp() throws Exception {
+        outputDir = File.createTempFile("synthetic", "");
+        outputDir.delete();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = outputDir.listFiles();
+        if (files != null) {
+            for (File file : files)
+                file.delete();
+        }
+        outputDir.delete();
+    }
+
+    @Test
+    public void testScaledStudies() throws Exception {
+        SyntheticDatasetGenerator generator = new SyntheticDatasetGenerator();
+        generator.setStudies(2);
+        generator.setAssays(3);
+        generator.setRows(50);
+        generator.setCharacteristics(3);
+        generator.setFactors(2);
+        generator.setCardinality(3);
+        File investigation = generator.generate(BenchmarkResources.getDatasetDirectory("T1-2x2-strain-sex"), outputDir);
+
+        Map<String, List<String>> rows = readInvestigation(investigation);
+        assertEquals(Arrays.asList("T1-1", "T1-2"), rows.get("Study Identifier"));
+        assertEquals(Arrays.asList("s_T1-1.txt", "s_T1-2.txt"), rows.get("Study File Name"));
+        assertEquals(Arrays.asList("a_T1-1-1.txt", "a_T1-1-2.txt", "a_T1-1-3.txt", "a_T1-2-1.txt", "a_T1-2-2.txt", "a_T1-2-3.txt"),
+                rows.get("Study Assay File Name"));
+        assertEquals(Arrays.asList("RS:rat strain", "PATO:biological sex", "synthetic factor 1", "synthetic factor 2"),
+                rows.get("Study Factor Name").subList(0, 4));
+
+        AssayTable study = readTable(new File(outputDir, "s_T1-1.txt"));
+        assertEquals(51, study.getRowCount());
+        Set<String> samples = values(study, "Sample Name");
+        assertEquals(50, samples.size());
+        assertEquals(3, values(study, "Characteristics[synthetic characteristic 2]").size());
+
+        //the factors take each of their values, and the samples fall into all their combinations
+        Set<String> groups = new HashSet<String>();
+        int factor1 = column(study, "Factor Value[synthetic factor 1]");
+        int factor2 = column(study, "Factor Value[synthetic factor 2]");
+        for (int row = 1; row < study.getRowCount(); row++)
+            groups.add(study.getValue(row, factor1) + "/" + study.getValue(row, factor2));
+        assertEquals(9, groups.size());
+
+        //each assay has the rows of the template for every sample, with names of its own
+        AssayTable template = readTable(new File(BenchmarkResources.getDatasetDirectory("T1-2x2-strain-sex"), "a_T1-A1.txt"));
+        Set<String> extracts = new HashSet<String>();
+        for (String assay : Arrays.asList("a_T1-1-1.txt", "a_T1-1-2.txt")) {
+            AssayTable table = readTable(new File(outputDir, assay));
+            assertEquals(51, table.getRowCount());
+            assertEquals(template.getColumnCount() + 2, table.getColumnCount());
+            assertEquals(samples, values(table, "Sample Name"));
+            Set<String> assayExtracts = values(table, "Extract Name");
+            assertEquals(50, assayExtracts.size());
+            extracts.addAll(assayExtracts);
+        }
+        assertEquals(100, extracts.size());
+
+        //the samples of different studies are different
+        Set<String> otherSamples = values(readTable(new File(outputDir, "s_T1-2.txt")), "Sample Name");
+        otherSamples.retainAll(samples);
+        assertTrue(otherSamples.isEmpty());
+    }
+
+    @Test
+    public void testTemplateCopy() throws Exception {
+        File templateDir = BenchmarkResources.getDatasetDirectory("BII-S-3");
+        File investigation = new SyntheticDatasetGenerator().generate(templateDir, outputDir);
+
+        Map<String, List<String>> rows = readInvestigation(investigation);
+        assertEquals(Arrays.asList("BII-S-3-1"), rows.get("Study Identifier"));
+        assertEquals(2, rows.get("Study Assay File Name").size());
+
+        //same rows and distinct values as the template
+        AssayTable template = readTable(new File(templateDir, "s_BII-S-3.txt"));
+        AssayTable study = readTable(new File(outputDir, "s_BII-S-3-1.txt"));
+        assertEquals(template.getRowCount(), study.getRowCount());
+        assertEquals(values(template, "Source Name").size(), values(study, "Source Name").size());
+        assertEquals(values(template, "Sample Name").size(), values(study, "Sample Name").size());
+    }
+
+    private static Map<String, List<String>> readInvestigation(File file) throws IOException {
+        Map<String, List<String>> rows = new HashMap<String, List<String>>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                List<String> values = rows.get(fields[0]);
+                if (values == null) {
+                    values = new ArrayList<String>();
+                    rows.put(fields[0], values);
+                }
+                for (int i = 1; i < fields.length; i++)
+                    values.add(fields[i].replace("\"", ""));
+            }
+        } finally {
+            reader.close();
+        }
+        return rows;
+    }
+
+    private static AssayTable readTable(File file) throws IOException {
+        AssayTableReader reader = new AssayTableReader(file, Integer.MAX_VALUE - 1);
+        try {
+            return reader.next();
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static int column(AssayTable table, String name) {
+        for (int col = 0; col < table.getColumnCount(); col++) {
+            if (table.getColumnName(col).equals(name))
+                return col;
+        }
+        fail("No column " + name);
+        return -1;
+    }
+
+    private static Set<String> values(AssayTable table, String name) {
+        int col = column(table, name);
+        Set<String> values = new HashSet<String>();
+        for (int row = 1; row < table.getRowCount(); row++)
+            values.add(table.getValue(row, col));
+        return values;
+    }
+
+}
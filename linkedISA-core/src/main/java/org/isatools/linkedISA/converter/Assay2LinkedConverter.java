@@ -10,8 +10,8 @@ import org.isatools.isacreator.model.StudyDesign;
 import org.isatools.graph.model.*;
 import org.isatools.graph.model.impl.*;
 
+import org.isatools.graph.parser.AssayTableReader;
 import org.isatools.graph.parser.GraphParser;
-import org.isatools.isacreator.ontologymanager.OntologyManager;
 import org.isatools.owl.BFO;
 import org.isatools.owl.ISA;
 import org.isatools.owl.OBI;
@@ -19,7 +19,9 @@ import org.isatools.syntax.ExtendedISASyntax;
 import org.isatools.util.Pair;
 import org.semanticweb.owlapi.model.*;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Created by the ISATeam.
@@ -37,30 +39,74 @@ public class Assay2LinkedConverter {
 
     public enum AssayTableType { STUDY, ASSAY}
     private GraphParser graphParser = null;
-    private Object[][] data = null;
-    //a matrix will all the individuals for the data (these are MaterialNodes or ProcessNodes individuals
-    private OWLNamedIndividual[][] individualMatrix = null;
+    private Graph graph = null;
+    //the table, or the batch of rows, being converted
+    private AssayTable table = null;
+    //the number of rows of the file before those of the batch being converted
+    private int rowOffset = 0;
+    //the individuals for the data (these are MaterialNodes or ProcessNodes individuals), by cell
+    private IndividualIndex individualIndex = null;
+    //true for a STUDY table, where the sample individuals are created
+    private boolean createSampleIndividuals = false;
 
     private static boolean PROTOCOL_REF_ALWAYS_NEW = false;
 
     //the key is a concatenation of all the inputs and all the outputs, plus the process name, if all the inputs and outputs are the same, we don't create a new process individual
-    private Map<String, OWLNamedIndividual> processParametersPerfomerDateProcessIndividualMap = new HashMap<String, OWLNamedIndividual>();
+    private Map<String, OWLNamedIndividual> processParametersPerfomerDateProcessIndividualMap = new ConcurrentHashMap<String, OWLNamedIndividual>();
     private Map<String, OWLNamedIndividual> processInputProcessIndividualMap = new HashMap<String, OWLNamedIndividual>();
     private Map<String, OWLNamedIndividual> processOutputProcessIndividualMap = new HashMap<String, OWLNamedIndividual>();
 
-    private Map<String, OWLNamedIndividual> materialAttributeIndividualMap = new HashMap<String, OWLNamedIndividual>();
-    //<type, <name, individual>>
-    private Map<String, Map<String, OWLNamedIndividual>> materialNodeIndividualMap = new HashMap<String, Map<String,OWLNamedIndividual>>();
+    private Map<String, OWLNamedIndividual> materialAttributeIndividualMap = new ConcurrentHashMap<String, OWLNamedIndividual>();
+    //<type TAB name, individual>
+    private Map<String, OWLNamedIndividual> materialNodeIndividualMap = new ConcurrentHashMap<String, OWLNamedIndividual>();
 
     //factor value individuals identity is their own name, keep this map to create them only once
-    private Map<String, OWLNamedIndividual> factorValueIndividuals = new HashMap<String, OWLNamedIndividual>();
-    private Map<String, OWLNamedIndividual> dataNodesIndividuals = new HashMap<String, OWLNamedIndividual>();
+    private Map<String, OWLNamedIndividual> factorValueIndividuals = new ConcurrentHashMap<String, OWLNamedIndividual>();
+    private Map<String, OWLNamedIndividual> dataNodesIndividuals = new ConcurrentHashMap<String, OWLNamedIndividual>();
     private Set<OWLNamedIndividual> assayFileSampleIndividualSet = null;
-    private Map<String, OWLNamedIndividual> parameterNameIndividualMap = new HashMap<String, OWLNamedIndividual>();
+    private Map<String, OWLNamedIndividual> parameterNameIndividualMap = new ConcurrentHashMap<String, OWLNamedIndividual>();
+    //used to avoid repetitions of assay and process node individuals
+    private Map<String, OWLNamedIndividual> assayNodeIndividuals = new HashMap<String, OWLNamedIndividual>();
+    private Map<String, OWLNamedIndividual> processNodeIndividuals = new HashMap<String, OWLNamedIndividual>();
 
+    private ConversionContext context = null;
 
-    public Assay2LinkedConverter(){
+    //number of threads converting the rows of a table, and their executor while a table is converted
+    private int threads = 1;
+    private ExecutorService executor = null;
+    private static final int MIN_ROWS_PER_TASK = 16;
+
+    //locks guarding the creation of the individuals shared by rows converted in parallel, by key
+    private final Object[] creationLocks = new Object[64];
+
+    //<process parameters performer date string, identity of the first row with it>, to mint the same protocol REF IRIs
+    //as a serial conversion when the rows are converted in parallel
+    private Map<String, String> protocolREFIdentities = new HashMap<String, String>();
+
+
+    /**
+     * Constructor
+     *
+     * @param c the context of the conversion the assay belongs to
+     */
+    public Assay2LinkedConverter(ConversionContext c){
         log.info("Assay2OWLConverter - constructor");
+        context = c;
+        for(int i = 0; i < creationLocks.length; i++){
+            creationLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * Sets the number of threads converting the rows of each table. With more than one thread, the material, data and
+     * protocol REF nodes of ranges of rows are converted in parallel, each range with its own axiom buffer, and the buffers
+     * are added to the output in row order. The individuals are the same as in a serial conversion; their IRIs are only
+     * numbered in the same way with a content based IRIMintingStrategy, such as ContentHashIRIMintingStrategy.
+     *
+     * @param t the number of threads
+     */
+    public void setThreads(int t){
+        threads = Math.max(1, t);
     }
 
     /***
@@ -89,50 +135,280 @@ public class Assay2LinkedConverter {
                                                    OWLNamedIndividual assayFileIndividual,
                                                    Map<String, OWLNamedIndividual> factorIndividualMap){
         log.debug("CONVERTING ASSAY ---> AssayTableType="+att);
-        AssayTableType assayTableType = att;
-        data = assay.getAssayDataMatrix();
-        individualMatrix = new OWLNamedIndividual[data.length][data[0].length];
+        AssayTable assayTable = new AssayTable(assay.getAssayDataMatrix());
+
+        try {
+            sampleIndividualMap = startTable(assayTable, att, sampleIndividualMap, assayIndividualsForProperties);
+            convertRows(assayTable, att, sampleIndividualMap, protocolList, protocolIndividualMap, studyIndividual,
+                    assayIndividualsForProperties, assayFileIndividual, factorIndividualMap);
+            return endTable(convertGroups, studyDesignIndividual, sampleIndividualMap);
+        } finally {
+            stopExecutor();
+        }
+    }
 
-        graphParser = new GraphParser(assay.getAssayDataMatrix());
+    /***
+     *
+     * It converts a study sample or assay file read in batches of rows, so that the cells and individual index of only one
+     * batch are held by the converter at a time.
+     *
+     * The graph is built once from the header. The rows of each batch are converted, and their triples added, before the
+     * next batch is read; the individuals are reused across batches through the same maps used for a whole table. The samples
+     * of an assay file linked to the assay individuals are those read so far.
+     *
+     * @param reader the reader for the file, positioned after the header
+     * @param att the AssayTableType for the file (either a STUDY or an ASSAY)
+     * @param sampleIndividualMap a Map with <sample name, sample individual>
+     * @param protocolList the list of Protocols
+     * @param protocolIndividualMap a Map for the protocol individuals
+     * @param studyDesignIndividual the individual for the study design
+     * @param studyIndividual the individual corresponding to the study
+     * @param convertGroups true or false, indicating if groups are created or not
+     * @return
+     * @throws IOException if the file cannot be read
+     */
+    public Map<String, OWLNamedIndividual> convert(AssayTableReader reader,
+                                                   AssayTableType att,
+                                                   Map<String,OWLNamedIndividual> sampleIndividualMap,
+                                                   List<Protocol> protocolList,
+                                                   Map<String, OWLNamedIndividual> protocolIndividualMap,
+                                                   OWLNamedIndividual studyDesignIndividual,
+                                                   OWLNamedIndividual studyIndividual,
+                                                   boolean convertGroups,
+                                                   Map<String, Set<OWLNamedIndividual>> assayIndividualsForProperties,
+                                                   OWLNamedIndividual assayFileIndividual,
+                                                   Map<String, OWLNamedIndividual> factorIndividualMap) throws IOException {
+        log.debug("CONVERTING ASSAY IN BATCHES ---> AssayTableType="+att);
+
+        try {
+            sampleIndividualMap = startTable(reader.getHeaderTable(), att, sampleIndividualMap, assayIndividualsForProperties);
+
+            AssayTable batch = null;
+            while ((batch = reader.next()) != null){
+                rowOffset = reader.getRowsRead() - (batch.getRowCount() - 1);
+                graphParser.addGroups(batch);
+                convertRows(batch, att, sampleIndividualMap, protocolList, protocolIndividualMap, studyIndividual,
+                        assayIndividualsForProperties, assayFileIndividual, factorIndividualMap);
+            }
+            log.info("Converted " + reader.getRowsRead() + " rows");
+
+            return endTable(convertGroups, studyDesignIndividual, sampleIndividualMap);
+        } finally {
+            stopExecutor();
+        }
+    }
+
+    /**
+     * Builds the graph of the table and checks the sample individuals given.
+     *
+     * @param headerTable the table, or at least its header row
+     * @return the map where the sample individuals are kept
+     */
+    private Map<String, OWLNamedIndividual> startTable(AssayTable headerTable,
+                                                       AssayTableType assayTableType,
+                                                       Map<String,OWLNamedIndividual> sampleIndividualMap,
+                                                       Map<String, Set<OWLNamedIndividual>> assayIndividualsForProperties){
+        graphParser = new GraphParser(headerTable);
         graphParser.parse();
-        Graph graph = graphParser.getGraph();
+        graph = graphParser.getGraph();
 
         //if it is a study table
         if (assayTableType == AssayTableType.STUDY && sampleIndividualMap!=null){
-            System.err.println("Converting STUDY table and sample individuals are not null - this cannot be possible");
+            log.error("Converting STUDY table and sample individuals are not null - this cannot be possible");
             System.exit(-1);
         }
 
         //if it is an assay table, the sampleIndividualMap cannot be null
         if (assayTableType == AssayTableType.ASSAY && sampleIndividualMap==null){
-            System.err.println("Converting ASSAY table and sample individuals are null - they should have been defined in the STUDY table");
+            log.error("Converting ASSAY table and sample individuals are null - they should have been defined in the STUDY table");
             System.exit(-1);
         }
 
-        //this method also sets the assayFileSampleIndividualSet variable, if it is an ASSAY
-        sampleIndividualMap = convertMaterialNodes(graph, sampleIndividualMap, studyIndividual, factorIndividualMap);
+        createSampleIndividuals = (sampleIndividualMap==null);
+        if (createSampleIndividuals){
+            sampleIndividualMap = new ConcurrentHashMap<String, OWLNamedIndividual>();
+        } else {
+            assayFileSampleIndividualSet = Collections.synchronizedSet(new HashSet<OWLNamedIndividual>());
+        }
+
+        if (threads > 1)
+            executor = Executors.newFixedThreadPool(threads);
 
         if (assayTableType == AssayTableType.ASSAY){
             assayIndividualsForProperties.put(ExtendedISASyntax.SAMPLE, assayFileSampleIndividualSet);
         }
-        convertDataNodes(graph);
+        return sampleIndividualMap;
+    }
 
-        convertProtocolExecutionNodes(protocolList, protocolIndividualMap, graph, assayTableType);
+    /**
+     * Converts the rows of a table, or of a batch of rows of a table, with the graph built by startTable.
+     *
+     * @param rows the table or batch, with the header in row 0
+     */
+    private void convertRows(AssayTable rows,
+                             AssayTableType assayTableType,
+                             Map<String,OWLNamedIndividual> sampleIndividualMap,
+                             List<Protocol> protocolList,
+                             Map<String, OWLNamedIndividual> protocolIndividualMap,
+                             OWLNamedIndividual studyIndividual,
+                             Map<String, Set<OWLNamedIndividual>> assayIndividualsForProperties,
+                             OWLNamedIndividual assayFileIndividual,
+                             Map<String, OWLNamedIndividual> factorIndividualMap){
+        table = rows;
+        individualIndex = new IndividualIndex(table);
+
+        if (executor == null || table.getRowCount() - 1 < 2 * MIN_ROWS_PER_TASK){
+            convertRowRange(1, table.getRowCount(), assayTableType, sampleIndividualMap, protocolList, protocolIndividualMap,
+                    studyIndividual, factorIndividualMap);
+        } else {
+            convertRowRangesInParallel(assayTableType, sampleIndividualMap, protocolList, protocolIndividualMap,
+                    studyIndividual, factorIndividualMap);
+        }
 
         if (assayTableType == AssayTableType.ASSAY){
 
             //Assay Name *
+            long start = context.getMetrics().start();
             List<ISANode> assayNodes = graph.getNodes(NodeType.ASSAY_NODE);
-            convertProcessNodes(assayNodes, protocolIndividualMap, graph, assayIndividualsForProperties, assayFileIndividual);
+            convertProcessNodes(assayNodes, assayNodeIndividuals, protocolIndividualMap, graph, assayIndividualsForProperties, assayFileIndividual);
 
             //Data Transformation or Normalization Name
             List<ISANode> processNodes = graph.getNodes(NodeType.PROCESS_NODE);
-            convertProcessNodes(processNodes, protocolIndividualMap, graph, assayIndividualsForProperties, assayFileIndividual);
+            convertProcessNodes(processNodes, processNodeIndividuals, protocolIndividualMap, graph, assayIndividualsForProperties, assayFileIndividual);
+            context.getMetrics().stopStep("processNodes", start);
         }
+    }
+
+    /**
+     * Converts the material, data and protocol REF nodes of a range of rows of the table.
+     *
+     * @param firstRow the first row of the range
+     * @param endRow the row after the last row of the range
+     */
+    private void convertRowRange(int firstRow,
+                                 int endRow,
+                                 AssayTableType assayTableType,
+                                 Map<String,OWLNamedIndividual> sampleIndividualMap,
+                                 List<Protocol> protocolList,
+                                 Map<String, OWLNamedIndividual> protocolIndividualMap,
+                                 OWLNamedIndividual studyIndividual,
+                                 Map<String, OWLNamedIndividual> factorIndividualMap){
+
+        //the ranges converted in parallel add up their times, so these steps are measured in thread time
+        MetricsRegistry metrics = context.getMetrics();
+
+        //this method also fills the assayFileSampleIndividualSet variable, if it is an ASSAY
+        long start = metrics.start();
+        convertMaterialNodes(graph, sampleIndividualMap, studyIndividual, factorIndividualMap, firstRow, endRow);
+        metrics.stopStep("materialNodes", start);
+
+        start = metrics.start();
+        convertDataNodes(graph, firstRow, endRow);
+        metrics.stopStep("dataNodes", start);
+
+        start = metrics.start();
+        convertProtocolExecutionNodes(protocolList, protocolIndividualMap, graph, assayTableType, firstRow, endRow);
+        metrics.stopStep("protocolExecutionNodes", start);
+    }
 
+    /**
+     * Splits the rows of the table in ranges converted by the executor. The axioms of each range are kept in a buffer
+     * of the thread converting it, and the buffers are added to the output in the order of the rows.
+     */
+    private void convertRowRangesInParallel(final AssayTableType assayTableType,
+                                            final Map<String,OWLNamedIndividual> sampleIndividualMap,
+                                            final List<Protocol> protocolList,
+                                            final Map<String, OWLNamedIndividual> protocolIndividualMap,
+                                            final OWLNamedIndividual studyIndividual,
+                                            final Map<String, OWLNamedIndividual> factorIndividualMap){
+
+        if (context.getIRIGenerator().getStrategy().isContentBased())
+            findProtocolREFIdentities(graph);
+
+        //the ranges are converted in the scope of the table
+        final String scope = context.getScope();
+        int rowCount = table.getRowCount() - 1;
+        int rowsPerTask = Math.max(MIN_ROWS_PER_TASK, (rowCount + 4 * threads - 1) / (4 * threads));
+
+        List<Future<List<OWLAxiom>>> futures = new ArrayList<Future<List<OWLAxiom>>>();
+        for(int first = 1; first < table.getRowCount(); first += rowsPerTask){
+            final int firstRow = first;
+            final int endRow = Math.min(first + rowsPerTask, table.getRowCount());
+            futures.add(executor.submit(new Callable<List<OWLAxiom>>() {
+                public List<OWLAxiom> call() {
+                    context.startWorker(scope);
+                    List<OWLAxiom> axioms = null;
+                    try {
+                        convertRowRange(firstRow, endRow, assayTableType, sampleIndividualMap, protocolList, protocolIndividualMap,
+                                studyIndividual, factorIndividualMap);
+                    } finally {
+                        axioms = context.finishWorker();
+                    }
+                    return axioms;
+                }
+            }));
+        }
+
+        try {
+            for(Future<List<OWLAxiom>> future: futures){
+                context.addAxioms(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while converting the rows", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not convert the rows", e.getCause());
+        } finally {
+            for(Future<List<OWLAxiom>> future: futures){
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Finds, for each process parameters performer date string, the identity of the first row with it, which is the one
+     * a serial conversion uses to mint the IRI of the protocol REF individual.
+     */
+    private void findProtocolREFIdentities(Graph graph){
+        for(ISANode node: graph.getNodes(NodeType.PROTOCOL_EXECUTION_NODE)){
+            ProtocolExecutionNode processNode = (ProtocolExecutionNode) node;
+            int processCol = processNode.getIndex();
+
+            for(int processRow=1; processRow < table.getRowCount(); processRow ++){
+                String protocolExecutionValue = processCol==-1 ? processNode.toShortString() : table.getValue(processRow, processCol);
+                if (protocolExecutionValue.equals(""))
+                    continue;
+
+                String inputOutputString = getInputOutputMethodString(processRow, protocolExecutionValue, processNode);
+                if (protocolExecutionValue.equals(inputOutputString))
+                    continue;
+
+                String processParametersPerformerDateString = getProcessParametersPerformerDateString(processRow, processNode);
+                if (!protocolREFIdentities.containsKey(processParametersPerformerDateString))
+                    protocolREFIdentities.put(processParametersPerformerDateString, processParametersPerformerDateString + "\t" + inputOutputString);
+            }
+        }
+    }
+
+    private Object lockFor(String key){
+        return creationLocks[(key.hashCode() & 0x7fffffff) % creationLocks.length];
+    }
+
+    private void stopExecutor(){
+        if (executor != null){
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private Map<String, OWLNamedIndividual> endTable(boolean convertGroups, OWLNamedIndividual studyDesignIndividual, Map<String,OWLNamedIndividual> sampleIndividualMap){
         if (convertGroups){
-            LinkedISA.groupsAtStudyLevel = convertGroups(studyDesignIndividual,sampleIndividualMap);
+            long start = context.getMetrics().start();
+            context.setGroupsAtStudyLevel(convertGroups(studyDesignIndividual,sampleIndividualMap));
+            context.getMetrics().stopStep("groups", start);
         }
+        table = null;
+        individualIndex = null;
         return sampleIndividualMap;
     }
 
@@ -142,36 +418,35 @@ public class Assay2LinkedConverter {
      *
      * For all these nodes, the identity method is the name of the node use in the ISA-TAB row.
      *
+     * @param processNodeIndividuals the individuals already created for the nodes, by value
      * @param protocolIndividualMap a Map with protocol individuals
      * @param graph the Graph from the isa-graphparser
      * @param assayIndividualsForProperties a set of OWL individuals to be used for generating the properties
      */
     private void convertProcessNodes(List<ISANode> processNodes,
+                                     Map<String, OWLNamedIndividual> processNodeIndividuals,
                                      Map<String,OWLNamedIndividual> protocolIndividualMap,
                                     Graph graph, Map<String,
                                     Set<OWLNamedIndividual>> assayIndividualsForProperties,
                                     OWLNamedIndividual assayFileIndividual) {
 
-        //used to avoid repetitions of processNodeIndividuals
-        Map<String, OWLNamedIndividual> processNodeIndividuals = new HashMap<String, OWLNamedIndividual>();
-
         for(ISANode node: processNodes){
             ProcessNode processNode = (ProcessNode) node;
             int processCol = processNode.getIndex();
 
-            for(int processRow=1; processRow < data.length; processRow++){
+            for(int processRow=1; processRow < table.getRowCount(); processRow++){
 
                 String processNodeValue = null;
                 if (processCol==-1){
                     processNodeValue = processNode.toShortString();
                 } else {
-                    processNodeValue = (data[processRow][processCol]).toString();
+                    processNodeValue = table.getValue(processRow, processCol);
                 }
 
                 if (processNodeValue.equals("")){
                     log.debug("ProcessNodeValue is empty!!!");
                     continue;
-                } else {
+                } else if (log.isDebugEnabled()){
                     log.debug("ProcessNodeValue = " + processNodeValue);
                 }
 
@@ -188,45 +463,47 @@ public class Assay2LinkedConverter {
                         individualType = ExtendedISASyntax.STUDY_ASSAY;
 
 
-                    processIndividual = LinkedISA.createIndividual(individualType, processNodeValue);
+                    processIndividual = LinkedISA.createIndividual(context, individualType, processNodeValue);
                  }//if individual is null.
 
                     processNodeIndividuals.put(processNodeValue, processIndividual);
 
                     //assay_file describes assay
                     if (individualType==ExtendedISASyntax.STUDY_ASSAY)
-                        LinkedISA.createObjectPropertyAssertion(ISA.DESCRIBES, assayFileIndividual, processIndividual);
+                        LinkedISA.createObjectPropertyAssertion(context, ISA.DESCRIBES, assayFileIndividual, processIndividual);
 
                     //inputs & outputs
                     //adding inputs and outputs to the assay
-                    OWLObjectProperty has_specified_input = LinkedISA.factory.getOWLObjectProperty(IRI.create(OBI.HAS_SPECIFIED_INPUT));
+                    OWLObjectProperty has_specified_input = context.getVocabulary().getOWLObjectProperty(OBI.HAS_SPECIFIED_INPUT);
                     ISANode input = processNode.getInputNode();
                     int inputCol = input.getIndex();
 
-                    if (!data[processRow][inputCol].toString().equals("")){
+                    if (!table.isEmpty(processRow, inputCol)){
 
-                        if (individualMatrix[processRow][inputCol]==null){
-                                System.out.println("individualMatrix[row][inputCol]==null!!!! " + individualMatrix[processRow][inputCol] == null + "  row=" + processRow + " inputCol=" + inputCol);
+                        if (individualIndex.get(processRow, inputCol)==null){
+                                if (log.isDebugEnabled())
+                                    log.debug("individualIndex.get(row, inputCol)==null!!!!  row=" + processRow + " inputCol=" + inputCol);
                         }else{
-                                OWLNamedIndividual inputIndividual = individualMatrix[processRow][inputCol];
-                                LinkedISA.addObjectPropertyAssertionAxiom(has_specified_input, processIndividual, inputIndividual);
+                                OWLNamedIndividual inputIndividual = individualIndex.get(processRow, inputCol);
+                                LinkedISA.addObjectPropertyAssertionAxiom(context, has_specified_input, processIndividual, inputIndividual);
                         }
                     }
 
 
 
-                    OWLObjectProperty has_specified_output = LinkedISA.factory.getOWLObjectProperty(IRI.create(OBI.HAS_SPECIFIED_OUTPUT));
+                    OWLObjectProperty has_specified_output = context.getVocabulary().getOWLObjectProperty(OBI.HAS_SPECIFIED_OUTPUT);
                     ISANode output = processNode.getOutputNode();
                     int outputCol = output.getIndex();
-                    if (!data[processRow][outputCol].toString().equals("")){
+                    if (!table.isEmpty(processRow, outputCol)){
 
-                        if (individualMatrix[processRow][outputCol]!=null){
-                            LinkedISA.addObjectPropertyAssertionAxiom(has_specified_output, processIndividual, individualMatrix[processRow][outputCol]);
+                        if (individualIndex.get(processRow, outputCol)!=null){
+                            LinkedISA.addObjectPropertyAssertionAxiom(context, has_specified_output, processIndividual, individualIndex.get(processRow, outputCol));
                         }else{
-                                System.out.println("individualMatrix[row][outputCol es null!!!! "+ individualMatrix[processRow][outputCol]+ "  row="+processRow+" outputCol="+outputCol);
+                                if (log.isDebugEnabled())
+                                    log.debug("individualIndex.get(row, outputCol)==null!!!!  row="+processRow+" outputCol="+outputCol);
                             }
                         } else {
-                            System.out.println("the element value is empty");
+                            log.debug("the element value is empty");
                     }
 
 
@@ -238,35 +515,35 @@ public class Assay2LinkedConverter {
                     for(ProtocolExecutionNode protocolExecutionNode: associatedProcessNodes){
 
                         int protocolExecutionColumn = protocolExecutionNode.getIndex();
-                        String protocolExecutionName = (String)data[processRow][protocolExecutionColumn];
+                        String protocolExecutionName = table.getValue(processRow, protocolExecutionColumn);
 
                         //executes
                         OWLNamedIndividual protocolIndividual = protocolIndividualMap.get(protocolExecutionName);
-                        OWLObjectProperty executes = LinkedISA.factory.getOWLObjectProperty(IRI.create(ISA.EXECUTES));
-                        LinkedISA.addObjectPropertyAssertionAxiom(executes, processIndividual, protocolIndividual);
+                        OWLObjectProperty executes = context.getVocabulary().getOWLObjectProperty(ISA.EXECUTES);
+                        LinkedISA.addObjectPropertyAssertionAxiom(context, executes, processIndividual, protocolIndividual);
 
-                        OWLNamedIndividual protocolExecutionIndividual = individualMatrix[processRow][protocolExecutionColumn];
+                        OWLNamedIndividual protocolExecutionIndividual = individualIndex.get(processRow, protocolExecutionColumn);
 
-                        OWLObjectProperty isPrecededBy = LinkedISA.factory.getOWLObjectProperty(IRI.create(BFO.IS_PRECEDED_BY));
+                        OWLObjectProperty isPrecededBy = context.getVocabulary().getOWLObjectProperty(BFO.IS_PRECEDED_BY);
                         if (lastProtocolExecutionIndividual!=null)
-                            LinkedISA.addObjectPropertyAssertionAxiom(isPrecededBy, protocolExecutionIndividual, lastProtocolExecutionIndividual);
+                            LinkedISA.addObjectPropertyAssertionAxiom(context, isPrecededBy, protocolExecutionIndividual, lastProtocolExecutionIndividual);
 
                         lastProtocolExecutionIndividual = protocolExecutionIndividual;
-                        OWLObjectProperty has_part = LinkedISA.factory.getOWLObjectProperty(IRI.create(BFO.HAS_PART));
-                        LinkedISA.addObjectPropertyAssertionAxiom(has_part, processIndividual, protocolExecutionIndividual);
+                        OWLObjectProperty has_part = context.getVocabulary().getOWLObjectProperty(BFO.HAS_PART);
+                        LinkedISA.addObjectPropertyAssertionAxiom(context, has_part, processIndividual, protocolExecutionIndividual);
 
                         //RULE: if there is only one protocol REF associated with a 'data transformation' or 'normalization' node,
                         //the data transformation can take the same type as the protocol ref
                         if (associatedProcessNodes.size()==1){
-                            System.out.println("processIndividual="+processIndividual);
-                            System.out.println("protocolExecutionIndividual="+protocolExecutionIndividual);
+                            if (log.isDebugEnabled())
+                                log.debug("processIndividual="+processIndividual+" protocolExecutionIndividual="+protocolExecutionIndividual);
                             //Set<IRI> protocolClassIRIs = ISA2OWL.individualTypeMap.get(protocolIndividual);
 
                             if (protocolExecutionIndividual==null)
-                                System.out.println("this is null!!!!");
+                                log.debug("this is null!!!!");
 
-                            OWLSameIndividualAxiom axiom = LinkedISA.factory.getOWLSameIndividualAxiom(processIndividual, protocolExecutionIndividual);
-                            LinkedISA.manager.addAxiom(LinkedISA.ontology,axiom);
+                            OWLSameIndividualAxiom axiom = context.getFactory().getOWLSameIndividualAxiom(processIndividual, protocolExecutionIndividual);
+                            context.addAxiom(axiom);
 
                         }
 
@@ -274,8 +551,8 @@ public class Assay2LinkedConverter {
 
 
                 assayIndividualsForProperties.put(ExtendedISASyntax.STUDY_ASSAY, Collections.singleton(processIndividual));
-                Map<String,List<Pair<IRI, String>>> assayPropertyMappings = LinkedISA.mapping.getAssayPropertyMappings();
-                LinkedISA.convertPropertiesMultipleIndividuals(assayPropertyMappings, assayIndividualsForProperties);
+                Map<String,List<Pair<IRI, String>>> assayPropertyMappings = context.getMapping().getAssayPropertyMappings();
+                LinkedISA.convertPropertiesMultipleIndividuals(context, assayPropertyMappings, assayIndividualsForProperties);
 
             }//for
         }
@@ -304,19 +581,19 @@ public class Assay2LinkedConverter {
 
             int processCol = processNode.getIndex();
 
-            for(int processRow=1; processRow < data.length; processRow ++){
+            for(int processRow=1; processRow < table.getRowCount(); processRow ++){
 
                 String processNodeValue = null;
                 if (processCol==-1){
                     processNodeValue = processNode.toShortString();
                 } else {
-                    processNodeValue = (data[processRow][processCol]).toString();
+                    processNodeValue = table.getValue(processRow, processCol);
                 }
 
                 if (processNodeValue.equals("")){
                     log.debug("ProcessNodeValue is empty!!!");
                     continue;
-                } else {
+                } else if (log.isDebugEnabled()){
                     log.debug("ProcessNodeValue = " + processNodeValue);
                 }
 
@@ -365,7 +642,7 @@ public class Assay2LinkedConverter {
                 for(ISANode input: inputs){
                     int inputCol = input.getIndex();
 
-                    if (!data[processRow][inputCol].toString().equals("")){
+                    if (!table.isEmpty(processRow, inputCol)){
 
                         if (individualMatrix[processRow][inputCol]==null){
                             System.out.println("individualMatrix[row][inputCol]==null!!!! " + individualMatrix[processRow][inputCol] == null + "  row=" + processRow + " inputCol=" + inputCol);
@@ -381,7 +658,7 @@ public class Assay2LinkedConverter {
                 OWLObjectProperty has_specified_output = ISA2OWL.factory.getOWLObjectProperty(IRI.create(OBI.HAS_SPECIFIED_OUTPUT));
                 for(ISANode output: outputs){
                     int outputCol = output.getIndex();
-                    if (!data[processRow][outputCol].toString().equals("")){
+                    if (!table.isEmpty(processRow, outputCol)){
 
                         if (individualMatrix[processRow][outputCol]!=null){
                             ISA2OWL.addObjectPropertyAssertionAxiom(has_specified_output, processIndividual, individualMatrix[processRow][outputCol]);
@@ -416,7 +693,8 @@ public class Assay2LinkedConverter {
      * @param graph
      * @param assayTableType
      */
-    private void convertProtocolExecutionNodes(List<Protocol> protocolList, Map<String, OWLNamedIndividual> protocolIndividualMap, Graph graph, AssayTableType assayTableType) {
+    private void convertProtocolExecutionNodes(List<Protocol> protocolList, Map<String, OWLNamedIndividual> protocolIndividualMap, Graph graph, AssayTableType assayTableType,
+                                               int firstRow, int endRow) {
         //Process Nodes
         List<ISANode> protocolExecutionNodes = graph.getNodes(NodeType.PROTOCOL_EXECUTION_NODE);
 
@@ -432,7 +710,7 @@ public class Assay2LinkedConverter {
 
             int processCol = processNode.getIndex();
 
-            for(int processRow=1; processRow < data.length; processRow ++){
+            for(int processRow=firstRow; processRow < endRow; processRow ++){
 
                 //keeping all the individuals relevant for this processNode
                 Map<String, Set<OWLNamedIndividual>> protocolREFIndividuals = new HashMap<String,Set<OWLNamedIndividual>>();
@@ -441,13 +719,13 @@ public class Assay2LinkedConverter {
                 if (processCol==-1){
                     protocolExecutionValue = processNode.toShortString();
                 } else {
-                    protocolExecutionValue = (data[processRow][processCol]).toString();
+                    protocolExecutionValue = table.getValue(processRow, processCol);
                 }
 
                 if (protocolExecutionValue.equals("")){
                     log.debug("ProtocolExecutionValue is empty!!!");
                     continue;
-                } else {
+                } else if (log.isDebugEnabled()){
                     log.debug("ProtocolExecutionValue = " + protocolExecutionValue);
                 }
                 Protocol protocol = protocolMap.get(protocolExecutionValue);
@@ -455,7 +733,7 @@ public class Assay2LinkedConverter {
                 OWLNamedIndividual protocolIndividual = protocolIndividualMap.get(protocolExecutionValue);
 
                 if (protocolIndividual==null) {
-                    System.err.println("Protocol "+protocolExecutionValue+" must already exist");
+                    log.warn("Protocol "+protocolExecutionValue+" must already exist");
                 } else {
 
                     addComments(processNode, processRow, protocolIndividual);
@@ -480,14 +758,14 @@ public class Assay2LinkedConverter {
                 //input & output values
                 ISANode input = processNode.getInputNode();
                 int inputCol = input.getIndex();
-                String inputValue = data[processRow][inputCol].toString();
+                String inputValue = table.getValue(processRow, inputCol);
 
                 ISANode output =  processNode.getOutputNode();
                 String outputValue = null;
                 int outputCol = -1;
                 if (output!=null){
                     outputCol = output.getIndex();
-                    outputValue = data[processRow][outputCol].toString();
+                    outputValue = table.getValue(processRow, outputCol);
                 } else {
                     outputValue = "";
                 }
@@ -497,19 +775,24 @@ public class Assay2LinkedConverter {
                 String processParametersPerformerDateString = getProcessParametersPerformerDateString(processRow, processNode);
 
                 OWLNamedIndividual processIndividual = null;
-                //get all the process individuals with the same name, parameters, performer and date
-                if (!PROTOCOL_REF_ALWAYS_NEW)
-                    processIndividual = processParametersPerfomerDateProcessIndividualMap.get(processParametersPerformerDateString);
-
-                if (processIndividual==null){
-                        //create processIndividual
-                        processIndividual = LinkedISA.createIndividual(assayTableType == AssayTableType.STUDY ?
-                                ExtendedISASyntax.STUDY_PROTOCOL_REF : ExtendedISASyntax.ASSAY_PROTOCOL_REF, protocolExecutionValue);
-                    if (!PROTOCOL_REF_ALWAYS_NEW)
-                        processParametersPerfomerDateProcessIndividualMap.put(processParametersPerformerDateString,processIndividual);
+                if (PROTOCOL_REF_ALWAYS_NEW){
+                    processIndividual = createProtocolREFIndividual(assayTableType, protocolExecutionValue, processParametersPerformerDateString + "\t" + inputOutputString);
+                } else {
+                    //get all the process individuals with the same name, parameters, performer and date
+                    synchronized (lockFor(processParametersPerformerDateString)){
+                        processIndividual = processParametersPerfomerDateProcessIndividualMap.get(processParametersPerformerDateString);
+                        if (processIndividual==null){
+                            String identity = protocolREFIdentities.get(processParametersPerformerDateString);
+                            if (identity==null)
+                                identity = processParametersPerformerDateString + "\t" + inputOutputString;
+                            processIndividual = createProtocolREFIndividual(assayTableType, protocolExecutionValue, identity);
+                            if (processIndividual!=null)
+                                processParametersPerfomerDateProcessIndividualMap.put(processParametersPerformerDateString,processIndividual);
+                        }
+                    }
                 }
 
-                individualMatrix[processRow][processCol] = processIndividual;
+                individualIndex.put(processRow, processCol, processIndividual);
 
                 //adding processIndividual to protocolREFIndividuals
                 Set<OWLNamedIndividual> set = protocolREFIndividuals.get(assayTableType == AssayTableType.STUDY ? ExtendedISASyntax.STUDY_PROTOCOL_REF : ExtendedISASyntax.ASSAY_PROTOCOL_REF);
@@ -520,24 +803,25 @@ public class Assay2LinkedConverter {
                         ExtendedISASyntax.STUDY_PROTOCOL_REF : ExtendedISASyntax.ASSAY_PROTOCOL_REF, set);
 
                 if (protocol!=null && protocol.getProtocolType()!=null){
-                    LinkedISA.addComment(protocol.getProtocolType(), processIndividual.getIRI());
+                    LinkedISA.addComment(context, protocol.getProtocolType(), processIndividual.getIRI());
                 } else{
-                    System.out.println("Protocol type is null for protocol "+protocol);
+                    if (log.isDebugEnabled())
+                        log.debug("Protocol type is null for protocol "+protocol);
                 }
 
                 if (protocolIndividual != null){
 
                     //TODO add protocolIndividual to protocolREFIndividuals
 
-                    OWLObjectProperty executes = LinkedISA.factory.getOWLObjectProperty(IRI.create(ISA.EXECUTES));
-                    OWLObjectPropertyAssertionAxiom axiom1 = LinkedISA.factory.getOWLObjectPropertyAssertionAxiom(executes,processIndividual, protocolIndividual);
-                    LinkedISA.manager.addAxiom(LinkedISA.ontology, axiom1);
+                    OWLObjectProperty executes = context.getVocabulary().getOWLObjectProperty(ISA.EXECUTES);
+                    OWLObjectPropertyAssertionAxiom axiom1 = context.getFactory().getOWLObjectPropertyAssertionAxiom(executes,processIndividual, protocolIndividual);
+                    context.addAxiom(axiom1);
 
                     //use term source and term accession to declare a more specific type for the process node
                     if (protocol.getProtocolTypeTermAccession()!=null && !protocol.getProtocolTypeTermAccession().equals("")
                             && protocol.getProtocolTypeTermSourceRef()!=null && !protocol.getProtocolTypeTermSourceRef().equals("")){
 
-                        LinkedISA.findOntologyTermAndAddClassAssertion(protocol.getProtocolTypeTermSourceRef(), protocol.getProtocolTypeTermAccession(), processIndividual);
+                        LinkedISA.findOntologyTermAndAddClassAssertion(context, protocol.getProtocolTypeTermSourceRef(), protocol.getProtocolTypeTermAccession(), processIndividual);
 
                     }//process node attributes not null
                 }
@@ -550,7 +834,7 @@ public class Assay2LinkedConverter {
                     if (set==null)
                         set = new HashSet<OWLNamedIndividual>();
 
-                    set.add(individualMatrix[processRow][inputCol]);
+                    set.add(individualIndex.get(processRow, inputCol));
 
                     protocolREFIndividuals.put(assayTableType == AssayTableType.STUDY ?
                             ExtendedISASyntax.STUDY_PROTOCOL_REF_INPUT : ExtendedISASyntax.ASSAY_PROTOCOL_REF_INPUT, set);
@@ -564,7 +848,7 @@ public class Assay2LinkedConverter {
                     if (set==null)
                         set = new HashSet<OWLNamedIndividual>();
 
-                    set.add(individualMatrix[processRow][outputCol]);
+                    set.add(individualIndex.get(processRow, outputCol));
 
                     protocolREFIndividuals.put(assayTableType == AssayTableType.STUDY ?
                             ExtendedISASyntax.STUDY_PROTOCOL_REF_OUTPUT: ExtendedISASyntax.ASSAY_PROTOCOL_REF_OUTPUT, set);
@@ -572,24 +856,27 @@ public class Assay2LinkedConverter {
                 }
 
                 //parameters
-                System.out.println("=======>  processNode " +processIndividual.getIRI() + " processRow " + processRow);
+                if (log.isDebugEnabled())
+                    log.debug("=======>  processNode " +processIndividual.getIRI() + " processRow " + processRow);
                 for(ProcessParameter parameter: processNode.getParameters()){
                     int parameterCol = parameter.getIndex();
 
-                    String parameterLabel = data[processRow][parameterCol].toString();
+                    String parameterLabel = table.getValue(processRow, parameterCol);
 
                     if (!parameterLabel.equals("")){
 
                         OWLNamedIndividual parameterIndividual = null;
 
-                        if (parameterNameIndividualMap.containsKey(parameterLabel)) {
+                        synchronized (lockFor(parameterLabel)){
                             parameterIndividual = parameterNameIndividualMap.get(parameterLabel);
-                        } else {
-                            parameterIndividual = LinkedISA.createIndividual(GeneralFieldTypes.PARAMETER_VALUE.name, parameterLabel);
+                            if (parameterIndividual==null){
+                                parameterIndividual = LinkedISA.createIndividual(context, GeneralFieldTypes.PARAMETER_VALUE.name, parameterLabel);
+                                if (parameterIndividual!=null)
+                                    parameterNameIndividualMap.put(parameterLabel, parameterIndividual);
+                            }
                         }
 
-                        individualMatrix[processRow][parameterCol] = parameterIndividual;
-                        parameterNameIndividualMap.put(parameterLabel, parameterIndividual);
+                        individualIndex.put(processRow, parameterCol, parameterIndividual);
 
                         set = protocolREFIndividuals.get(GeneralFieldTypes.PARAMETER_VALUE.name);
 
@@ -603,14 +890,14 @@ public class Assay2LinkedConverter {
 
                 }
 
-                if ( protocolREFIndividuals.get(GeneralFieldTypes.PARAMETER_VALUE.name) !=null)
+                if (log.isDebugEnabled() && protocolREFIndividuals.get(GeneralFieldTypes.PARAMETER_VALUE.name) !=null)
                     for(OWLNamedIndividual param : protocolREFIndividuals.get(GeneralFieldTypes.PARAMETER_VALUE.name)){
-                        System.out.println(" param "+ param.getIRI());
+                        log.debug(" param "+ param.getIRI());
                     }
 
 
-                Map<String, List<Pair<IRI,String>>> protocolREFmapping = LinkedISA.mapping.getProtocolREFMappings();
-                LinkedISA.convertPropertiesMultipleIndividuals(protocolREFmapping, protocolREFIndividuals);
+                Map<String, List<Pair<IRI,String>>> protocolREFmapping = context.getMapping().getProtocolREFMappings();
+                LinkedISA.convertPropertiesMultipleIndividuals(context, protocolREFmapping, protocolREFIndividuals);
 
 
             }//processRow
@@ -625,7 +912,7 @@ public class Assay2LinkedConverter {
      *
      * @param graph
      */
-    private void convertDataNodes(Graph graph) {
+    private void convertDataNodes(Graph graph, int firstRow, int endRow) {
         OWLNamedIndividual dataNodeIndividual = null;
 
         //Data Nodes
@@ -636,20 +923,23 @@ public class Assay2LinkedConverter {
 
             int col = dataNode.getIndex();
 
-            for(int row=1; row < data.length; row++){
+            for(int row=firstRow; row < endRow; row++){
 
-                String dataValue = (String) data[row][col];
+                String dataValue = table.getValue(row, col);
 
                 if (dataValue.equals(""))
                     continue;
 
                 //Data Node
-                dataNodeIndividual = dataNodesIndividuals.get(dataValue);
-                if (dataNodeIndividual == null){
-                    dataNodeIndividual = LinkedISA.createIndividual(dataNode.getName(), dataValue, dataValue);
-                    dataNodesIndividuals.put(dataValue, dataNodeIndividual);
+                synchronized (lockFor(dataValue)){
+                    dataNodeIndividual = dataNodesIndividuals.get(dataValue);
+                    if (dataNodeIndividual == null){
+                        dataNodeIndividual = LinkedISA.createIndividual(context, dataNode.getName(), dataValue, dataValue);
+                        if (dataNodeIndividual != null)
+                            dataNodesIndividuals.put(dataValue, dataNodeIndividual);
+                    }
                 }
-                individualMatrix[row][col] = dataNodeIndividual;
+                individualIndex.put(row, col, dataNodeIndividual);
 
                 addComments(dataNode, row, dataNodeIndividual);
             }
@@ -661,24 +951,16 @@ public class Assay2LinkedConverter {
      * Creates the RDF for the material nodes (sources, samples, extracts, labeled extracts)
      *
      * @param graph the ISA-TAB files parsed as a org.isatools.graph
-     * @param sampleIndividualMap a map with the individuals corresponding to samples, this is null for a STUDY table
-     * @return
+     * @param sampleIndividualMap a map with the individuals corresponding to samples, filled here for a STUDY table
      */
-    private Map<String, OWLNamedIndividual> convertMaterialNodes(Graph graph,
-                                                                 Map<String, OWLNamedIndividual> sampleIndividualMap,
-                                                                 OWLNamedIndividual studyIndividual,
-                                                                 Map<String, OWLNamedIndividual> factorIndividualMap) {
+    private void convertMaterialNodes(Graph graph,
+                                      Map<String, OWLNamedIndividual> sampleIndividualMap,
+                                      OWLNamedIndividual studyIndividual,
+                                      Map<String, OWLNamedIndividual> factorIndividualMap,
+                                      int firstRow,
+                                      int endRow) {
         OWLNamedIndividual materialNodeIndividual;
 
-        boolean sampleIndividualMapWasNull = (sampleIndividualMap==null);
-
-
-        if (sampleIndividualMapWasNull){
-            sampleIndividualMap = new HashMap<String, OWLNamedIndividual>();
-        } else {
-            assayFileSampleIndividualSet = new HashSet<OWLNamedIndividual>();
-        }
-
         //Material Nodes
         List<ISANode> materialNodes = graph.getNodes(NodeType.MATERIAL_NODE);
 
@@ -689,20 +971,20 @@ public class Assay2LinkedConverter {
             //if the material node is a sample, and the sampleIndividualMap is not null,
             // use the samples in the Map and only add Characteristics (but don't create new individuals)
             boolean createIndividualForMaterialNode = true;
-            if (materialNode.getMaterialNodeType() == ExtendedISASyntax.SAMPLE && !sampleIndividualMapWasNull){
+            if (materialNode.getMaterialNodeType() == ExtendedISASyntax.SAMPLE && !createSampleIndividuals){
                 createIndividualForMaterialNode = false;
             }
 
             int col = materialNode.getIndex();
 
-            for(int row=1; row < data.length; row++){
+            for(int row=firstRow; row < endRow; row++){
 
                 Map<String, Set<OWLNamedIndividual>> materialNodeAndAttributesIndividuals = new HashMap<String,Set<OWLNamedIndividual>>();
                 Set<OWLNamedIndividual> set = new HashSet();
                 set.add(studyIndividual);
                 materialNodeAndAttributesIndividuals.put(ExtendedISASyntax.STUDY, set);
 
-                String dataValue = (String) data[row][col];
+                String dataValue = table.getValue(row, col);
 
                 if (dataValue.equals(""))
                     continue;
@@ -710,24 +992,19 @@ public class Assay2LinkedConverter {
                 if ( createIndividualForMaterialNode ){
 
                     //Material Node
-                    Map<String, OWLNamedIndividual> namedIndividualMap = materialNodeIndividualMap.get(materialNode.getName());
-                    if (namedIndividualMap!=null) {
-                        materialNodeIndividual = namedIndividualMap.get(dataValue);
-                    } else {
-                        materialNodeIndividual = null;
-                        namedIndividualMap = new HashMap<String, OWLNamedIndividual>();
-                    }
-
-                    if (materialNodeIndividual==null) {
-                        materialNodeIndividual = LinkedISA.createIndividual(materialNode.getMaterialNodeType(), dataValue + " " + materialNode.getMaterialNodeType(), materialNode.getMaterialNodeType());
-
-                        namedIndividualMap.put(dataValue, materialNodeIndividual);
-                        materialNodeIndividualMap.put(materialNode.getName(), namedIndividualMap);
+                    String materialNodeKey = materialNode.getName() + "\t" + dataValue;
+                    synchronized (lockFor(materialNodeKey)){
+                        materialNodeIndividual = materialNodeIndividualMap.get(materialNodeKey);
+                        if (materialNodeIndividual==null) {
+                            materialNodeIndividual = LinkedISA.createIndividual(context, materialNode.getMaterialNodeType(), dataValue + " " + materialNode.getMaterialNodeType(), materialNode.getMaterialNodeType());
+                            if (materialNodeIndividual!=null)
+                                materialNodeIndividualMap.put(materialNodeKey, materialNodeIndividual);
+                        }
                     }
 
                     addComments(materialNode, row, materialNodeIndividual);
 
-                    if (materialNode.getMaterialNodeType() == ExtendedISASyntax.SAMPLE ){//&& sampleIndividualMapWasNull){
+                    if (materialNode.getMaterialNodeType() == ExtendedISASyntax.SAMPLE && materialNodeIndividual!=null){//&& sampleIndividualMapWasNull){
                         sampleIndividualMap.put(dataValue, materialNodeIndividual);
                     }
 
@@ -736,19 +1013,21 @@ public class Assay2LinkedConverter {
                     materialNodeAndAttributesIndividuals.put(materialNode.getMaterialNodeType(), set2);
 
                     //Material Node Annotation
-                    String purl = OntologyManager.getOntologyTermURI(dataValue);
+                    String purl = context.getTerms().getOntologyTermURI(dataValue);
                     if (purl!=null && !purl.equals("")){
-                        log.debug("If there is a PURL, use it! "+purl);
+                        if (log.isDebugEnabled())
+                            log.debug("If there is a PURL, use it! "+purl);
                     }else{
 
-                        String source = OntologyManager.getOntologyTermSource(dataValue);
-                        String accession = OntologyManager.getOntologyTermAccession(dataValue);
-                        LinkedISA.findOntologyTermAndAddClassAssertion(source, accession, materialNodeIndividual);
+                        String source = context.getTerms().getOntologyTermSource(dataValue);
+                        String accession = context.getTerms().getOntologyTermAccession(dataValue);
+                        LinkedISA.findOntologyTermAndAddClassAssertion(context, source, accession, materialNodeIndividual);
 
                     }
 
-                    //Material Node Name
-                    OWLNamedIndividual materialNodeIndividualName = LinkedISA.createIndividual(GeneralFieldTypes.SOURCE_NAME.toString(), dataValue);
+                    //Material Node Name, one for each row
+                    IRI nameIRI = LinkedISA.createIndividualIRI(context, GeneralFieldTypes.SOURCE_NAME.toString(), (rowOffset + row) + "\t" + col + "\t" + dataValue);
+                    OWLNamedIndividual materialNodeIndividualName = LinkedISA.createIndividual(context, GeneralFieldTypes.SOURCE_NAME.toString(), dataValue, null, nameIRI, null);
                     Set<OWLNamedIndividual> set3 = new HashSet();
                     set3.add(materialNodeIndividualName);
                     materialNodeAndAttributesIndividuals.put(GeneralFieldTypes.SOURCE_NAME.toString(), set3);
@@ -759,7 +1038,7 @@ public class Assay2LinkedConverter {
                     assayFileSampleIndividualSet.add(materialNodeIndividual);
 
                 }
-                individualMatrix[row][col] = materialNodeIndividual;
+                individualIndex.put(row, col, materialNodeIndividual);
 
                 //adding factor values (so the factors may come from the study sample file or the assay file
                 if (materialNode instanceof SampleNode){
@@ -774,9 +1053,6 @@ public class Assay2LinkedConverter {
 
             } //for each row
         }
-
-
-        return sampleIndividualMap;
     }
 
     /***
@@ -810,39 +1086,43 @@ public class Assay2LinkedConverter {
             }
 
             //row information
-            String attributeDataValue = data[row][attribute.getIndex()].toString();
+            String attributeDataValue = table.getValue(row, attribute.getIndex());
 
             if (attributeDataValue!=null && !attributeDataValue.equals("")){
 
-                OWLNamedIndividual materialAttributeIndividual = materialAttributeIndividualMap.get(attributeDataValue);
-                if (materialAttributeIndividual == null)
-                    materialAttributeIndividual = LinkedISA.createIndividual(GeneralFieldTypes.CHARACTERISTIC.toString(), attributeDataValue, attributeTerm);
-
-                materialAttributeIndividualMap.put(attributeDataValue, materialAttributeIndividual);
+                OWLNamedIndividual materialAttributeIndividual = null;
+                synchronized (lockFor(attributeDataValue)){
+                    materialAttributeIndividual = materialAttributeIndividualMap.get(attributeDataValue);
+                    if (materialAttributeIndividual == null){
+                        materialAttributeIndividual = LinkedISA.createIndividual(context, GeneralFieldTypes.CHARACTERISTIC.toString(), attributeDataValue, attributeTerm);
+                        if (materialAttributeIndividual != null)
+                            materialAttributeIndividualMap.put(attributeDataValue, materialAttributeIndividual);
+                    }
+                }
 
-                individualMatrix[row][attribute.getIndex()] = materialAttributeIndividual;
+                individualIndex.put(row, attribute.getIndex(), materialAttributeIndividual);
 
                 //the column is annotated with an ontology
                 if (attributeSource!=null && attributeAccession!=null){
                     if (isOrganism(attributeSource, attributeAccession))  {
-                        LinkedISA.findOntologyTermAndAddClassAssertion(attributeSource, attributeAccession, materialNodeIndividual);
+                        LinkedISA.findOntologyTermAndAddClassAssertion(context, attributeSource, attributeAccession, materialNodeIndividual);
 
                     } else {
-                        LinkedISA.findOntologyTermAndAddClassAssertion(attributeSource, attributeAccession, materialAttributeIndividual);
+                        LinkedISA.findOntologyTermAndAddClassAssertion(context, attributeSource, attributeAccession, materialAttributeIndividual);
                     }
                 }
 
                 //deal with the attribute
-                String source = OntologyManager.getOntologyTermSource(attributeDataValue);
-                String accession = OntologyManager.getOntologyTermAccession(attributeDataValue);
+                String source = context.getTerms().getOntologyTermSource(attributeDataValue);
+                String accession = context.getTerms().getOntologyTermAccession(attributeDataValue);
 
                 //the attribute is annotated
                 if (source!=null && accession!=null){
 
                     if (isOrganism(source, accession)){
-                        LinkedISA.findOntologyTermAndAddClassAssertion(source, accession, materialNodeIndividual);
+                        LinkedISA.findOntologyTermAndAddClassAssertion(context, source, accession, materialNodeIndividual);
                     } else {
-                        LinkedISA.findOntologyTermAndAddClassAssertion(source, accession, materialAttributeIndividual);
+                        LinkedISA.findOntologyTermAndAddClassAssertion(context, source, accession, materialAttributeIndividual);
                     }
                 }
 
@@ -854,14 +1134,14 @@ public class Assay2LinkedConverter {
                 materialNodeAndAttributesIndividuals.put(GeneralFieldTypes.CHARACTERISTIC.toString(), materialAttributesSet);
 
             }else{
-                System.err.println("attributeDataValue is null or empty!");
+                log.debug("attributeDataValue is null or empty!");
             }
 
         } //for attribute
 
         //convert properties per each attribute
-        Map<String, List<Pair<IRI,String>>> materialNodePropertyMapping = LinkedISA.mapping.getMaterialNodePropertyMappings();
-        LinkedISA.convertPropertiesMultipleIndividuals(materialNodePropertyMapping, materialNodeAndAttributesIndividuals);
+        Map<String, List<Pair<IRI,String>>> materialNodePropertyMapping = context.getMapping().getMaterialNodePropertyMappings();
+        LinkedISA.convertPropertiesMultipleIndividuals(context, materialNodePropertyMapping, materialNodeAndAttributesIndividuals);
     }
 
     /**
@@ -882,7 +1162,7 @@ public class Assay2LinkedConverter {
             Map<String, Set<OWLNamedIndividual>> individualsForProperties = new HashMap<String, Set<OWLNamedIndividual>>();
             individualsForProperties.put(StudyDesign.STUDY_DESIGN_TYPE, Collections.singleton(studyDesignIndividual));
 
-            OWLNamedIndividual groupIndividual = LinkedISA.createIndividual(ExtendedISASyntax.STUDY_GROUP, group);
+            OWLNamedIndividual groupIndividual = LinkedISA.createIndividual(context, ExtendedISASyntax.STUDY_GROUP, group);
             individualsForProperties.put(ExtendedISASyntax.STUDY_GROUP, Collections.singleton(groupIndividual));
 
             StudyGroup studyGroup = groups.get(group);
@@ -908,7 +1188,7 @@ public class Assay2LinkedConverter {
                 String factorValue = factorFactorValue.get(factor);
                 OWLNamedIndividual factorValueIndividual = factorValueIndividuals.get(factorValue);
                 if (factorValueIndividual==null)
-                    System.err.println("Theres is no individual for the factor value "+factorValue+"!");
+                    log.warn("Theres is no individual for the factor value "+factorValue+"!");
 
 
                 Set<OWLNamedIndividual> set = individualsForProperties.get(GeneralFieldTypes.FACTOR_VALUE.name);
@@ -921,8 +1201,8 @@ public class Assay2LinkedConverter {
             groupsCreated = true;
 
             //convert properties per each attribute
-            Map<String, List<Pair<IRI,String>>> materialNodePropertyMapping = LinkedISA.mapping.getGroupPropertyMappings();
-            LinkedISA.convertPropertiesMultipleIndividuals(materialNodePropertyMapping, individualsForProperties);
+            Map<String, List<Pair<IRI,String>>> materialNodePropertyMapping = context.getMapping().getGroupPropertyMappings();
+            LinkedISA.convertPropertiesMultipleIndividuals(context, materialNodePropertyMapping, individualsForProperties);
 
         }
         return groupsCreated;
@@ -966,19 +1246,21 @@ public class Assay2LinkedConverter {
             String unitData = null;
 
             //row information
-            String factorValueData = data[row][factorValue.getIndex()].toString();
+            String factorValueData = table.getValue(row, factorValue.getIndex());
             if (fvUnit!=null)
-                unitData = data[row][fvUnit.getIndex()].toString();
+                unitData = table.getValue(row, fvUnit.getIndex());
 
             String factorValueLabel = factorValueData+ (fvUnit!=null? unitData: "");
 
             OWLNamedIndividual factorValueIndividual = null;
 
-            if (factorValueIndividuals.get(factorValueLabel)!=null)
+            synchronized (lockFor(factorValueLabel)){
                 factorValueIndividual = factorValueIndividuals.get(factorValueLabel);
-            else {
-                factorValueIndividual = LinkedISA.createIndividual(GeneralFieldTypes.FACTOR_VALUE.name, factorValueLabel);
-                factorValueIndividuals.put(factorValueLabel, factorValueIndividual);
+                if (factorValueIndividual == null){
+                    factorValueIndividual = LinkedISA.createIndividual(context, GeneralFieldTypes.FACTOR_VALUE.name, factorValueLabel);
+                    if (factorValueIndividual != null)
+                        factorValueIndividuals.put(factorValueLabel, factorValueIndividual);
+                }
             }
 
             //include individual for properties
@@ -989,8 +1271,8 @@ public class Assay2LinkedConverter {
             set.add(factorValueIndividual);
             factorIndividualsForProperties.put(GeneralFieldTypes.FACTOR_VALUE.name, set);
 
-            Map<String,List<Pair<IRI, String>>> factorPropertyMappings = LinkedISA.mapping.getFactorPropertyMappings();
-            LinkedISA.convertPropertiesMultipleIndividuals(factorPropertyMappings, factorIndividualsForProperties);
+            Map<String,List<Pair<IRI, String>>> factorPropertyMappings = context.getMapping().getFactorPropertyMappings();
+            LinkedISA.convertPropertiesMultipleIndividuals(context, factorPropertyMappings, factorIndividualsForProperties);
 
         }
 
@@ -1017,16 +1299,16 @@ public class Assay2LinkedConverter {
         ISANode input = processNode.getInputNode();
         if (input!=null) {
             int inputCol = input.getIndex();
-            if (!data[processRow][inputCol].toString().equals("")){
-                buffer.append(data[processRow][inputCol].toString());
+            if (!table.isEmpty(processRow, inputCol)){
+                buffer.append(table.getValue(processRow, inputCol));
             }
         }
 
         ISANode output = processNode.getOutputNode();
         if (output!=null){
             int outputCol = output.getIndex();
-            if (!data[processRow][outputCol].toString().equals("")){
-                buffer.append(data[processRow][outputCol].toString());
+            if (!table.isEmpty(processRow, outputCol)){
+                buffer.append(table.getValue(processRow, outputCol));
             }
         }
 
@@ -1048,14 +1330,14 @@ public class Assay2LinkedConverter {
         StringBuffer buffer = new StringBuffer();
 
         int processCol = processNode.getIndex();
-        buffer.append(data[processRow][processCol].toString());
+        buffer.append(table.getValue(processRow, processCol));
 
         List<ProcessParameter> parameters = processNode.getParameters();
 
         for(ProcessParameter parameter: parameters){
             int parameterCol = parameter.getIndex();
-            if (!data[processRow][parameterCol].toString().equals("")){
-                buffer.append(data[processRow][parameterCol].toString());
+            if (!table.isEmpty(processRow, parameterCol)){
+                buffer.append(table.getValue(processRow, parameterCol));
             }
         }
 
@@ -1063,7 +1345,7 @@ public class Assay2LinkedConverter {
         Performer performer = processNode.getPerformer();
         if (performer!=null) {
             int perfomerIndex = performer.getIndex();
-            String perfomerString = data[processRow][perfomerIndex].toString();
+            String perfomerString = table.getValue(processRow, perfomerIndex);
             buffer.append(perfomerString);
         }
 
@@ -1071,7 +1353,7 @@ public class Assay2LinkedConverter {
         org.isatools.graph.model.impl.Date date = processNode.getDate();
         if (date!=null){
             int dateIndex = date.getIndex();
-            String dateString = data[processRow][dateIndex].toString();
+            String dateString = table.getValue(processRow, dateIndex);
             buffer.append(dateString);
         }
 
@@ -1079,6 +1361,21 @@ public class Assay2LinkedConverter {
     }
 
 
+    /**
+     * It creates the individual for a protocol REF cell.
+     *
+     * @param assayTableType the AssayTableType of the table (either a STUDY or an ASSAY)
+     * @param protocolExecutionValue the label of the individual
+     * @param identity the content identifying the protocol execution, used when the IRIs are derived from the content
+     * @return the individual
+     */
+    private OWLNamedIndividual createProtocolREFIndividual(AssayTableType assayTableType, String protocolExecutionValue, String identity){
+        String processType = assayTableType == AssayTableType.STUDY ?
+                ExtendedISASyntax.STUDY_PROTOCOL_REF : ExtendedISASyntax.ASSAY_PROTOCOL_REF;
+        IRI processIRI = LinkedISA.createIndividualIRI(context, processType, identity);
+        return LinkedISA.createIndividual(context, processType, protocolExecutionValue, null, processIRI, null);
+    }
+
     /**
      * It add the comments from the NodeWithComments to the corresponding individual for that node.
      *
@@ -1089,7 +1386,7 @@ public class Assay2LinkedConverter {
     private void addComments(NodeWithComments nodeWithComments, int row, OWLNamedIndividual individual){
         for(CommentNode comment: nodeWithComments.getComments()){
             int comment_col = comment.getIndex();
-            LinkedISA.addComment(comment.getName() + ":" + data[row][comment_col], individual.getIRI());
+            LinkedISA.addComment(context, comment.getName() + ":" + table.getValue(row, comment_col), individual.getIRI());
         }
 
     }
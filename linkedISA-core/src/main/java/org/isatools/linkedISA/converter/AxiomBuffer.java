@@ -0,0 +1,100 @@
+package org.isatools.linkedISA.converter;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+import java.util.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Collects the axioms of a conversion and hands them to the AxiomSink in bulk, with one AxiomSink.addAxioms call per
+ * flush, instead of one change per axiom.
+ *
+ * The buffer is flushed when it reaches its capacity and whenever the conversion moves on to a new phase (e.g. from the
+ * study sample table to the assays). The axioms it receives and the time spent flushing them are recorded in the
+ * MetricsRegistry, under its current phase (PHASE_AXIOMS and FLUSH_SECONDS).
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class AxiomBuffer {
+
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    private AxiomSink sink = null;
+    private int capacity = DEFAULT_CAPACITY;
+    private List<OWLAxiom> axioms = null;
+    private volatile MetricsRegistry metrics = null;
+
+    /**
+     * Constructor
+     *
+     * @param s the sink receiving the axioms
+     * @param c the number of axioms held before they are flushed
+     */
+    public AxiomBuffer(AxiomSink s, int c){
+        this(s, c, new MetricsRegistry(false));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param s the sink receiving the axioms
+     * @param c the number of axioms held before they are flushed
+     * @param m the registry recording the axioms and the flushes
+     */
+    public AxiomBuffer(AxiomSink s, int c, MetricsRegistry m){
+        if (c < 1)
+            throw new IllegalArgumentException("The capacity of the axiom buffer must be at least 1, not " + c);
+        sink = s;
+        capacity = c;
+        metrics = m;
+        axioms = new ArrayList<OWLAxiom>(Math.min(capacity, DEFAULT_CAPACITY));
+    }
+
+    public void setMetrics(MetricsRegistry m){
+        metrics = m;
+    }
+
+    public synchronized void add(OWLAxiom axiom){
+        axioms.add(axiom);
+        if (metrics.isEnabled())
+            metrics.increment(MetricsRegistry.PHASE_AXIOMS, "phase", metrics.getPhase());
+        if (axioms.size() >= capacity)
+            flush();
+    }
+
+    public synchronized void addAll(List<OWLAxiom> list){
+        axioms.addAll(list);
+        if (metrics.isEnabled())
+            metrics.add(MetricsRegistry.PHASE_AXIOMS, "phase", metrics.getPhase(), list.size());
+        if (axioms.size() >= capacity)
+            flush();
+    }
+
+    /**
+     * Sends the buffered axioms to the sink.
+     */
+    public synchronized void flush(){
+        if (axioms.isEmpty())
+            return;
+
+        long start = metrics.start();
+        sink.addAxioms(axioms);
+        metrics.stop(MetricsRegistry.FLUSH_SECONDS, "phase", metrics.getPhase(), start);
+
+        axioms = new ArrayList<OWLAxiom>(Math.min(capacity, DEFAULT_CAPACITY));
+    }
+
+    public int getCapacity(){
+        return capacity;
+    }
+
+    /**
+     * @return the number of axioms waiting to be flushed
+     */
+    public synchronized int size(){
+        return axioms.size();
+    }
+
+}
@@ -0,0 +1,55 @@
+package org.isatools.linkedISA.converter;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Destination for the axioms produced by a conversion.
+ *
+ * The default sink (OWLOntologySink) keeps the axioms in an OWLOntology, which can be saved or reasoned over afterwards.
+ * StreamingRDFSink writes each axiom to disk as soon as it is produced, so that the axioms are not kept in memory.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public interface AxiomSink {
+
+    /**
+     * Starts the ontology that will receive the axioms.
+     *
+     * @param ontologyIRI the IRI of the ontology
+     * @throws OWLOntologyCreationException
+     */
+    public void open(IRI ontologyIRI) throws OWLOntologyCreationException;
+
+    public void addImport(IRI importIRI);
+
+    public void addAxiom(OWLAxiom axiom);
+
+    /**
+     * Adds several axioms at once, e.g. those collected by an AxiomBuffer.
+     *
+     * @param axioms the axioms, in the order they were produced
+     */
+    public void addAxioms(List<OWLAxiom> axioms);
+
+    /**
+     * @return the number of axioms received so far, counting an axiom received more than once each time, so that the
+     * count does not depend on whether the sink removes repeated axioms
+     */
+    public long getAxiomCount();
+
+    /**
+     * Finishes the output, releasing any resources held by the sink.
+     *
+     * @throws IOException if the axioms could not be written
+     */
+    public void close() throws IOException;
+
+}
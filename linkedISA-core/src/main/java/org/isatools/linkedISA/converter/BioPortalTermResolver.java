@@ -0,0 +1,103 @@
+package org.isatools.linkedISA.converter;
+
+import org.apache.log4j.Logger;
+import org.isatools.isacreator.ontologymanager.BioPortal4Client;
+import org.isatools.isacreator.ontologymanager.OntologySourceRefObject;
+import org.isatools.isacreator.ontologymanager.common.OntologyTerm;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * TermResolver using the ISAcreator BioPortal client. Only the term sources declared in the ISA-tab dataset are resolved.
+ *
+ * The BioPortal catalogue of ontologies, needed to find the version of each ontology, is fetched once into an OntologyRegistry.
+ * If a snapshot file is given, the catalogue is read from it, or saved to it after being fetched.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class BioPortalTermResolver implements TermResolver {
+
+    private static final Logger log = Logger.getLogger(BioPortalTermResolver.class);
+
+    private OntologyRegistry registry = new OntologyRegistry();
+    private File snapshot = null;
+    private BioPortal4Client client = null;
+
+    public BioPortalTermResolver(){
+    }
+
+    /**
+     * Constructor
+     *
+     * @param s file with a snapshot of the BioPortal catalogue of ontologies
+     */
+    public BioPortalTermResolver(File s){
+        snapshot = s;
+    }
+
+    public OntologyRegistry getRegistry(){
+        return registry;
+    }
+
+    private synchronized BioPortal4Client getClient(){
+        if (client == null)
+            client = new BioPortal4Client();
+        return client;
+    }
+
+    private synchronized void loadRegistry(){
+        if (registry.isLoaded())
+            return;
+
+        if (snapshot != null && snapshot.exists()){
+            try {
+                registry.load(snapshot);
+                if (registry.isLoaded())
+                    return;
+            } catch (IOException e) {
+                log.error("Could not read the ontology catalogue snapshot " + snapshot, e);
+            }
+        }
+
+        registry.load(getClient().getAllOntologies());
+
+        if (snapshot != null){
+            try {
+                registry.save(snapshot);
+            } catch (IOException e) {
+                log.error("Could not save the ontology catalogue snapshot " + snapshot, e);
+            }
+        }
+    }
+
+    public String resolve(String termSourceRef, String termAccession){
+
+        OntologySourceRefObject ontologySourceRefObject = registry.getSource(termSourceRef, ISAtab2LinkedConverter.getOntologiesUsed());
+
+        //searching term in bioportal
+        if (ontologySourceRefObject!=null){
+
+            log.debug("Found ontology "+ontologySourceRefObject);
+
+            if (!registry.isLoaded())
+                loadRegistry();
+
+            String ontologyVersion = registry.getOntologyVersion(ontologySourceRefObject.getSourceName());
+            log.debug("version="+ontologyVersion);
+
+            OntologyTerm term = getClient().getTerm(termAccession, ontologyVersion);
+
+            log.debug("term====>"+term);
+            if (term!=null)
+                return term.getOntologyTermURI();
+
+        } //ontologySourceRefObject not null
+
+        return null;
+    }
+
+}
@@ -0,0 +1,57 @@
+package org.isatools.linkedISA.converter;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Derives the identifier from a SHA-1 hash of the type and the content of the individual, so that converting the same
+ * dataset again gives the same IRIs, whatever was converted before it.
+ *
+ * Individuals of the same type with the same content get the same identifier, so the identifiers do not depend on the
+ * order in which they are minted, e.g. by the threads converting rows in parallel. The content includes the scope the
+ * individual was created in (see ConversionContext.enterScope), and the converter gives the individuals that share a
+ * label within a scope but must be told apart, such as protocol executions, content that includes what tells them apart.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class ContentHashIRIMintingStrategy implements IRIMintingStrategy {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    public boolean isContentBased(){
+        return true;
+    }
+
+    public String mint(String typeSlug, long sequence){
+        throw new UnsupportedOperationException("The identifiers are derived from the content, not numbered");
+    }
+
+    public String mint(String typeSlug, String content){
+        return hash(typeSlug + "\n" + (content == null ? "" : content));
+    }
+
+    static String hash(String string){
+        MessageDigest digest = null;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+            byte[] bytes = digest.digest(string.getBytes("UTF-8"));
+            char[] chars = new char[bytes.length * 2];
+            for(int i = 0; i < bytes.length; i++){
+                chars[2 * i] = HEX[(bytes[i] >> 4) & 0xF];
+                chars[2 * i + 1] = HEX[bytes[i] & 0xF];
+            }
+            return new String(chars);
+        } catch (NoSuchAlgorithmException e) {
+            //SHA-1 is always available
+            throw new IllegalStateException(e);
+        } catch (UnsupportedEncodingException e) {
+            //UTF-8 is always supported
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
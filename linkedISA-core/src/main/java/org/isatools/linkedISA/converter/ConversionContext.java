@@ -0,0 +1,340 @@
+package org.isatools.linkedISA.converter;
+
+import org.isatools.linkedISA.mapping.ISASyntax2LinkedMapping;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.util.*;
+
+/**
+ * Created by the ISATeam.
+ *
+ * Holds the state of a single ISA-tab conversion: the ontology being built, its manager and data factory,
+ * the mapping and the maps with the individuals created so far.
+ *
+ * A new context is created for every conversion and it is passed through ISAtab2LinkedConverter and Assay2LinkedConverter,
+ * so that several datasets can be converted at the same time in one JVM, each of them with its own state.
+ * The memory used by a conversion is released once its context is discarded.
+ *
+ * The threads converting parts of a dataset in parallel are started as workers: until they finish, the axioms they
+ * produce are kept in a buffer of their own, and they use a data factory of their own, as the OWL API data factory
+ * cannot be shared between threads.
+ *
+ * The axioms reach the sink through an AxiomBuffer, so they are added in bulk. Call flush (or getAxiomCount) before
+ * reading the ontology.
+ *
+ * Each thread also has the scope it is creating individuals in (e.g. a study, a contact, or a table file of a study),
+ * which content based IRIMintingStrategies add to the content of the individuals, so that individuals with the same type
+ * and label in different parts of the dataset are told apart as they are by a sequential conversion. Workers start in
+ * the scope given to startWorker.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class ConversionContext {
+
+    private OWLOntologyManager manager = null;
+    private OWLDataFactory factory = null;
+    private OWLOntology ontology = null;
+    private AxiomSink sink = null;
+    private AxiomBuffer buffer = null;
+    private IRI ontoIRI = null;
+
+    private ISASyntax2LinkedMapping mapping = null;
+    private IRIGenerator iriGenerator = null;
+    private VocabularyRegistry vocabulary = null;
+    private OntologyTermSnapshot terms = new OntologyTermSnapshot();
+    private MetricsRegistry metrics = new MetricsRegistry(false);
+
+    private boolean groupsAtStudyLevel = false;
+
+    //<type, id, individual>
+    private Map<String, Map<String,OWLNamedIndividual>> typeIdIndividualMap = null;
+
+    //<type, individual>
+    private Map<String, Set<OWLNamedIndividual>> typeIndividualMap = null;
+
+    private Map<String, OWLNamedIndividual> idIndividualMap = null;
+
+    private Map<OWLNamedIndividual, Set<IRI>> individualTypeMap = null;
+
+    private static class Worker {
+        private List<OWLAxiom> axioms = new ArrayList<OWLAxiom>();
+        private OWLDataFactory factory = new OWLDataFactoryImpl();
+    }
+
+    private final ThreadLocal<Worker> workers = new ThreadLocal<Worker>();
+
+    private final ThreadLocal<String> scopes = new ThreadLocal<String>();
+
+    /**
+     * Constructor
+     *
+     * @param iri the IRI for the ontology to be created
+     * @param m the mapping used for the conversion
+     */
+    public ConversionContext(String iri, ISASyntax2LinkedMapping m){
+        this(iri, m, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param iri the IRI for the ontology to be created
+     * @param m the mapping used for the conversion
+     * @param s the sink receiving the axioms; if null, the axioms are kept in an OWLOntology
+     */
+    public ConversionContext(String iri, ISASyntax2LinkedMapping m, AxiomSink s){
+        this(iri, m, s, AxiomBuffer.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param iri the IRI for the ontology to be created
+     * @param m the mapping used for the conversion
+     * @param s the sink receiving the axioms; if null, the axioms are kept in an OWLOntology
+     * @param bufferCapacity the number of axioms buffered before they are added to the sink
+     */
+    public ConversionContext(String iri, ISASyntax2LinkedMapping m, AxiomSink s, int bufferCapacity){
+        manager = OWLManager.createOWLOntologyManager();
+        factory = manager.getOWLDataFactory();
+        sink = s != null ? s : new OWLOntologySink(manager);
+        buffer = new AxiomBuffer(sink, bufferCapacity);
+        ontoIRI = IRI.create(iri);
+        mapping = m;
+        vocabulary = VocabularyRegistry.forMapping(mapping);
+        iriGenerator = new IRIGenerator();
+        typeIdIndividualMap = new HashMap<String, Map<String, OWLNamedIndividual>>();
+        typeIndividualMap = new HashMap<String, Set<OWLNamedIndividual>>();
+        idIndividualMap = new HashMap<String, OWLNamedIndividual>();
+        individualTypeMap = new HashMap<OWLNamedIndividual,Set<IRI>>();
+    }
+
+    /**
+     * Creates the ontology that will hold the result of the conversion.
+     *
+     * @return the new ontology, or null if the axioms are not kept in memory
+     * @throws OWLOntologyCreationException
+     */
+    public OWLOntology createOntology() throws OWLOntologyCreationException {
+        sink.open(ontoIRI);
+        if (sink instanceof OWLOntologySink)
+            ontology = ((OWLOntologySink) sink).getOntology();
+        return ontology;
+    }
+
+    public void addAxiom(OWLAxiom axiom){
+        if (metrics.isEnabled())
+            metrics.increment(MetricsRegistry.AXIOMS, "type", axiom.getAxiomType().getName());
+        Worker worker = workers.get();
+        if (worker != null)
+            worker.axioms.add(axiom);
+        else
+            buffer.add(axiom);
+    }
+
+    /**
+     * Adds to the output the axioms buffered by a worker. If the current thread is a worker itself (e.g. an assay
+     * converted in parallel, whose rows are also converted in parallel), they go to its own buffer.
+     *
+     * @param axioms the axioms
+     */
+    public void addAxioms(List<OWLAxiom> axioms){
+        Worker worker = workers.get();
+        if (worker != null){
+            worker.axioms.addAll(axioms);
+            return;
+        }
+        buffer.addAll(axioms);
+    }
+
+    /**
+     * Adds to the sink the axioms waiting in the buffer.
+     */
+    public void flush(){
+        buffer.flush();
+    }
+
+    /**
+     * Flushes the axioms of the current phase of the conversion and starts timing and counting those of the given one.
+     *
+     * @param phase the name of the phase, one of the MetricsRegistry.PHASE_ constants
+     */
+    public void setPhase(String phase){
+        buffer.flush();
+        metrics.enterPhase(phase);
+    }
+
+    /**
+     * Flushes the axioms of the current phase and stops its timer.
+     */
+    public void finishPhase(){
+        buffer.flush();
+        metrics.finishPhase();
+    }
+
+    /**
+     * @return the timers and counters of the conversion, disabled unless set with setMetrics
+     */
+    public MetricsRegistry getMetrics(){
+        return metrics;
+    }
+
+    public void setMetrics(MetricsRegistry m){
+        metrics = m;
+        buffer.setMetrics(m);
+    }
+
+    public AxiomBuffer getAxiomBuffer(){
+        return buffer;
+    }
+
+    /**
+     * Starts buffering the axioms produced by the current thread.
+     *
+     * @param scope the scope the worker creates individuals in, usually that of the thread starting it (see getScope)
+     */
+    public void startWorker(String scope){
+        workers.set(new Worker());
+        setScope(scope);
+    }
+
+    /**
+     * Stops buffering the axioms produced by the current thread.
+     *
+     * @return the axioms buffered since startWorker, to be added with addAxioms
+     */
+    public List<OWLAxiom> finishWorker(){
+        Worker worker = workers.get();
+        workers.remove();
+        scopes.remove();
+        return worker == null ? Collections.<OWLAxiom>emptyList() : worker.axioms;
+    }
+
+    /**
+     * @return the scope the current thread creates individuals in, or null for the investigation
+     */
+    public String getScope(){
+        return scopes.get();
+    }
+
+    /**
+     * Sets the scope the current thread creates individuals in, e.g. to restore the one returned by enterScope.
+     *
+     * @param scope the scope, or null for the investigation
+     */
+    public void setScope(String scope){
+        if (scope == null)
+            scopes.remove();
+        else
+            scopes.set(scope);
+    }
+
+    /**
+     * Enters a part of the current scope, e.g. a contact of a study.
+     *
+     * @param name the name of the part, unique within the current scope
+     * @return the scope left, to be restored with setScope
+     */
+    public String enterScope(String name){
+        String scope = scopes.get();
+        scopes.set(scope == null ? name : scope + "\t" + name);
+        return scope;
+    }
+
+    public void addImport(IRI importIRI){
+        sink.addImport(importIRI);
+    }
+
+    public AxiomSink getSink(){
+        return sink;
+    }
+
+    /**
+     * @return the number of axioms produced so far, counting an axiom produced more than once each time, whatever the sink
+     */
+    public long getAxiomCount(){
+        flush();
+        return sink.getAxiomCount();
+    }
+
+    public OWLOntologyManager getManager(){
+        return manager;
+    }
+
+    public OWLDataFactory getFactory(){
+        Worker worker = workers.get();
+        return worker != null ? worker.factory : factory;
+    }
+
+    /**
+     * @return the ontology with the result of the conversion, or null if the axioms were streamed to a StreamingRDFSink
+     */
+    public OWLOntology getOntology(){
+        return ontology;
+    }
+
+    public IRI getOntoIRI(){
+        return ontoIRI;
+    }
+
+    public ISASyntax2LinkedMapping getMapping(){
+        return mapping;
+    }
+
+    /**
+     * @return the OWL entities of the vocabularies and the mapping used by the conversion
+     */
+    public VocabularyRegistry getVocabulary(){
+        return vocabulary;
+    }
+
+    /**
+     * @return the ontology terms of the values of the dataset, as held by the ISAcreator OntologyManager when it was imported
+     */
+    public OntologyTermSnapshot getTerms(){
+        return terms;
+    }
+
+    public void setTerms(OntologyTermSnapshot snapshot){
+        terms = snapshot;
+    }
+
+    public IRIGenerator getIRIGenerator(){
+        return iriGenerator;
+    }
+
+    public void setIRIGenerator(IRIGenerator generator){
+        iriGenerator = generator;
+    }
+
+    public boolean isGroupsAtStudyLevel(){
+        return groupsAtStudyLevel;
+    }
+
+    public void setGroupsAtStudyLevel(boolean b){
+        groupsAtStudyLevel = b;
+    }
+
+    public Map<String, Map<String,OWLNamedIndividual>> getTypeIdIndividualMap(){
+        return typeIdIndividualMap;
+    }
+
+    public Map<String, Set<OWLNamedIndividual>> getTypeIndividualMap(){
+        return typeIndividualMap;
+    }
+
+    public void setTypeIndividualMap(Map<String, Set<OWLNamedIndividual>> map){
+        typeIndividualMap = map;
+    }
+
+    public Map<String, OWLNamedIndividual> getIdIndividualMap(){
+        return idIndividualMap;
+    }
+
+    public Map<OWLNamedIndividual, Set<IRI>> getIndividualTypeMap(){
+        return individualTypeMap;
+    }
+
+}
@@ -0,0 +1,138 @@
+package org.isatools.linkedISA.converter;
+
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Content hashes (SHA-1) of the ISA-tab files (i_, s_ and a_ files) of a dataset, as they were when the dataset was converted.
+ *
+ * Comparing the manifest of the previous conversion with the current files tells which files changed since then.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class ConversionManifest {
+
+    private static final Logger log = Logger.getLogger(ConversionManifest.class);
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    //<file name, hash>
+    private Map<String, String> fileHashes = new TreeMap<String, String>();
+
+    public ConversionManifest(){
+    }
+
+    /**
+     * Builds the manifest of the ISA-tab files in a directory.
+     *
+     * @param directory the ISA-tab dataset directory
+     * @return the manifest
+     * @throws IOException
+     */
+    public static ConversionManifest create(File directory) throws IOException {
+        ConversionManifest manifest = new ConversionManifest();
+        File[] files = directory.listFiles();
+        if (files == null)
+            throw new IOException(directory + " is not a directory");
+        for(File file: files){
+            if (isISATabFile(file))
+                manifest.fileHashes.put(file.getName(), hash(file));
+        }
+        return manifest;
+    }
+
+    static boolean isISATabFile(File file){
+        String name = file.getName();
+        return file.isFile() && (name.startsWith("i_") || name.startsWith("s_") || name.startsWith("a_"));
+    }
+
+    public Set<String> getFiles(){
+        return Collections.unmodifiableSet(fileHashes.keySet());
+    }
+
+    public String getHash(String file){
+        return fileHashes.get(file);
+    }
+
+    /**
+     * @param previous the manifest of the previous conversion
+     * @return the files that were added, removed or modified since the previous conversion
+     */
+    public Set<String> getChangedFiles(ConversionManifest previous){
+        Set<String> changed = new TreeSet<String>();
+        for(String file: fileHashes.keySet()){
+            if (!fileHashes.get(file).equals(previous.getHash(file)))
+                changed.add(file);
+        }
+        for(String file: previous.getFiles()){
+            if (!fileHashes.containsKey(file))
+                changed.add(file);
+        }
+        return changed;
+    }
+
+    public void save(File file) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        try {
+            for(String name: fileHashes.keySet()){
+                writer.write(fileHashes.get(name) + "\t" + name + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    public static ConversionManifest load(File file) throws IOException {
+        ConversionManifest manifest = new ConversionManifest();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            String line = null;
+            while ((line = reader.readLine()) != null){
+                int tab = line.indexOf('\t');
+                if (tab <= 0){
+                    log.warn("Skipping malformed line in " + file + ": " + line);
+                    continue;
+                }
+                manifest.fileHashes.put(line.substring(tab + 1), line.substring(0, tab));
+            }
+        } finally {
+            reader.close();
+        }
+        return manifest;
+    }
+
+    private static String hash(File file) throws IOException {
+        MessageDigest digest = null;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            //SHA-1 is always available
+            throw new IllegalStateException(e);
+        }
+        InputStream in = new DigestInputStream(new BufferedInputStream(new FileInputStream(file)), digest);
+        try {
+            byte[] buffer = new byte[1 << 16];
+            while (in.read(buffer) != -1){
+                //the digest is updated while reading
+            }
+        } finally {
+            in.close();
+        }
+        byte[] bytes = digest.digest();
+        char[] chars = new char[bytes.length * 2];
+        for(int i = 0; i < bytes.length; i++){
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[2 * i + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+}
@@ -0,0 +1,264 @@
+package org.isatools.linkedISA.converter;
+
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Converts an ISA-tab dataset into N-Triples when any of its files changed since the previous conversion, and writes the
+ * difference with the previous output as two N-Triples files, with the triples added and removed, which can be applied to
+ * the previous output or to a triple store (see org.isatools.linkedISA.repository.DeltaLoader).
+ *
+ * The conversion is not incremental: the file hashes only decide whether the dataset is converted at all, and a change in
+ * any file re-converts the whole dataset, as the individuals of a table refer to those of the investigation, the study and
+ * the other tables. What is saved is the work of the triple store, which only receives the delta.
+ *
+ * The output directory keeps, for each dataset:
+ * <ul>
+ *     <li>name.nt - the triples of the last conversion</li>
+ *     <li>name.manifest - the hashes of the ISA-tab files converted (see ConversionManifest)</li>
+ *     <li>name.added.nt and name.removed.nt - the delta of the last conversion</li>
+ * </ul>
+ *
+ * The IRIs are minted with ContentHashIRIMintingStrategy, so the individuals that did not change keep their IRIs across
+ * the full re-conversions and only the triples that changed appear in the delta.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class DeltaISAtab2LinkedConverter {
+
+    private static final Logger log = Logger.getLogger(DeltaISAtab2LinkedConverter.class);
+
+    //triples sorted in memory at a time when computing the delta
+    static final int SORT_RUN_SIZE = 100000;
+
+    private ISAtab2LinkedConverter isatab2OWLConverter = null;
+
+    /**
+     * Constructor
+     *
+     * @param isa2owl converter providing the configuration directory and mapping
+     */
+    public DeltaISAtab2LinkedConverter(ISAtab2LinkedConverter isa2owl){
+        isatab2OWLConverter = isa2owl;
+    }
+
+    /**
+     * Converts the whole dataset again if any of its files changed since the previous conversion into the same output
+     * directory, and writes the delta with the previous output.
+     *
+     * @param parentDir the ISA-tab dataset directory
+     * @param iri the IRI for the resulting ontology
+     * @param outputDir the directory with the output of the conversions
+     * @return the files changed since the previous conversion (all of them for the first conversion), or an empty set if the
+     * dataset did not change
+     * @throws IOException if the conversion failed or the output could not be written
+     */
+    public Set<String> convert(String parentDir, String iri, String outputDir) throws IOException {
+        File datasetDir = new File(parentDir);
+        String name = datasetDir.getName();
+
+        File output = new File(outputDir, name + ".nt");
+        File manifestFile = new File(outputDir, name + ".manifest");
+        File added = new File(outputDir, name + ".added.nt");
+        File removed = new File(outputDir, name + ".removed.nt");
+
+        ConversionManifest manifest = ConversionManifest.create(datasetDir);
+        ConversionManifest previous = new ConversionManifest();
+        if (manifestFile.exists() && output.exists())
+            previous = ConversionManifest.load(manifestFile);
+
+        Set<String> changed = manifest.getChangedFiles(previous);
+        if (changed.isEmpty()){
+            log.info(name + " did not change since the previous conversion");
+            return changed;
+        }
+        log.info("Converting " + name + ", changed files: " + changed);
+
+        File newOutput = new File(outputDir, name + ".nt.tmp");
+        ISAtab2LinkedConverter converter = new ISAtab2LinkedConverter(isatab2OWLConverter.getConfigDir(), isatab2OWLConverter.getMapping());
+        converter.setIRIMintingStrategy(new ContentHashIRIMintingStrategy());
+        converter.setStreamingOutput(newOutput.getAbsolutePath(), StreamingRDFSink.Format.NTRIPLES);
+        if (!converter.convert(parentDir, iri)){
+            newOutput.delete();
+            throw new IOException("Conversion of " + parentDir + " failed");
+        }
+
+        writeDelta(output, newOutput, added, removed);
+
+        if (output.exists() && !output.delete())
+            throw new IOException("Could not replace " + output);
+        if (!newOutput.renameTo(output))
+            throw new IOException("Could not write " + output);
+        manifest.save(manifestFile);
+
+        return changed;
+    }
+
+    /**
+     * Compares two N-Triples files and writes the triples only in the new one and the triples only in the old one.
+     *
+     * Both files are sorted first, in runs of SORT_RUN_SIZE triples written to temporary files and merged, and the sorted
+     * triples are then compared as they are read, so at most SORT_RUN_SIZE triples are kept in memory whatever the size
+     * of the files. The triples are written to the delta files in sorted order, once each.
+     *
+     * @param oldFile the previous output; if it does not exist, all the new triples are added
+     * @param newFile the new output
+     * @param added the file for the triples added
+     * @param removed the file for the triples removed
+     * @return the number of triples added and removed
+     * @throws IOException
+     */
+    static long[] writeDelta(File oldFile, File newFile, File added, File removed) throws IOException {
+        return writeDelta(oldFile, newFile, added, removed, SORT_RUN_SIZE);
+    }
+
+    static long[] writeDelta(File oldFile, File newFile, File added, File removed, int runSize) throws IOException {
+        File oldSorted = sort(oldFile.exists() ? oldFile : null, runSize);
+        File newSorted = sort(newFile, runSize);
+
+        long addedCount = 0;
+        long removedCount = 0;
+        BufferedReader oldReader = open(oldSorted);
+        BufferedReader newReader = open(newSorted);
+        Writer addedWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(added), "UTF-8"));
+        Writer removedWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(removed), "UTF-8"));
+        try {
+            String oldLine = oldReader.readLine();
+            String newLine = newReader.readLine();
+            while (oldLine != null || newLine != null){
+                int comparison = oldLine == null ? 1 : newLine == null ? -1 : oldLine.compareTo(newLine);
+                if (comparison < 0){
+                    write(removedWriter, oldLine);
+                    removedCount++;
+                    oldLine = oldReader.readLine();
+                } else if (comparison > 0){
+                    write(addedWriter, newLine);
+                    addedCount++;
+                    newLine = newReader.readLine();
+                } else {
+                    oldLine = oldReader.readLine();
+                    newLine = newReader.readLine();
+                }
+            }
+        } finally {
+            oldReader.close();
+            newReader.close();
+            addedWriter.close();
+            removedWriter.close();
+            oldSorted.delete();
+            newSorted.delete();
+        }
+
+        log.info("Delta: " + addedCount + " triples added, " + removedCount + " triples removed");
+        return new long[]{ addedCount, removedCount };
+    }
+
+    /**
+     * Writes the distinct triples of a file, sorted, to a temporary file.
+     *
+     * @param file the N-Triples file, or null for no triples
+     * @return the temporary file, to be deleted by the caller
+     */
+    private static File sort(File file, int runSize) throws IOException {
+        List<File> runs = new ArrayList<File>();
+        try {
+            if (file != null){
+                BufferedReader reader = open(file);
+                try {
+                    SortedSet<String> run = new TreeSet<String>();
+                    String line = null;
+                    while ((line = reader.readLine()) != null){
+                        if (!isTriple(line))
+                            continue;
+                        run.add(line);
+                        if (run.size() >= runSize){
+                            runs.add(writeRun(run));
+                            run.clear();
+                        }
+                    }
+                    if (!run.isEmpty() || runs.isEmpty())
+                        runs.add(writeRun(run));
+                } finally {
+                    reader.close();
+                }
+            } else {
+                runs.add(writeRun(new TreeSet<String>()));
+            }
+            if (runs.size() == 1)
+                return runs.remove(0);
+            return merge(runs);
+        } finally {
+            for(File run: runs)
+                run.delete();
+        }
+    }
+
+    private static File writeRun(SortedSet<String> triples) throws IOException {
+        File run = File.createTempFile("linkedISA-delta", ".nt");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(run), "UTF-8"));
+        try {
+            for(String triple: triples)
+                write(writer, triple);
+        } finally {
+            writer.close();
+        }
+        return run;
+    }
+
+    /**
+     * Merges sorted runs into one sorted file, dropping the triples repeated across runs.
+     */
+    private static File merge(List<File> runs) throws IOException {
+        File merged = File.createTempFile("linkedISA-delta", ".nt");
+        BufferedReader[] readers = new BufferedReader[runs.size()];
+        String[] heads = new String[runs.size()];
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(merged), "UTF-8"));
+        try {
+            for(int i = 0; i < readers.length; i++){
+                readers[i] = open(runs.get(i));
+                heads[i] = readers[i].readLine();
+            }
+            String last = null;
+            while (true){
+                int next = -1;
+                for(int i = 0; i < heads.length; i++){
+                    if (heads[i] != null && (next < 0 || heads[i].compareTo(heads[next]) < 0))
+                        next = i;
+                }
+                if (next < 0)
+                    break;
+                if (!heads[next].equals(last)){
+                    write(writer, heads[next]);
+                    last = heads[next];
+                }
+                heads[next] = readers[next].readLine();
+            }
+        } finally {
+            for(BufferedReader reader: readers){
+                if (reader != null)
+                    reader.close();
+            }
+            writer.close();
+        }
+        return merged;
+    }
+
+    private static BufferedReader open(File file) throws IOException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+    }
+
+    private static void write(Writer writer, String line) throws IOException {
+        writer.write(line);
+        writer.write('\n');
+    }
+
+    private static boolean isTriple(String line){
+        return line.length() > 0 && line.charAt(0) != '#';
+    }
+
+}
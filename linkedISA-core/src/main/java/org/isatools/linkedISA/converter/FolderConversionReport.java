@@ -0,0 +1,138 @@
+package org.isatools.linkedISA.converter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Summary of the conversion of a folder of ISA-tab datasets: the result for each dataset and the aggregate throughput.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class FolderConversionReport {
+
+    /**
+     * Outcome of the conversion of one dataset.
+     */
+    public static class DatasetResult {
+
+        private String name = null;
+        private boolean success = false;
+        private long axiomCount = 0;
+        private long elapsedMillis = 0;
+        private Throwable error = null;
+
+        public DatasetResult(String n, boolean s, long axioms, long elapsed, Throwable e){
+            name = n;
+            success = s;
+            axiomCount = axioms;
+            elapsedMillis = elapsed;
+            error = e;
+        }
+
+        public String getName(){
+            return name;
+        }
+
+        public boolean isSuccess(){
+            return success;
+        }
+
+        public long getAxiomCount(){
+            return axiomCount;
+        }
+
+        public long getElapsedMillis(){
+            return elapsedMillis;
+        }
+
+        /**
+         * @return the exception or error that stopped the conversion, or null
+         */
+        public Throwable getError(){
+            return error;
+        }
+
+        public String toString(){
+            return name + "\t" + (success ? "OK" : "FAILED") + "\t" + axiomCount + " axioms\t" + elapsedMillis + " ms"
+                    + (error != null ? "\t" + error : "");
+        }
+    }
+
+    private List<DatasetResult> results = new ArrayList<DatasetResult>();
+    private long elapsedMillis = 0;
+    private int threads = 1;
+
+    public FolderConversionReport(int t){
+        threads = t;
+    }
+
+    public synchronized void addResult(DatasetResult result){
+        results.add(result);
+    }
+
+    public synchronized List<DatasetResult> getResults(){
+        return Collections.unmodifiableList(new ArrayList<DatasetResult>(results));
+    }
+
+    public void setElapsedMillis(long elapsed){
+        elapsedMillis = elapsed;
+    }
+
+    public long getElapsedMillis(){
+        return elapsedMillis;
+    }
+
+    public int getThreads(){
+        return threads;
+    }
+
+    public synchronized int getSucceeded(){
+        int count = 0;
+        for(DatasetResult result: results){
+            if (result.isSuccess())
+                count++;
+        }
+        return count;
+    }
+
+    public synchronized int getFailed(){
+        return results.size() - getSucceeded();
+    }
+
+    public synchronized long getTotalAxioms(){
+        long total = 0;
+        for(DatasetResult result: results){
+            total += result.getAxiomCount();
+        }
+        return total;
+    }
+
+    public double getDatasetsPerSecond(){
+        if (elapsedMillis == 0)
+            return 0;
+        return getResults().size() * 1000.0 / elapsedMillis;
+    }
+
+    public double getAxiomsPerSecond(){
+        if (elapsedMillis == 0)
+            return 0;
+        return getTotalAxioms() * 1000.0 / elapsedMillis;
+    }
+
+    public String toString(){
+        StringBuffer buffer = new StringBuffer();
+        for(DatasetResult result: getResults()){
+            buffer.append(result).append("\n");
+        }
+        buffer.append("Converted ").append(getSucceeded()).append(" datasets (").append(getFailed()).append(" failed) with ")
+                .append(threads).append(" threads in ").append(elapsedMillis).append(" ms: ")
+                .append(String.format("%.2f", getDatasetsPerSecond())).append(" datasets/s, ")
+                .append(String.format("%.2f", getAxiomsPerSecond())).append(" axioms/s");
+        return buffer.toString();
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.isatools.linkedISA.converter;
+
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * TermResolver querying the BioPortal REST API (GET &lt;base URL&gt;/ontologies/&lt;term source&gt;/classes/&lt;accession&gt;).
+ *
+ * The base URL is configurable, so the resolver can be pointed to a BioPortal appliance or to a local stub server for testing.
+ * The PURL is taken from the "@id" field of the JSON response; a 404 response means the term does not exist.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class HttpTermResolver implements TermResolver {
+
+    private static final Logger log = Logger.getLogger(HttpTermResolver.class);
+
+    public static final String BIOPORTAL_URL = "http://data.bioontology.org";
+
+    private static final Pattern ID_PATTERN = Pattern.compile("\"@id\"\\s*:\\s*\"([^\"]+)\"");
+
+    private String baseURL = null;
+    private String apiKey = null;
+    private int timeoutMillis = 30000;
+
+    /**
+     * Constructor
+     *
+     * @param url the base URL of the REST API, e.g. BIOPORTAL_URL
+     * @param key the API key, or null if the server does not need one
+     */
+    public HttpTermResolver(String url, String key){
+        baseURL = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        apiKey = key;
+    }
+
+    public void setTimeout(int millis){
+        timeoutMillis = millis;
+    }
+
+    public String resolve(String termSourceRef, String termAccession) throws IOException {
+        String query = baseURL + "/ontologies/" + URLEncoder.encode(termSourceRef, "UTF-8")
+                + "/classes/" + URLEncoder.encode(termAccession, "UTF-8");
+        if (apiKey != null)
+            query += "?apikey=" + URLEncoder.encode(apiKey, "UTF-8");
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(query).openConnection();
+        connection.setConnectTimeout(timeoutMillis);
+        connection.setReadTimeout(timeoutMillis);
+        connection.setRequestProperty("Accept", "application/json");
+        try {
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_FOUND)
+                return null;
+            if (status != HttpURLConnection.HTTP_OK)
+                throw new IOException("Unexpected response " + status + " for " + termSourceRef + " " + termAccession);
+
+            String body = read(connection.getInputStream());
+            Matcher matcher = ID_PATTERN.matcher(body);
+            if (matcher.find())
+                return matcher.group(1);
+
+            log.warn("No @id in the response for " + termSourceRef + " " + termAccession);
+            return null;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+        try {
+            StringBuffer buffer = new StringBuffer();
+            char[] chars = new char[4096];
+            int n;
+            while ((n = reader.read(chars)) != -1){
+                buffer.append(chars, 0, n);
+            }
+            return buffer.toString();
+        } finally {
+            reader.close();
+        }
+    }
+
+}
@@ -2,8 +2,9 @@ package org.isatools.linkedISA.converter;
 
 import org.semanticweb.owlapi.model.IRI;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by the ISATeam.
@@ -11,35 +12,114 @@ import java.util.Map;
  * Date: 25/10/2012
  * Time: 15:56
  *
+ * Mints the IRIs of the individuals of a conversion, as baseIRI/type/identifier, where the identifier is built by an
+ * IRIMintingStrategy (sequential by default).
+ *
+ * The slug used for each type is computed once and the counters are atomic, so a generator can be used by several threads.
+ *
+ * For content based strategies, the content of each individual is qualified with the dataset identifier and the scope it
+ * was created in (e.g. the study and the table file, see ConversionContext.enterScope), so that the IRIs only depend on
+ * the dataset and the content, and not on what else was converted in the same JVM. No counter is kept for them:
+ * individuals of the same type and content get the same IRI, whatever the order in which the threads converting rows mint
+ * them, so individuals that must be told apart within a scope are given content that tells them apart (see
+ * LinkedISA.createIndividualIRI). The generator then holds nothing per individual.
+ *
  * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
  */
 public class IRIGenerator {
 
+    private IRIMintingStrategy strategy = null;
+    private String datasetId = null;
 
-    private static Map<String, Integer> identifiers = new HashMap<String, Integer>();
+    //<type, slug>
+    private ConcurrentMap<String, String> slugs = new ConcurrentHashMap<String, String>();
+
+    //<slug, counter>, for strategies that are not content based
+    private ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
 
     public IRIGenerator(){
+        this(new SequentialIRIMintingStrategy());
+    }
+
+    public IRIGenerator(IRIMintingStrategy s){
+        strategy = s;
+    }
+
+    public IRIMintingStrategy getStrategy(){
+        return strategy;
+    }
+
+    public String getDatasetId(){
+        return datasetId;
     }
 
-    public static IRI getIRI(IRI baseIRI, String type){
-         //return IRI.create(baseIRI+UUID.randomUUID().toString());
+    /**
+     * @param id identifier of the dataset being converted (e.g. the investigation identifier), used by content based strategies
+     */
+    public void setDatasetId(String id){
+        datasetId = id;
+    }
+
+    public IRI getIRI(IRI baseIRI, String type){
+        return getIRI(baseIRI, type, null);
+    }
+
+    /**
+     * Mints a new IRI.
+     *
+     * @param baseIRI the IRI the new one is built on
+     * @param type the type of the individual, as a mapping label or a class IRI
+     * @param content the content identifying the individual, used by content based strategies
+     * @return the new IRI
+     */
+    public IRI getIRI(IRI baseIRI, String type, String content){
+        return getIRI(baseIRI, type, null, content);
+    }
 
-        if (type.contains("http"))
-            type = type.substring(type.lastIndexOf("/")+1, type.length());
-        String new_type = type.toLowerCase().replace(' ', '_');
+    /**
+     * Mints a new IRI.
+     *
+     * @param baseIRI the IRI the new one is built on
+     * @param type the type of the individual, as a mapping label or a class IRI
+     * @param scope the part of the dataset the individual was created in, used by content based strategies; may be null
+     * @param content the content identifying the individual within its scope, used by content based strategies
+     * @return the new IRI
+     */
+    public IRI getIRI(IRI baseIRI, String type, String scope, String content){
+        String slug = getSlug(type);
 
-        int new_id;
-        Integer previous = identifiers.get(new_type);
-        if (previous == null) {
-            identifiers.put(new_type, new Integer(1));
-            new_id = 1;
-        } else {
-            new_id = previous.intValue()+1;
-            identifiers.put(new_type, new Integer(new_id));
+        if (strategy.isContentBased()){
+            StringBuilder key = new StringBuilder();
+            if (datasetId != null)
+                key.append(datasetId).append('\n');
+            if (scope != null)
+                key.append(scope).append('\n');
+            if (content != null)
+                key.append(content);
+            return IRI.create(baseIRI + "/" + slug + "/" + strategy.mint(slug, key.toString()));
         }
 
-        System.out.println("IDENTIFIER ===> "+ baseIRI+ "/" + new_type + "/"+new_id);
-        return IRI.create(baseIRI+ "/" + new_type + "/"+new_id);
+        AtomicLong counter = counters.get(slug);
+        if (counter == null){
+            AtomicLong newCounter = new AtomicLong();
+            counter = counters.putIfAbsent(slug, newCounter);
+            if (counter == null)
+                counter = newCounter;
+        }
+
+        return IRI.create(baseIRI + "/" + slug + "/" + strategy.mint(slug, counter.incrementAndGet()));
+    }
+
+    private String getSlug(String type){
+        String slug = slugs.get(type);
+        if (slug == null){
+            String localName = type;
+            if (localName.contains("http"))
+                localName = localName.substring(localName.lastIndexOf("/")+1, localName.length());
+            slug = localName.toLowerCase().replace(' ', '_');
+            slugs.putIfAbsent(type, slug);
+        }
+        return slug;
     }
 
 }
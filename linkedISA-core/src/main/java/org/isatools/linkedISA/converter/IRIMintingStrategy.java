@@ -0,0 +1,41 @@
+package org.isatools.linkedISA.converter;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Strategy used by IRIGenerator to build the local identifier of the IRI of a new individual.
+ *
+ * Strategies keep no state, so one instance can be shared by several conversions running at the same time; the counters
+ * are kept by the IRIGenerator of each conversion.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public interface IRIMintingStrategy {
+
+    /**
+     * @return true if the identifier is derived from the content of the individual; the generator then keeps no counter
+     * and individuals with the same type and content get the same identifier
+     */
+    boolean isContentBased();
+
+    /**
+     * Builds the identifier of an individual, for strategies that are not content based.
+     *
+     * @param typeSlug the type of the individual, as used in the IRI
+     * @param sequence the number of individuals minted so far with the same type, starting at 1
+     * @return the identifier, unique among the individuals of the same type
+     */
+    String mint(String typeSlug, long sequence);
+
+    /**
+     * Builds the identifier of an individual, for content based strategies.
+     *
+     * @param typeSlug the type of the individual, as used in the IRI
+     * @param content the content identifying the individual, qualified by the IRIGenerator with the dataset and the scope
+     *                it was created in
+     * @return the identifier, the same for the same type and content
+     */
+    String mint(String typeSlug, String content);
+
+}
@@ -2,6 +2,7 @@ package org.isatools.linkedISA.converter;
 
 import org.apache.log4j.Logger;
 import org.isatools.graph.model.impl.MaterialNode;
+import org.isatools.graph.parser.AssayTableReader;
 import org.isatools.linkedISA.mapping.ISASyntax2LinkedMapping;
 import org.isatools.isacreator.io.importisa.ISAtabFilesImporter;
 import org.isatools.isacreator.io.importisa.ISAtabImporter;
@@ -19,7 +20,9 @@ import org.semanticweb.owlapi.model.*;
 import org.semanticweb.owlapi.vocab.OWL2Datatype;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * It converts an ISAtab dataset into RDF based on a given ISA2OWL mapping
@@ -31,14 +34,49 @@ public class ISAtab2LinkedConverter {
 
     private static final Logger log = Logger.getLogger(ISAtab2LinkedConverter.class);
 
+    //the ISAcreator importer keeps static state (e.g. OntologyManager), so the ISA-tab files are read one dataset at a time
+    //and the terms of each dataset are copied into its OntologyTermSnapshot before the next one is read
+    private static final Object IMPORT_LOCK = new Object();
+
     private ISAtabImporter importer = null;
     private String configDir = null;
+    private ISASyntax2LinkedMapping mapping = null;
+    private ConversionContext context = null;
+
+    private static final int TERM_PREFETCH_BATCH_SIZE = 20;
+    private int termPrefetchThreads = 4;
+
+    //if set, the axioms are streamed to this file instead of being kept in an OWLOntology
+    private String streamingOutputFile = null;
+    private StreamingRDFSink.Format streamingFormat = StreamingRDFSink.Format.NTRIPLES;
+
+    private IRIMintingStrategy iriMintingStrategy = new SequentialIRIMintingStrategy();
+
+    //number of rows of the study sample and assay files converted at a time, or 0 to convert the tables loaded by the importer
+    private int rowBatchSize = 0;
+    private File datasetDir = null;
+
+    //number of threads converting the rows of each study sample and assay table
+    private int rowConversionThreads = 1;
+
+    //number of threads converting the assays of each study
+    private int assayConversionThreads = 1;
+
+    //number of axioms buffered before they are added to the ontology or the streaming output
+    private int axiomBufferCapacity = AxiomBuffer.DEFAULT_CAPACITY;
+
+    private MetricsRegistry.Level metricsLevel = MetricsRegistry.Level.OFF;
+    private int traceSampling = MetricsRegistry.DEFAULT_TRACE_SAMPLING;
+
+    //if set, the metrics of each conversion are written to <metricsOutput>.json and <metricsOutput>.prom
+    private String metricsOutput = null;
+    private boolean metricsJMX = false;
 
     private Map<Publication, OWLNamedIndividual> publicationIndividualMap = null;
     private Map<Contact, OWLNamedIndividual> contactIndividualMap = null;
     private Map<String, OWLNamedIndividual> protocolIndividualMap = null;
     private Map<String, OWLNamedIndividual> sampleIndividualMap = null;
-    private Map<String, OWLNamedIndividual> measurementTechnologyIndividuals = new HashMap<String, OWLNamedIndividual>();
+    private Map<String, OWLNamedIndividual> measurementTechnologyIndividuals = null;
     private Map<String, OWLNamedIndividual> affiliationIndividualMap = null;
     private Map<String, OWLNamedIndividual> factorIndividualMap = null;
 
@@ -55,22 +93,200 @@ public class ISAtab2LinkedConverter {
     public ISAtab2LinkedConverter(String cDir, ISASyntax2LinkedMapping m){
         configDir = cDir;
         log.debug("configDir="+configDir);
-        LinkedISA.mapping = m;
+        mapping = m;
         importer = new ISAtabFilesImporter(configDir);
     }
 
 
+    /**
+     * Streams the result of the following conversions directly to a file, as N-Triples or Turtle, instead of building
+     * the OWLOntology in memory. The axioms are written as they are produced, while the individuals created are still kept
+     * until the conversion ends. saveOntology and saveInferredOntology are not available.
+     *
+     * @param filename the output file, or null to go back to building the OWLOntology
+     * @param format the RDF serialisation
+     */
+    public void setStreamingOutput(String filename, StreamingRDFSink.Format format){
+        streamingOutputFile = filename;
+        streamingFormat = format;
+    }
+
+    public String getStreamingOutput(){
+        return streamingOutputFile;
+    }
+
+    public StreamingRDFSink.Format getStreamingFormat(){
+        return streamingFormat;
+    }
+
+    /**
+     * Sets the number of threads used to resolve the ontology terms of a dataset before converting it.
+     *
+     * @param threads the number of threads, or 0 to resolve each term when it is found during the conversion
+     */
+    public void setTermPrefetchThreads(int threads){
+        termPrefetchThreads = threads;
+    }
+
+    public int getTermPrefetchThreads(){
+        return termPrefetchThreads;
+    }
+
+    /**
+     * Sets how the IRIs of the individuals are minted in the following conversions.
+     *
+     * @param strategy the strategy, e.g. SequentialIRIMintingStrategy (the default), UUIDIRIMintingStrategy or ContentHashIRIMintingStrategy
+     */
+    public void setIRIMintingStrategy(IRIMintingStrategy strategy){
+        iriMintingStrategy = strategy;
+    }
+
+    public IRIMintingStrategy getIRIMintingStrategy(){
+        return iriMintingStrategy;
+    }
+
+    /**
+     * Sets the number of rows of the study sample and assay files converted at a time. If it is greater than 0, the files are
+     * read again from the dataset directory in batches of rows, instead of converting the tables loaded by the importer.
+     * This bounds the converter's per-row working set; the importer still loads the whole investigation, tables included,
+     * so the peak memory of the conversion is not bounded by the batch size. The ontology term values are normalised as
+     * the importer does. If a file cannot be read once its conversion has started, the conversion fails with an
+     * IllegalStateException, as a table of the dataset would be missing.
+     *
+     * @param batchSize the number of rows, or 0 to convert the whole tables
+     */
+    public void setRowBatchSize(int batchSize){
+        rowBatchSize = batchSize;
+    }
+
+    public int getRowBatchSize(){
+        return rowBatchSize;
+    }
+
+    /**
+     * Sets the number of threads converting the rows of each study sample and assay table. The result is the same as with
+     * one thread; to get the same IRIs too, use a content based IRIMintingStrategy such as ContentHashIRIMintingStrategy.
+     *
+     * @param threads the number of threads
+     */
+    public void setRowConversionThreads(int threads){
+        rowConversionThreads = threads;
+    }
+
+    public int getRowConversionThreads(){
+        return rowConversionThreads;
+    }
+
+    /**
+     * Sets the number of threads converting the assays of each study. As with the rows, the result is the same as with
+     * one thread, and a content based IRIMintingStrategy also gives the same IRIs.
+     *
+     * @param threads the number of threads
+     */
+    public void setAssayConversionThreads(int threads){
+        assayConversionThreads = threads;
+    }
+
+    public int getAssayConversionThreads(){
+        return assayConversionThreads;
+    }
+
+    /**
+     * Sets the number of axioms collected before they are added to the ontology, or written to the streaming output,
+     * in one go.
+     *
+     * @param capacity the number of axioms, at least 1
+     */
+    public void setAxiomBufferCapacity(int capacity){
+        axiomBufferCapacity = capacity;
+    }
+
+    public int getAxiomBufferCapacity(){
+        return axiomBufferCapacity;
+    }
+
+    /**
+     * Sets what is recorded about the conversion (see MetricsRegistry): nothing (OFF, the default), the timers and
+     * counters (COUNTERS), or these and a sample of the individuals created (TRACE). The figures of each phase are logged
+     * at the end of the conversion. Writing the metrics with setMetricsOutput or publishing them with setMetricsJMX
+     * records them at least at the COUNTERS level.
+     *
+     * @param level the level
+     */
+    public void setMetricsLevel(MetricsRegistry.Level level){
+        metricsLevel = level;
+    }
+
+    public MetricsRegistry.Level getMetricsLevel(){
+        return metricsLevel;
+    }
+
+    /**
+     * @param sampling with the TRACE level, log one individual in every sampling
+     */
+    public void setTraceSampling(int sampling){
+        traceSampling = sampling;
+    }
+
+    public int getTraceSampling(){
+        return traceSampling;
+    }
+
+    /**
+     * Collects the timers and counters of each conversion (see MetricsRegistry) and writes them at the end of it, as JSON
+     * to prefix + ".json" and in the Prometheus text format to prefix + ".prom".
+     *
+     * @param prefix the path of the files without extension, or null to stop writing them
+     */
+    public void setMetricsOutput(String prefix){
+        metricsOutput = prefix;
+    }
+
+    public String getMetricsOutput(){
+        return metricsOutput;
+    }
+
+    /**
+     * @param b true to collect the metrics of each conversion and publish them over JMX while it runs
+     */
+    public void setMetricsJMX(boolean b){
+        metricsJMX = b;
+    }
+
+    public boolean isMetricsJMX(){
+        return metricsJMX;
+    }
+
+    public String getConfigDir(){
+        return configDir;
+    }
+
+    public ISASyntax2LinkedMapping getMapping(){
+        return mapping;
+    }
+
+    /**
+     * Retrieves the context of the last conversion, holding the resulting ontology.
+     *
+     * @return the context, or null if no conversion has been run
+     */
+    public ConversionContext getContext(){
+        return context;
+    }
+
     /**
      * Retrieves all the IRIs minted when creating the ISA-OWL representation
      *
-     * @return
+     * @return a map with <label, individual> of the last conversion, empty if no conversion has been run
      */
     public Map<String, OWLNamedIndividual> getMintedIRIs(){
+        if (context == null)
+            return Collections.<String, OWLNamedIndividual>emptyMap();
 
-        for(String id: LinkedISA.idIndividualMap.keySet()){
-            System.out.println( id + "\t" + LinkedISA.idIndividualMap.get(id));
+        //the map of the context is filled by the threads converting rows in parallel
+        synchronized (context){
+            return new HashMap<String, OWLNamedIndividual>(context.getIdIndividualMap());
         }
-       return null;
     }
 
     /**
@@ -82,28 +298,78 @@ public class ISAtab2LinkedConverter {
     public boolean convert(String parentDir, String iri){
         log.info("Converting ISA-TAB dataset " + parentDir + " into RDF/OWL");
 
-        LinkedISA.setIRI(iri);
+        AxiomSink sink = null;
+        if (streamingOutputFile!=null){
+            try {
+                sink = new StreamingRDFSink(new File(streamingOutputFile), streamingFormat);
+            } catch (IOException e) {
+                log.error("Could not open " + streamingOutputFile, e);
+                return false;
+            }
+        }
+        context = new ConversionContext(iri, mapping, sink, axiomBufferCapacity);
+        context.setIRIGenerator(new IRIGenerator(iriMintingStrategy));
+        MetricsRegistry.Level level = metricsLevel;
+        if (level==MetricsRegistry.Level.OFF && (metricsOutput!=null || metricsJMX))
+            level = MetricsRegistry.Level.COUNTERS;
+        MetricsRegistry metrics = new MetricsRegistry(level);
+        metrics.setTraceSampling(traceSampling);
+        context.setMetrics(metrics);
+        if (metricsJMX)
+            context.getMetrics().registerMBean(iri);
+
+        boolean converted = false;
+        try {
+            converted = convertDataset(parentDir);
+        } finally {
+            try {
+                context.finishPhase();
+                context.getMetrics().logSummary();
+                writeMetrics();
+                context.getSink().close();
+            } catch (IOException e) {
+                log.error("Could not write the RDF output", e);
+                converted = false;
+            }
+        }
+        return converted;
+    }
 
-        try{
-            LinkedISA.ontology = LinkedISA.manager.createOntology(LinkedISA.ontoIRI);
+    private void writeMetrics(){
+        context.getMetrics().unregisterMBean();
+        if (metricsOutput==null)
+            return;
+        try {
+            context.getMetrics().write(metricsOutput);
+        } catch (IOException e) {
+            log.error("Could not write the metrics to " + metricsOutput, e);
+        }
+    }
 
-            OWLImportsDeclaration importDecl = LinkedISA.factory.getOWLImportsDeclaration(IRI.create(OBI.IRI));
-            LinkedISA.manager.applyChange(new AddImport(LinkedISA.ontology, importDecl));
+    private boolean convertDataset(String parentDir){
 
-            OWLImportsDeclaration isaImportDecl = LinkedISA.factory.getOWLImportsDeclaration(IRI.create(ISA.IRI));
-            LinkedISA.manager.applyChange(new AddImport(LinkedISA.ontology, isaImportDecl));
+        try{
+            context.createOntology();
+
+            context.addImport(IRI.create(OBI.IRI));
+            context.addImport(IRI.create(ISA.IRI));
 
         }catch(OWLOntologyCreationException e){
             e.printStackTrace();
         }
 
-        if (!readInISAFiles(parentDir)){
+        datasetDir = new File(parentDir);
+
+        context.setPhase(MetricsRegistry.PHASE_READ);
+        boolean read = readInISAFiles(parentDir);
+        context.setPhase(MetricsRegistry.PHASE_INVESTIGATION);
+        if (!read){
             log.debug(importer.getMessagesAsString());
         }
 
         //initialise the map of individuals
-        LinkedISA.typeIndividualMap = new HashMap<String, Set<OWLNamedIndividual>>();
         publicationIndividualMap = new HashMap<Publication, OWLNamedIndividual>();
+        measurementTechnologyIndividuals = new HashMap<String, OWLNamedIndividual>();
         contactIndividualMap = new HashMap<Contact, OWLNamedIndividual>();
         protocolIndividualMap = new HashMap<String, OWLNamedIndividual>();
         affiliationIndividualMap = new HashMap<String, OWLNamedIndividual>();
@@ -117,20 +383,27 @@ public class ISAtab2LinkedConverter {
         if (investigation==null)
             return false;
 
+        if (investigation.getInvestigationId()!=null && !investigation.getInvestigationId().equals(""))
+            context.getIRIGenerator().setDatasetId(investigation.getInvestigationId());
+        else
+            context.getIRIGenerator().setDatasetId(new File(parentDir).getName());
+
+        prefetchTerms(investigation);
+
         if (investigation.getInvestigationId()!=null && !investigation.getInvestigationId().equals("")){
 
             //create 'ISA dataset' individual
-            OWLNamedIndividual isaDatasetIndividual = LinkedISA.createIndividual(IRI.create(ISA.ISA_DATASET), investigation.getInvestigationId());
+            OWLNamedIndividual isaDatasetIndividual = LinkedISA.createIndividual(context, context.getVocabulary().getIRI(ISA.ISA_DATASET), investigation.getInvestigationId());
             //create 'ISA dataset' individual
-            isatabDistributionIndividual = LinkedISA.createIndividual(IRI.create(ISA.ISATAB_DISTRIBUTION), investigation.getInvestigationId());
-            LinkedISA.createObjectPropertyAssertion(DCAT.DISTRIBUTION_PROPERTY, isaDatasetIndividual, isatabDistributionIndividual);
+            isatabDistributionIndividual = LinkedISA.createIndividual(context, context.getVocabulary().getIRI(ISA.ISATAB_DISTRIBUTION), investigation.getInvestigationId());
+            LinkedISA.createObjectPropertyAssertion(context, DCAT.DISTRIBUTION_PROPERTY, isaDatasetIndividual, isatabDistributionIndividual);
 
-            isaowlDistributionIndividual = LinkedISA.createIndividual(IRI.create(ISA.ISAOWL_DISTRIBUTION), investigation.getInvestigationId());
-            LinkedISA.createObjectPropertyAssertion(DCAT.DISTRIBUTION_PROPERTY, isaDatasetIndividual, isaowlDistributionIndividual);
+            isaowlDistributionIndividual = LinkedISA.createIndividual(context, context.getVocabulary().getIRI(ISA.ISAOWL_DISTRIBUTION), investigation.getInvestigationId());
+            LinkedISA.createObjectPropertyAssertion(context, DCAT.DISTRIBUTION_PROPERTY, isaDatasetIndividual, isaowlDistributionIndividual);
 
             //ISAtab_distribution has_part investigation_file
-            investigationFileIndividual = LinkedISA.createIndividual(IRI.create(ISA.INVESTIGATION_FILE), "i_investigation.txt investigation file");
-            LinkedISA.createObjectPropertyAssertion(ISA.HAS_PART, isatabDistributionIndividual, investigationFileIndividual);
+            investigationFileIndividual = LinkedISA.createIndividual(context, context.getVocabulary().getIRI(ISA.INVESTIGATION_FILE), "i_investigation.txt investigation file");
+            LinkedISA.createObjectPropertyAssertion(context, ISA.HAS_PART, isatabDistributionIndividual, investigationFileIndividual);
         }
 
         convertInvestigation(investigation, isatabDistributionIndividual, investigationFileIndividual);
@@ -145,33 +418,35 @@ public class ISAtab2LinkedConverter {
 
             Study study = studies.get(key);
 
+            //the individuals of the study are told apart from those with the same label in other studies
+            String investigationScope = context.enterScope(study.getStudyId() + "\t" + study.getStudySampleFileIdentifier());
 
             if (isatabDistributionIndividual == null){
                 //create 'ISA dataset' individual
-                OWLNamedIndividual isaDatasetIndividual = LinkedISA.createIndividual(IRI.create(ISA.ISA_DATASET), study.getStudySampleFileIdentifier());
+                OWLNamedIndividual isaDatasetIndividual = LinkedISA.createIndividual(context, context.getVocabulary().getIRI(ISA.ISA_DATASET), study.getStudySampleFileIdentifier());
                 //create 'ISA dataset' individual
-                isatabDistributionIndividual = LinkedISA.createIndividual(IRI.create(ISA.ISATAB_DISTRIBUTION), study.getStudySampleFileIdentifier());
-                LinkedISA.createObjectPropertyAssertion(DCAT.DISTRIBUTION_PROPERTY, isaDatasetIndividual, isatabDistributionIndividual);
+                isatabDistributionIndividual = LinkedISA.createIndividual(context, context.getVocabulary().getIRI(ISA.ISATAB_DISTRIBUTION), study.getStudySampleFileIdentifier());
+                LinkedISA.createObjectPropertyAssertion(context, DCAT.DISTRIBUTION_PROPERTY, isaDatasetIndividual, isatabDistributionIndividual);
 
-                isaowlDistributionIndividual = LinkedISA.createIndividual(IRI.create(ISA.ISAOWL_DISTRIBUTION), study.getStudySampleFileIdentifier());
-                LinkedISA.createObjectPropertyAssertion(DCAT.DISTRIBUTION_PROPERTY, isaDatasetIndividual, isaowlDistributionIndividual);
+                isaowlDistributionIndividual = LinkedISA.createIndividual(context, context.getVocabulary().getIRI(ISA.ISAOWL_DISTRIBUTION), study.getStudySampleFileIdentifier());
+                LinkedISA.createObjectPropertyAssertion(context, DCAT.DISTRIBUTION_PROPERTY, isaDatasetIndividual, isaowlDistributionIndividual);
 
                 //ISAtab_distribution has_part investigation_file
-                investigationFileIndividual = LinkedISA.createIndividual(IRI.create(ISA.INVESTIGATION_FILE), "i_investigation.txt");
-                LinkedISA.createObjectPropertyAssertion(ISA.HAS_PART, isatabDistributionIndividual, investigationFileIndividual);
+                investigationFileIndividual = LinkedISA.createIndividual(context, context.getVocabulary().getIRI(ISA.INVESTIGATION_FILE), "i_investigation.txt");
+                LinkedISA.createObjectPropertyAssertion(context, ISA.HAS_PART, isatabDistributionIndividual, investigationFileIndividual);
             }
 
 
             if (isaowlDistributionIndividual!=null){
 
                 //add comment about generation with ISA2OL
-                LinkedISA.addComment("Created with ISA2OWL converter", isaowlDistributionIndividual.getIRI());
+                LinkedISA.addComment(context, "Created with ISA2OWL converter", isaowlDistributionIndividual.getIRI());
 
 
                 //add comments about mappings used
-                Set<String> mappingFiles = LinkedISA.mapping.getMappingFiles();
+                Set<String> mappingFiles = context.getMapping().getMappingFiles();
                 for(String mappingFile: mappingFiles){
-                    LinkedISA.addComment("Using mapping file " + mappingFile, isaowlDistributionIndividual.getIRI());
+                    LinkedISA.addComment(context, "Using mapping file " + mappingFile, isaowlDistributionIndividual.getIRI());
                 }
 
             }
@@ -179,18 +454,38 @@ public class ISAtab2LinkedConverter {
             convertStudy(study, investigationFileIndividual, isatabDistributionIndividual);
 
             //remove from the map of type/individuals, anything that is not related to the Investigation
-            HashMap newMap = new HashMap<String, Set<OWLNamedIndividual>>();
-            Set<String> keys = LinkedISA.typeIndividualMap.keySet();
+            Map<String, Set<OWLNamedIndividual>> newMap = new HashMap<String, Set<OWLNamedIndividual>>();
+            Set<String> keys = context.getTypeIndividualMap().keySet();
             for(String mapkey: keys){
                 if (mapkey.startsWith(ExtendedISASyntax.INVESTIGATION))
-                    newMap.put(mapkey, LinkedISA.typeIndividualMap.get(mapkey));
+                    newMap.put(mapkey, context.getTypeIndividualMap().get(mapkey));
             }
-            LinkedISA.typeIndividualMap = newMap;
+            context.setTypeIndividualMap(newMap);
+            context.setScope(investigationScope);
         }
 
         return true;
     }
 
+    /**
+     * Resolves all the ontology terms of the dataset before converting it, so that the conversion does not wait on remote lookups.
+     *
+     * @param investigation
+     */
+    private void prefetchTerms(Investigation investigation){
+        if (termPrefetchThreads == 0 || OntologyLookup.isOffline())
+            return;
+
+        TermPrefetcher prefetcher = new TermPrefetcher(OntologyLookup.getResolver(), OntologyLookup.getCache(), termPrefetchThreads, TERM_PREFETCH_BATCH_SIZE);
+        prefetcher.collect(investigation, context.getTerms());
+        log.debug("Terms to resolve: " + prefetcher.getCollectedCount());
+        try {
+            prefetcher.resolve();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * TODO imports from mapping vs imports from ISAtab dataset
      *
@@ -202,7 +497,7 @@ public class ISAtab2LinkedConverter {
         //Map<String,IRI> sourceOntoIRIs = ISA2OWL.mapping.getSourceOntoIRIs();
 
         //ontologies from the ISAtab dataset
-        Set<OntologySourceRefObject> sourceRefObjects = OntologyManager.getOntologiesUsed();
+        Set<OntologySourceRefObject> sourceRefObjects = context.getTerms().getOntologiesUsed();
 
 
         //TODO check imports from ontologies where the import chain implies that ontologies are duplicated
@@ -218,8 +513,7 @@ public class ISAtab2LinkedConverter {
                 continue;
 
 
-            OWLImportsDeclaration importDecl = LinkedISA.factory.getOWLImportsDeclaration(IRI.create(sourceFile));
-            LinkedISA.manager.applyChange(new AddImport(LinkedISA.ontology, importDecl));
+            context.addImport(IRI.create(sourceFile));
 
             //}catch(OWLOntologyCreationException oocrex){
             //oocrex.printStackTrace();
@@ -237,7 +531,24 @@ public class ISAtab2LinkedConverter {
      */
     private boolean readInISAFiles(String parentDir){
         //TODO check parser errors!
-        return importer.importFile(parentDir);
+        synchronized (IMPORT_LOCK){
+            boolean read = importer.importFile(parentDir);
+            //the OntologyManager is shared with the other conversions, so its terms are copied before the lock is released
+            context.setTerms(new OntologyTermSnapshot(importer.getInvestigation()));
+            return read;
+        }
+    }
+
+    /**
+     * Copies the term sources held by the ISAcreator OntologyManager, which an import in another thread may be changing.
+     *
+     * @return the term sources of the last dataset imported
+     */
+    static Set<OntologySourceRefObject> getOntologiesUsed(){
+        synchronized (IMPORT_LOCK){
+            Set<OntologySourceRefObject> used = OntologyManager.getOntologiesUsed();
+            return used == null ? new LinkedHashSet<OntologySourceRefObject>() : new LinkedHashSet<OntologySourceRefObject>(used);
+        }
     }
 
     /**
@@ -245,13 +556,17 @@ public class ISAtab2LinkedConverter {
      * @param filename
      */
     public void saveOntology(String filename){
+        if (context.getOntology()==null){
+            log.warn("The conversion was streamed to " + streamingOutputFile + ", there is no ontology to save");
+            return;
+        }
         File file = new File(filename);
-        OWLUtil.saveRDFXML(LinkedISA.ontology, IRI.create(file.toURI()));
+        OWLUtil.saveRDFXML(context.getOntology(), IRI.create(file.toURI()));
         //OWLUtil.systemOutputMOWLSyntax(ISA2OWL.ontology);
     }
 
     public void saveInferredOntology(String filename) throws Exception{
-        ReasonerService reasoner = new ReasonerService(LinkedISA.manager, LinkedISA.ontology);
+        ReasonerService reasoner = new ReasonerService(context.getManager(), context.getOntology());
         reasoner.saveInferredOntology(filename);
     }
 
@@ -271,44 +586,44 @@ public class ISAtab2LinkedConverter {
         if (!investigation.getInvestigationId().equals("")){
 
             //Investigation
-            investigationIndividual = LinkedISA.createIndividual(ExtendedISASyntax.INVESTIGATION, investigation.getInvestigationId());
-            LinkedISA.createObjectPropertyAssertion(ISA.HAS_PART, isatabDistributionIndividual, investigationFileIndividual);
+            investigationIndividual = LinkedISA.createIndividual(context, ExtendedISASyntax.INVESTIGATION, investigation.getInvestigationId());
+            LinkedISA.createObjectPropertyAssertion(context, ISA.HAS_PART, isatabDistributionIndividual, investigationFileIndividual);
 
             //investigationFile describes investigation
-            LinkedISA.createObjectPropertyAssertion(ISA.DESCRIBES, investigationFileIndividual, investigationIndividual);
+            LinkedISA.createObjectPropertyAssertion(context, ISA.DESCRIBES, investigationFileIndividual, investigationIndividual);
         }
 
         //Investigation identifier
-        LinkedISA.createIndividual(Investigation.INVESTIGATION_ID_KEY, investigation.getInvestigationId());
+        LinkedISA.createIndividual(context, Investigation.INVESTIGATION_ID_KEY, investigation.getInvestigationId());
 
         //Investigation title
-        OWLNamedIndividual invTitleIndividual = LinkedISA.createIndividual(Investigation.INVESTIGATION_TITLE_KEY, investigation.getInvestigationId() + LinkedISA.TITLE_SUFFIX, investigation.getInvestigationTitle());
+        OWLNamedIndividual invTitleIndividual = LinkedISA.createIndividual(context, Investigation.INVESTIGATION_TITLE_KEY, investigation.getInvestigationId() + LinkedISA.TITLE_SUFFIX, investigation.getInvestigationTitle());
         if (invTitleIndividual!=null){
-            OWLDataProperty hasMeasurementValue = LinkedISA.factory.getOWLDataProperty(IRI.create(ISA.HAS_VALUE));
-            OWLLiteral titleLiteral = LinkedISA.factory.getOWLLiteral(investigation.getInvestigationTitle(), OWL2Datatype.XSD_STRING);
-            OWLDataPropertyAssertionAxiom dataPropertyAssertionAxiom = LinkedISA.factory.getOWLDataPropertyAssertionAxiom(hasMeasurementValue, invTitleIndividual, titleLiteral);
-            LinkedISA.manager.addAxiom(LinkedISA.ontology, dataPropertyAssertionAxiom);
+            OWLDataProperty hasMeasurementValue = context.getVocabulary().getOWLDataProperty(ISA.HAS_VALUE);
+            OWLLiteral titleLiteral = context.getFactory().getOWLLiteral(investigation.getInvestigationTitle(), OWL2Datatype.XSD_STRING);
+            OWLDataPropertyAssertionAxiom dataPropertyAssertionAxiom = context.getFactory().getOWLDataPropertyAssertionAxiom(hasMeasurementValue, invTitleIndividual, titleLiteral);
+            context.addAxiom(dataPropertyAssertionAxiom);
         }
 
         //Investigation description
-        OWLNamedIndividual investigationDescriptionIndividual = LinkedISA.createIndividual(Investigation.INVESTIGATION_DESCRIPTION_KEY, investigation.getInvestigationId() + LinkedISA.DESCRIPTION_SUFFIX, investigation.getInvestigationDescription());
+        OWLNamedIndividual investigationDescriptionIndividual = LinkedISA.createIndividual(context, Investigation.INVESTIGATION_DESCRIPTION_KEY, investigation.getInvestigationId() + LinkedISA.DESCRIPTION_SUFFIX, investigation.getInvestigationDescription());
         if (investigationDescriptionIndividual!=null){
-            OWLDataProperty hasMeasurementValue = LinkedISA.factory.getOWLDataProperty(IRI.create(ISA.HAS_VALUE));
-            OWLLiteral descriptionLiteral = LinkedISA.factory.getOWLLiteral(investigation.getInvestigationDescription(), OWL2Datatype.XSD_STRING);
-            OWLDataPropertyAssertionAxiom dataPropertyAssertionAxiom = LinkedISA.factory.getOWLDataPropertyAssertionAxiom(hasMeasurementValue, investigationDescriptionIndividual, descriptionLiteral);
-            LinkedISA.manager.addAxiom(LinkedISA.ontology, dataPropertyAssertionAxiom);
+            OWLDataProperty hasMeasurementValue = context.getVocabulary().getOWLDataProperty(ISA.HAS_VALUE);
+            OWLLiteral descriptionLiteral = context.getFactory().getOWLLiteral(investigation.getInvestigationDescription(), OWL2Datatype.XSD_STRING);
+            OWLDataPropertyAssertionAxiom dataPropertyAssertionAxiom = context.getFactory().getOWLDataPropertyAssertionAxiom(hasMeasurementValue, investigationDescriptionIndividual, descriptionLiteral);
+            context.addAxiom(dataPropertyAssertionAxiom);
         }
 
 
-        LinkedISA.createIndividual(Investigation.INVESTIGATION_SUBMISSION_DATE_KEY, investigation.getSubmissionDate());
+        LinkedISA.createIndividual(context, Investigation.INVESTIGATION_SUBMISSION_DATE_KEY, investigation.getSubmissionDate());
 
-        OWLNamedIndividual publicReleaseDateIndividual = LinkedISA.createIndividual(Investigation.INVESTIGATION_PUBLIC_RELEASE_KEY, investigation.getInvestigationId() + LinkedISA.STUDY_PUBLIC_RELEASE_DATE_SUFFIX);
+        OWLNamedIndividual publicReleaseDateIndividual = LinkedISA.createIndividual(context, Investigation.INVESTIGATION_PUBLIC_RELEASE_KEY, investigation.getInvestigationId() + LinkedISA.STUDY_PUBLIC_RELEASE_DATE_SUFFIX);
 
         if (publicReleaseDateIndividual!=null){
-            OWLDataProperty hasMeasurementValue = LinkedISA.factory.getOWLDataProperty(IRI.create(ISA.HAS_VALUE));
-            OWLLiteral publicReleaseDateLiteral = LinkedISA.factory.getOWLLiteral(investigation.getPublicReleaseDate(), OWL2Datatype.XSD_STRING);
-            OWLDataPropertyAssertionAxiom dataPropertyAssertionAxiom = LinkedISA.factory.getOWLDataPropertyAssertionAxiom(hasMeasurementValue, publicReleaseDateIndividual, publicReleaseDateLiteral);
-            LinkedISA.manager.addAxiom(LinkedISA.ontology, dataPropertyAssertionAxiom);
+            OWLDataProperty hasMeasurementValue = context.getVocabulary().getOWLDataProperty(ISA.HAS_VALUE);
+            OWLLiteral publicReleaseDateLiteral = context.getFactory().getOWLLiteral(investigation.getPublicReleaseDate(), OWL2Datatype.XSD_STRING);
+            OWLDataPropertyAssertionAxiom dataPropertyAssertionAxiom = context.getFactory().getOWLDataPropertyAssertionAxiom(hasMeasurementValue, publicReleaseDateIndividual, publicReleaseDateLiteral);
+            context.addAxiom(dataPropertyAssertionAxiom);
         }
 
         //Publications
@@ -329,15 +644,16 @@ public class ISAtab2LinkedConverter {
      */
     private void convertStudy(Study study, OWLNamedIndividual investigationFileIndividual, OWLNamedIndividual isatabDistributionIndividual){
         log.info("Converting study " + study.getStudyId() + "...");
+        context.setPhase(MetricsRegistry.PHASE_STUDY);
 
         //Study
         OWLNamedIndividual studyIndividual = null;
 
         if (study.getStudyId().startsWith("10.1038")){
-            studyIndividual = LinkedISA.createIndividual(ExtendedISASyntax.STUDY, study.getStudyId(), "", IRI.create("http://dx.doi.org/"+study.getStudyId()), null);
+            studyIndividual = LinkedISA.createIndividual(context, ExtendedISASyntax.STUDY, study.getStudyId(), "", IRI.create("http://dx.doi.org/"+study.getStudyId()), null);
 
         } else {
-            studyIndividual = LinkedISA.createIndividual(ExtendedISASyntax.STUDY, study.getStudyId());
+            studyIndividual = LinkedISA.createIndividual(context, ExtendedISASyntax.STUDY, study.getStudyId());
         }
 
         String license = study.getComment("Comment[Experimental Metadata Licence]");
@@ -345,56 +661,56 @@ public class ISAtab2LinkedConverter {
         String funding_agency = study.getComment("Comment[Study Funding Agency]");
 
         if (!license.equals(""))
-            LinkedISA.addComment("Experimental Metadata Licence: " + license, studyIndividual.getIRI());
+            LinkedISA.addComment(context, "Experimental Metadata Licence: " + license, studyIndividual.getIRI());
 
         if (!study_grant.equals(""))
-            LinkedISA.addComment("Study Grant Number: " + study_grant, studyIndividual.getIRI());
+            LinkedISA.addComment(context, "Study Grant Number: " + study_grant, studyIndividual.getIRI());
 
         if (!funding_agency.equals(""))
-            LinkedISA.addComment("Study Funding Agency: " + funding_agency, studyIndividual.getIRI());
+            LinkedISA.addComment(context, "Study Funding Agency: " + funding_agency, studyIndividual.getIRI());
 
 
         //Study identifier
-        LinkedISA.createIndividual(Study.STUDY_ID, study.getStudyId());
+        LinkedISA.createIndividual(context, Study.STUDY_ID, study.getStudyId());
 
         //Study title
-        OWLNamedIndividual studyTitleIndividual = LinkedISA.createIndividual(Study.STUDY_TITLE, study.getStudyId() + LinkedISA.TITLE_SUFFIX, study.getStudyTitle());
+        OWLNamedIndividual studyTitleIndividual = LinkedISA.createIndividual(context, Study.STUDY_TITLE, study.getStudyId() + LinkedISA.TITLE_SUFFIX, study.getStudyTitle());
         if (studyTitleIndividual!=null){
-            OWLDataProperty hasMeasurementValue = LinkedISA.factory.getOWLDataProperty(IRI.create(ISA.HAS_VALUE));
-            OWLLiteral titleLiteral = LinkedISA.factory.getOWLLiteral(study.getStudyTitle(), OWL2Datatype.XSD_STRING);
-            OWLDataPropertyAssertionAxiom dataPropertyAssertionAxiom = LinkedISA.factory.getOWLDataPropertyAssertionAxiom(hasMeasurementValue, studyTitleIndividual, titleLiteral);
-            LinkedISA.manager.addAxiom(LinkedISA.ontology, dataPropertyAssertionAxiom);
+            OWLDataProperty hasMeasurementValue = context.getVocabulary().getOWLDataProperty(ISA.HAS_VALUE);
+            OWLLiteral titleLiteral = context.getFactory().getOWLLiteral(study.getStudyTitle(), OWL2Datatype.XSD_STRING);
+            OWLDataPropertyAssertionAxiom dataPropertyAssertionAxiom = context.getFactory().getOWLDataPropertyAssertionAxiom(hasMeasurementValue, studyTitleIndividual, titleLiteral);
+            context.addAxiom(dataPropertyAssertionAxiom);
         }
 
         //Study description
-        OWLNamedIndividual studyDescriptionIndividual = LinkedISA.createIndividual(Study.STUDY_DESC, study.getStudyId() + LinkedISA.DESCRIPTION_SUFFIX, study.getStudyDesc());
+        OWLNamedIndividual studyDescriptionIndividual = LinkedISA.createIndividual(context, Study.STUDY_DESC, study.getStudyId() + LinkedISA.DESCRIPTION_SUFFIX, study.getStudyDesc());
         if (studyDescriptionIndividual!=null){
-            OWLDataProperty hasMeasurementValue = LinkedISA.factory.getOWLDataProperty(IRI.create(ISA.HAS_VALUE));
-            OWLLiteral descriptionLiteral = LinkedISA.factory.getOWLLiteral(study.getStudyDesc(), OWL2Datatype.XSD_STRING);
-            OWLDataPropertyAssertionAxiom dataPropertyAssertionAxiom = LinkedISA.factory.getOWLDataPropertyAssertionAxiom(hasMeasurementValue, studyDescriptionIndividual, descriptionLiteral);
-            LinkedISA.manager.addAxiom(LinkedISA.ontology, dataPropertyAssertionAxiom);
+            OWLDataProperty hasMeasurementValue = context.getVocabulary().getOWLDataProperty(ISA.HAS_VALUE);
+            OWLLiteral descriptionLiteral = context.getFactory().getOWLLiteral(study.getStudyDesc(), OWL2Datatype.XSD_STRING);
+            OWLDataPropertyAssertionAxiom dataPropertyAssertionAxiom = context.getFactory().getOWLDataPropertyAssertionAxiom(hasMeasurementValue, studyDescriptionIndividual, descriptionLiteral);
+            context.addAxiom(dataPropertyAssertionAxiom);
         }
 
         //Study File
-        OWLNamedIndividual studyFileIndividual = LinkedISA.createIndividual(ExtendedISASyntax.STUDY_FILE, study.getStudySampleFileIdentifier());
+        OWLNamedIndividual studyFileIndividual = LinkedISA.createIndividual(context, ExtendedISASyntax.STUDY_FILE, study.getStudySampleFileIdentifier());
         if (investigationFileIndividual!=null) {
-            LinkedISA.createObjectPropertyAssertion(ISA.HAS_PART, isatabDistributionIndividual, studyFileIndividual);
-            LinkedISA.createObjectPropertyAssertion(ISA.POINTS_TO, investigationFileIndividual, studyFileIndividual);
+            LinkedISA.createObjectPropertyAssertion(context, ISA.HAS_PART, isatabDistributionIndividual, studyFileIndividual);
+            LinkedISA.createObjectPropertyAssertion(context, ISA.POINTS_TO, investigationFileIndividual, studyFileIndividual);
         }
 
         //Study file name
-        LinkedISA.createIndividual(Study.STUDY_FILE_NAME, study.getStudySampleFileIdentifier());
+        LinkedISA.createIndividual(context, Study.STUDY_FILE_NAME, study.getStudySampleFileIdentifier());
 
         //Study submission date
-        LinkedISA.createIndividual(Study.STUDY_DATE_OF_SUBMISSION, study.getDateOfSubmission());
+        LinkedISA.createIndividual(context, Study.STUDY_DATE_OF_SUBMISSION, study.getDateOfSubmission());
 
-        OWLNamedIndividual publicReleaseDateIndividual = LinkedISA.createIndividual(Study.STUDY_DATE_OF_PUBLIC_RELEASE, study.getStudyId() + LinkedISA.STUDY_PUBLIC_RELEASE_DATE_SUFFIX);
+        OWLNamedIndividual publicReleaseDateIndividual = LinkedISA.createIndividual(context, Study.STUDY_DATE_OF_PUBLIC_RELEASE, study.getStudyId() + LinkedISA.STUDY_PUBLIC_RELEASE_DATE_SUFFIX);
 
         if (publicReleaseDateIndividual!=null){
-            OWLDataProperty hasMeasurementValue = LinkedISA.factory.getOWLDataProperty(IRI.create(ISA.HAS_VALUE));
-            OWLLiteral publicReleaseDateLiteral = LinkedISA.factory.getOWLLiteral(study.getPublicReleaseDate(), OWL2Datatype.XSD_STRING);
-            OWLDataPropertyAssertionAxiom dataPropertyAssertionAxiom = LinkedISA.factory.getOWLDataPropertyAssertionAxiom(hasMeasurementValue, publicReleaseDateIndividual, publicReleaseDateLiteral);
-            LinkedISA.manager.addAxiom(LinkedISA.ontology, dataPropertyAssertionAxiom);
+            OWLDataProperty hasMeasurementValue = context.getVocabulary().getOWLDataProperty(ISA.HAS_VALUE);
+            OWLLiteral publicReleaseDateLiteral = context.getFactory().getOWLLiteral(study.getPublicReleaseDate(), OWL2Datatype.XSD_STRING);
+            OWLDataPropertyAssertionAxiom dataPropertyAssertionAxiom = context.getFactory().getOWLDataPropertyAssertionAxiom(hasMeasurementValue, publicReleaseDateIndividual, publicReleaseDateLiteral);
+            context.addAxiom(dataPropertyAssertionAxiom);
         }
 
         //Publications
@@ -417,18 +733,36 @@ public class ISAtab2LinkedConverter {
         List<Protocol> protocolList = study.getProtocols();
         convertProtocols(protocolList);
 
-        Assay2LinkedConverter assay2OWLConverter = new Assay2LinkedConverter();
-        sampleIndividualMap = assay2OWLConverter.convert(study.getStudySample(), Assay2LinkedConverter.AssayTableType.STUDY, null,
-                protocolList, protocolIndividualMap,studyDesignIndividual, studyIndividual, true, null, null, factorIndividualMap);
+        context.setPhase(MetricsRegistry.PHASE_STUDY_SAMPLE);
+        String studyScope = context.enterScope(study.getStudySampleFileIdentifier());
+        Assay2LinkedConverter assay2OWLConverter = new Assay2LinkedConverter(context);
+        assay2OWLConverter.setThreads(rowConversionThreads);
+        AssayTableReader studySampleReader = openTable(study.getStudySampleFileIdentifier());
+        if (studySampleReader==null){
+            sampleIndividualMap = assay2OWLConverter.convert(study.getStudySample(), Assay2LinkedConverter.AssayTableType.STUDY, null,
+                    protocolList, protocolIndividualMap,studyDesignIndividual, studyIndividual, true, null, null, factorIndividualMap);
+        } else {
+            try {
+                sampleIndividualMap = assay2OWLConverter.convert(studySampleReader, Assay2LinkedConverter.AssayTableType.STUDY, null,
+                        protocolList, protocolIndividualMap,studyDesignIndividual, studyIndividual, true, null, null, factorIndividualMap);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read " + study.getStudySampleFileIdentifier(), e);
+            } finally {
+                closeTable(studySampleReader);
+            }
+        }
+        context.setScope(studyScope);
 
         log.debug("ASSAYS..." + study.getAssays());
 
         //Study Assays
+        context.setPhase(MetricsRegistry.PHASE_ASSAYS);
         Map<String, Assay> assayMap = study.getAssays();
         convertAssays(assayMap, protocolList, studyIndividual, studyDesignIndividual, studyFileIndividual, isatabDistributionIndividual, investigationFileIndividual);
+        context.setPhase(MetricsRegistry.PHASE_STUDY);
 
         //dealing with all property mappings, except those already treated in specific methods
-        Map<String, List<Pair<IRI, String>>> propertyMappings = LinkedISA.mapping.getOtherPropertyMappings();
+        Map<String, List<Pair<IRI, String>>> propertyMappings = context.getMapping().getOtherPropertyMappings();
         for(String subjectString: propertyMappings.keySet()){
 
             //skip Study Person properties as they are dealt with in the Contact mappings
@@ -445,7 +779,7 @@ public class ISAtab2LinkedConverter {
                 continue;
 
             List<Pair<IRI, String>> predicateObjects = propertyMappings.get(subjectString);
-            Set<OWLNamedIndividual> subjects = LinkedISA.typeIndividualMap.get(subjectString);
+            Set<OWLNamedIndividual> subjects = context.getTypeIndividualMap().get(subjectString);
 
             if (subjects==null)
                 continue;
@@ -456,12 +790,12 @@ public class ISAtab2LinkedConverter {
 
                     IRI predicate = predicateObject.getFirst();
 
-                    OWLObjectProperty property = LinkedISA.factory.getOWLObjectProperty(predicate);
+                    OWLObjectProperty property = context.getVocabulary().getOWLObjectProperty(predicate);
 
                     String objectString = predicateObject.getSecond();
 
 
-                    Set<OWLNamedIndividual> objects = LinkedISA.typeIndividualMap.get(objectString);
+                    Set<OWLNamedIndividual> objects = context.getTypeIndividualMap().get(objectString);
 
                     if (objects==null)
                         continue;
@@ -471,8 +805,8 @@ public class ISAtab2LinkedConverter {
                         if (subject==null || object==null || property==null){
                             log.debug("At least one is null...");
                         }else{
-                            OWLObjectPropertyAssertionAxiom axiom = LinkedISA.factory.getOWLObjectPropertyAssertionAxiom(property, subject, object);
-                            LinkedISA.manager.addAxiom(LinkedISA.ontology, axiom);
+                            OWLObjectPropertyAssertionAxiom axiom = context.getFactory().getOWLObjectPropertyAssertionAxiom(property, subject, object);
+                            context.addAxiom(axiom);
                         }
                     }//for
                 } //for
@@ -493,12 +827,15 @@ public class ISAtab2LinkedConverter {
      */
     private void convertPublications(List<Publication> publicationList, OWLNamedIndividual individual){
 
-        Map<String,List<Pair<IRI, String>>> publicationMappings = LinkedISA.mapping.getPublicationPropertyMappings();
+        Map<String,List<Pair<IRI, String>>> publicationMappings = context.getMapping().getPublicationPropertyMappings();
         Map<String, OWLNamedIndividual> publicationIndividuals = null;
 
+        int position = 0;
         for(Publication pub: publicationList){
 
             boolean investigation = (pub instanceof InvestigationPublication);
+            //the attributes of two publications (e.g. the same author list) are different individuals
+            String scope = context.enterScope("publication " + position++);
 
             OWLNamedIndividual publicationIndividual = publicationIndividualMap.get(pub);
 
@@ -509,7 +846,7 @@ public class ISAtab2LinkedConverter {
                 String pubmedID = pub.getPubmedId();
                 if (pubmedID != null && !pubmedID.equals("")){
                    // publicationIndividual = ISA2OWL.createIndividual(ExtendedISASyntax.PUBLICATION, pubmedID, pubmedID, ExternalRDFLinkages.getPubMedIRI(pubmedID), publicationIndividuals);
-                    publicationIndividual = LinkedISA.createIndividual(ExtendedISASyntax.PUBLICATION, pubmedID, pubmedID, null, publicationIndividuals);
+                    publicationIndividual = LinkedISA.createIndividual(context, ExtendedISASyntax.PUBLICATION, pubmedID, pubmedID, null, publicationIndividuals);
                 } else {
                     //TODO
                 }
@@ -517,16 +854,16 @@ public class ISAtab2LinkedConverter {
                 publicationIndividualMap.put(pub,publicationIndividual);
 
                 //Study PubMed ID
-                LinkedISA.createIndividual(investigation ? InvestigationPublication.PUBMED_ID : StudyPublication.PUBMED_ID, pub.getPubmedId(), publicationIndividuals);
+                LinkedISA.createIndividual(context, investigation ? InvestigationPublication.PUBMED_ID : StudyPublication.PUBMED_ID, pub.getPubmedId(), publicationIndividuals);
 
                 //Study Publication DOI
-                LinkedISA.createIndividual(investigation ? InvestigationPublication.PUBLICATION_DOI : StudyPublication.PUBLICATION_DOI, pub.getPublicationDOI(), publicationIndividuals);
+                LinkedISA.createIndividual(context, investigation ? InvestigationPublication.PUBLICATION_DOI : StudyPublication.PUBLICATION_DOI, pub.getPublicationDOI(), publicationIndividuals);
 
                 //Study Publication Author List
-                LinkedISA.createIndividual(investigation ? InvestigationPublication.PUBLICATION_AUTHOR_LIST : StudyPublication.PUBLICATION_AUTHOR_LIST, pub.getPublicationAuthorList(), publicationIndividuals);
+                LinkedISA.createIndividual(context, investigation ? InvestigationPublication.PUBLICATION_AUTHOR_LIST : StudyPublication.PUBLICATION_AUTHOR_LIST, pub.getPublicationAuthorList(), publicationIndividuals);
 
                  //Study Publication Title
-                LinkedISA.createIndividual(investigation ? InvestigationPublication.PUBLICATION_TITLE : StudyPublication.PUBLICATION_TITLE, pub.getPublicationTitle(), publicationIndividuals);
+                LinkedISA.createIndividual(context, investigation ? InvestigationPublication.PUBLICATION_TITLE : StudyPublication.PUBLICATION_TITLE, pub.getPublicationTitle(), publicationIndividuals);
             } else {
                 publicationIndividuals.put(ExtendedISASyntax.PUBLICATION, publicationIndividual);
             }
@@ -536,8 +873,8 @@ public class ISAtab2LinkedConverter {
             else
                 publicationIndividuals.put(ExtendedISASyntax.STUDY, individual);
 
-            LinkedISA.convertProperties(publicationMappings, publicationIndividuals);
-
+            LinkedISA.convertProperties(context, publicationMappings, publicationIndividuals);
+            context.setScope(scope);
         }
 
     }
@@ -551,12 +888,15 @@ public class ISAtab2LinkedConverter {
     private void convertContacts(List<Contact> contactsList, OWLNamedIndividual individual){
 
         //process properties for the contactIndividuals
-        Map<String,List<Pair<IRI, String>>> contactMappings = LinkedISA.mapping.getContactMappings();
+        Map<String,List<Pair<IRI, String>>> contactMappings = context.getMapping().getContactMappings();
 
         Map<String, OWLNamedIndividual> contactIndividuals = null;
 
+        int position = 0;
         for(Contact contact: contactsList){
 
+            //the attributes of two contacts (e.g. the same role) are different individuals
+            String scope = context.enterScope("contact " + position++);
             OWLNamedIndividual contactIndividual = contactIndividualMap.get(contact);
             boolean investigation = contact instanceof InvestigationContact;
             contactIndividuals = new HashMap<String, OWLNamedIndividual>();
@@ -568,7 +908,7 @@ public class ISAtab2LinkedConverter {
                 //Study Person
                 if (studyPersonREF!=null && !studyPersonREF.equals("")) {
 
-                    contactIndividual = LinkedISA.createIndividual(investigation ? ExtendedISASyntax.INVESTIGATION_PERSON : ExtendedISASyntax.STUDY_PERSON,
+                    contactIndividual = LinkedISA.createIndividual(context, investigation ? ExtendedISASyntax.INVESTIGATION_PERSON : ExtendedISASyntax.STUDY_PERSON,
                             contact.getIdentifier(),
                             studyPersonREF,
                             null,
@@ -577,30 +917,30 @@ public class ISAtab2LinkedConverter {
                     contactIndividuals.put(investigation ? ExtendedISASyntax.INVESTIGATION_PERSON : ExtendedISASyntax.STUDY_PERSON, contactIndividual);
 
                 } else {
-                    contactIndividual = LinkedISA.createIndividual(investigation ? ExtendedISASyntax.INVESTIGATION_PERSON : ExtendedISASyntax.STUDY_PERSON, contact.getIdentifier(), contactIndividuals);
+                    contactIndividual = LinkedISA.createIndividual(context, investigation ? ExtendedISASyntax.INVESTIGATION_PERSON : ExtendedISASyntax.STUDY_PERSON, contact.getIdentifier(), contactIndividuals);
                 }
                 contactIndividualMap.put(contact, contactIndividual);
 
                 //Study Person Last Name
-                LinkedISA.createIndividual(investigation ? InvestigationContact.CONTACT_LAST_NAME : StudyContact.CONTACT_LAST_NAME, contact.getLastName(), contactIndividuals);
+                LinkedISA.createIndividual(context, investigation ? InvestigationContact.CONTACT_LAST_NAME : StudyContact.CONTACT_LAST_NAME, contact.getLastName(), contactIndividuals);
 
                 //Study Person First Name
-                LinkedISA.createIndividual(investigation ? InvestigationContact.CONTACT_FIRST_NAME : StudyContact.CONTACT_FIRST_NAME, contact.getFirstName(), contactIndividuals);
+                LinkedISA.createIndividual(context, investigation ? InvestigationContact.CONTACT_FIRST_NAME : StudyContact.CONTACT_FIRST_NAME, contact.getFirstName(), contactIndividuals);
 
                 //Study Person Mid Initials
-                LinkedISA.createIndividual(investigation ? InvestigationContact.CONTACT_MID_INITIAL : StudyContact.CONTACT_MID_INITIAL, contact.getMidInitial(), contactIndividuals);
+                LinkedISA.createIndividual(context, investigation ? InvestigationContact.CONTACT_MID_INITIAL : StudyContact.CONTACT_MID_INITIAL, contact.getMidInitial(), contactIndividuals);
 
                 //Study Person Email
-                LinkedISA.createIndividual(investigation ? InvestigationContact.CONTACT_EMAIL : StudyContact.CONTACT_EMAIL, contact.getEmail(), contactIndividuals);
+                LinkedISA.createIndividual(context, investigation ? InvestigationContact.CONTACT_EMAIL : StudyContact.CONTACT_EMAIL, contact.getEmail(), contactIndividuals);
 
                 //Study Person Phone
-                LinkedISA.createIndividual(investigation ? InvestigationContact.CONTACT_PHONE : StudyContact.CONTACT_PHONE, contact.getPhone(), contactIndividuals);
+                LinkedISA.createIndividual(context, investigation ? InvestigationContact.CONTACT_PHONE : StudyContact.CONTACT_PHONE, contact.getPhone(), contactIndividuals);
 
                 //Study Person Fax
-                LinkedISA.createIndividual(investigation ? InvestigationContact.CONTACT_FAX : StudyContact.CONTACT_FAX, contact.getFax(), contactIndividuals);
+                LinkedISA.createIndividual(context, investigation ? InvestigationContact.CONTACT_FAX : StudyContact.CONTACT_FAX, contact.getFax(), contactIndividuals);
 
                 //Study Person Address
-                LinkedISA.createIndividual(investigation ? InvestigationContact.CONTACT_ADDRESS : StudyContact.CONTACT_ADDRESS, contact.getAddress(), contactIndividuals);
+                LinkedISA.createIndividual(context, investigation ? InvestigationContact.CONTACT_ADDRESS : StudyContact.CONTACT_ADDRESS, contact.getAddress(), contactIndividuals);
 
                 //Study Person Affiliation
                 String affiliation = contact.getAffiliation();
@@ -608,12 +948,12 @@ public class ISAtab2LinkedConverter {
                 if (affiliationIndividual!=null) {
                    contactIndividuals.put(affiliation, affiliationIndividual);
                 }else {
-                   affiliationIndividual = LinkedISA.createIndividual(investigation ? InvestigationContact.CONTACT_AFFILIATION : StudyContact.CONTACT_AFFILIATION, contact.getAffiliation(), contactIndividuals);
+                   affiliationIndividual = LinkedISA.createIndividual(context, investigation ? InvestigationContact.CONTACT_AFFILIATION : StudyContact.CONTACT_AFFILIATION, contact.getAffiliation(), contactIndividuals);
                 }
                 affiliationIndividualMap.put(affiliation, affiliationIndividual);
 
                 //Investigation/Study Person Roles
-                LinkedISA.createIndividual(investigation ? InvestigationContact.CONTACT_ROLE : StudyContact.CONTACT_ROLE, contact.getRole(), contactIndividuals);
+                LinkedISA.createIndividual(context, investigation ? InvestigationContact.CONTACT_ROLE : StudyContact.CONTACT_ROLE, contact.getRole(), contactIndividuals);
             } else {
                 contactIndividuals.put(investigation ? ExtendedISASyntax.INVESTIGATION_PERSON : ExtendedISASyntax.STUDY_PERSON, contactIndividual);
             }
@@ -624,8 +964,8 @@ public class ISAtab2LinkedConverter {
             else
                 contactIndividuals.put(ExtendedISASyntax.STUDY, individual);
 
-            LinkedISA.convertProperties(contactMappings, contactIndividuals);
-
+            LinkedISA.convertProperties(context, contactMappings, contactIndividuals);
+            context.setScope(scope);
         }
     }
 
@@ -647,21 +987,21 @@ public class ISAtab2LinkedConverter {
         for(Factor factor: factorList){
 
             //Study Factor
-            OWLNamedIndividual factorIndividual = LinkedISA.createIndividual(ExtendedISASyntax.STUDY_FACTOR, factor.getFactorName());
+            OWLNamedIndividual factorIndividual = LinkedISA.createIndividual(context, ExtendedISASyntax.STUDY_FACTOR, factor.getFactorName());
             factors.add(factorIndividual);
             factorIndividualMap.put(factor.getFactorName(), factorIndividual);
 
             //Study Factor Name
-            OWLNamedIndividual factorNameIndividual = LinkedISA.createIndividual(Factor.FACTOR_NAME, factor.getFactorName());
+            OWLNamedIndividual factorNameIndividual = LinkedISA.createIndividual(context, Factor.FACTOR_NAME, factor.getFactorName());
 
             //use term source and term accession to declare a more specific type for the factor
             if (factor.getFactorTypeTermAccession()!=null && !factor.getFactorTypeTermAccession().equals("")
                     && factor.getFactorTypeTermSource()!=null && !factor.getFactorTypeTermSource().equals("")){
 
                 if (factor.getFactorTypeTermAccession().startsWith("http"))
-                    LinkedISA.addOWLClassAssertion(IRI.create(factor.getFactorTypeTermSource()), factorIndividual);
+                    LinkedISA.addOWLClassAssertion(context, IRI.create(factor.getFactorTypeTermSource()), factorIndividual);
                     
-                    LinkedISA.findOntologyTermAndAddClassAssertion(factor.getFactorTypeTermSource(), factor.getFactorTypeTermAccession(), factorIndividual);
+                    LinkedISA.findOntologyTermAndAddClassAssertion(context, factor.getFactorTypeTermSource(), factor.getFactorTypeTermAccession(), factorIndividual);
 
             }//factors attributes not null
 
@@ -669,8 +1009,8 @@ public class ISAtab2LinkedConverter {
         }
         factorIndividualsForProperties.put(ExtendedISASyntax.STUDY_FACTOR, factors);
 
-        Map<String,List<Pair<IRI, String>>> factorPropertyMappings = LinkedISA.mapping.getFactorPropertyMappings();
-        LinkedISA.convertPropertiesMultipleIndividuals(factorPropertyMappings, factorIndividualsForProperties);
+        Map<String,List<Pair<IRI, String>>> factorPropertyMappings = context.getMapping().getFactorPropertyMappings();
+        LinkedISA.convertPropertiesMultipleIndividuals(context, factorPropertyMappings, factorIndividualsForProperties);
 
 
     }
@@ -688,21 +1028,21 @@ public class ISAtab2LinkedConverter {
 
         //Study Design Type
         //define a StudyDesignExecution per StudyDesign and associate with study (Study has_part StudyDesignExecution
-        OWLNamedIndividual studyDesignIndividual = LinkedISA.createIndividual(StudyDesign.STUDY_DESIGN_TYPE, study.getStudyId() + LinkedISA.STUDY_DESIGN_SUFFIX);
+        OWLNamedIndividual studyDesignIndividual = LinkedISA.createIndividual(context, StudyDesign.STUDY_DESIGN_TYPE, study.getStudyId() + LinkedISA.STUDY_DESIGN_SUFFIX);
 
         for(StudyDesign studyDesign: studyDesigns){
 
-            LinkedISA.addComment(studyDesign.getStudyDesignType(), studyDesignIndividual.getIRI());
+            LinkedISA.addComment(context, studyDesign.getStudyDesignType(), studyDesignIndividual.getIRI());
 
             //use term source and term accession to declare a more specific type for the factor
             if (studyDesign.getStudyDesignTypeTermAcc()!=null && !studyDesign.getStudyDesignTypeTermAcc().equals("")
                 && studyDesign.getStudyDesignTypeTermSourceRef()!=null && !studyDesign.getStudyDesignTypeTermSourceRef().equals("")){
 
-                LinkedISA.findOntologyTermAndAddClassAssertion(studyDesign.getStudyDesignTypeTermSourceRef(), studyDesign.getStudyDesignTypeTermAcc(), studyDesignIndividual);
+                LinkedISA.findOntologyTermAndAddClassAssertion(context, studyDesign.getStudyDesignTypeTermSourceRef(), studyDesign.getStudyDesignTypeTermAcc(), studyDesignIndividual);
             }
         }
 
-        OWLNamedIndividual studyDesignExecutionIndividual = LinkedISA.createIndividual(ExtendedISASyntax.STUDY_DESIGN_EXECUTION, study.getStudyId() + LinkedISA.STUDY_DESIGN_EXECUTION_SUFFIX);
+        OWLNamedIndividual studyDesignExecutionIndividual = LinkedISA.createIndividual(context, ExtendedISASyntax.STUDY_DESIGN_EXECUTION, study.getStudyId() + LinkedISA.STUDY_DESIGN_EXECUTION_SUFFIX);
 
         return studyDesignIndividual;
 
@@ -718,28 +1058,31 @@ public class ISAtab2LinkedConverter {
     private void convertProtocols(List<Protocol> protocolList){
 
         Map<String, OWLNamedIndividual> protocolIndividuals = null;
-        Map<String,List<Pair<IRI, String>>> protocolMappings = LinkedISA.mapping.getProtocolMappings();
+        Map<String,List<Pair<IRI, String>>> protocolMappings = context.getMapping().getProtocolMappings();
         OWLNamedIndividual individual = null;
 
+        int position = 0;
         for(Protocol protocol: protocolList){
             protocolIndividuals = new HashMap<String, OWLNamedIndividual>();
+            //the parameters of two protocols with the same names are different individuals
+            String scope = context.enterScope("protocol " + position++);
 
             //Study Protocol
-            individual = LinkedISA.createIndividual(ExtendedISASyntax.STUDY_PROTOCOL, protocol.getProtocolName() + LinkedISA.STUDY_PROTOCOL_SUFFIX, protocolIndividuals);
+            individual = LinkedISA.createIndividual(context, ExtendedISASyntax.STUDY_PROTOCOL, protocol.getProtocolName() + LinkedISA.STUDY_PROTOCOL_SUFFIX, protocolIndividuals);
             protocolIndividualMap.put(protocol.getProtocolName(),individual);
-            LinkedISA.addComment(protocol.getProtocolType(), individual.getIRI());
+            LinkedISA.addComment(context, protocol.getProtocolType(), individual.getIRI());
 
             //Study Protocol Name
-            LinkedISA.createIndividual(Protocol.PROTOCOL_NAME, protocol.getProtocolName() + LinkedISA.STUDY_PROTOCOL_NAME_SUFFIX, protocolIndividuals);
+            LinkedISA.createIndividual(context, Protocol.PROTOCOL_NAME, protocol.getProtocolName() + LinkedISA.STUDY_PROTOCOL_NAME_SUFFIX, protocolIndividuals);
 
             //Study Protocol Description
-            LinkedISA.createIndividual(Protocol.PROTOCOL_DESCRIPTION, protocol.getProtocolDescription(), protocolIndividuals);
+            LinkedISA.createIndividual(context, Protocol.PROTOCOL_DESCRIPTION, protocol.getProtocolDescription(), protocolIndividuals);
 
             //Study Protocol URI
-            LinkedISA.createIndividual(Protocol.PROTOCOL_URI, protocol.getProtocolURL(), protocolIndividuals);
+            LinkedISA.createIndividual(context, Protocol.PROTOCOL_URI, protocol.getProtocolURL(), protocolIndividuals);
 
             //Study Protocol Version
-            LinkedISA.createIndividual(Protocol.PROTOCOL_VERSION, protocol.getProtocolVersion(), protocolIndividuals);
+            LinkedISA.createIndividual(context, Protocol.PROTOCOL_VERSION, protocol.getProtocolVersion(), protocolIndividuals);
 
             //Study Protocol Parameters
             String[] parameterNames = protocol.getProtocolParameterNames();
@@ -753,16 +1096,21 @@ public class ISAtab2LinkedConverter {
             int i = 0;
             for(String parameterName: parameterNames){
 
+                //a parameter listed twice in a protocol gives two individuals
+                String protocolScope = context.enterScope("parameter " + i);
+
                 //Study Protocol Parameter
-                OWLNamedIndividual parameterNameIndividual = LinkedISA.createIndividual(ExtendedISASyntax.STUDY_PROTOCOL_PARAMETER, parameterName, protocolIndividuals);
+                OWLNamedIndividual parameterNameIndividual = LinkedISA.createIndividual(context, ExtendedISASyntax.STUDY_PROTOCOL_PARAMETER, parameterName, protocolIndividuals);
 
-                LinkedISA.createIndividual(Protocol.PROTOCOL_PARAMETER_NAME, parameterName, protocolIndividuals);
+                LinkedISA.createIndividual(context, Protocol.PROTOCOL_PARAMETER_NAME, parameterName, protocolIndividuals);
 
                 if (annotated)
-                    LinkedISA.findOntologyTermAndAddClassAssertion(termSources[i], termAccessions[i], parameterNameIndividual);
+                    LinkedISA.findOntologyTermAndAddClassAssertion(context, termSources[i], termAccessions[i], parameterNameIndividual);
                 i++;
+                context.setScope(protocolScope);
             }
-            LinkedISA.convertProperties(protocolMappings, protocolIndividuals);
+            LinkedISA.convertProperties(context, protocolMappings, protocolIndividuals);
+            context.setScope(scope);
         }
 
     }
@@ -771,74 +1119,210 @@ public class ISAtab2LinkedConverter {
      *
      * Converts the assays.
      *
+     * The assays are converted one after the other until the groups of the study are known: while they are not created
+     * at the study level, each assay may create them. The remaining assays only read the sample, protocol and factor
+     * individuals of the study, so with more than one assay thread they are converted in parallel over snapshots of
+     * those maps. Each assay writes into its own axiom buffer, and the buffers are added to the output in the order of
+     * the assays.
+     *
      * @param assayMap
      */
     private void convertAssays(Map<String, Assay> assayMap,
-                               List<Protocol> protocolList,
-                               OWLNamedIndividual studyIndividual,
-                               OWLNamedIndividual studyDesignIndividual,
-                               OWLNamedIndividual studyFileIndividual,
-                               OWLNamedIndividual isatabDistributionIndividual,
-                               OWLNamedIndividual investigationFileIndividual){
+                               final List<Protocol> protocolList,
+                               final OWLNamedIndividual studyIndividual,
+                               final OWLNamedIndividual studyDesignIndividual,
+                               final OWLNamedIndividual studyFileIndividual,
+                               final OWLNamedIndividual isatabDistributionIndividual,
+                               final OWLNamedIndividual investigationFileIndividual){
+
+        List<Assay> assays = new ArrayList<Assay>(assayMap.values());
+
+        int next = 0;
+        while (next < assays.size() && (assayConversionThreads <= 1 || !context.isGroupsAtStudyLevel())){
+            Assay assay = assays.get(next);
+            convertAssay(assay, convertMeasurementAndTechnology(assay, studyIndividual), protocolList, sampleIndividualMap, protocolIndividualMap, factorIndividualMap,
+                    studyIndividual, studyDesignIndividual, studyFileIndividual, isatabDistributionIndividual, investigationFileIndividual);
+            next++;
+        }
+        if (next == assays.size())
+            return;
 
-        Map<String, Set<OWLNamedIndividual>> assayIndividualsForProperties;
+        final Map<String, OWLNamedIndividual> samples = Collections.unmodifiableMap(new HashMap<String, OWLNamedIndividual>(sampleIndividualMap));
+        final Map<String, OWLNamedIndividual> protocols = Collections.unmodifiableMap(new HashMap<String, OWLNamedIndividual>(protocolIndividualMap));
+        final Map<String, OWLNamedIndividual> factors = factorIndividualMap == null ? null :
+                Collections.unmodifiableMap(new HashMap<String, OWLNamedIndividual>(factorIndividualMap));
 
-        for(String assayRef: assayMap.keySet()){
-            log.debug("AssayRef="+assayRef);
-            Assay assay = assayMap.get(assayRef);
+        //the measurement and technology individuals are shared by the assays, so they are created in the order of the assays
+        final List<Map<String, Set<OWLNamedIndividual>>> assayIndividualsForProperties = new ArrayList<Map<String, Set<OWLNamedIndividual>>>();
+        for(Assay assay: assays){
+            assayIndividualsForProperties.add(assayIndividualsForProperties.size() < next ? null : convertMeasurementAndTechnology(assay, studyIndividual));
+        }
 
-            assayIndividualsForProperties = new HashMap<String, Set<OWLNamedIndividual>>();
-            assayIndividualsForProperties.put(ExtendedISASyntax.STUDY, Collections.singleton(studyIndividual));
+        final String scope = context.getScope();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(assayConversionThreads, assays.size() - next));
+        List<Future<List<OWLAxiom>>> futures = new ArrayList<Future<List<OWLAxiom>>>();
+        try {
+            for(int i = next; i < assays.size(); i++){
+                final Assay assay = assays.get(i);
+                final Map<String, Set<OWLNamedIndividual>> individualsForProperties = assayIndividualsForProperties.get(i);
+                futures.add(executor.submit(new Callable<List<OWLAxiom>>() {
+                    public List<OWLAxiom> call() {
+                        context.startWorker(scope);
+                        List<OWLAxiom> axioms = null;
+                        try {
+                            convertAssay(assay, individualsForProperties, protocolList, samples, protocols, factors, studyIndividual, studyDesignIndividual,
+                                    studyFileIndividual, isatabDistributionIndividual, investigationFileIndividual);
+                        } finally {
+                            axioms = context.finishWorker();
+                        }
+                        return axioms;
+                    }
+                }));
+            }
 
-            OWLNamedIndividual measurementIndividual = measurementTechnologyIndividuals.get(assay.getMeasurementEndpoint());
+            for(Future<List<OWLAxiom>> future: futures){
+                context.addAxioms(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while converting the assays", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not convert the assays", e.getCause());
+        } finally {
+            for(Future<List<OWLAxiom>> future: futures){
+                future.cancel(true);
+            }
+            executor.shutdownNow();
+        }
+    }
 
-            if (measurementIndividual==null){
+    /**
+     * Creates the measurement and technology type individuals of an assay, unless other assays already created them.
+     *
+     * @return the individuals for the property mappings of the assay
+     */
+    private Map<String, Set<OWLNamedIndividual>> convertMeasurementAndTechnology(Assay assay, OWLNamedIndividual studyIndividual){
 
-                //Study Assay Measurement Type
-                measurementIndividual = LinkedISA.createIndividual(Assay.MEASUREMENT_ENDPOINT, assay.getMeasurementEndpoint(), null, assayIndividualsForProperties, null);
-                measurementTechnologyIndividuals.put(assay.getMeasurementEndpoint(),measurementIndividual);
-                LinkedISA.findOntologyTermAndAddClassAssertion(assay.getMeasurementEndpointTermSourceRef(),
-                        assay.getMeasurementEndpointTermAccession(),
-                        measurementIndividual);
+        log.debug("AssayRef="+assay.getAssayReference());
 
-            } else {
-                assayIndividualsForProperties.put(Assay.MEASUREMENT_ENDPOINT, Collections.singleton(measurementIndividual));
-            }
+        Map<String, Set<OWLNamedIndividual>> assayIndividualsForProperties = new HashMap<String, Set<OWLNamedIndividual>>();
+        assayIndividualsForProperties.put(ExtendedISASyntax.STUDY, Collections.singleton(studyIndividual));
 
-            OWLNamedIndividual technologyIndividual = measurementTechnologyIndividuals.get(assay.getTechnologyType());
+        OWLNamedIndividual measurementIndividual = measurementTechnologyIndividuals.get(assay.getMeasurementEndpoint());
 
-            if (technologyIndividual==null){
-                 //Study Assay Technology Type
-                technologyIndividual = LinkedISA.createIndividual(Assay.TECHNOLOGY_TYPE, assay.getTechnologyType(), null, assayIndividualsForProperties, null);
-                measurementTechnologyIndividuals.put(assay.getTechnologyType(),technologyIndividual);
-                LinkedISA.findOntologyTermAndAddClassAssertion(assay.getTechnologyTypeTermSourceRef(),
-                        assay.getTechnologyTypeTermAccession(),
-                        technologyIndividual);
-            } else {
-                assayIndividualsForProperties.put(Assay.TECHNOLOGY_TYPE, Collections.singleton(technologyIndividual));
-            }
+        if (measurementIndividual==null){
 
-            //Study Assay File
-            OWLNamedIndividual studyAssayFileIndividual = LinkedISA.createIndividual(ExtendedISASyntax.STUDY_ASSAY_FILE, assay.getAssayReference(), null, assayIndividualsForProperties, null);
+            //Study Assay Measurement Type
+            measurementIndividual = LinkedISA.createIndividual(context, Assay.MEASUREMENT_ENDPOINT, assay.getMeasurementEndpoint(), null, assayIndividualsForProperties, null);
+            measurementTechnologyIndividuals.put(assay.getMeasurementEndpoint(),measurementIndividual);
+            LinkedISA.findOntologyTermAndAddClassAssertion(context, assay.getMeasurementEndpointTermSourceRef(),
+                    assay.getMeasurementEndpointTermAccession(),
+                    measurementIndividual);
 
-            //Study Assay File Name
-            LinkedISA.createIndividual(Assay.ASSAY_REFERENCE, assay.getAssayReference() + " filename ", null, assayIndividualsForProperties, null);
+        } else {
+            assayIndividualsForProperties.put(Assay.MEASUREMENT_ENDPOINT, Collections.singleton(measurementIndividual));
+        }
 
-            //ISAtab_distribution has_part assay_file
-            LinkedISA.createObjectPropertyAssertion(ISA.HAS_PART, isatabDistributionIndividual, studyAssayFileIndividual);
-            LinkedISA.createObjectPropertyAssertion(ISA.POINTS_TO, investigationFileIndividual, studyAssayFileIndividual);
-            LinkedISA.createObjectPropertyAssertion(ISA.POINTS_TO, studyFileIndividual, studyAssayFileIndividual);
-            LinkedISA.createObjectPropertyAssertion(ISA.DESCRIBES, studyAssayFileIndividual, studyIndividual);
+        OWLNamedIndividual technologyIndividual = measurementTechnologyIndividuals.get(assay.getTechnologyType());
 
-            //ISAowl_distribution
+        if (technologyIndividual==null){
+             //Study Assay Technology Type
+            technologyIndividual = LinkedISA.createIndividual(context, Assay.TECHNOLOGY_TYPE, assay.getTechnologyType(), null, assayIndividualsForProperties, null);
+            measurementTechnologyIndividuals.put(assay.getTechnologyType(),technologyIndividual);
+            LinkedISA.findOntologyTermAndAddClassAssertion(context, assay.getTechnologyTypeTermSourceRef(),
+                    assay.getTechnologyTypeTermAccession(),
+                    technologyIndividual);
+        } else {
+            assayIndividualsForProperties.put(Assay.TECHNOLOGY_TYPE, Collections.singleton(technologyIndividual));
+        }
+        return assayIndividualsForProperties;
+    }
 
-            Assay2LinkedConverter assayConverter = new Assay2LinkedConverter();
+    /**
+     * Converts one assay of the study.
+     */
+    private void convertAssay(Assay assay,
+                              Map<String, Set<OWLNamedIndividual>> assayIndividualsForProperties,
+                              List<Protocol> protocolList,
+                              Map<String, OWLNamedIndividual> sampleIndividualMap,
+                              Map<String, OWLNamedIndividual> protocolIndividualMap,
+                              Map<String, OWLNamedIndividual> factorIndividualMap,
+                              OWLNamedIndividual studyIndividual,
+                              OWLNamedIndividual studyDesignIndividual,
+                              OWLNamedIndividual studyFileIndividual,
+                              OWLNamedIndividual isatabDistributionIndividual,
+                              OWLNamedIndividual investigationFileIndividual){
+
+        String studyScope = context.enterScope(assay.getAssayReference());
+
+        //Study Assay File
+        OWLNamedIndividual studyAssayFileIndividual = LinkedISA.createIndividual(context, ExtendedISASyntax.STUDY_ASSAY_FILE, assay.getAssayReference(), null, assayIndividualsForProperties, null);
+
+        //Study Assay File Name
+        LinkedISA.createIndividual(context, Assay.ASSAY_REFERENCE, assay.getAssayReference() + " filename ", null, assayIndividualsForProperties, null);
+
+        //ISAtab_distribution has_part assay_file
+        LinkedISA.createObjectPropertyAssertion(context, ISA.HAS_PART, isatabDistributionIndividual, studyAssayFileIndividual);
+        LinkedISA.createObjectPropertyAssertion(context, ISA.POINTS_TO, investigationFileIndividual, studyAssayFileIndividual);
+        LinkedISA.createObjectPropertyAssertion(context, ISA.POINTS_TO, studyFileIndividual, studyAssayFileIndividual);
+        LinkedISA.createObjectPropertyAssertion(context, ISA.DESCRIBES, studyAssayFileIndividual, studyIndividual);
+
+        //ISAowl_distribution
+
+        Assay2LinkedConverter assayConverter = new Assay2LinkedConverter(context);
+        assayConverter.setThreads(rowConversionThreads);
+        AssayTableReader assayReader = openTable(assay.getAssayReference());
+        if (assayReader==null){
             assayConverter.convert(assay, Assay2LinkedConverter.AssayTableType.ASSAY, sampleIndividualMap,
-                    protocolList, protocolIndividualMap, studyDesignIndividual, studyIndividual, LinkedISA.groupsAtStudyLevel ? false : true,
+                    protocolList, protocolIndividualMap, studyDesignIndividual, studyIndividual, context.isGroupsAtStudyLevel() ? false : true,
                     assayIndividualsForProperties, studyAssayFileIndividual, factorIndividualMap);
+        } else {
+            try {
+                assayConverter.convert(assayReader, Assay2LinkedConverter.AssayTableType.ASSAY, sampleIndividualMap,
+                        protocolList, protocolIndividualMap, studyDesignIndividual, studyIndividual, context.isGroupsAtStudyLevel() ? false : true,
+                        assayIndividualsForProperties, studyAssayFileIndividual, factorIndividualMap);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read " + assay.getAssayReference(), e);
+            } finally {
+                closeTable(assayReader);
+            }
         }
+        context.setScope(studyScope);
+    }
+
 
+    /**
+     * Opens a study sample or assay file of the dataset to be converted in batches of rows.
+     *
+     * @param fileName the name of the file, in the dataset directory
+     * @return the reader, or null if the tables are converted as a whole or the file cannot be opened
+     */
+    private AssayTableReader openTable(String fileName){
+        if (rowBatchSize <= 0 || fileName == null || datasetDir == null)
+            return null;
+
+        File file = new File(datasetDir, fileName);
+        if (!file.exists()){
+            log.warn("Could not find " + file + ", converting the table loaded by the importer");
+            return null;
+        }
+        try {
+            AssayTableReader reader = new AssayTableReader(file, rowBatchSize);
+            //the terms of the dataset are keyed on the values as normalised by the importer
+            reader.setNormalizeTerms(true);
+            return reader;
+        } catch (IOException e) {
+            log.warn("Could not open " + file + ", converting the table loaded by the importer", e);
+            return null;
+        }
     }
 
+    private void closeTable(AssayTableReader reader){
+        try {
+            reader.close();
+        } catch (IOException e) {
+            log.warn("Could not close the table", e);
+        }
+    }
 
 }
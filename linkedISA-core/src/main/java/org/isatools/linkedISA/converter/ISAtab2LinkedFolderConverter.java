@@ -1,6 +1,11 @@
 package org.isatools.linkedISA.converter;
 
+import org.apache.log4j.Logger;
+
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -9,28 +14,58 @@ import java.util.regex.Pattern;
  *
  * Given a folder with many studies, it converts all the studies.
  *
+ * Each dataset is converted with its own ISAtab2LinkedConverter, built with the configuration and mapping of the
+ * converter given to the constructor, so datasets can be converted in parallel by a pool of worker threads.
+ * A failure in one dataset, including an Error thrown while converting it, is recorded in the report and the rest of
+ * the batch carries on.
+ *
  */
 public class ISAtab2LinkedFolderConverter {
 
+    private static final Logger log = Logger.getLogger(ISAtab2LinkedFolderConverter.class);
+
     private ISAtab2LinkedConverter isatab2OWLConverter = null;
+    private int threads = 1;
 
     public ISAtab2LinkedFolderConverter(ISAtab2LinkedConverter isa2owl){
         isatab2OWLConverter = isa2owl;
     }
 
+    /**
+     * Constructor
+     *
+     * @param isa2owl converter providing the configuration directory and mapping
+     * @param t number of datasets converted at the same time
+     */
+    public ISAtab2LinkedFolderConverter(ISAtab2LinkedConverter isa2owl, int t){
+        this(isa2owl);
+        setThreads(t);
+    }
 
+    public void setThreads(int t){
+        if (t < 1)
+            throw new IllegalArgumentException("The number of threads must be at least 1, but it was " + t);
+        threads = t;
+    }
 
-    public void convert(String inputFolder, String uriPrefix, String outputFolder) throws Exception{
-        convert(inputFolder, uriPrefix, outputFolder, null);
+    public int getThreads(){
+        return threads;
     }
 
 
-    public void convert(String inputFolder, String uriPrefix, String outputFolder, String stringPattern) throws Exception {
+    public FolderConversionReport convert(String inputFolder, String uriPrefix, String outputFolder) throws Exception{
+        return convert(inputFolder, uriPrefix, outputFolder, null);
+    }
+
+
+    public FolderConversionReport convert(String inputFolder, String uriPrefix, String outputFolder, String stringPattern) throws Exception {
+
+        FolderConversionReport report = new FolderConversionReport(threads);
 
         File inputFolderFile = new File(inputFolder);
 
         if (!inputFolderFile.isDirectory()) {
-            return;
+            return report;
         }
 
         File[] inputFiles = inputFolderFile.listFiles();
@@ -41,6 +76,7 @@ public class ISAtab2LinkedFolderConverter {
             pattern = Pattern.compile(stringPattern);
         }
 
+        List<File> datasets = new ArrayList<File>();
         for(File inputFile: inputFiles){
 
             Matcher matcher = null;
@@ -50,13 +86,123 @@ public class ISAtab2LinkedFolderConverter {
                 if (!matcher.matches())
                     continue;
             }
+            datasets.add(inputFile);
+        }
+
+        long start = System.currentTimeMillis();
 
-            System.out.println("============ Converting "+inputFile);
+        if (threads == 1){
+            for(File inputFile: datasets){
+                DatasetConversionTask task = new DatasetConversionTask(inputFile, uriPrefix, outputFolder);
+                FutureTask<FolderConversionReport.DatasetResult> future = new FutureTask<FolderConversionReport.DatasetResult>(task);
+                future.run();
+                report.addResult(getResult(task, future));
+            }
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<DatasetConversionTask> tasks = new ArrayList<DatasetConversionTask>();
+                List<Future<FolderConversionReport.DatasetResult>> futures = new ArrayList<Future<FolderConversionReport.DatasetResult>>();
+                for(File inputFile: datasets){
+                    DatasetConversionTask task = new DatasetConversionTask(inputFile, uriPrefix, outputFolder);
+                    tasks.add(task);
+                    futures.add(executor.submit(task));
+                }
+                for(int i = 0; i < futures.size(); i++){
+                    report.addResult(getResult(tasks.get(i), futures.get(i)));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        report.setElapsedMillis(System.currentTimeMillis() - start);
+        log.info(report);
+        return report;
+    }
+
+    /**
+     * Waits for the conversion of a dataset. If it threw an exception or an error, the dataset is recorded as failed.
+     */
+    private FolderConversionReport.DatasetResult getResult(DatasetConversionTask task, Future<FolderConversionReport.DatasetResult> future)
+            throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            log.error("Conversion of " + task.getName() + " failed", e.getCause());
+            return new FolderConversionReport.DatasetResult(task.getName(), false, 0, task.getElapsedMillis(), e.getCause());
+        }
+    }
+
+    private static String getName(File inputFile){
+        String path = inputFile.getAbsolutePath();
+        return path.substring(path.lastIndexOf('/')+1);
+    }
+
+    private FolderConversionReport.DatasetResult convertDataset(File inputFile, String uriPrefix, String outputFolder){
+        log.info("============ Converting "+inputFile);
+
+        String path = inputFile.getAbsolutePath();
+        String name = getName(inputFile);
+        long start = System.currentTimeMillis();
+        try {
+            ISAtab2LinkedConverter converter = new ISAtab2LinkedConverter(isatab2OWLConverter.getConfigDir(), isatab2OWLConverter.getMapping());
+            converter.setIRIMintingStrategy(isatab2OWLConverter.getIRIMintingStrategy());
+            converter.setTermPrefetchThreads(isatab2OWLConverter.getTermPrefetchThreads());
+            if (isatab2OWLConverter.getStreamingOutput()!=null)
+                converter.setStreamingOutput(outputFolder + name + getExtension(isatab2OWLConverter.getStreamingFormat()),
+                        isatab2OWLConverter.getStreamingFormat());
+            converter.setRowBatchSize(isatab2OWLConverter.getRowBatchSize());
+            converter.setRowConversionThreads(isatab2OWLConverter.getRowConversionThreads());
+            converter.setAssayConversionThreads(isatab2OWLConverter.getAssayConversionThreads());
+            converter.setAxiomBufferCapacity(isatab2OWLConverter.getAxiomBufferCapacity());
+            converter.setMetricsLevel(isatab2OWLConverter.getMetricsLevel());
+            converter.setTraceSampling(isatab2OWLConverter.getTraceSampling());
+            if (isatab2OWLConverter.getMetricsOutput()!=null)
+                converter.setMetricsOutput(outputFolder + name + ".metrics");
+            converter.setMetricsJMX(isatab2OWLConverter.isMetricsJMX());
+            boolean success = converter.convert(path, uriPrefix + name);
+            long axiomCount = 0;
+            if (success){
+                if (converter.getStreamingOutput()==null)
+                    converter.saveOntology(outputFolder + name + ".rdf");
+                axiomCount = converter.getContext().getAxiomCount();
+            }
+            return new FolderConversionReport.DatasetResult(name, success, axiomCount, System.currentTimeMillis() - start, null);
+        } catch (Exception e) {
+            log.error("Conversion of " + name + " failed", e);
+            return new FolderConversionReport.DatasetResult(name, false, 0, System.currentTimeMillis() - start, e);
+        }
+    }
+
+    private static String getExtension(StreamingRDFSink.Format format){
+        return format == StreamingRDFSink.Format.TURTLE ? ".ttl" : ".nt";
+    }
+
+    private class DatasetConversionTask implements Callable<FolderConversionReport.DatasetResult> {
+
+        private File inputFile = null;
+        private String uriPrefix = null;
+        private String outputFolder = null;
+        private volatile long start = 0;
+
+        DatasetConversionTask(File f, String prefix, String output){
+            inputFile = f;
+            uriPrefix = prefix;
+            outputFolder = output;
+        }
+
+        String getName(){
+            return ISAtab2LinkedFolderConverter.getName(inputFile);
+        }
+
+        long getElapsedMillis(){
+            return start == 0 ? 0 : System.currentTimeMillis() - start;
+        }
 
-            String path = inputFile.getAbsolutePath();
-            String name = path.substring(path.lastIndexOf('/')+1);
-            isatab2OWLConverter.convert(path, uriPrefix + name);
-            isatab2OWLConverter.saveOntology(outputFolder + name + ".rdf");
+        public FolderConversionReport.DatasetResult call(){
+            start = System.currentTimeMillis();
+            return convertDataset(inputFile, uriPrefix, outputFolder);
         }
     }
 
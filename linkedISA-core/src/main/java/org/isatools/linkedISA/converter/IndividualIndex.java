@@ -0,0 +1,134 @@
+package org.isatools.linkedISA.converter;
+
+import org.isatools.graph.model.impl.AssayTable;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * The individuals created for the cells of a study sample or assay table, replacing a full
+ * OWLNamedIndividual[rows][columns] matrix.
+ *
+ * The individuals are kept by column and dictionary code of the AssayTable, so the rows with the same value in a column
+ * share one entry, plus one bit per row of the columns set, recording which rows have been set. This holds for the
+ * columns whose individual only depends on the cell value (material, data, attribute and parameter columns). A row given
+ * an individual other than the one of its value, as for the protocol REF columns, gets an entry of its own.
+ *
+ * The index can be shared by the threads converting different rows of the table: the entries are kept in concurrent
+ * maps, the first individual of a value is set with putIfAbsent and the row bits are set with compare-and-set, so no
+ * lock is taken.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class IndividualIndex {
+
+    private static final int BITS = 64;
+
+    private final AssayTable table;
+    private final int rows;
+
+    //<column and code, individual>, the first individual set for each value of a column
+    private final ConcurrentMap<Long, OWLNamedIndividual> byCode = new ConcurrentHashMap<Long, OWLNamedIndividual>();
+    //<column and row, individual>, for the cells whose individual is not the one of their value
+    private final ConcurrentMap<Long, OWLNamedIndividual> byRow = new ConcurrentHashMap<Long, OWLNamedIndividual>();
+    //<column, rows set>, created when the first row of the column is set
+    private final AtomicReferenceArray<AtomicLongArray> rowsSet;
+    //<column, number of cells with an entry of their own>
+    private final AtomicIntegerArray rowEntries;
+
+    /**
+     * Constructor
+     *
+     * @param t the table, or the batch of rows, whose cells are indexed
+     */
+    public IndividualIndex(AssayTable t) {
+        table = t;
+        rows = table.getRowCount() - 1;
+        rowsSet = new AtomicReferenceArray<AtomicLongArray>(table.getColumnCount());
+        rowEntries = new AtomicIntegerArray(table.getColumnCount());
+    }
+
+    /**
+     * Sets the individual for a cell. Nothing is stored for an empty cell, a null individual or a column out of the table.
+     *
+     * @param row the row, from 1
+     * @param col the column
+     * @param individual the individual
+     */
+    public void put(int row, int col, OWLNamedIndividual individual) {
+        if (individual == null || col < 0 || col >= rowsSet.length() || row < 1 || row > rows)
+            return;
+
+        int code = table.getCode(row, col);
+        if (code == AssayTable.EMPTY)
+            return;
+
+        OWLNamedIndividual current = byCode.putIfAbsent(key(col, code), individual);
+        if (current != null && !current.equals(individual)) {
+            //counted before the entry is added, so that a thread setting the same cell cannot set the bit before it is counted
+            rowEntries.incrementAndGet(col);
+            if (byRow.put(key(col, row), individual) != null)
+                rowEntries.decrementAndGet(col);
+        } else if (byRow.remove(key(col, row)) != null) {
+            rowEntries.decrementAndGet(col);
+        }
+
+        //the bit is set last, so that a row read as set has its individual
+        AtomicLongArray bits = getRowsSet(col);
+        int word = (row - 1) / BITS;
+        long mask = 1L << ((row - 1) % BITS);
+        long value = bits.get(word);
+        while ((value & mask) == 0 && !bits.compareAndSet(word, value, value | mask))
+            value = bits.get(word);
+    }
+
+    /**
+     * @param row the row, from 1
+     * @param col the column
+     * @return the individual set for the cell, or null if there is none
+     */
+    public OWLNamedIndividual get(int row, int col) {
+        if (col < 0 || col >= rowsSet.length() || row < 1 || row > rows)
+            return null;
+
+        AtomicLongArray bits = rowsSet.get(col);
+        if (bits == null || (bits.get((row - 1) / BITS) & (1L << ((row - 1) % BITS))) == 0)
+            return null;
+
+        if (rowEntries.get(col) > 0) {
+            OWLNamedIndividual individual = byRow.get(key(col, row));
+            if (individual != null)
+                return individual;
+        }
+        return byCode.get(key(col, table.getCode(row, col)));
+    }
+
+    /**
+     * @param col the column
+     * @return true if some rows of the column have an individual other than the one of their value
+     */
+    public boolean isIndexedByRow(int col) {
+        return rowEntries.get(col) > 0;
+    }
+
+    private AtomicLongArray getRowsSet(int col) {
+        AtomicLongArray bits = rowsSet.get(col);
+        if (bits == null) {
+            rowsSet.compareAndSet(col, null, new AtomicLongArray((rows + BITS - 1) / BITS));
+            bits = rowsSet.get(col);
+        }
+        return bits;
+    }
+
+    private static Long key(int col, int index) {
+        return Long.valueOf(((long) col << 32) | (index & 0xFFFFFFFFL));
+    }
+
+}
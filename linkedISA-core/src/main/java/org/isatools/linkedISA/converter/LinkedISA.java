@@ -1,12 +1,8 @@
 package org.isatools.linkedISA.converter;
 
 import org.apache.log4j.Logger;
-import org.isatools.linkedISA.mapping.ISASyntax2LinkedMapping;
-import org.isatools.owl.reasoner.ReasonerService;
 import org.isatools.util.Pair;
-import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.model.*;
-import org.semanticweb.owlapi.vocab.OWLRDFVocabulary;
 
 import java.util.*;
 
@@ -16,7 +12,8 @@ import java.util.*;
  * Date: 07/11/2012
  * Time: 17:11
  *
- * Class with static fields and methods used in the conversion from ISA-tab to OWL.
+ * Class with static methods used in the conversion from ISA-tab to OWL.
+ * The state of each conversion is kept in a ConversionContext, which is passed to all the methods.
  *
  * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
  */
@@ -25,16 +22,9 @@ public class LinkedISA {
 
     private static final Logger log = Logger.getLogger(LinkedISA.class);
 
-    public static OWLOntology ontology = null;
-    public static OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
-    public static OWLDataFactory factory = manager.getOWLDataFactory();
-    public static IRI ontoIRI = null;
-    public static ReasonerService reasonerService = null;
-
     //TODO move this to the mapping file so that the conversion is independent of particular resources, but the dependency is kept in the mapping
     //TODO check if this is possible given how 'Characteristics' are converted
 
-    public static boolean groupsAtStudyLevel = false;
     public static final String STUDY_DESIGN_SUFFIX = " study design";
     public static final String STUDY_DESIGN_EXECUTION_SUFFIX = " study design execution";
     public static final String TITLE_SUFFIX = " title";
@@ -43,35 +33,20 @@ public class LinkedISA {
     public static final String STUDY_PROTOCOL_NAME_SUFFIX = " protocol name";
     public static final String STUDY_PUBLIC_RELEASE_DATE_SUFFIX = " public release date";
 
-    //<type, id, individual>
-    public static Map<String, Map<String,OWLNamedIndividual>> typeIdIndividualMap = null;
-
-    //<type, individual>
-    public static Map<String, Set<OWLNamedIndividual>> typeIndividualMap = null;
-
-    public static Map<String, OWLNamedIndividual> idIndividualMap = new HashMap<String, OWLNamedIndividual>();
-
-    public static ISASyntax2LinkedMapping mapping = null;
-
-    public static Map<OWLNamedIndividual, Set<IRI>> individualTypeMap = new HashMap<OWLNamedIndividual,Set<IRI>>();
-
-    public static void setIRI(String iri){
-        ontoIRI = IRI.create(iri);
-    }
-
-    public static OWLClass getOWLClass(IRI owlClassIRI){
-        return factory.getOWLClass(owlClassIRI);
+    public static OWLClass getOWLClass(ConversionContext context, IRI owlClassIRI){
+        return context.getVocabulary().getOWLClass(owlClassIRI);
     }
 
 
-    public static OWLClass addOWLClassAssertion(IRI owlClassIRI, OWLNamedIndividual individual) {
-        log.debug("addOWLClass(owlClassIRI=" + owlClassIRI + " individual=" + individual + ")");
+    public static OWLClass addOWLClassAssertion(ConversionContext context, IRI owlClassIRI, OWLNamedIndividual individual) {
+        if (log.isDebugEnabled())
+            log.debug("addOWLClass(owlClassIRI=" + owlClassIRI + " individual=" + individual + ")");
         if (owlClassIRI==null || owlClassIRI.equals("") || individual==null || individual.equals(""))
             return null;
 
-        OWLClass owlClass = factory.getOWLClass(owlClassIRI);
-        OWLClassAssertionAxiom classAssertion = factory.getOWLClassAssertionAxiom(owlClass, individual);
-        manager.addAxiom(ontology,classAssertion);
+        OWLClass owlClass = context.getVocabulary().getOWLClass(owlClassIRI);
+        OWLClassAssertionAxiom classAssertion = context.getFactory().getOWLClassAssertionAxiom(owlClass, individual);
+        context.addAxiom(classAssertion);
         return owlClass;
 
     }
@@ -81,10 +56,10 @@ public class LinkedISA {
      * @param comment
      * @param iri
      */
-    public static void addComment(String comment, IRI iri){
-        OWLAnnotation annotation = LinkedISA.factory.getOWLAnnotation(LinkedISA.factory.getOWLAnnotationProperty(OWLRDFVocabulary.RDFS_COMMENT.getIRI()), LinkedISA.factory.getOWLLiteral(comment));
-        OWLAnnotationAssertionAxiom annotationAssertionAxiom = LinkedISA.factory.getOWLAnnotationAssertionAxiom(iri, annotation);
-        LinkedISA.manager.addAxiom(LinkedISA.ontology, annotationAssertionAxiom);
+    public static void addComment(ConversionContext context, String comment, IRI iri){
+        OWLAnnotation annotation = context.getFactory().getOWLAnnotation(context.getVocabulary().getCommentProperty(), context.getFactory().getOWLLiteral(comment));
+        OWLAnnotationAssertionAxiom annotationAssertionAxiom = context.getFactory().getOWLAnnotationAssertionAxiom(iri, annotation);
+        context.addAxiom(annotationAssertionAxiom);
     }
 
 
@@ -99,16 +74,16 @@ public class LinkedISA {
      * @param name the name for the individual
      * @return
      */
-    public static OWLNamedIndividual createIndividual(IRI type, String name){
-        OWLNamedIndividual individual = factory.getOWLNamedIndividual(IRIGenerator.getIRI(LinkedISA.ontoIRI, type.toString()));
+    public static OWLNamedIndividual createIndividual(ConversionContext context, IRI type, String name){
+        OWLNamedIndividual individual = context.getFactory().getOWLNamedIndividual(context.getIRIGenerator().getIRI(context.getOntoIRI(), type.toString(), context.getScope(), name));
 
         OWLAnnotation annotation =
-                LinkedISA.factory.getOWLAnnotation(LinkedISA.factory.getOWLAnnotationProperty(OWLRDFVocabulary.RDFS_LABEL.getIRI()),
-                        LinkedISA.factory.getOWLLiteral(name));
-        OWLAnnotationAssertionAxiom annotationAssertionAxiom = LinkedISA.factory.getOWLAnnotationAssertionAxiom(individual.getIRI(), annotation);
-        LinkedISA.manager.addAxiom(LinkedISA.ontology, annotationAssertionAxiom);
+                context.getFactory().getOWLAnnotation(context.getVocabulary().getLabelProperty(),
+                        context.getFactory().getOWLLiteral(name));
+        OWLAnnotationAssertionAxiom annotationAssertionAxiom = context.getFactory().getOWLAnnotationAssertionAxiom(individual.getIRI(), annotation);
+        context.addAxiom(annotationAssertionAxiom);
 
-        OWLClass owlClass = LinkedISA.addOWLClassAssertion(type, individual);
+        OWLClass owlClass = LinkedISA.addOWLClassAssertion(context, type, individual);
         return individual;
     }
 
@@ -124,8 +99,8 @@ public class LinkedISA {
      * @param individualLabel a String to be used as the label for the individual
      * @return
      */
-    public static OWLNamedIndividual createIndividual(String typeMappingLabel, String individualLabel){
-        return createIndividual(typeMappingLabel,individualLabel, null, null);
+    public static OWLNamedIndividual createIndividual(ConversionContext context, String typeMappingLabel, String individualLabel){
+        return createIndividual(context, typeMappingLabel,individualLabel, null, null);
 
     }
 
@@ -138,8 +113,8 @@ public class LinkedISA {
      * @param map
      * @return
      */
-    public static OWLNamedIndividual createIndividual(String typeMappingLabel, String individualLabel, Map<String, OWLNamedIndividual> map){
-        return createIndividual(typeMappingLabel, individualLabel, null, map);
+    public static OWLNamedIndividual createIndividual(ConversionContext context, String typeMappingLabel, String individualLabel, Map<String, OWLNamedIndividual> map){
+        return createIndividual(context, typeMappingLabel, individualLabel, null, map);
     }
 
     /**
@@ -151,8 +126,8 @@ public class LinkedISA {
      * @param map
      * @return
      */
-    public static OWLNamedIndividual createIndividual(String typeMappingLabel, String individualLabel, String comment, Map<String, OWLNamedIndividual> map){
-        return  createIndividual(typeMappingLabel, individualLabel, comment, null, map);
+    public static OWLNamedIndividual createIndividual(ConversionContext context, String typeMappingLabel, String individualLabel, String comment, Map<String, OWLNamedIndividual> map){
+        return  createIndividual(context, typeMappingLabel, individualLabel, comment, null, map);
     }
 
     /**
@@ -164,8 +139,8 @@ public class LinkedISA {
      * @param comment a comment to annotate the individual
      * @return
      */
-    public static OWLNamedIndividual createIndividual(String typeMappingLabel, String individualLabel, String comment){
-        return createIndividual(typeMappingLabel,individualLabel, comment, null);
+    public static OWLNamedIndividual createIndividual(ConversionContext context, String typeMappingLabel, String individualLabel, String comment){
+        return createIndividual(context, typeMappingLabel,individualLabel, comment, null);
 
     }
 
@@ -176,100 +151,121 @@ public class LinkedISA {
      * @param individualLabel
      * @return
      */
-    private static IRI createIndividualIRI(IRI baseIRI, String typeMappingLabel, String individualLabel){
-        return IRIGenerator.getIRI(baseIRI, typeMappingLabel);
+    private static IRI createIndividualIRI(ConversionContext context, IRI baseIRI, String typeMappingLabel, String individualLabel){
+        return context.getIRIGenerator().getIRI(baseIRI, typeMappingLabel, context.getScope(), individualLabel);
     }
 
-    private static OWLNamedIndividual createIndividualCommon(String typeMappingLabel,
+    /**
+     * Mints the IRI for an individual identified by some content other than its label (e.g. the values of its row that
+     * make it different from other individuals with the same label), when the IRIs are derived from the content. The
+     * content is qualified with the scope of the current thread.
+     *
+     * @param typeMappingLabel a label indicating the type of the individual (as defined in the mapping file)
+     * @param identity the content identifying the individual
+     * @return the IRI, or null if the IRI minting strategy does not use the content, so the IRI is minted when the individual is created
+     */
+    public static IRI createIndividualIRI(ConversionContext context, String typeMappingLabel, String identity){
+        if (!context.getIRIGenerator().getStrategy().isContentBased())
+            return null;
+        return context.getIRIGenerator().getIRI(context.getOntoIRI(), typeMappingLabel, context.getScope(), identity);
+    }
+
+    private static OWLNamedIndividual createIndividualCommon(ConversionContext context, String typeMappingLabel,
                                                       String individualLabel,
                                                       String comment,
                                                       IRI individualIRI){
 
-        System.out.println("Create individual: typeMappingLabel-"+typeMappingLabel+"- individualLabel-"+individualLabel+"-");
         //avoid empty individuals
         if (individualLabel.equals(""))
             return null;
 
-        if (typeIdIndividualMap == null){
-            typeIdIndividualMap = new HashMap<String, Map<String, OWLNamedIndividual>>();
-        }
-        Map<String, OWLNamedIndividual> map = typeIdIndividualMap.get(typeMappingLabel);
-
         //if it wasn't created, create it now
-        Set<IRI> owlClassIRIs = mapping.getTypeMapping(typeMappingLabel);
+        Set<IRI> owlClassIRIs = context.getMapping().getTypeMapping(typeMappingLabel);
 
         OWLNamedIndividual individual = null;
 
         if (owlClassIRIs==null){
-            log.debug("No IRIs for type " + typeMappingLabel);
+            if (log.isDebugEnabled())
+                log.debug("No IRIs for type " + typeMappingLabel);
             return null;
         }
 
         for(IRI owlClassIRI: owlClassIRIs){
 
             if (owlClassIRI==null){
-                log.debug("No IRI for type " + typeMappingLabel);
+                if (log.isDebugEnabled())
+                    log.debug("No IRI for type " + typeMappingLabel);
                 return null;
             }
 
             if  (individualIRI==null)
-                individualIRI =  createIndividualIRI(LinkedISA.ontoIRI, typeMappingLabel, individualLabel);
+                individualIRI =  createIndividualIRI(context, context.getOntoIRI(), typeMappingLabel, individualLabel);
 
             if (individual ==null)
-                individual = LinkedISA.factory.getOWLNamedIndividual(individualIRI);
+                individual = context.getFactory().getOWLNamedIndividual(individualIRI);
 
-            Set<IRI> types = individualTypeMap.get(individual);
+            //the maps of the context are shared by the threads converting rows in parallel
+            synchronized (context){
+                Set<IRI> types = context.getIndividualTypeMap().get(individual);
 
-            if (types==null){
-                types = new HashSet<IRI>();
-                types.addAll(owlClassIRIs);
-            }
+                if (types==null){
+                    types = new HashSet<IRI>();
+                    types.addAll(owlClassIRIs);
+                }
 
-            individualTypeMap.put(individual, types);
+                context.getIndividualTypeMap().put(individual, types);
+            }
 
             String individualIRIString = individualIRI.toString();
 //
 //            individualLabel = individualLabel + individualIRIString.substring(individualIRIString.lastIndexOf('/')+1);
 
             //label
-            OWLAnnotation annotation = LinkedISA.factory.getOWLAnnotation(
-                    LinkedISA.factory.getOWLAnnotationProperty(OWLRDFVocabulary.RDFS_LABEL.getIRI()),
-                    LinkedISA.factory.getOWLLiteral(individualLabel));
-            OWLAnnotationAssertionAxiom annotationAssertionAxiom = LinkedISA.factory.getOWLAnnotationAssertionAxiom(individual.getIRI(), annotation);
-            LinkedISA.manager.addAxiom(LinkedISA.ontology, annotationAssertionAxiom);
+            OWLAnnotation annotation = context.getFactory().getOWLAnnotation(
+                    context.getVocabulary().getLabelProperty(),
+                    context.getFactory().getOWLLiteral(individualLabel));
+            OWLAnnotationAssertionAxiom annotationAssertionAxiom = context.getFactory().getOWLAnnotationAssertionAxiom(individual.getIRI(), annotation);
+            context.addAxiom(annotationAssertionAxiom);
 
 
-            OWLAnnotation commentAnnotation = LinkedISA.factory.getOWLAnnotation(LinkedISA.factory.getOWLAnnotationProperty(OWLRDFVocabulary.RDFS_COMMENT.getIRI()), LinkedISA.factory.getOWLLiteral(individualIRIString));
-            OWLAnnotationAssertionAxiom commentAnnotationAssertionAxiom = LinkedISA.factory.getOWLAnnotationAssertionAxiom(individual.getIRI(), commentAnnotation);
-            LinkedISA.manager.addAxiom(LinkedISA.ontology, commentAnnotationAssertionAxiom);
+            OWLAnnotation commentAnnotation = context.getFactory().getOWLAnnotation(context.getVocabulary().getCommentProperty(), context.getFactory().getOWLLiteral(individualIRIString));
+            OWLAnnotationAssertionAxiom commentAnnotationAssertionAxiom = context.getFactory().getOWLAnnotationAssertionAxiom(individual.getIRI(), commentAnnotation);
+            context.addAxiom(commentAnnotationAssertionAxiom);
 
             //comment
             if (comment!=null && !comment.equals("")) {
-                commentAnnotation = LinkedISA.factory.getOWLAnnotation(LinkedISA.factory.getOWLAnnotationProperty(OWLRDFVocabulary.RDFS_COMMENT.getIRI()), LinkedISA.factory.getOWLLiteral(comment));
-                commentAnnotationAssertionAxiom = LinkedISA.factory.getOWLAnnotationAssertionAxiom(individual.getIRI(), commentAnnotation);
-                LinkedISA.manager.addAxiom(LinkedISA.ontology, commentAnnotationAssertionAxiom);
+                commentAnnotation = context.getFactory().getOWLAnnotation(context.getVocabulary().getCommentProperty(), context.getFactory().getOWLLiteral(comment));
+                commentAnnotationAssertionAxiom = context.getFactory().getOWLAnnotationAssertionAxiom(individual.getIRI(), commentAnnotation);
+                context.addAxiom(commentAnnotationAssertionAxiom);
 
             }
 
-            OWLClass owlClass = LinkedISA.addOWLClassAssertion(owlClassIRI, individual);
+            OWLClass owlClass = LinkedISA.addOWLClassAssertion(context, owlClassIRI, individual);
 
-            Set<OWLNamedIndividual> list = typeIndividualMap.get(typeMappingLabel);
-            if (list ==null){
-                list = new HashSet<OWLNamedIndividual>();
-            }
-            list.add(individual);
-            typeIndividualMap.put(typeMappingLabel, list);
+            synchronized (context){
+                Set<OWLNamedIndividual> list = context.getTypeIndividualMap().get(typeMappingLabel);
+                if (list ==null){
+                    list = new HashSet<OWLNamedIndividual>();
+                }
+                list.add(individual);
+                context.getTypeIndividualMap().put(typeMappingLabel, list);
 
-            idIndividualMap.put(individualLabel, individual);
+                context.getIdIndividualMap().put(individualLabel, individual);
 
-            if (map==null){
-                map = new HashMap<String, OWLNamedIndividual>();
+                Map<String, Map<String, OWLNamedIndividual>> typeIdIndividualMap = context.getTypeIdIndividualMap();
+                Map<String, OWLNamedIndividual> map = typeIdIndividualMap.get(typeMappingLabel);
+                if (map==null){
+                    map = new HashMap<String, OWLNamedIndividual>();
+                }
+                map.put(individualLabel, individual);
+                typeIdIndividualMap.put(typeMappingLabel,map);
             }
-            map.put(individualLabel, individual);
-            typeIdIndividualMap.put(typeMappingLabel,map);
         }//for
-            return individual;
-        }
+
+        if (individual!=null && context.getMetrics().individualCreated(typeMappingLabel))
+            context.getMetrics().trace("Create individual: typeMappingLabel-"+typeMappingLabel+"- individualLabel-"+individualLabel+"- IRI-"+individual.getIRI()+"-");
+        return individual;
+    }
 
     /**
      * It creates an OWLNamedIndividual given its type (given a string, the typeIdIndividualMap is used)
@@ -283,13 +279,13 @@ public class LinkedISA {
      * @param parameterMap this is a map with <String, individual> given as parameter
      * @return
      */
-    public static OWLNamedIndividual createIndividual(String typeMappingLabel,
+    public static OWLNamedIndividual createIndividual(ConversionContext context, String typeMappingLabel,
                                                       String individualLabel,
                                                       String comment,
                                                       IRI individualIRI,
                                                       Map<String, OWLNamedIndividual> parameterMap){
 
-            OWLNamedIndividual individual = createIndividualCommon(typeMappingLabel, individualLabel, comment, individualIRI);
+            OWLNamedIndividual individual = createIndividualCommon(context, typeMappingLabel, individualLabel, comment, individualIRI);
             if (parameterMap!=null){
                 parameterMap.put(typeMappingLabel, individual);
             }
@@ -297,14 +293,14 @@ public class LinkedISA {
         return individual;
     }
 
-    public static OWLNamedIndividual createIndividual(String typeMappingLabel,
+    public static OWLNamedIndividual createIndividual(ConversionContext context, String typeMappingLabel,
                                                       String individualLabel,
                                                       String comment,
                                                       Map<String, Set<OWLNamedIndividual>> parameterMap,
                                                       IRI individualIRI
                                                       ){
 
-        OWLNamedIndividual individual = createIndividualCommon(typeMappingLabel, individualLabel, comment, individualIRI);
+        OWLNamedIndividual individual = createIndividualCommon(context, typeMappingLabel, individualLabel, comment, individualIRI);
 
         if (parameterMap!=null){
             Set<OWLNamedIndividual> set = parameterMap.get(typeMappingLabel);
@@ -326,11 +322,11 @@ public class LinkedISA {
     /**********************************************************************************************************************************************************/
 
 
-    public static void createObjectPropertyAssertion(String propertyString, OWLNamedIndividual ind1, OWLNamedIndividual ind2){
+    public static void createObjectPropertyAssertion(ConversionContext context, String propertyString, OWLNamedIndividual ind1, OWLNamedIndividual ind2){
 
-        OWLObjectProperty property = LinkedISA.factory.getOWLObjectProperty(IRI.create(propertyString));
-        OWLObjectPropertyAssertionAxiom axiom = LinkedISA.factory.getOWLObjectPropertyAssertionAxiom(property, ind1, ind2);
-        LinkedISA.manager.addAxiom(LinkedISA.ontology, axiom);
+        OWLObjectProperty property = context.getVocabulary().getOWLObjectProperty(propertyString);
+        OWLObjectPropertyAssertionAxiom axiom = context.getFactory().getOWLObjectPropertyAssertionAxiom(property, ind1, ind2);
+        context.addAxiom(axiom);
 
     }
 
@@ -341,7 +337,7 @@ public class LinkedISA {
      * @param propertyMappings
      * @param typeIndividualM
      */
-    public static void convertProperties(Map<String, List<Pair<IRI, String>>> propertyMappings, Map<String, OWLNamedIndividual> typeIndividualM){
+    public static void convertProperties(ConversionContext context, Map<String, List<Pair<IRI, String>>> propertyMappings, Map<String, OWLNamedIndividual> typeIndividualM){
 
         for(String subjectString: propertyMappings.keySet()){
             List<Pair<IRI, String>> predicateObjects = propertyMappings.get(subjectString);
@@ -352,7 +348,7 @@ public class LinkedISA {
 
                 IRI predicate = predicateObject.getFirst();
 
-                OWLObjectProperty property = LinkedISA.factory.getOWLObjectProperty(predicate);
+                OWLObjectProperty property = context.getVocabulary().getOWLObjectProperty(predicate);
 
                 String objectString = predicateObject.getSecond();
 
@@ -363,8 +359,8 @@ public class LinkedISA {
                     log.debug("At least one of subject/predicate/object is null...");
 
                 }else{
-                    OWLObjectPropertyAssertionAxiom axiom = LinkedISA.factory.getOWLObjectPropertyAssertionAxiom(property, subject, object);
-                    LinkedISA.manager.addAxiom(LinkedISA.ontology, axiom);
+                    OWLObjectPropertyAssertionAxiom axiom = context.getFactory().getOWLObjectPropertyAssertionAxiom(property, subject, object);
+                    context.addAxiom(axiom);
                 }
             }//for
         }
@@ -377,7 +373,7 @@ public class LinkedISA {
      * @param propertyMappings
      * @param typeIndividualM
      */
-    public static void convertPropertiesMultipleIndividuals(Map<String, List<Pair<IRI, String>>> propertyMappings, Map<String, Set<OWLNamedIndividual>> typeIndividualM){
+    public static void convertPropertiesMultipleIndividuals(ConversionContext context, Map<String, List<Pair<IRI, String>>> propertyMappings, Map<String, Set<OWLNamedIndividual>> typeIndividualM){
         for(String subjectString: propertyMappings.keySet()){
             List<Pair<IRI, String>> predicateObjects = propertyMappings.get(subjectString);
             Set<OWLNamedIndividual> subjectSet = typeIndividualM.get(subjectString);
@@ -387,7 +383,7 @@ public class LinkedISA {
 
                 IRI predicate = predicateObject.getFirst();
 
-                OWLObjectProperty property = LinkedISA.factory.getOWLObjectProperty(predicate);
+                OWLObjectProperty property = context.getVocabulary().getOWLObjectProperty(predicate);
 
                 String objectString = predicateObject.getSecond();
 
@@ -402,8 +398,8 @@ public class LinkedISA {
                     for(OWLNamedIndividual subject: subjectSet){
                         for(OWLNamedIndividual object:objectSet){
                             if (property!=null && subject!=null && object!=null){
-                                OWLObjectPropertyAssertionAxiom axiom = LinkedISA.factory.getOWLObjectPropertyAssertionAxiom(property, subject, object);
-                                LinkedISA.manager.addAxiom(LinkedISA.ontology, axiom);
+                                OWLObjectPropertyAssertionAxiom axiom = context.getFactory().getOWLObjectPropertyAssertionAxiom(property, subject, object);
+                                context.addAxiom(axiom);
                             }
                         }
                     }
@@ -412,11 +408,11 @@ public class LinkedISA {
         }
     }
 
-    public static void addObjectPropertyAssertionAxiom(OWLObjectProperty property, OWLNamedIndividual subject, OWLNamedIndividual object){
+    public static void addObjectPropertyAssertionAxiom(ConversionContext context, OWLObjectProperty property, OWLNamedIndividual subject, OWLNamedIndividual object){
         if (property==null || subject ==null || object==null)
             return;
-        OWLObjectPropertyAssertionAxiom axiom = LinkedISA.factory.getOWLObjectPropertyAssertionAxiom(property, subject, object);
-        LinkedISA.manager.addAxiom(LinkedISA.ontology, axiom);
+        OWLObjectPropertyAssertionAxiom axiom = context.getFactory().getOWLObjectPropertyAssertionAxiom(property, subject, object);
+        context.addAxiom(axiom);
     }
 
     /**
@@ -427,8 +423,9 @@ public class LinkedISA {
      * @param termAccession
      * @param individual
      */
-    public static void findOntologyTermAndAddClassAssertion(String termSourceRef, String termAccession, OWLNamedIndividual individual){
-        log.debug("============findOntologyTermAndAddClassAssertion termSourceRef="+termSourceRef + " termAccession="+termAccession + " individual="+individual);
+    public static void findOntologyTermAndAddClassAssertion(ConversionContext context, String termSourceRef, String termAccession, OWLNamedIndividual individual){
+        if (log.isDebugEnabled())
+            log.debug("============findOntologyTermAndAddClassAssertion termSourceRef="+termSourceRef + " termAccession="+termAccession + " individual="+individual);
 
         if (termSourceRef==null || termAccession==null || termSourceRef.equals("") || termAccession.equals(""))
             return;
@@ -438,12 +435,13 @@ public class LinkedISA {
         if (termAccession.startsWith("http://"))
             purl = termAccession;
         else
-            purl = OntologyLookup.findOntologyPURL(termSourceRef, termAccession);
+            purl = OntologyLookup.findOntologyPURL(termSourceRef, termAccession, context.getMetrics());
 
-        log.debug("purl="+purl);
+        if (log.isDebugEnabled())
+            log.debug("purl="+purl);
 
         if (purl!=null && !purl.equals(""))
-            LinkedISA.addOWLClassAssertion(IRI.create(purl), individual);
+            LinkedISA.addOWLClassAssertion(context, IRI.create(purl), individual);
     }
 
 
@@ -0,0 +1,571 @@
+package org.isatools.linkedISA.converter;
+
+import org.apache.log4j.Logger;
+
+import javax.management.*;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Timers and counters of a conversion: the time spent in each phase of ISAtab2LinkedConverter and in each step of
+ * Assay2LinkedConverter, the axioms and buffer flushes of each phase, the individuals created per type, the axioms per
+ * axiom type and the ontology lookups.
+ *
+ * The conversion moves through the phases with enterPhase (ConversionContext.setPhase), and the AxiomBuffer records its
+ * axioms and flushes under the current phase, so the times and the axiom figures of a phase have the same name.
+ *
+ * Each metric has a name and, optionally, one label (e.g. the phase or the axiom type). At the end of a conversion the
+ * metrics can be logged, written as JSON and in the Prometheus text format, and while it runs they can be read over JMX.
+ *
+ * What is recorded depends on the level of the registry:
+ *
+ * OFF records nothing, and every call returns after checking the level.
+ * COUNTERS records all the timers and counters.
+ * TRACE also logs a sample of the individuals created, one in every traceSampling, through the log4j logger of this class.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class MetricsRegistry {
+
+    private static final Logger log = Logger.getLogger(MetricsRegistry.class);
+
+    public enum Level { OFF, COUNTERS, TRACE }
+
+    public static final int DEFAULT_TRACE_SAMPLING = 1000;
+
+    //the phases of a conversion, in the order ISAtab2LinkedConverter goes through them
+    public static final String PHASE_READ = "read";
+    public static final String PHASE_INVESTIGATION = "investigation";
+    public static final String PHASE_STUDY = "study";
+    public static final String PHASE_STUDY_SAMPLE = "study sample";
+    public static final String PHASE_ASSAYS = "assays";
+    //the phase of the axioms added before the first one
+    public static final String DEFAULT_PHASE = "conversion";
+
+    public static final String PHASE_SECONDS = "linkedisa_phase_seconds";
+    public static final String PHASE_AXIOMS = "linkedisa_phase_axioms_total";
+    public static final String FLUSH_SECONDS = "linkedisa_flush_seconds";
+    public static final String STEP_SECONDS = "linkedisa_step_seconds";
+    public static final String INDIVIDUALS = "linkedisa_individuals_total";
+    public static final String AXIOMS = "linkedisa_axioms_total";
+    public static final String ONTOLOGY_LOOKUPS = "linkedisa_ontology_lookups_total";
+    public static final String ONTOLOGY_LOOKUP_SECONDS = "linkedisa_ontology_lookup_seconds";
+
+    private static final String MAX_SUFFIX = "_max";
+
+    private static final Map<String, String> HELP = new HashMap<String, String>();
+    static {
+        HELP.put(PHASE_SECONDS, "Time spent in each phase of the conversion");
+        HELP.put(PHASE_SECONDS + MAX_SUFFIX, "Longest time spent in each phase of the conversion");
+        HELP.put(PHASE_AXIOMS, "Axioms produced, per phase of the conversion");
+        HELP.put(FLUSH_SECONDS, "Time spent flushing the axiom buffer to the output, per phase of the conversion");
+        HELP.put(FLUSH_SECONDS + MAX_SUFFIX, "Longest flush of the axiom buffer, per phase of the conversion");
+        HELP.put(STEP_SECONDS, "Time spent in each step of the conversion of a table, added up over the threads");
+        HELP.put(STEP_SECONDS + MAX_SUFFIX, "Longest time spent in each step of the conversion of a table");
+        HELP.put(INDIVIDUALS, "Individuals created, per type mapping label");
+        HELP.put(AXIOMS, "Axioms produced, per axiom type");
+        HELP.put(ONTOLOGY_LOOKUPS, "Ontology term lookups, per result (hit, miss, unresolved)");
+        HELP.put(ONTOLOGY_LOOKUP_SECONDS, "Time spent resolving the ontology terms not in the cache");
+        HELP.put(ONTOLOGY_LOOKUP_SECONDS + MAX_SUFFIX, "Longest time spent resolving an ontology term not in the cache");
+    }
+
+    private static class Metric implements Comparable<Metric> {
+        private final String name;
+        private final String label;
+        private final String value;
+
+        private Metric(String n, String l, String v){
+            name = n;
+            label = l;
+            value = v;
+        }
+
+        public boolean equals(Object o){
+            if (!(o instanceof Metric))
+                return false;
+            Metric other = (Metric) o;
+            return name.equals(other.name) && equal(label, other.label) && equal(value, other.value);
+        }
+
+        private static boolean equal(String a, String b){
+            return a == null ? b == null : a.equals(b);
+        }
+
+        public int hashCode(){
+            return name.hashCode() * 31 + (value == null ? 0 : value.hashCode());
+        }
+
+        public int compareTo(Metric other){
+            int c = name.compareTo(other.name);
+            if (c != 0)
+                return c;
+            return (value == null ? "" : value).compareTo(other.value == null ? "" : other.value);
+        }
+    }
+
+    /**
+     * Number of times something was timed, the total time and the longest one.
+     */
+    public static class Timer {
+        private long count = 0;
+        private long totalNanos = 0;
+        private long maxNanos = 0;
+
+        private synchronized void record(long nanos){
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        public synchronized long getCount(){
+            return count;
+        }
+
+        public synchronized long getTotalNanos(){
+            return totalNanos;
+        }
+
+        public synchronized long getMaxNanos(){
+            return maxNanos;
+        }
+    }
+
+    private final Level level;
+    private final boolean enabled;
+    private volatile int traceSampling = DEFAULT_TRACE_SAMPLING;
+    private final AtomicLong traceEvents = new AtomicLong();
+
+    private final ConcurrentMap<Metric, AtomicLong> counters = new ConcurrentHashMap<Metric, AtomicLong>();
+    private final ConcurrentMap<Metric, Timer> timers = new ConcurrentHashMap<Metric, Timer>();
+
+    private volatile String phase = null;
+    private long phaseStart = 0;
+
+    private ObjectName mbeanName = null;
+
+    /**
+     * Constructor
+     *
+     * @param e false for a registry that records nothing, true for one at the COUNTERS level
+     */
+    public MetricsRegistry(boolean e){
+        this(e ? Level.COUNTERS : Level.OFF);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param l what the registry records
+     */
+    public MetricsRegistry(Level l){
+        level = l;
+        enabled = l != Level.OFF;
+    }
+
+    public Level getLevel(){
+        return level;
+    }
+
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    public boolean isTracing(){
+        return level == Level.TRACE;
+    }
+
+    /**
+     * @param sampling log one individual created in every sampling, when tracing
+     */
+    public void setTraceSampling(int sampling){
+        if (sampling < 1)
+            throw new IllegalArgumentException("The trace sampling must be at least 1, not " + sampling);
+        traceSampling = sampling;
+    }
+
+    public int getTraceSampling(){
+        return traceSampling;
+    }
+
+    /**
+     * Records the creation of an individual in the INDIVIDUALS counter of its type.
+     *
+     * @param typeMappingLabel the type of the individual
+     * @return true if the individual is in the trace sample, so the caller should call trace with its details
+     */
+    public boolean individualCreated(String typeMappingLabel){
+        if (!enabled)
+            return false;
+        increment(INDIVIDUALS, "type", typeMappingLabel);
+        return level == Level.TRACE && (traceEvents.incrementAndGet() - 1) % traceSampling == 0;
+    }
+
+    public void trace(String message){
+        if (level == Level.TRACE)
+            log.info(message);
+    }
+
+    /**
+     * Stops the PHASE_SECONDS timer of the current phase, if any, and starts the one of the given phase. A phase can be
+     * entered again, and its times are then added up.
+     *
+     * @param p the name of the phase, e.g. PHASE_STUDY
+     */
+    public synchronized void enterPhase(String p){
+        if (!enabled)
+            return;
+        long now = System.nanoTime();
+        closePhase(now);
+        phase = p;
+        phaseStart = now;
+    }
+
+    /**
+     * Stops the PHASE_SECONDS timer of the current phase.
+     */
+    public synchronized void finishPhase(){
+        if (!enabled)
+            return;
+        closePhase(System.nanoTime());
+        phase = null;
+    }
+
+    private void closePhase(long now){
+        if (phase != null)
+            record(PHASE_SECONDS, "phase", phase, now - phaseStart);
+    }
+
+    /**
+     * @return the current phase, or DEFAULT_PHASE before the first one and after finishPhase
+     */
+    public String getPhase(){
+        String p = phase;
+        return p == null ? DEFAULT_PHASE : p;
+    }
+
+    /**
+     * @return the start time to pass to stop, or 0 if the registry is disabled
+     */
+    public long start(){
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time elapsed since start.
+     *
+     * @param name the name of the timer
+     * @param label the label, e.g. "phase", or null
+     * @param value the value of the label
+     * @param start the value returned by start
+     */
+    public void stop(String name, String label, String value, long start){
+        if (!enabled)
+            return;
+        record(name, label, value, System.nanoTime() - start);
+    }
+
+    /**
+     * Records the time elapsed since start in the STEP_SECONDS timer of the given step, e.g. the conversion of the data
+     * nodes of a table. The steps run within a phase, and possibly in several threads at a time.
+     */
+    public void stopStep(String step, long start){
+        stop(STEP_SECONDS, "step", step, start);
+    }
+
+    public void record(String name, String label, String value, long nanos){
+        if (!enabled)
+            return;
+        Metric metric = new Metric(name, label, value);
+        Timer timer = timers.get(metric);
+        if (timer == null){
+            Timer newTimer = new Timer();
+            timer = timers.putIfAbsent(metric, newTimer);
+            if (timer == null)
+                timer = newTimer;
+        }
+        timer.record(nanos);
+    }
+
+    public void increment(String name, String label, String value){
+        add(name, label, value, 1);
+    }
+
+    public void add(String name, String label, String value, long n){
+        if (!enabled)
+            return;
+        Metric metric = new Metric(name, label, value);
+        AtomicLong counter = counters.get(metric);
+        if (counter == null){
+            AtomicLong newCounter = new AtomicLong();
+            counter = counters.putIfAbsent(metric, newCounter);
+            if (counter == null)
+                counter = newCounter;
+        }
+        counter.addAndGet(n);
+    }
+
+    /**
+     * @return the value of a counter, 0 if it was never incremented
+     */
+    public long getCount(String name, String label, String value){
+        AtomicLong counter = counters.get(new Metric(name, label, value));
+        return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * @return a timer, or null if nothing was timed with it
+     */
+    public Timer getTimer(String name, String label, String value){
+        return timers.get(new Metric(name, label, value));
+    }
+
+    /**
+     * @return the metrics as a JSON object, with a "counters" and a "timers" array
+     */
+    public String toJSON(){
+        StringBuilder json = new StringBuilder("{\n  \"counters\": [");
+        String separator = "\n";
+        for(Metric metric: new TreeSet<Metric>(counters.keySet())){
+            json.append(separator).append("    {");
+            appendJSONName(json, metric);
+            json.append(", \"value\": ").append(counters.get(metric).get()).append('}');
+            separator = ",\n";
+        }
+        json.append("\n  ],\n  \"timers\": [");
+        separator = "\n";
+        for(Metric metric: new TreeSet<Metric>(timers.keySet())){
+            Timer timer = timers.get(metric);
+            json.append(separator).append("    {");
+            appendJSONName(json, metric);
+            json.append(", \"count\": ").append(timer.getCount())
+                    .append(", \"sumSeconds\": ").append(seconds(timer.getTotalNanos()))
+                    .append(", \"maxSeconds\": ").append(seconds(timer.getMaxNanos())).append('}');
+            separator = ",\n";
+        }
+        json.append("\n  ]\n}\n");
+        return json.toString();
+    }
+
+    private void appendJSONName(StringBuilder json, Metric metric){
+        json.append("\"name\": ").append(jsonString(metric.name));
+        if (metric.label != null)
+            json.append(", \"labels\": {").append(jsonString(metric.label)).append(": ").append(jsonString(metric.value)).append('}');
+    }
+
+    private static String jsonString(String s){
+        StringBuilder quoted = new StringBuilder("\"");
+        for(int i = 0; i < s.length(); i++){
+            char c = s.charAt(i);
+            switch (c){
+                case '"': quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n"); break;
+                case '\r': quoted.append("\\r"); break;
+                case '\t': quoted.append("\\t"); break;
+                default:
+                    if (c < 0x20)
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    else
+                        quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * @return the metrics in the Prometheus text format: the counters as counters, the timers as summaries with their
+     * _count and _sum, and the longest time of each timer as a gauge of its own, named after the timer with a _max suffix
+     */
+    public String toPrometheus(){
+        StringBuilder text = new StringBuilder();
+        String current = null;
+        for(Metric metric: new TreeSet<Metric>(counters.keySet())){
+            if (!metric.name.equals(current)){
+                current = metric.name;
+                appendPrometheusHeader(text, current, "counter");
+            }
+            text.append(prometheusName(metric, "")).append(' ').append(counters.get(metric).get()).append('\n');
+        }
+
+        //<timer name, metrics>
+        Map<String, List<Metric>> timerFamilies = new TreeMap<String, List<Metric>>();
+        for(Metric metric: new TreeSet<Metric>(timers.keySet())){
+            List<Metric> family = timerFamilies.get(metric.name);
+            if (family == null){
+                family = new ArrayList<Metric>();
+                timerFamilies.put(metric.name, family);
+            }
+            family.add(metric);
+        }
+        for(Map.Entry<String, List<Metric>> family: timerFamilies.entrySet()){
+            appendPrometheusHeader(text, family.getKey(), "summary");
+            for(Metric metric: family.getValue()){
+                Timer timer = timers.get(metric);
+                text.append(prometheusName(metric, "_count")).append(' ').append(timer.getCount()).append('\n');
+                text.append(prometheusName(metric, "_sum")).append(' ').append(seconds(timer.getTotalNanos())).append('\n');
+            }
+            appendPrometheusHeader(text, family.getKey() + MAX_SUFFIX, "gauge");
+            for(Metric metric: family.getValue()){
+                text.append(prometheusName(metric, MAX_SUFFIX)).append(' ').append(seconds(timers.get(metric).getMaxNanos())).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    private void appendPrometheusHeader(StringBuilder text, String name, String type){
+        String help = HELP.get(name);
+        if (help != null)
+            text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static String prometheusName(Metric metric, String suffix){
+        if (metric.label == null)
+            return metric.name + suffix;
+        String value = metric.value == null ? "" : metric.value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        return metric.name + suffix + "{" + metric.label + "=\"" + value + "\"}";
+    }
+
+    private static String seconds(long nanos){
+        return String.valueOf(nanos / 1e9);
+    }
+
+    /**
+     * Logs the time and the axioms of each phase and the individuals created per type, unless the registry is disabled.
+     */
+    public void logSummary(){
+        if (!enabled)
+            return;
+        for(Metric metric: new TreeSet<Metric>(timers.keySet())){
+            if (!metric.name.equals(PHASE_SECONDS))
+                continue;
+            Timer flushes = getTimer(FLUSH_SECONDS, "phase", metric.value);
+            log.info("Phase " + metric.value + ": " + (timers.get(metric).getTotalNanos() / 1000000) + " ms, "
+                    + getCount(PHASE_AXIOMS, "phase", metric.value) + " axioms, "
+                    + (flushes == null ? 0 : flushes.getCount()) + " flushes in "
+                    + (flushes == null ? 0 : flushes.getTotalNanos() / 1000000) + " ms");
+        }
+        for(Metric metric: new TreeSet<Metric>(counters.keySet())){
+            if (metric.name.equals(INDIVIDUALS))
+                log.info("Individuals of type " + metric.value + ": " + counters.get(metric).get());
+        }
+    }
+
+    /**
+     * Writes the metrics to prefix + ".json" and prefix + ".prom".
+     *
+     * @param prefix the path of the files, without extension
+     * @throws IOException
+     */
+    public void write(String prefix) throws IOException {
+        writeFile(new File(prefix + ".json"), toJSON());
+        writeFile(new File(prefix + ".prom"), toPrometheus());
+    }
+
+    private static void writeFile(File file, String content) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Makes the metrics readable over JMX, as the attributes of an MBean named
+     * org.isatools.linkedISA:type=ConversionMetrics,name=(name), until unregisterMBean is called.
+     *
+     * @param name the name of the conversion, e.g. the IRI of the ontology
+     */
+    public void registerMBean(String name){
+        try {
+            mbeanName = new ObjectName("org.isatools.linkedISA:type=ConversionMetrics,name=" + ObjectName.quote(name));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(mbeanName))
+                server.unregisterMBean(mbeanName);
+            server.registerMBean(new MetricsMBean(), mbeanName);
+        } catch (JMException e) {
+            log.warn("Could not register the conversion metrics over JMX", e);
+            mbeanName = null;
+        }
+    }
+
+    public void unregisterMBean(){
+        if (mbeanName == null)
+            return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+        } catch (JMException e) {
+            log.warn("Could not unregister the conversion metrics from JMX", e);
+        }
+        mbeanName = null;
+    }
+
+    /**
+     * Exposes each counter as an attribute, and each timer as three attributes (_count, _sum and _max, in seconds),
+     * named as in the Prometheus output.
+     */
+    private class MetricsMBean implements DynamicMBean {
+
+        private Map<String, Object> values(){
+            Map<String, Object> values = new TreeMap<String, Object>();
+            for(Map.Entry<Metric, AtomicLong> entry: counters.entrySet()){
+                values.put(prometheusName(entry.getKey(), ""), entry.getValue().get());
+            }
+            for(Map.Entry<Metric, Timer> entry: timers.entrySet()){
+                Timer timer = entry.getValue();
+                values.put(prometheusName(entry.getKey(), "_count"), timer.getCount());
+                values.put(prometheusName(entry.getKey(), "_sum"), timer.getTotalNanos() / 1e9);
+                values.put(prometheusName(entry.getKey(), MAX_SUFFIX), timer.getMaxNanos() / 1e9);
+            }
+            return values;
+        }
+
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Object value = values().get(attribute);
+            if (value == null)
+                throw new AttributeNotFoundException(attribute);
+            return value;
+        }
+
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("The conversion metrics are read only");
+        }
+
+        public AttributeList getAttributes(String[] attributes){
+            Map<String, Object> values = values();
+            AttributeList list = new AttributeList();
+            for(String attribute: attributes){
+                if (values.containsKey(attribute))
+                    list.add(new Attribute(attribute, values.get(attribute)));
+            }
+            return list;
+        }
+
+        public AttributeList setAttributes(AttributeList attributes){
+            return new AttributeList();
+        }
+
+        public Object invoke(String actionName, Object[] params, String[] signature) throws MBeanException {
+            throw new MBeanException(new UnsupportedOperationException(actionName));
+        }
+
+        public MBeanInfo getMBeanInfo(){
+            Map<String, Object> values = values();
+            List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+            for(Map.Entry<String, Object> entry: values.entrySet()){
+                attributes.add(new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(), entry.getKey(), true, false, false));
+            }
+            return new MBeanInfo(MetricsRegistry.class.getName(), "Metrics of a linkedISA conversion",
+                    attributes.toArray(new MBeanAttributeInfo[attributes.size()]), null, null, null);
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package org.isatools.linkedISA.converter;
+
+import org.semanticweb.owlapi.model.*;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Sink keeping all the axioms in an OWLOntology handled by the OWL API.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class OWLOntologySink implements AxiomSink {
+
+    private OWLOntologyManager manager = null;
+    private OWLOntology ontology = null;
+    private long axiomCount = 0;
+
+    public OWLOntologySink(OWLOntologyManager m){
+        manager = m;
+    }
+
+    public void open(IRI ontologyIRI) throws OWLOntologyCreationException {
+        ontology = manager.createOntology(ontologyIRI);
+    }
+
+    public void addImport(IRI importIRI){
+        OWLImportsDeclaration importDecl = manager.getOWLDataFactory().getOWLImportsDeclaration(importIRI);
+        manager.applyChange(new AddImport(ontology, importDecl));
+    }
+
+    public void addAxiom(OWLAxiom axiom){
+        axiomCount++;
+        manager.addAxiom(ontology, axiom);
+    }
+
+    /**
+     * Adds the axioms with a single list of changes, so the ontology indexes and listeners are updated once.
+     */
+    public void addAxioms(List<OWLAxiom> axioms){
+        axiomCount += axioms.size();
+        manager.addAxioms(ontology, new LinkedHashSet<OWLAxiom>(axioms));
+    }
+
+    /**
+     * @return the number of axioms received; the ontology holds each of them once, see getOntology().getAxiomCount()
+     */
+    public long getAxiomCount(){
+        return axiomCount;
+    }
+
+    public void close(){
+    }
+
+    public OWLOntology getOntology(){
+        return ontology;
+    }
+
+}
@@ -3,13 +3,7 @@ package org.isatools.linkedISA.converter;
 
 import org.apache.log4j.Logger;
 
-import java.util.Collection;
-import java.util.Set;
-import org.isatools.isacreator.configuration.Ontology;
-import org.isatools.isacreator.ontologymanager.BioPortal4Client;
-import org.isatools.isacreator.ontologymanager.OntologyManager;
-import org.isatools.isacreator.ontologymanager.OntologySourceRefObject;
-import org.isatools.isacreator.ontologymanager.common.OntologyTerm;
+import java.io.IOException;
 
 /**
  * Created by the ISATeam.
@@ -24,82 +18,107 @@ public class OntologyLookup {
 
     private static final Logger log = Logger.getLogger(OntologyLookup.class);
 
-    //this list will be populated only once with a query to bioportal
-    private static Collection<Ontology> allOntologies = null;
-    private static OntologyLookupCache cache = new OntologyLookupCache();
+    private static volatile OntologyLookupCache cache = new OntologyLookupCache();
+    private static volatile TermResolver resolver = new BioPortalTermResolver();
 
-    private static void getAllOntologies(BioPortal4Client client) {
-        allOntologies = client.getAllOntologies();
+    //if true, only the cache is used and no query is sent to bioportal
+    private static volatile boolean offline = false;
+
+    /**
+     * Replaces the resolver used for the terms not in the cache.
+     *
+     * @param r the new resolver
+     */
+    public static void setResolver(TermResolver r){
+        resolver = r;
     }
 
-    private static String getOntologyVersion(String ontologyAbbreviation){
-        log.debug("getOntologyVersion(" + ontologyAbbreviation + ")");
+    public static TermResolver getResolver(){
+        return resolver;
+    }
 
-        log.debug("allOntologies="+allOntologies);
+    /**
+     * Replaces the cache used for the lookups, e.g. with a cache persisted in a file.
+     *
+     * @param c the new cache
+     */
+    public static void setCache(OntologyLookupCache c){
+        cache = c;
+    }
 
-        for(org.isatools.isacreator.configuration.Ontology ontology: allOntologies ){
+    public static OntologyLookupCache getCache(){
+        return cache;
+    }
 
-            if (ontology.getOntologyAbbreviation().equals(ontologyAbbreviation)){
-                String version = ontology.getOntologyVersion();
-                log.debug("version="+version);
-                return version;
-            }
+    /**
+     * In offline mode, the terms are only looked up in the cache, which is useful for environments without network access.
+     * The terms not in the cache are not resolved and they are not recorded as not found.
+     *
+     * @param b true to set the offline mode
+     */
+    public static void setOffline(boolean b){
+        offline = b;
+    }
 
-        }
-        return null;
+    public static boolean isOffline(){
+        return offline;
     }
 
     public static String findOntologyPURL(String termSourceRef, String termAccession){
+        return findOntologyPURL(termSourceRef, termAccession, null);
+    }
+
+    /**
+     * Finds the PURL of a term, recording in the metrics whether it was in the cache and how long it took to resolve it.
+     *
+     * @param metrics the metrics of the conversion, or null
+     * @return the PURL, "" if the term source or accession is empty, or null if the term could not be resolved
+     */
+    public static String findOntologyPURL(String termSourceRef, String termAccession, MetricsRegistry metrics){
 
-        log.debug("findOntologyPURL(termSourceRef=" + termSourceRef + ", termAccession=" + termAccession + ")");
+        if (log.isDebugEnabled())
+            log.debug("findOntologyPURL(termSourceRef=" + termSourceRef + ", termAccession=" + termAccession + ")");
 
         String purl = cache.getPurl(termSourceRef, termAccession);
         if (purl!=null) {
-            log.debug("IN CACHE!!! "+ termSourceRef +" " + termAccession + " " + purl);
+            if (log.isDebugEnabled())
+                log.debug("IN CACHE!!! "+ termSourceRef +" " + termAccession + " " + purl);
+            if (metrics != null)
+                metrics.increment(MetricsRegistry.ONTOLOGY_LOOKUPS, "result", "hit");
             return purl;
         }
 
         if ((termSourceRef==null) || (termSourceRef.equals("")) || (termAccession==null) || (termAccession.equals("")))
             return "";
 
-        Set<OntologySourceRefObject> ontologiesUsed = OntologyManager.getOntologiesUsed();
-
-        OntologySourceRefObject ontologySourceRefObject = null;
-        for(OntologySourceRefObject ontologyRef: ontologiesUsed){
-            if (termSourceRef!=null && termSourceRef.equals(ontologyRef.getSourceName())){
-                ontologySourceRefObject = ontologyRef;
-                break;
-            }
+        if (offline) {
+            if (log.isDebugEnabled())
+                log.debug("Offline mode, term not in cache: " + termSourceRef + " " + termAccession);
+            if (metrics != null)
+                metrics.increment(MetricsRegistry.ONTOLOGY_LOOKUPS, "result", "unresolved");
+            return null;
         }
 
-        //searching term in bioportal
-        if (ontologySourceRefObject!=null){
-
-            System.out.println("Found ontology "+ontologySourceRefObject);
-            BioPortal4Client client = new BioPortal4Client();
-
-            if (allOntologies==null){
-               allOntologies = client.getAllOntologies();
-            }
-
-            String ontologyVersion = getOntologyVersion(ontologySourceRefObject.getSourceName());
-
-            OntologyTerm term = null;
-
-
-            if (termAccession!=null)
-
-                term = client.getTerm(termAccession, ontologyVersion);
-
-            log.debug("term====>"+term);
-            if (term!=null) {
-                purl = term.getOntologyTermURI();
-                if (purl!=null)
-                    cache.addSourceTermPurlMapping(termSourceRef, termAccession, purl);
-                return purl;
-            }//term not null
+        long start = metrics == null ? 0 : metrics.start();
+        try {
+            purl = resolver.resolve(termSourceRef, termAccession);
+        } catch (IOException e) {
+            //not recorded in the cache, so that it is tried again
+            log.error("Could not resolve term " + termSourceRef + " " + termAccession, e);
+            if (metrics != null)
+                metrics.increment(MetricsRegistry.ONTOLOGY_LOOKUPS, "result", "unresolved");
+            return null;
+        } finally {
+            if (metrics != null)
+                metrics.stop(MetricsRegistry.ONTOLOGY_LOOKUP_SECONDS, null, null, start);
+        }
+        if (metrics != null)
+            metrics.increment(MetricsRegistry.ONTOLOGY_LOOKUPS, "result", "miss");
 
-        } //ontologySourceRefObject not null
+        if (purl!=null) {
+            cache.addSourceTermPurlMapping(termSourceRef, termAccession, purl);
+            return purl;
+        }
 
         cache.addSourceTermPurlMapping(termSourceRef, termAccession, "");
         return null;
@@ -1,9 +1,10 @@
 package org.isatools.linkedISA.converter;
 
-import java.util.HashMap;
-import java.util.Map;
+import org.apache.log4j.Logger;
 
-import org.isatools.isacreator.ontologymanager.OntologySourceRefObject;
+import java.io.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by the ISATeam.
@@ -11,35 +12,247 @@ import org.isatools.isacreator.ontologymanager.OntologySourceRefObject;
  * Date: 08/04/2013
  * Time: 16:36
  *
+ * Cache of the PURLs found for (term source, term accession) pairs. An empty PURL records a term that could not be found.
+ *
+ * The cache is shared by all the conversions running in the JVM, so it is backed by a concurrent map.
+ * If it is created with a file, the cache is loaded from it and every new entry is appended to it, so that the lookups done
+ * in a run are available to the following runs. Entries older than their time to live (one for the PURLs found and a
+ * separate one for the terms not found) are ignored.
+ *
+ * The new entries are written in batches of FLUSH_INTERVAL, and the rest when the cache is flushed or closed. As the file
+ * is an append-only log, a term looked up again adds a line that supersedes the previous one; when the file is loaded
+ * with more superseded, expired or malformed lines than the compaction threshold, it is compacted straight away.
+ *
  * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
  */
 public class OntologyLookupCache {
 
-    private Map<OntologySourceRefObject, String> ontologySourceAccession = null;
+    private static final Logger log = Logger.getLogger(OntologyLookupCache.class);
+
+    public static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    //number of stale lines in the file above which it is compacted when it is loaded
+    public static final int DEFAULT_COMPACT_THRESHOLD = 10000;
+
+    //number of new entries written to the file at a time
+    public static final int FLUSH_INTERVAL = 100;
+
+    private static class Entry {
+        private final String source;
+        private final String term;
+        private final String purl;
+        private final long timestamp;
+
+        Entry(String s, String tm, String p, long t){
+            source = s;
+            term = tm;
+            purl = p == null ? "" : p;
+            timestamp = t;
+        }
+    }
+
+    private ConcurrentHashMap<String, Entry> sourceTermPurlMap = null;
 
-    private Map<String, Map<String, String>> sourceTermPurlMap = null;
+    private File file = null;
+    private Writer writer = null;
+    private long ttlMillis = NO_EXPIRY;
+    private long negativeTtlMillis = NO_EXPIRY;
+    private int unflushed = 0;
 
     public OntologyLookupCache(){
-        sourceTermPurlMap = new HashMap<String, Map<String, String>>();
+        sourceTermPurlMap = new ConcurrentHashMap<String, Entry>();
     }
 
-    public void addSourceTermPurlMapping(String source, String term, String purl){
-        Map<String, String> termPurlMap = sourceTermPurlMap.get(source);
+    /**
+     * Creates a cache persisted in a file.
+     *
+     * @param f the file with the cache entries; it is created if it does not exist
+     * @param ttl time to live, in milliseconds, of the PURLs found
+     * @param negativeTtl time to live, in milliseconds, of the terms not found
+     * @throws IOException if the file cannot be read or written
+     */
+    public OntologyLookupCache(File f, long ttl, long negativeTtl) throws IOException {
+        this(f, ttl, negativeTtl, DEFAULT_COMPACT_THRESHOLD);
+    }
+
+    /**
+     * Creates a cache persisted in a file.
+     *
+     * @param f the file with the cache entries; it is created if it does not exist
+     * @param ttl time to live, in milliseconds, of the PURLs found
+     * @param negativeTtl time to live, in milliseconds, of the terms not found
+     * @param compactThreshold number of superseded, expired or malformed lines in the file above which it is compacted
+     * @throws IOException if the file cannot be read or written
+     */
+    public OntologyLookupCache(File f, long ttl, long negativeTtl, int compactThreshold) throws IOException {
+        this();
+        file = f;
+        ttlMillis = ttl;
+        negativeTtlMillis = negativeTtl;
+        int lines = load();
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), "UTF-8"));
+
+        int stale = lines - liveCount();
+        if (stale > compactThreshold){
+            log.info("Compacting the term cache " + file + ", with " + stale + " stale lines");
+            compact();
+        }
+    }
 
-        if (termPurlMap==null){
-            termPurlMap = new HashMap<String, String>();
+    private int liveCount(){
+        int live = 0;
+        for(Entry entry: sourceTermPurlMap.values()){
+            if (!isExpired(entry))
+                live++;
         }
-        termPurlMap.put(term, purl);
-        sourceTermPurlMap.put(source, termPurlMap);
+        return live;
     }
 
+    /**
+     * @return the number of lines read
+     */
+    private int load() throws IOException {
+        if (!file.exists())
+            return 0;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        int lines = 0;
+        try {
+            String line = null;
+            int skipped = 0;
+            while ((line = reader.readLine()) != null){
+                lines++;
+                String[] fields = line.split("\t", -1);
+                if (fields.length != 4){
+                    skipped++;
+                    continue;
+                }
+                try {
+                    Entry entry = new Entry(unescape(fields[1]), unescape(fields[2]), unescape(fields[3]), Long.parseLong(fields[0]));
+                    //later entries replace earlier ones
+                    sourceTermPurlMap.put(key(entry.source, entry.term), entry);
+                } catch (NumberFormatException e) {
+                    skipped++;
+                }
+            }
+            if (skipped > 0)
+                log.warn("Skipped " + skipped + " malformed lines in the term cache " + file);
+        } finally {
+            reader.close();
+        }
+        log.info("Loaded " + sourceTermPurlMap.size() + " terms from the term cache " + file);
+        return lines;
+    }
+
+    public void addSourceTermPurlMapping(String source, String term, String purl){
+        Entry entry = new Entry(source, term, purl, System.currentTimeMillis());
+        sourceTermPurlMap.put(key(source, term), entry);
+        if (writer != null)
+            append(entry);
+    }
+
+    /**
+     * @param source the term source
+     * @param term the term accession
+     * @return the PURL, an empty string if the term is known not to be found, or null if the term is not in the cache or its entry expired
+     */
     public String getPurl(String source, String term){
-        Map<String, String> termPurlMap = sourceTermPurlMap.get(source);
+        Entry entry = sourceTermPurlMap.get(key(source, term));
+        if (entry == null || isExpired(entry))
+            return null;
+
+        return entry.purl;
+    }
+
+    private boolean isExpired(Entry entry){
+        long ttl = entry.purl.equals("") ? negativeTtlMillis : ttlMillis;
+        return ttl != NO_EXPIRY && System.currentTimeMillis() - entry.timestamp > ttl;
+    }
+
+    public int size(){
+        return sourceTermPurlMap.size();
+    }
+
+    /**
+     * Rewrites the cache file keeping only the entries that have not expired.
+     *
+     * @throws IOException
+     */
+    public synchronized void compact() throws IOException {
+        if (file == null || writer == null)
+            return;
+
+        writer.close();
+        File tmp = new File(file.getAbsolutePath() + ".tmp");
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), "UTF-8"));
+        for(Map.Entry<String, Entry> mapEntry: sourceTermPurlMap.entrySet()){
+            if (isExpired(mapEntry.getValue())){
+                sourceTermPurlMap.remove(mapEntry.getKey());
+                continue;
+            }
+            append(mapEntry.getValue());
+        }
+        writer.close();
+        unflushed = 0;
+        if (!file.delete() || !tmp.renameTo(file))
+            throw new IOException("Could not replace the term cache " + file);
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), "UTF-8"));
+    }
+
+    /**
+     * Writes the new entries not written yet to the file.
+     *
+     * @throws IOException
+     */
+    public synchronized void flush() throws IOException {
+        if (writer != null){
+            writer.flush();
+            unflushed = 0;
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        if (writer != null){
+            writer.close();
+            writer = null;
+            unflushed = 0;
+        }
+    }
+
+    private synchronized void append(Entry entry){
+        if (writer == null)
+            return;
+        try {
+            writer.write(entry.timestamp + "\t" + escape(entry.source) + "\t" + escape(entry.term) + "\t" + escape(entry.purl) + "\n");
+            if (++unflushed >= FLUSH_INTERVAL)
+                flush();
+        } catch (IOException e) {
+            log.error("Could not write to the term cache " + file, e);
+        }
+    }
+
+    private static String key(String source, String term){
+        return escape(source) + "\t" + escape(term);
+    }
+
+    private static String escape(String s){
+        if (s == null)
+            return "";
+        return s.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
 
-        if (termPurlMap!=null){
-            return termPurlMap.get(term);
+    private static String unescape(String s){
+        StringBuffer buffer = new StringBuffer(s.length());
+        for(int i = 0; i < s.length(); i++){
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()){
+                char next = s.charAt(++i);
+                buffer.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                buffer.append(c);
+            }
         }
-        return null;
+        return buffer.toString();
     }
 
 }
@@ -0,0 +1,194 @@
+package org.isatools.linkedISA.converter;
+
+import org.apache.log4j.Logger;
+import org.isatools.isacreator.configuration.Ontology;
+import org.isatools.isacreator.ontologymanager.OntologySourceRefObject;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Catalogue of the ontologies known to BioPortal, indexed by abbreviation, and index of the term sources declared in the
+ * ISA-tab dataset, by source name.
+ *
+ * Both indexes are immutable maps replaced as a whole when they change, so they can be read by concurrent conversions
+ * without locking. The catalogue can be saved to a file and loaded from it, so that it is only fetched from BioPortal once.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class OntologyRegistry {
+
+    private static final Logger log = Logger.getLogger(OntologyRegistry.class);
+
+    /**
+     * An ontology in the catalogue.
+     */
+    public static class Entry {
+        private final String abbreviation;
+        private final String version;
+        private final String label;
+
+        public Entry(String a, String v, String l){
+            abbreviation = a;
+            version = v;
+            label = l;
+        }
+
+        public String getAbbreviation(){
+            return abbreviation;
+        }
+
+        public String getVersion(){
+            return version;
+        }
+
+        public String getLabel(){
+            return label;
+        }
+    }
+
+    //<abbreviation, entry>
+    private volatile Map<String, Entry> ontologies = Collections.emptyMap();
+
+    //<source name, source>, built from the sources given to indexSources, and the content of those sources
+    private volatile Map<String, OntologySourceRefObject> sources = Collections.emptyMap();
+    private volatile String indexedSources = null;
+
+    public boolean isLoaded(){
+        return !ontologies.isEmpty();
+    }
+
+    /**
+     * Replaces the catalogue with the ontologies given.
+     *
+     * @param catalogue the ontologies, as returned by BioPortal
+     */
+    public void load(Collection<Ontology> catalogue){
+        Map<String, Entry> map = new HashMap<String, Entry>();
+        if (catalogue == null){
+            log.warn("No ontology catalogue to load");
+            return;
+        }
+        for(Ontology ontology: catalogue){
+            if (ontology.getOntologyAbbreviation() == null)
+                continue;
+            //keep the first one, as the linear search did
+            if (!map.containsKey(ontology.getOntologyAbbreviation()))
+                map.put(ontology.getOntologyAbbreviation(),
+                        new Entry(ontology.getOntologyAbbreviation(), ontology.getOntologyVersion(), ontology.getOntologyDisplayLabel()));
+        }
+        ontologies = Collections.unmodifiableMap(map);
+    }
+
+    public Entry getOntology(String abbreviation){
+        if (abbreviation == null)
+            return null;
+        return ontologies.get(abbreviation);
+    }
+
+    public String getOntologyVersion(String abbreviation){
+        Entry entry = getOntology(abbreviation);
+        return entry == null ? null : entry.getVersion();
+    }
+
+    public int size(){
+        return ontologies.size();
+    }
+
+    /**
+     * Returns the term source with the given name, among the ones given.
+     *
+     * The index is only rebuilt when the content of the sources given, i.e. their names, files and versions, is not the
+     * one indexed last time. The sources must not change while this method runs: pass a copy of a set shared with other
+     * threads, e.g. the one returned by ISAtab2LinkedConverter.getOntologiesUsed.
+     *
+     * @param sourceName the name of the term source
+     * @param sourcesUsed the term sources declared in the dataset
+     * @return the source, or null if it is not declared
+     */
+    public OntologySourceRefObject getSource(String sourceName, Collection<OntologySourceRefObject> sourcesUsed){
+        if (sourceName == null || sourcesUsed == null)
+            return null;
+        String content = getContent(sourcesUsed);
+        if (!content.equals(indexedSources))
+            indexSources(sourcesUsed, content);
+        return sources.get(sourceName);
+    }
+
+    private static String getContent(Collection<OntologySourceRefObject> sourcesUsed){
+        StringBuilder content = new StringBuilder();
+        for(OntologySourceRefObject source: sourcesUsed){
+            content.append(source.getSourceName()).append('\t').append(source.getSourceFile()).append('\t')
+                    .append(source.getSourceVersion()).append('\n');
+        }
+        return content.toString();
+    }
+
+    private synchronized void indexSources(Collection<OntologySourceRefObject> sourcesUsed, String content){
+        Map<String, OntologySourceRefObject> map = new HashMap<String, OntologySourceRefObject>();
+        for(OntologySourceRefObject source: sourcesUsed){
+            if (source.getSourceName() != null && !map.containsKey(source.getSourceName()))
+                map.put(source.getSourceName(), source);
+        }
+        sources = Collections.unmodifiableMap(map);
+        indexedSources = content;
+    }
+
+    /**
+     * Saves the catalogue in a file, one ontology per line.
+     *
+     * @param file the file
+     * @throws IOException
+     */
+    public void save(File file) throws IOException {
+        File tmp = new File(file.getAbsolutePath() + ".tmp");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), "UTF-8"));
+        try {
+            for(Entry entry: ontologies.values()){
+                writer.write(clean(entry.getAbbreviation()) + "\t" + clean(entry.getVersion()) + "\t" + clean(entry.getLabel()) + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+        if (file.exists() && !file.delete())
+            throw new IOException("Could not replace " + file);
+        if (!tmp.renameTo(file))
+            throw new IOException("Could not write " + file);
+    }
+
+    /**
+     * Loads a catalogue saved with save.
+     *
+     * @param file the file
+     * @throws IOException
+     */
+    public void load(File file) throws IOException {
+        Map<String, Entry> map = new HashMap<String, Entry>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            String line = null;
+            while ((line = reader.readLine()) != null){
+                String[] fields = line.split("\t", -1);
+                if (fields.length != 3 || fields[0].equals(""))
+                    continue;
+                map.put(fields[0], new Entry(fields[0], empty(fields[1]), empty(fields[2])));
+            }
+        } finally {
+            reader.close();
+        }
+        ontologies = Collections.unmodifiableMap(map);
+        log.info("Loaded " + map.size() + " ontologies from " + file);
+    }
+
+    private static String clean(String s){
+        return s == null ? "" : s.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static String empty(String s){
+        return s.equals("") ? null : s;
+    }
+
+}
@@ -0,0 +1,123 @@
+package org.isatools.linkedISA.converter;
+
+import org.isatools.isacreator.model.Assay;
+import org.isatools.isacreator.model.Investigation;
+import org.isatools.isacreator.model.Study;
+import org.isatools.isacreator.ontologymanager.OntologyManager;
+import org.isatools.isacreator.ontologymanager.OntologySourceRefObject;
+
+import java.util.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Copy of what the ISAcreator OntologyManager holds for a dataset: the ontology term of each value of its study sample
+ * and assay tables, and the term sources it declares.
+ *
+ * The OntologyManager is static and it is filled by the importer, so it can change while a dataset is being converted if
+ * another one is imported. The snapshot is taken right after the import, under the import lock of ISAtab2LinkedConverter,
+ * and the conversion, including the threads converting rows and assays in parallel, reads the terms from it without locking.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class OntologyTermSnapshot {
+
+    private static final int URI = 0;
+    private static final int SOURCE = 1;
+    private static final int ACCESSION = 2;
+
+    //<value, {uri, source, accession}>, only for the values with a term
+    private final Map<String, String[]> terms = new HashMap<String, String[]>();
+    private final Set<OntologySourceRefObject> sources = new LinkedHashSet<OntologySourceRefObject>();
+
+    /**
+     * Creates an empty snapshot, for conversions of tables not read by the importer.
+     */
+    public OntologyTermSnapshot(){
+    }
+
+    /**
+     * Copies the terms of the values of the tables of the investigation. It must be called holding the import lock.
+     *
+     * @param investigation the investigation just imported
+     */
+    OntologyTermSnapshot(Investigation investigation){
+        Set<OntologySourceRefObject> used = OntologyManager.getOntologiesUsed();
+        if (used != null)
+            sources.addAll(used);
+
+        if (investigation == null || investigation.getStudies() == null)
+            return;
+
+        Set<String> values = new HashSet<String>();
+        for(Study study: investigation.getStudies().values()){
+            if (study.getStudySample() != null)
+                add(study.getStudySample().getAssayDataMatrix(), values);
+            if (study.getAssays() == null)
+                continue;
+            for(Assay assay: study.getAssays().values()){
+                add(assay.getAssayDataMatrix(), values);
+            }
+        }
+    }
+
+    private void add(Object[][] data, Set<String> values){
+        if (data == null)
+            return;
+        for(int row = 1; row < data.length; row++){
+            for(Object cell: data[row]){
+                if (cell == null)
+                    continue;
+                String value = cell.toString();
+                if (value.equals("") || !values.add(value))
+                    continue;
+
+                String uri = OntologyManager.getOntologyTermURI(value);
+                String source = OntologyManager.getOntologyTermSource(value);
+                String accession = OntologyManager.getOntologyTermAccession(value);
+                addTerm(value, uri, source, accession);
+            }
+        }
+    }
+
+    void addTerm(String value, String uri, String source, String accession){
+        if (uri != null || source != null || accession != null)
+            terms.put(value, new String[]{ uri, source, accession });
+    }
+
+    public String getOntologyTermURI(String value){
+        return get(value, URI);
+    }
+
+    public String getOntologyTermSource(String value){
+        return get(value, SOURCE);
+    }
+
+    public String getOntologyTermAccession(String value){
+        return get(value, ACCESSION);
+    }
+
+    public boolean hasTerm(String value){
+        return value != null && terms.containsKey(value);
+    }
+
+    private String get(String value, int field){
+        if (value == null)
+            return null;
+        String[] term = terms.get(value);
+        return term == null ? null : term[field];
+    }
+
+    /**
+     * @return the term sources declared in the dataset
+     */
+    public Set<OntologySourceRefObject> getOntologiesUsed(){
+        return Collections.unmodifiableSet(sources);
+    }
+
+    public int size(){
+        return terms.size();
+    }
+
+}
@@ -0,0 +1,25 @@
+package org.isatools.linkedISA.converter;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Numbers the individuals of each type consecutively (e.g. .../sample/1, .../sample/2). This is the default strategy.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class SequentialIRIMintingStrategy implements IRIMintingStrategy {
+
+    public boolean isContentBased(){
+        return false;
+    }
+
+    public String mint(String typeSlug, long sequence){
+        return Long.toString(sequence);
+    }
+
+    public String mint(String typeSlug, String content){
+        throw new UnsupportedOperationException("The individuals are numbered, not identified by their content");
+    }
+
+}
@@ -0,0 +1,255 @@
+package org.isatools.linkedISA.converter;
+
+import org.apache.log4j.Logger;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.vocab.OWLRDFVocabulary;
+
+import java.io.*;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Sink writing the axioms as RDF triples (N-Triples or Turtle) as soon as they are produced.
+ *
+ * The sink itself keeps nothing in memory apart from the output buffer, so, unlike OWLOntologySink, the axioms do not
+ * accumulate in memory. The rest of the conversion still grows with the dataset: the ConversionContext keeps every
+ * individual created, by type and by identifier, until the conversion ends.
+ *
+ * As the axioms are not indexed, an axiom produced twice during the conversion is written twice; this does not change the
+ * RDF graph. As for every AxiomSink, getAxiomCount counts the axioms received, including repeated ones. The ontology cannot
+ * be reasoned over afterwards: use OWLOntologySink for that.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class StreamingRDFSink implements AxiomSink {
+
+    private static final Logger log = Logger.getLogger(StreamingRDFSink.class);
+
+    public enum Format { NTRIPLES, TURTLE }
+
+    private static final String RDF_TYPE = OWLRDFVocabulary.RDF_TYPE.getIRI().toString();
+    private static final String OWL_ONTOLOGY = OWLRDFVocabulary.OWL_ONTOLOGY.getIRI().toString();
+    private static final String OWL_IMPORTS = OWLRDFVocabulary.OWL_IMPORTS.getIRI().toString();
+    private static final String OWL_SAME_AS = OWLRDFVocabulary.OWL_SAME_AS.getIRI().toString();
+    private static final String OWL_DIFFERENT_FROM = OWLRDFVocabulary.OWL_DIFFERENT_FROM.getIRI().toString();
+    private static final String OWL_NAMED_INDIVIDUAL = OWLRDFVocabulary.OWL_NAMED_INDIVIDUAL.getIRI().toString();
+    private static final String RDFS_PLAIN_LITERAL = "http://www.w3.org/2000/01/rdf-schema#Literal";
+    private static final String RDF_PLAIN_LITERAL = "http://www.w3.org/1999/02/22-rdf-syntax-ns#PlainLiteral";
+
+    private Writer writer = null;
+    private Format format = Format.NTRIPLES;
+    private Map<String, String> prefixes = new LinkedHashMap<String, String>();
+    private IRI ontologyIRI = null;
+    private long axiomCount = 0;
+    private IOException error = null;
+
+    public StreamingRDFSink(File file, Format f) throws IOException {
+        this(new FileOutputStream(file), f);
+    }
+
+    public StreamingRDFSink(OutputStream out, Format f){
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"), 1 << 16);
+        } catch (UnsupportedEncodingException e) {
+            //UTF-8 is always supported
+            throw new IllegalStateException(e);
+        }
+        format = f;
+        prefixes.put("rdf", "http://www.w3.org/1999/02/22-rdf-syntax-ns#");
+        prefixes.put("rdfs", "http://www.w3.org/2000/01/rdf-schema#");
+        prefixes.put("owl", "http://www.w3.org/2002/07/owl#");
+        prefixes.put("xsd", "http://www.w3.org/2001/XMLSchema#");
+        prefixes.put("obo", "http://purl.obolibrary.org/obo/");
+    }
+
+    public void open(IRI iri){
+        ontologyIRI = iri;
+        if (format == Format.TURTLE){
+            prefixes.put("", iri.toString() + "/");
+            for(String prefix: prefixes.keySet()){
+                write("@prefix " + prefix + ": <" + prefixes.get(prefix) + "> .\n");
+            }
+            write("\n");
+        }
+        writeTriple(iri.toString(), RDF_TYPE, resource(OWL_ONTOLOGY));
+    }
+
+    public void addImport(IRI importIRI){
+        writeTriple(ontologyIRI.toString(), OWL_IMPORTS, resource(importIRI.toString()));
+    }
+
+    public void addAxiom(OWLAxiom axiom){
+        axiomCount++;
+
+        if (axiom instanceof OWLClassAssertionAxiom){
+            OWLClassAssertionAxiom classAssertion = (OWLClassAssertionAxiom) axiom;
+            if (classAssertion.getIndividual().isNamed() && !classAssertion.getClassExpression().isAnonymous()){
+                writeTriple(classAssertion.getIndividual().asOWLNamedIndividual().getIRI().toString(), RDF_TYPE,
+                        resource(classAssertion.getClassExpression().asOWLClass().getIRI().toString()));
+                return;
+            }
+        } else if (axiom instanceof OWLAnnotationAssertionAxiom){
+            OWLAnnotationAssertionAxiom annotationAssertion = (OWLAnnotationAssertionAxiom) axiom;
+            if (annotationAssertion.getSubject() instanceof IRI && !(annotationAssertion.getValue() instanceof OWLAnonymousIndividual)){
+                writeTriple(annotationAssertion.getSubject().toString(), annotationAssertion.getProperty().getIRI().toString(),
+                        value(annotationAssertion.getValue()));
+                return;
+            }
+        } else if (axiom instanceof OWLObjectPropertyAssertionAxiom){
+            OWLObjectPropertyAssertionAxiom propertyAssertion = (OWLObjectPropertyAssertionAxiom) axiom;
+            if (propertyAssertion.getSubject().isNamed() && propertyAssertion.getObject().isNamed()
+                    && !propertyAssertion.getProperty().isAnonymous()){
+                writeTriple(propertyAssertion.getSubject().asOWLNamedIndividual().getIRI().toString(),
+                        propertyAssertion.getProperty().asOWLObjectProperty().getIRI().toString(),
+                        resource(propertyAssertion.getObject().asOWLNamedIndividual().getIRI().toString()));
+                return;
+            }
+        } else if (axiom instanceof OWLDataPropertyAssertionAxiom){
+            OWLDataPropertyAssertionAxiom propertyAssertion = (OWLDataPropertyAssertionAxiom) axiom;
+            if (propertyAssertion.getSubject().isNamed() && !propertyAssertion.getProperty().isAnonymous()){
+                writeTriple(propertyAssertion.getSubject().asOWLNamedIndividual().getIRI().toString(),
+                        propertyAssertion.getProperty().asOWLDataProperty().getIRI().toString(),
+                        literal(propertyAssertion.getObject()));
+                return;
+            }
+        } else if (axiom instanceof OWLSameIndividualAxiom || axiom instanceof OWLDifferentIndividualsAxiom){
+            String predicate = axiom instanceof OWLSameIndividualAxiom ? OWL_SAME_AS : OWL_DIFFERENT_FROM;
+            Set<OWLIndividual> individuals = ((OWLNaryIndividualAxiom) axiom).getIndividuals();
+            OWLNamedIndividual first = null;
+            for(OWLIndividual individual: individuals){
+                if (!individual.isNamed())
+                    continue;
+                if (first == null){
+                    first = individual.asOWLNamedIndividual();
+                } else {
+                    writeTriple(first.getIRI().toString(), predicate, resource(individual.asOWLNamedIndividual().getIRI().toString()));
+                }
+            }
+            return;
+        } else if (axiom instanceof OWLDeclarationAxiom){
+            OWLEntity entity = ((OWLDeclarationAxiom) axiom).getEntity();
+            if (entity.isOWLNamedIndividual()){
+                writeTriple(entity.getIRI().toString(), RDF_TYPE, resource(OWL_NAMED_INDIVIDUAL));
+                return;
+            }
+        }
+
+        log.warn("Axiom not supported by the streaming output, skipping it: " + axiom);
+    }
+
+    public void addAxioms(List<OWLAxiom> axioms){
+        for(OWLAxiom axiom: axioms){
+            addAxiom(axiom);
+        }
+    }
+
+    public long getAxiomCount(){
+        return axiomCount;
+    }
+
+    public void close() throws IOException {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            if (error == null)
+                error = e;
+        }
+        if (error != null)
+            throw error;
+    }
+
+    private void write(String string){
+        if (error != null)
+            return;
+        try {
+            writer.write(string);
+        } catch (IOException e) {
+            log.error("Error writing the RDF output", e);
+            error = e;
+        }
+    }
+
+    private void writeTriple(String subject, String predicate, String object){
+        write(resource(subject) + " " + resource(predicate) + " " + object + " .\n");
+    }
+
+    private String value(OWLAnnotationValue value){
+        if (value instanceof IRI)
+            return resource(value.toString());
+        return literal((OWLLiteral) value);
+    }
+
+    private String resource(String iri){
+        if (format == Format.TURTLE){
+            for(String prefix: prefixes.keySet()){
+                String namespace = prefixes.get(prefix);
+                if (iri.startsWith(namespace)){
+                    String localName = iri.substring(namespace.length());
+                    if (isLocalName(localName))
+                        return prefix + ":" + localName;
+                }
+            }
+        }
+        return "<" + escape(iri, true) + ">";
+    }
+
+    private static boolean isLocalName(String localName){
+        if (localName.length() == 0)
+            return false;
+        for(int i = 0; i < localName.length(); i++){
+            char c = localName.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || (c == '-' && i > 0);
+            if (!valid)
+                return false;
+        }
+        return true;
+    }
+
+    private String literal(OWLLiteral literal){
+        StringBuffer buffer = new StringBuffer();
+        buffer.append('"').append(escape(literal.getLiteral(), false)).append('"');
+        if (literal.hasLang()){
+            buffer.append('@').append(literal.getLang());
+        } else {
+            String datatype = literal.getDatatype().getIRI().toString();
+            if (!datatype.equals(RDF_PLAIN_LITERAL) && !datatype.equals(RDFS_PLAIN_LITERAL))
+                buffer.append("^^").append(resource(datatype));
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Escapes a string following the N-Triples rules, which are also valid in Turtle.
+     */
+    static String escape(String string, boolean iri){
+        StringBuffer buffer = new StringBuffer(string.length() + 8);
+        for(int i = 0; i < string.length(); i++){
+            char c = string.charAt(i);
+            switch (c){
+                case '\\': buffer.append("\\\\"); break;
+                case '"': buffer.append(iri ? "\\u0022" : "\\\""); break;
+                case '\n': buffer.append("\\n"); break;
+                case '\r': buffer.append("\\r"); break;
+                case '\t': buffer.append("\\t"); break;
+                default:
+                    if (c < 0x20 || c > 0x7E || (iri && (c == '<' || c == '>' || c == ' ' || c == '{' || c == '}' || c == '|' || c == '^' || c == '`'))){
+                        if (Character.isHighSurrogate(c) && i + 1 < string.length()){
+                            buffer.append(String.format("\\U%08X", string.codePointAt(i)));
+                            i++;
+                        } else {
+                            buffer.append(String.format("\\u%04X", (int) c));
+                        }
+                    } else {
+                        buffer.append(c);
+                    }
+            }
+        }
+        return buffer.toString();
+    }
+
+}
@@ -0,0 +1,112 @@
+package org.isatools.linkedISA.converter;
+
+import org.apache.log4j.Logger;
+import org.isatools.linkedISA.mapping.ISASyntax2LinkedMapping;
+import org.isatools.linkedISA.mapping.LinkedISAMappingParser;
+import org.isatools.util.Pair;
+import org.semanticweb.owlapi.model.IRI;
+
+import java.io.File;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Pre-warms an OntologyLookupCache with the terms used in a mapping.
+ *
+ * For each ontology listed in the ONTOLOGIES section of the mapping, the OBO-style IRIs (e.g. http://purl.obolibrary.org/obo/OBI_0000011)
+ * of the mapped types and properties from that ontology are added to the cache under the accession forms found in ISA-tab files
+ * (OBI_0000011, OBI:0000011 and 0000011), so that they are not looked up in BioPortal.
+ *
+ * Usage: TermCacheWarmer &lt;cache file&gt; &lt;mapping file&gt;...
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class TermCacheWarmer {
+
+    private static final Logger log = Logger.getLogger(TermCacheWarmer.class);
+
+    private static final Pattern OBO_ID = Pattern.compile("https?://\\S*/([A-Za-z]+)_([0-9]+)");
+
+    private OntologyLookupCache cache = null;
+
+    public TermCacheWarmer(OntologyLookupCache c){
+        cache = c;
+    }
+
+    /**
+     * Adds to the cache the terms of the mapping that belong to the ontologies listed in its ONTOLOGIES section.
+     *
+     * @param mapping the mapping
+     * @return the number of entries added to the cache
+     */
+    public int warm(ISASyntax2LinkedMapping mapping){
+        //the abbreviation of each ontology, with its name in the ONTOLOGIES section
+        Map<String, String> ontologies = new HashMap<String, String>();
+        for(String name: mapping.getSourceOntoIRIs().keySet()){
+            String iri = mapping.getSourceOntoIRIs().get(name).toString();
+            String abbreviation = iri.substring(iri.lastIndexOf('/') + 1);
+            if (abbreviation.contains("."))
+                abbreviation = abbreviation.substring(0, abbreviation.indexOf('.'));
+            ontologies.put(abbreviation.toUpperCase(), name);
+        }
+
+        Set<IRI> iris = new HashSet<IRI>();
+        for(Set<IRI> types: mapping.getTypeMappings().values()){
+            iris.addAll(types);
+        }
+        for(List<Pair<IRI, String>> properties: mapping.getPropertyMappings().values()){
+            for(Pair<IRI, String> property: properties){
+                iris.add(property.getFirst());
+            }
+        }
+
+        int added = 0;
+        for(IRI iri: iris){
+            Matcher matcher = OBO_ID.matcher(iri.toString());
+            if (!matcher.matches())
+                continue;
+
+            String prefix = matcher.group(1);
+            String id = matcher.group(2);
+            String name = ontologies.get(prefix.toUpperCase());
+            if (name == null)
+                continue;
+
+            String[] sources = { prefix, name };
+            String[] accessions = { prefix + "_" + id, prefix + ":" + id, id };
+            for(String source: sources){
+                for(String accession: accessions){
+                    if (cache.getPurl(source, accession) == null){
+                        cache.addSourceTermPurlMapping(source, accession, iri.toString());
+                        added++;
+                    }
+                }
+            }
+        }
+        log.info("Added " + added + " entries to the term cache from " + mapping.getMappingFiles());
+        return added;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2){
+            System.out.println("usage: TermCacheWarmer <cache file> <mapping file>...");
+            System.exit(1);
+        }
+
+        OntologyLookupCache cache = new OntologyLookupCache(new File(args[0]), OntologyLookupCache.NO_EXPIRY, OntologyLookupCache.NO_EXPIRY);
+        LinkedISAMappingParser parser = new LinkedISAMappingParser();
+        for(int i = 1; i < args.length; i++){
+            parser.parseCSVMappingFile(args[i]);
+        }
+
+        int added = new TermCacheWarmer(cache).warm(parser.getMapping());
+        cache.compact();
+        cache.close();
+        System.out.println("Added " + added + " entries, the cache " + args[0] + " has " + cache.size() + " entries");
+    }
+
+}
@@ -0,0 +1,230 @@
+package org.isatools.linkedISA.converter;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+import org.isatools.isacreator.model.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Resolves the ontology terms of a dataset before it is converted.
+ *
+ * First, the investigation and the study and assay tables are scanned to collect every distinct (term source, accession) pair
+ * not already in the cache. Then, the pairs are resolved in batches by a bounded number of threads and the results are stored
+ * in the cache, so that the conversion does not wait for any remote lookup. The terms that could not be resolved are reported
+ * together at the end.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class TermPrefetcher {
+
+    private static final Logger log = Logger.getLogger(TermPrefetcher.class);
+
+    private TermResolver resolver = null;
+    private OntologyLookupCache cache = null;
+    private int threads = 1;
+    private int batchSize = 1;
+
+    //<source TAB accession, {source, accession}>
+    private Map<String, String[]> terms = new LinkedHashMap<String, String[]>();
+
+    //<source TAB accession, reason>
+    private Map<String, String> unresolved = new ConcurrentHashMap<String, String>();
+
+    /**
+     * Constructor
+     *
+     * @param r the resolver for the terms
+     * @param c the cache where the resolved terms are stored
+     * @param t maximum number of terms resolved at the same time
+     * @param b number of terms resolved by each task
+     */
+    public TermPrefetcher(TermResolver r, OntologyLookupCache c, int t, int b){
+        resolver = r;
+        cache = c;
+        threads = Math.max(1, t);
+        batchSize = Math.max(1, b);
+    }
+
+    /**
+     * Collects a term, unless it is already in the cache or it does not need to be resolved.
+     *
+     * @param source the term source REF
+     * @param accession the term accession
+     */
+    public void collect(String source, String accession){
+        if (source == null || source.equals("") || accession == null || accession.equals("") || accession.startsWith("http://"))
+            return;
+        if (cache.getPurl(source, accession) != null)
+            return;
+        String key = source + "\t" + accession;
+        if (!terms.containsKey(key))
+            terms.put(key, new String[]{ source, accession });
+    }
+
+    /**
+     * Collects the terms of all the studies of the investigation.
+     *
+     * @param investigation the investigation
+     * @param snapshot the terms of the values of the tables, copied from the OntologyManager when the dataset was imported
+     */
+    public void collect(Investigation investigation, OntologyTermSnapshot snapshot){
+        Map<String, Study> studies = investigation.getStudies();
+        for(Study study: studies.values()){
+
+            for(StudyDesign studyDesign: study.getStudyDesigns()){
+                collect(studyDesign.getStudyDesignTypeTermSourceRef(), studyDesign.getStudyDesignTypeTermAcc());
+            }
+
+            for(Factor factor: study.getFactors()){
+                collect(factor.getFactorTypeTermSource(), factor.getFactorTypeTermAccession());
+            }
+
+            for(Protocol protocol: study.getProtocols()){
+                collect(protocol.getProtocolTypeTermSourceRef(), protocol.getProtocolTypeTermAccession());
+
+                String[] termAccessions = protocol.getProtocolParameterNameAccessions();
+                String[] termSources = protocol.getProtocolParameterNameSources();
+                if (termAccessions.length == termSources.length){
+                    for(int i = 0; i < termSources.length; i++){
+                        collect(termSources[i], termAccessions[i]);
+                    }
+                }
+            }
+
+            collect(study.getStudySample().getAssayDataMatrix(), snapshot);
+
+            for(Assay assay: study.getAssays().values()){
+                collect(assay.getMeasurementEndpointTermSourceRef(), assay.getMeasurementEndpointTermAccession());
+                collect(assay.getTechnologyTypeTermSourceRef(), assay.getTechnologyTypeTermAccession());
+                collect(assay.getAssayDataMatrix(), snapshot);
+            }
+        }
+    }
+
+    /**
+     * Collects the terms of a study or assay table: those annotating the column headers, as Characteristics[source-term-accession],
+     * and those annotating the values.
+     *
+     * The terms of the values are looked up in the snapshot taken when the dataset was imported, and not in the
+     * OntologyManager, which other conversions may be filling at the same time.
+     *
+     * @param data the table, with the headers in the first row
+     * @param snapshot the terms of the values of the dataset
+     */
+    public void collect(Object[][] data, OntologyTermSnapshot snapshot){
+        if (data == null || data.length == 0)
+            return;
+
+        Object[] header = data[0];
+        for(int col = 0; col < header.length; col++){
+
+            String columnName = header[col] == null ? "" : header[col].toString();
+            if (columnName.contains("[") && columnName.contains("]") && StringUtils.countMatches(columnName, "-") == 2){
+                String[] parts = columnName.substring(columnName.indexOf("[") + 1, columnName.indexOf("]")).split("-");
+                if (parts.length == 3)
+                    collect(parts[0], parts[2]);
+            }
+
+            Set<String> values = new HashSet<String>();
+            for(int row = 1; row < data.length; row++){
+                if (data[row][col] == null)
+                    continue;
+                String value = data[row][col].toString();
+                if (value.equals("") || !values.add(value))
+                    continue;
+
+                String purl = snapshot.getOntologyTermURI(value);
+                if (purl != null && !purl.equals(""))
+                    continue;
+                collect(snapshot.getOntologyTermSource(value), snapshot.getOntologyTermAccession(value));
+            }
+        }
+    }
+
+    public int getCollectedCount(){
+        return terms.size();
+    }
+
+    /**
+     * Resolves all the terms collected and stores them in the cache.
+     *
+     * @return the terms that could not be resolved, as "source accession: reason"
+     * @throws InterruptedException
+     */
+    public List<String> resolve() throws InterruptedException {
+        List<String[]> pending = new ArrayList<String[]>(terms.values());
+        if (pending.isEmpty())
+            return Collections.emptyList();
+
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, (pending.size() + batchSize - 1) / batchSize));
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for(int i = 0; i < pending.size(); i += batchSize){
+                final List<String[]> batch = pending.subList(i, Math.min(i + batchSize, pending.size()));
+                futures.add(executor.submit(new Runnable() {
+                    public void run() {
+                        resolve(batch);
+                    }
+                }));
+            }
+            for(Future<?> future: futures){
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    log.error("Error resolving terms", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<String> summary = new ArrayList<String>();
+        for(String key: unresolved.keySet()){
+            summary.add(key.replace('\t', ' ') + ": " + unresolved.get(key));
+        }
+        Collections.sort(summary);
+
+        log.info("Resolved " + (pending.size() - summary.size()) + " of " + pending.size() + " terms in "
+                + (System.currentTimeMillis() - start) + " ms");
+        if (!summary.isEmpty())
+            log.warn(summary.size() + " terms could not be resolved:\n" + StringUtils.join(summary, "\n"));
+
+        try {
+            cache.flush();
+        } catch (IOException e) {
+            log.error("Could not write the resolved terms to the term cache", e);
+        }
+
+        terms.clear();
+        return summary;
+    }
+
+    private void resolve(List<String[]> batch){
+        for(String[] term: batch){
+            if (Thread.currentThread().isInterrupted())
+                return;
+
+            String key = term[0] + "\t" + term[1];
+            try {
+                String purl = resolver.resolve(term[0], term[1]);
+                if (purl == null){
+                    unresolved.put(key, "not found");
+                    cache.addSourceTermPurlMapping(term[0], term[1], "");
+                } else {
+                    cache.addSourceTermPurlMapping(term[0], term[1], purl);
+                }
+            } catch (IOException e) {
+                //not cached, so it will be tried again during the conversion
+                unresolved.put(key, e.getMessage());
+            }
+        }
+    }
+
+}
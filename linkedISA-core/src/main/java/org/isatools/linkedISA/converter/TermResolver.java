@@ -0,0 +1,25 @@
+package org.isatools.linkedISA.converter;
+
+import java.io.IOException;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Resolves an ontology term, given by its term source and accession as found in ISA-tab files, into its PURL.
+ *
+ * Implementations are called concurrently by the TermPrefetcher, so they must be thread-safe.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public interface TermResolver {
+
+    /**
+     * @param termSourceRef the term source REF
+     * @param termAccession the term accession number
+     * @return the PURL of the term, or null if the term does not exist
+     * @throws IOException if the term could not be resolved, e.g. because of a network error; the term is then not recorded as not found
+     */
+    public String resolve(String termSourceRef, String termAccession) throws IOException;
+
+}
@@ -0,0 +1,27 @@
+package org.isatools.linkedISA.converter;
+
+import java.util.UUID;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Gives each individual a random UUID, so that IRIs minted in different conversions never clash.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class UUIDIRIMintingStrategy implements IRIMintingStrategy {
+
+    public boolean isContentBased(){
+        return false;
+    }
+
+    public String mint(String typeSlug, long sequence){
+        return UUID.randomUUID().toString();
+    }
+
+    public String mint(String typeSlug, String content){
+        throw new UnsupportedOperationException("The identifiers are random, not derived from the content");
+    }
+
+}
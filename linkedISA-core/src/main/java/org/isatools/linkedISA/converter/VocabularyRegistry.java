@@ -0,0 +1,206 @@
+package org.isatools.linkedISA.converter;
+
+import org.isatools.linkedISA.mapping.ISASyntax2LinkedMapping;
+import org.isatools.owl.*;
+import org.isatools.util.Pair;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.vocab.OWLRDFVocabulary;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * The OWL entities used by a conversion, resolved once: the classes and properties named by the constants in
+ * org.isatools.owl (ISA, OBI, IAO, BFO, DCAT, DCT), the IRIs of the mapping, and rdfs:label and rdfs:comment.
+ *
+ * The converters take the entities from here instead of parsing the same IRI and asking the data factory for it on
+ * every axiom. An IRI that was not registered is resolved the first time it is asked for and kept as well.
+ *
+ * Each IRI only gets the kind of entity it is used as, so that no IRI is both a class and a property: the types of the
+ * mapping are registered as classes and its predicates as object properties, while the org.isatools.owl constants are
+ * only parsed, and become a class or a property the first time they are asked for as one.
+ *
+ * The registry of a mapping is built once, by forMapping, and shared by the conversions with that mapping, including the
+ * threads converting parts of a dataset in parallel.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class VocabularyRegistry {
+
+    private static final Class<?>[] VOCABULARIES = { ISA.class, OBI.class, IAO.class, BFO.class, DCAT.class, DCT.class };
+
+    //<mapping, registry>, so that the registry of a mapping is only built once
+    private static final Map<ISASyntax2LinkedMapping, VocabularyRegistry> registries = new WeakHashMap<ISASyntax2LinkedMapping, VocabularyRegistry>();
+
+    //the OWL API data factory cannot be shared between threads, so this one is only used while holding the registry lock
+    private final OWLDataFactory factory = new OWLDataFactoryImpl();
+
+    private final ConcurrentMap<String, IRI> iris = new ConcurrentHashMap<String, IRI>();
+    private final ConcurrentMap<IRI, OWLClass> classes = new ConcurrentHashMap<IRI, OWLClass>();
+    private final ConcurrentMap<IRI, OWLObjectProperty> objectProperties = new ConcurrentHashMap<IRI, OWLObjectProperty>();
+    private final ConcurrentMap<IRI, OWLDataProperty> dataProperties = new ConcurrentHashMap<IRI, OWLDataProperty>();
+
+    private final OWLAnnotationProperty labelProperty;
+    private final OWLAnnotationProperty commentProperty;
+
+    /**
+     * Constructor
+     *
+     * @param mapping the mapping used by the conversion, or null to register the org.isatools.owl constants only
+     */
+    public VocabularyRegistry(ISASyntax2LinkedMapping mapping){
+        labelProperty = factory.getOWLAnnotationProperty(OWLRDFVocabulary.RDFS_LABEL.getIRI());
+        commentProperty = factory.getOWLAnnotationProperty(OWLRDFVocabulary.RDFS_COMMENT.getIRI());
+
+        for(Class<?> vocabulary: VOCABULARIES){
+            for(Field field: vocabulary.getFields()){
+                if (!Modifier.isStatic(field.getModifiers()) || field.getType() != String.class)
+                    continue;
+                try {
+                    String value = (String) field.get(null);
+                    //skip the namespaces, which are not entities
+                    if (value != null && value.startsWith("http") && !value.endsWith("/") && !value.endsWith("_") && !value.endsWith("#"))
+                        getIRI(value);
+                } catch (IllegalAccessException e) {
+                    //only public fields are listed
+                }
+            }
+        }
+
+        if (mapping == null)
+            return;
+        for(Set<IRI> types: mapping.getTypeMappings().values()){
+            for(IRI type: types){
+                if (type != null){
+                    iris.putIfAbsent(type.toString(), type);
+                    classes.putIfAbsent(type, factory.getOWLClass(type));
+                }
+            }
+        }
+        for(List<Pair<IRI, String>> predicateObjects: mapping.getPropertyMappings().values()){
+            for(Pair<IRI, String> predicateObject: predicateObjects){
+                IRI predicate = predicateObject.getFirst();
+                if (predicate != null){
+                    iris.putIfAbsent(predicate.toString(), predicate);
+                    objectProperties.putIfAbsent(predicate, factory.getOWLObjectProperty(predicate));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param mapping the mapping used by the conversion, or null for the org.isatools.owl constants only
+     * @return the registry of the mapping, built the first time it is asked for
+     */
+    public static VocabularyRegistry forMapping(ISASyntax2LinkedMapping mapping){
+        synchronized (registries){
+            VocabularyRegistry registry = registries.get(mapping);
+            if (registry == null){
+                registry = new VocabularyRegistry(mapping);
+                registries.put(mapping, registry);
+            }
+            return registry;
+        }
+    }
+
+    /**
+     * @param iri an IRI, e.g. one of the org.isatools.owl constants
+     * @return the parsed IRI
+     */
+    public IRI getIRI(String iri){
+        IRI result = iris.get(iri);
+        if (result == null){
+            result = IRI.create(iri);
+            IRI previous = iris.putIfAbsent(iri, result);
+            if (previous != null)
+                result = previous;
+        }
+        return result;
+    }
+
+    public OWLClass getOWLClass(IRI iri){
+        OWLClass owlClass = classes.get(iri);
+        if (owlClass == null){
+            synchronized (this){
+                owlClass = factory.getOWLClass(iri);
+            }
+            OWLClass previous = classes.putIfAbsent(iri, owlClass);
+            if (previous != null)
+                owlClass = previous;
+        }
+        return owlClass;
+    }
+
+    public OWLObjectProperty getOWLObjectProperty(String iri){
+        return getOWLObjectProperty(getIRI(iri));
+    }
+
+    public OWLObjectProperty getOWLObjectProperty(IRI iri){
+        OWLObjectProperty property = objectProperties.get(iri);
+        if (property == null){
+            synchronized (this){
+                property = factory.getOWLObjectProperty(iri);
+            }
+            OWLObjectProperty previous = objectProperties.putIfAbsent(iri, property);
+            if (previous != null)
+                property = previous;
+        }
+        return property;
+    }
+
+    public OWLDataProperty getOWLDataProperty(String iri){
+        return getOWLDataProperty(getIRI(iri));
+    }
+
+    public OWLDataProperty getOWLDataProperty(IRI iri){
+        OWLDataProperty property = dataProperties.get(iri);
+        if (property == null){
+            synchronized (this){
+                property = factory.getOWLDataProperty(iri);
+            }
+            OWLDataProperty previous = dataProperties.putIfAbsent(iri, property);
+            if (previous != null)
+                property = previous;
+        }
+        return property;
+    }
+
+    /**
+     * @return rdfs:label
+     */
+    public OWLAnnotationProperty getLabelProperty(){
+        return labelProperty;
+    }
+
+    /**
+     * @return rdfs:comment
+     */
+    public OWLAnnotationProperty getCommentProperty(){
+        return commentProperty;
+    }
+
+    /**
+     * @return the number of IRIs registered so far
+     */
+    public int size(){
+        return iris.size();
+    }
+
+    /**
+     * @return the number of classes and properties created so far
+     */
+    int getEntityCount(){
+        return classes.size() + objectProperties.size() + dataProperties.size();
+    }
+
+}
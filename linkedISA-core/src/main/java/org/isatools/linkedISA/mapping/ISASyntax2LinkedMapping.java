@@ -105,6 +105,10 @@ public class ISASyntax2LinkedMapping {
         return typeMappings.get(label);
     }
 
+    public Map<String, Set<IRI>> getTypeMappings(){
+        return typeMappings;
+    }
+
 	public void addTypeMapping(String label, String type){
         Set<IRI> iris = typeMappings.get(label);
         if (iris==null)
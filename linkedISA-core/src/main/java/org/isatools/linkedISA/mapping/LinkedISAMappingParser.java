@@ -113,8 +113,10 @@ public class LinkedISAMappingParser {
 	private void parseOntology(String[] line){
 		//ONTOLOGY LINE FORMAT
 		//name	version	IRI
-        log.debug("*********adding ontology " + line[0] + "," + line[2]);
-		mapping.addOntology(line[0],line[2]);
+        //some mapping files have the IRI in the version column
+        String iri = (line.length > 2 && !line[2].equals("")) ? line[2] : (line.length > 1 && line[1].startsWith("http") ? line[1] : "");
+        log.debug("*********adding ontology " + line[0] + "," + iri);
+		mapping.addOntology(line[0],iri);
 		
 	}
 	
@@ -0,0 +1,75 @@
+package org.isatools.linkedISA.repository;
+
+import org.apache.log4j.Logger;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFParser;
+import org.openrdf.rio.Rio;
+import org.openrdf.rio.helpers.StatementCollector;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Applies the delta written by DeltaISAtab2LinkedConverter (the N-Triples files with the triples added and removed)
+ * to a repository, in a single transaction, instead of reloading the whole dataset.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class DeltaLoader {
+
+    private static final Logger log = Logger.getLogger(DeltaLoader.class);
+
+    private RepositoryConnection repositoryConnection = null;
+
+    public DeltaLoader(RepositoryConnection connection){
+        repositoryConnection = connection;
+    }
+
+    /**
+     * Removes the triples in the removed file and adds the triples in the added file.
+     *
+     * @param added N-Triples file with the triples added
+     * @param removed N-Triples file with the triples removed
+     * @param contexts the contexts (named graphs) to update
+     * @throws Exception if the files cannot be parsed or the repository cannot be updated; the repository is not changed
+     */
+    public void apply(File added, File removed, Resource... contexts) throws Exception {
+        String baseURI = added.toURI().toString();
+
+        List<Statement> removedStatements = parse(removed, baseURI);
+
+        repositoryConnection.begin();
+        try {
+            repositoryConnection.remove(removedStatements, contexts);
+            repositoryConnection.add(added, baseURI, RDFFormat.NTRIPLES, contexts);
+            repositoryConnection.commit();
+        } catch (Exception e) {
+            repositoryConnection.rollback();
+            throw e;
+        }
+
+        log.info("Applied delta: " + removedStatements.size() + " statements removed, statements added from " + added);
+    }
+
+    private List<Statement> parse(File file, String baseURI) throws Exception {
+        List<Statement> statements = new ArrayList<Statement>();
+        RDFParser parser = Rio.createParser(RDFFormat.NTRIPLES);
+        parser.setRDFHandler(new StatementCollector(statements));
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            parser.parse(in, baseURI);
+        } finally {
+            in.close();
+        }
+        return statements;
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.isatools.linkedISA.converter;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Test class for AxiomBuffer
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class AxiomBufferTest {
+
+    private OWLDataFactory factory = null;
+    private OWLOntologyManager manager = null;
+    private OWLOntologySink sink = null;
+
+    @Before
+    public void setUp() throws Exception {
+        manager = OWLManager.createOWLOntologyManager();
+        factory = manager.getOWLDataFactory();
+        sink = new OWLOntologySink(manager);
+        sink.open(IRI.create("http://isa-tools.org/isa/test"));
+    }
+
+    private OWLAxiom axiom(int i){
+        return factory.getOWLClassAssertionAxiom(factory.getOWLClass(IRI.create("http://purl.obolibrary.org/obo/OBI_0000747")),
+                factory.getOWLNamedIndividual(IRI.create("http://isa-tools.org/isa/test/sample/" + i)));
+    }
+
+    @Test
+    public void testFlushWhenFull() {
+        AxiomBuffer buffer = new AxiomBuffer(sink, 3);
+        buffer.add(axiom(1));
+        buffer.add(axiom(2));
+        assertEquals(0, sink.getAxiomCount());
+        assertEquals(2, buffer.size());
+
+        buffer.add(axiom(3));
+        assertEquals(3, sink.getAxiomCount());
+        assertEquals(0, buffer.size());
+
+        buffer.addAll(Arrays.asList(axiom(4), axiom(5), axiom(6), axiom(7)));
+        assertEquals(7, sink.getAxiomCount());
+
+        buffer.add(axiom(8));
+        buffer.flush();
+        assertEquals(8, sink.getAxiomCount());
+        assertTrue(sink.getOntology().containsAxiom(axiom(8)));
+    }
+
+    @Test
+    public void testPhases() {
+        MetricsRegistry metrics = new MetricsRegistry(true);
+        AxiomBuffer buffer = new AxiomBuffer(sink, 100, metrics);
+        metrics.enterPhase(MetricsRegistry.PHASE_STUDY);
+        buffer.add(axiom(1));
+        buffer.add(axiom(2));
+
+        buffer.flush();
+        metrics.enterPhase(MetricsRegistry.PHASE_ASSAYS);
+        assertEquals(2, sink.getAxiomCount());
+        buffer.addAll(Arrays.asList(axiom(3)));
+
+        buffer.flush();
+        metrics.enterPhase(MetricsRegistry.PHASE_STUDY);
+        buffer.add(axiom(4));
+        buffer.flush();
+        metrics.finishPhase();
+
+        assertEquals(0, metrics.getCount(MetricsRegistry.PHASE_AXIOMS, "phase", MetricsRegistry.DEFAULT_PHASE));
+        assertEquals(3, metrics.getCount(MetricsRegistry.PHASE_AXIOMS, "phase", MetricsRegistry.PHASE_STUDY));
+        assertEquals(2, metrics.getTimer(MetricsRegistry.FLUSH_SECONDS, "phase", MetricsRegistry.PHASE_STUDY).getCount());
+        assertEquals(1, metrics.getCount(MetricsRegistry.PHASE_AXIOMS, "phase", MetricsRegistry.PHASE_ASSAYS));
+        assertEquals(1, metrics.getTimer(MetricsRegistry.FLUSH_SECONDS, "phase", MetricsRegistry.PHASE_ASSAYS).getCount());
+        assertEquals(2, metrics.getTimer(MetricsRegistry.PHASE_SECONDS, "phase", MetricsRegistry.PHASE_STUDY).getCount());
+        assertEquals(4, sink.getAxiomCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoCapacity() {
+        new AxiomBuffer(sink, 0);
+    }
+
+}
@@ -0,0 +1,251 @@
+package org.isatools.linkedISA.converter;
+
+import org.isatools.linkedISA.mapping.ISASyntax2LinkedMapping;
+import org.isatools.linkedISA.mapping.ISASyntax2LinkedMappingFiles;
+import org.isatools.linkedISA.mapping.LinkedISAMappingParser;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.model.*;
+
+import java.io.*;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Runs several conversions at the same time, each one with its own ISAtab2LinkedConverter,
+ * and checks that each result is the same as the one obtained by converting the dataset on its own.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class ConcurrentConversionTest {
+
+    private static final int COPIES = 4;
+    //copies of the rows of BII-I-1 in the large tables, e.g. 3280 rows for s_BII-S-1.txt
+    private static final int ROW_COPIES = 20;
+
+    private String configDir = null;
+    private String path = "/ISAtab-Datasets/";
+    private ISASyntax2LinkedMapping mapping = null;
+    private String[] datasets = { "BII-I-1", "MTBLS6", "faahKO", "T4" };
+
+    @Before
+    public void setUp() throws Exception {
+        configDir = getClass().getResource("/configurations/isaconfig-default_v2014-01-16").getFile();
+
+        LinkedISAMappingParser parser = new LinkedISAMappingParser();
+        URL isa_obi_mapping_url = getClass().getClassLoader().getResource(ISASyntax2LinkedMappingFiles.ISA_OBI_MAPPING_FILENAME);
+        parser.parseCSVMappingFile(isa_obi_mapping_url.toURI().getRawPath().toString());
+
+        URL isa_isa_mapping_url = getClass().getClassLoader().getResource(ISASyntax2LinkedMappingFiles.ISA_ISA_MAPPING_FILENAME);
+        parser.parseCSVMappingFile(isa_isa_mapping_url.toURI().getRawPath().toString());
+
+        URL isa_prov_o_mapping_url = getClass().getClassLoader().getResource(ISASyntax2LinkedMappingFiles.ISA_PROV_O_MAPPING_FILENAME);
+        parser.parseCSVMappingFile(isa_prov_o_mapping_url.toURI().getRawPath().toString());
+
+        mapping = parser.getMapping();
+    }
+
+    private Set<OWLAxiom> convert(String dataset){
+        String isatabParentDir = getClass().getResource(path + dataset).getFile();
+        ISAtab2LinkedConverter converter = new ISAtab2LinkedConverter(configDir, mapping);
+        assertTrue(converter.convert(isatabParentDir, "http://isa-tools.org/isa/" + dataset + ".owl"));
+        return converter.getContext().getOntology().getAxioms();
+    }
+
+    private Set<OWLAxiom> convertWithContentHashIRIs(String dataset, int rowThreads){
+        return convertWithContentHashIRIs(dataset, rowThreads, 1);
+    }
+
+    private Set<OWLAxiom> convertWithContentHashIRIs(String dataset, int rowThreads, int assayThreads){
+        return convertWithContentHashIRIs(dataset, rowThreads, assayThreads, 0);
+    }
+
+    private Set<OWLAxiom> convertWithContentHashIRIs(String dataset, int rowThreads, int assayThreads, int rowBatchSize){
+        return convertWithContentHashIRIs(getClass().getResource(path + dataset).getFile(), dataset, rowThreads, assayThreads, rowBatchSize);
+    }
+
+    private Set<OWLAxiom> convertWithContentHashIRIs(String isatabParentDir, String dataset, int rowThreads, int assayThreads, int rowBatchSize){
+        ISAtab2LinkedConverter converter = new ISAtab2LinkedConverter(configDir, mapping);
+        converter.setIRIMintingStrategy(new ContentHashIRIMintingStrategy());
+        converter.setRowConversionThreads(rowThreads);
+        converter.setAssayConversionThreads(assayThreads);
+        converter.setRowBatchSize(rowBatchSize);
+        assertTrue(converter.convert(isatabParentDir, "http://isa-tools.org/isa/" + dataset + ".owl"));
+        return converter.getContext().getOntology().getAxioms();
+    }
+
+    /**
+     * Counts the individuals of each class asserted in a conversion.
+     */
+    private static Map<OWLClassExpression, Integer> countIndividuals(Set<OWLAxiom> axioms){
+        Map<OWLClassExpression, Set<OWLIndividual>> individuals = new HashMap<OWLClassExpression, Set<OWLIndividual>>();
+        for(OWLAxiom axiom: axioms){
+            if (!(axiom instanceof OWLClassAssertionAxiom))
+                continue;
+            OWLClassAssertionAxiom classAssertion = (OWLClassAssertionAxiom) axiom;
+            Set<OWLIndividual> set = individuals.get(classAssertion.getClassExpression());
+            if (set == null){
+                set = new HashSet<OWLIndividual>();
+                individuals.put(classAssertion.getClassExpression(), set);
+            }
+            set.add(classAssertion.getIndividual());
+        }
+        Map<OWLClassExpression, Integer> counts = new HashMap<OWLClassExpression, Integer>();
+        for(OWLClassExpression type: individuals.keySet()){
+            counts.put(type, individuals.get(type).size());
+        }
+        return counts;
+    }
+
+    @Test
+    public void testContentHashIRIsKeepIndividuals() throws Exception {
+        //individuals that are told apart by a sequential conversion, e.g. the roles of two contacts or the materials with
+        //the same name in two assay files, must not be merged by content-hash IRIs
+        Set<OWLAxiom> sequential = convert("BII-I-1");
+        Set<OWLAxiom> contentHash = convertWithContentHashIRIs("BII-I-1", 1);
+        assertEquals(countIndividuals(sequential), countIndividuals(contentHash));
+        assertEquals(sequential.size(), contentHash.size());
+    }
+
+    @Test
+    public void testRowParallelConversion() throws Exception {
+        for(String dataset: datasets){
+            assertEquals("Row-parallel conversion of " + dataset + " differs from the single-threaded one",
+                    convertWithContentHashIRIs(dataset, 1), convertWithContentHashIRIs(dataset, 4));
+        }
+    }
+
+    @Test
+    public void testRowParallelConversionOfLargeTables() throws Exception {
+        File dir = File.createTempFile("linkedISA-rows", "");
+        dir.delete();
+        dir.mkdir();
+        try {
+            File dataset = new File(getClass().getResource(path + "BII-I-1").getFile());
+            for(File file: dataset.listFiles()){
+                repeatRows(file, new File(dir, file.getName()), ROW_COPIES);
+            }
+
+            Set<OWLAxiom> expected = convertWithContentHashIRIs(dir.getAbsolutePath(), "BII-I-1", 1, 1, 0);
+            for(int threads: new int[]{ 4, 8 }){
+                assertEquals("Conversion of the large tables with " + threads + " row threads differs from the single-threaded one",
+                        expected, convertWithContentHashIRIs(dir.getAbsolutePath(), "BII-I-1", threads, 1, 0));
+            }
+        } finally {
+            for(File file: dir.listFiles())
+                file.delete();
+            dir.delete();
+        }
+    }
+
+    /**
+     * Copies an ISA-tab file; the rows of a study sample or assay file are repeated, with the names of each copy suffixed
+     * with the number of the copy, so that each copy has its own sources, samples and extracts.
+     */
+    private static void repeatRows(File from, File to, int copies) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(from), "UTF-8"));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(to), "UTF-8"));
+        try {
+            boolean table = from.getName().startsWith("s_") || from.getName().startsWith("a_");
+            String[] header = null;
+            List<String> rows = new ArrayList<String>();
+            String line = null;
+            while ((line = reader.readLine()) != null){
+                if (!table){
+                    writer.write(line + "\n");
+                } else if (header == null){
+                    header = line.split("\t", -1);
+                    writer.write(line + "\n");
+                } else if (line.trim().length() > 0){
+                    rows.add(line);
+                }
+            }
+            for(int copy = 0; copy < copies && table; copy++){
+                for(String row: rows){
+                    String[] cells = row.split("\t", -1);
+                    for(int col = 0; col < cells.length && col < header.length; col++){
+                        String cell = cells[col];
+                        if (!header[col].replace("\"", "").endsWith(" Name") || cell.replace("\"", "").length() == 0)
+                            continue;
+                        cells[col] = cell.endsWith("\"") ? cell.substring(0, cell.length() - 1) + "-" + copy + "\"" : cell + "-" + copy;
+                    }
+                    for(int col = 0; col < cells.length; col++){
+                        writer.write(col == 0 ? cells[col] : "\t" + cells[col]);
+                    }
+                    writer.write("\n");
+                }
+            }
+        } finally {
+            reader.close();
+            writer.close();
+        }
+    }
+
+    @Test
+    public void testAssayParallelConversion() throws Exception {
+        for(String dataset: datasets){
+            Set<OWLAxiom> expected = convertWithContentHashIRIs(dataset, 1, 1);
+            assertEquals("Assay-parallel conversion of " + dataset + " differs from the single-threaded one",
+                    expected, convertWithContentHashIRIs(dataset, 1, 4));
+            assertEquals("Assay and row-parallel conversion of " + dataset + " differs from the single-threaded one",
+                    expected, convertWithContentHashIRIs(dataset, 4, 4));
+        }
+    }
+
+    @Test
+    public void testBatchConversion() throws Exception {
+        for(String dataset: datasets){
+            Set<OWLAxiom> expected = convertWithContentHashIRIs(dataset, 1, 1);
+            assertEquals("Conversion of " + dataset + " in batches of rows differs from the conversion of the whole tables",
+                    expected, convertWithContentHashIRIs(dataset, 1, 1, 7));
+            assertEquals("Row-parallel conversion of " + dataset + " in batches of rows differs from the conversion of the whole tables",
+                    expected, convertWithContentHashIRIs(dataset, 4, 1, 7));
+        }
+    }
+
+    @Test
+    public void testConcurrentConversions() throws Exception {
+
+        //single-threaded results
+        Map<String, Set<OWLAxiom>> expected = new HashMap<String, Set<OWLAxiom>>();
+        for(String dataset: datasets){
+            expected.put(dataset, convert(dataset));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(datasets.length * COPIES);
+        List<String> submitted = new ArrayList<String>();
+        List<Future<Set<OWLAxiom>>> futures = new ArrayList<Future<Set<OWLAxiom>>>();
+        try {
+            for(int i = 0; i < COPIES; i++){
+                for(final String dataset: datasets){
+                    submitted.add(dataset);
+                    futures.add(executor.submit(new Callable<Set<OWLAxiom>>() {
+                        public Set<OWLAxiom> call() throws Exception {
+                            return convert(dataset);
+                        }
+                    }));
+                }
+            }
+
+            for(int i = 0; i < futures.size(); i++){
+                String dataset = submitted.get(i);
+                Set<OWLAxiom> axioms = futures.get(i).get();
+                assertEquals("Concurrent conversion of " + dataset + " differs from the single-threaded one",
+                        expected.get(dataset), axioms);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
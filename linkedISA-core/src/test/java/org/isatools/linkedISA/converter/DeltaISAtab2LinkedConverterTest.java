@@ -0,0 +1,130 @@
+package org.isatools.linkedISA.converter;
+
+import org.isatools.linkedISA.mapping.ISASyntax2LinkedMappingFiles;
+import org.isatools.linkedISA.mapping.LinkedISAMappingParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Test class for the change detection and delta computation of DeltaISAtab2LinkedConverter
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class DeltaISAtab2LinkedConverterTest {
+
+    private File dir = null;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = File.createTempFile("delta", "");
+        dir.delete();
+        dir.mkdir();
+    }
+
+    @After
+    public void tearDown() {
+        for(File file: dir.listFiles())
+            file.delete();
+        dir.delete();
+    }
+
+    @Test
+    public void testManifest() throws Exception {
+        write(new File(dir, "i_investigation.txt"), "investigation");
+        write(new File(dir, "s_study.txt"), "study");
+        write(new File(dir, "a_assay.txt"), "assay");
+        write(new File(dir, "readme.txt"), "not ISA-tab");
+
+        ConversionManifest manifest = ConversionManifest.create(dir);
+        assertEquals(3, manifest.getFiles().size());
+
+        File manifestFile = new File(dir, "manifest");
+        manifest.save(manifestFile);
+        ConversionManifest previous = ConversionManifest.load(manifestFile);
+        assertTrue(ConversionManifest.create(dir).getChangedFiles(previous).isEmpty());
+
+        write(new File(dir, "a_assay.txt"), "assay modified");
+        new File(dir, "s_study.txt").delete();
+        Set<String> changed = ConversionManifest.create(dir).getChangedFiles(previous);
+        assertEquals(new TreeSet<String>(Arrays.asList("a_assay.txt", "s_study.txt")), changed);
+
+        assertEquals(2, ConversionManifest.create(dir).getChangedFiles(new ConversionManifest()).size());
+    }
+
+    @Test
+    public void testDelta() throws Exception {
+        File oldFile = new File(dir, "old.nt");
+        File newFile = new File(dir, "new.nt");
+        File added = new File(dir, "added.nt");
+        File removed = new File(dir, "removed.nt");
+
+        write(oldFile, "<a> <p> <b> .\n<a> <p> <c> .\n");
+        write(newFile, "<a> <p> <b> .\n<a> <p> <d> .\n<a> <p> <d> .\n<a> <p> <b> .\n");
+
+        long[] counts = DeltaISAtab2LinkedConverter.writeDelta(oldFile, newFile, added, removed);
+        assertEquals(1, counts[0]);
+        assertEquals(1, counts[1]);
+        assertEquals("<a> <p> <d> .\n", read(added));
+        assertEquals("<a> <p> <c> .\n", read(removed));
+
+        //first conversion: everything is added
+        counts = DeltaISAtab2LinkedConverter.writeDelta(new File(dir, "missing.nt"), newFile, added, removed);
+        assertEquals(2, counts[0]);
+        assertEquals(0, counts[1]);
+
+        //sorted in runs of one triple, merged
+        write(oldFile, "<a> <p> <e> .\n<a> <p> <b> .\n<a> <p> <c> .\n");
+        counts = DeltaISAtab2LinkedConverter.writeDelta(oldFile, newFile, added, removed, 1);
+        assertEquals(1, counts[0]);
+        assertEquals(2, counts[1]);
+        assertEquals("<a> <p> <d> .\n", read(added));
+        assertEquals("<a> <p> <c> .\n<a> <p> <e> .\n", read(removed));
+    }
+
+    @Test
+    public void testUnchangedDataset() throws Exception {
+        String configDir = getClass().getResource("/configurations/isaconfig-default_v2014-01-16").getFile();
+        LinkedISAMappingParser parser = new LinkedISAMappingParser();
+        parser.parseCSVMappingFile(getClass().getClassLoader().getResource(ISASyntax2LinkedMappingFiles.ISA_OBI_MAPPING_FILENAME).toURI().getRawPath());
+        parser.parseCSVMappingFile(getClass().getClassLoader().getResource(ISASyntax2LinkedMappingFiles.ISA_ISA_MAPPING_FILENAME).toURI().getRawPath());
+        parser.parseCSVMappingFile(getClass().getClassLoader().getResource(ISASyntax2LinkedMappingFiles.ISA_PROV_O_MAPPING_FILENAME).toURI().getRawPath());
+        DeltaISAtab2LinkedConverter converter = new DeltaISAtab2LinkedConverter(new ISAtab2LinkedConverter(configDir, parser.getMapping()));
+
+        String parentDir = getClass().getResource("/ISAtab-Datasets/BII-I-1").getFile();
+        String iri = "http://isa-tools.org/isa/BII-I-1.owl";
+        assertFalse(converter.convert(parentDir, iri, dir.getAbsolutePath()).isEmpty());
+        assertTrue(new File(dir, "BII-I-1.added.nt").length() > 0);
+
+        //converted again, without the manifest, as if every file had changed
+        assertTrue(new File(dir, "BII-I-1.manifest").delete());
+        assertFalse(converter.convert(parentDir, iri, dir.getAbsolutePath()).isEmpty());
+        assertEquals("", read(new File(dir, "BII-I-1.added.nt")));
+        assertEquals("", read(new File(dir, "BII-I-1.removed.nt")));
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        writer.write(content);
+        writer.close();
+    }
+
+    private static String read(File file) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        StringBuffer buffer = new StringBuffer();
+        String line = null;
+        while ((line = reader.readLine()) != null)
+            buffer.append(line).append('\n');
+        reader.close();
+        return buffer.toString();
+    }
+
+}
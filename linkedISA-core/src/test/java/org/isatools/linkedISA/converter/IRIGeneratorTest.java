@@ -0,0 +1,122 @@
+package org.isatools.linkedISA.converter;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.model.IRI;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Test class for IRIGenerator and the IRI minting strategies
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class IRIGeneratorTest {
+
+    private static final IRI BASE = IRI.create("http://example.org/dataset");
+
+    @Test
+    public void testSequential() {
+        IRIGenerator generator = new IRIGenerator();
+        assertEquals("http://example.org/dataset/sample_name/1", generator.getIRI(BASE, "Sample Name").toString());
+        assertEquals("http://example.org/dataset/sample_name/2", generator.getIRI(BASE, "Sample Name").toString());
+        assertEquals("http://example.org/dataset/obi_0000671/1", generator.getIRI(BASE, "http://purl.obolibrary.org/obo/OBI_0000671").toString());
+    }
+
+    @Test
+    public void testContentHash() {
+        IRIGenerator generator1 = new IRIGenerator(new ContentHashIRIMintingStrategy());
+        IRIGenerator generator2 = new IRIGenerator(new ContentHashIRIMintingStrategy());
+
+        generator2.getIRI(BASE, "Source Name", "other");
+
+        IRI iri1 = generator1.getIRI(BASE, "Source Name", "source1");
+        IRI iri2 = generator2.getIRI(BASE, "Source Name", "source1");
+        assertEquals(iri1, iri2);
+        assertTrue(iri1.toString().startsWith("http://example.org/dataset/source_name/"));
+
+        //same content again gives the same IRI, and different content a different one
+        assertEquals(iri1, generator1.getIRI(BASE, "Source Name", "source1"));
+        assertFalse(iri1.equals(generator1.getIRI(BASE, "Source Name", "source2")));
+    }
+
+    @Test
+    public void testContentHashConcurrentMinting() throws Exception {
+        final IRIGenerator generator = new IRIGenerator(new ContentHashIRIMintingStrategy());
+        generator.setDatasetId("BII-I-1");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<List<IRI>>> futures = new ArrayList<Future<List<IRI>>>();
+        for(int t = 0; t < 4; t++){
+            futures.add(executor.submit(new Callable<List<IRI>>() {
+                public List<IRI> call() {
+                    List<IRI> iris = new ArrayList<IRI>();
+                    for(int i = 0; i < 100; i++)
+                        iris.add(generator.getIRI(BASE, "Sample Name", "sample" + (i % 10)));
+                    return iris;
+                }
+            }));
+        }
+        List<IRI> first = futures.get(0).get();
+        for(Future<List<IRI>> future: futures)
+            assertEquals(first, future.get());
+        executor.shutdown();
+
+        assertEquals(10, new HashSet<IRI>(first).size());
+    }
+
+    @Test
+    public void testContentHashDatasetId() {
+        IRIGenerator generator1 = new IRIGenerator(new ContentHashIRIMintingStrategy());
+        generator1.setDatasetId("BII-I-1");
+        IRIGenerator generator2 = new IRIGenerator(new ContentHashIRIMintingStrategy());
+        generator2.setDatasetId("BII-I-1");
+        IRIGenerator generator3 = new IRIGenerator(new ContentHashIRIMintingStrategy());
+        generator3.setDatasetId("MTBLS2");
+
+        IRI iri = generator1.getIRI(BASE, "Assay Protocol REF", "extraction\tsample1extract1");
+        assertEquals(iri, generator2.getIRI(BASE, "Assay Protocol REF", "extraction\tsample1extract1"));
+        assertFalse(iri.equals(generator3.getIRI(BASE, "Assay Protocol REF", "extraction\tsample1extract1")));
+    }
+
+    @Test
+    public void testContentHashScope() {
+        IRIGenerator generator = new IRIGenerator(new ContentHashIRIMintingStrategy());
+        generator.setDatasetId("BII-I-1");
+
+        //the same material in two assay files, or the same role of two contacts, are different individuals
+        IRI iri = generator.getIRI(BASE, "Extract Name", "BII-S-1\ta_proteome.txt", "extract1");
+        assertEquals(iri, generator.getIRI(BASE, "Extract Name", "BII-S-1\ta_proteome.txt", "extract1"));
+        assertFalse(iri.equals(generator.getIRI(BASE, "Extract Name", "BII-S-1\ta_metabolome.txt", "extract1")));
+        assertFalse(iri.equals(generator.getIRI(BASE, "Extract Name", "extract1")));
+    }
+
+    @Test
+    public void testConcurrentMinting() throws Exception {
+        final IRIGenerator generator = new IRIGenerator();
+        final int perThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<List<IRI>>> futures = new ArrayList<Future<List<IRI>>>();
+        for(int t = 0; t < 4; t++){
+            futures.add(executor.submit(new Callable<List<IRI>>() {
+                public List<IRI> call() {
+                    List<IRI> iris = new ArrayList<IRI>();
+                    for(int i = 0; i < perThread; i++)
+                        iris.add(generator.getIRI(BASE, "Sample Name"));
+                    return iris;
+                }
+            }));
+        }
+        Set<IRI> all = new HashSet<IRI>();
+        for(Future<List<IRI>> future: futures)
+            all.addAll(future.get());
+        executor.shutdown();
+
+        assertEquals(4 * perThread, all.size());
+    }
+
+}
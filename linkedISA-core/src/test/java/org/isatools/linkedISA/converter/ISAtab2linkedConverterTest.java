@@ -9,6 +9,9 @@ import org.junit.Test;
 
 import java.net.URL;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 
 /**
  * Test class for ISAtab2OWLConverter
@@ -253,10 +256,12 @@ public class ISAtab2LinkedConverterTest {
         isatab2owl.convert(isatabParentDir, iri);
         isatab2owl.saveOntology(savePath+"isatab-test1.rdf");
 
-        System.out.println();
-        System.out.println();
-        isatab2owl.getMintedIRIs();
+        assertFalse(isatab2owl.getMintedIRIs().isEmpty());
+    }
 
+    @Test
+    public void testGetMintedIRIsBeforeConversion(){
+        assertTrue(new ISAtab2LinkedConverter(configDir, mapping).getMintedIRIs().isEmpty());
     }
 
     @Test
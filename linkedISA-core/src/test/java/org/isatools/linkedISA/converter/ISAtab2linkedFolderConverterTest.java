@@ -6,8 +6,11 @@ import org.isatools.linkedISA.mapping.LinkedISAMappingParser;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.*;
 import java.net.URL;
 
+import static org.junit.Assert.*;
+
 /**
  * Created by agbeltran on 19/06/2014.
  */
@@ -56,4 +59,92 @@ public class ISAtab2LinkedFolderConverterTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void convertDatasetsInParallel() throws Exception {
+        String inputFolder = getClass().getResource("/ISAtab-Datasets").getFile();
+        File outputFolder = new File(System.getProperty("java.io.tmpdir"), "linkedISA-folder-test");
+        outputFolder.mkdirs();
+
+        String defaultConfigDir = getClass().getResource("/configurations/isaconfig-default_v2014-01-16").getFile();
+        ISAtab2LinkedFolderConverter folderConverter = new ISAtab2LinkedFolderConverter(new ISAtab2LinkedConverter(defaultConfigDir, mapping), 3);
+        FolderConversionReport report = folderConverter.convert(inputFolder, "http://isa-tools.org/isa/", outputFolder.getAbsolutePath() + File.separator,
+                "(BII-I-1|MTBLS6|faahKO)");
+
+        assertEquals(3, report.getResults().size());
+        assertEquals(3, report.getSucceeded());
+        for(FolderConversionReport.DatasetResult result: report.getResults()){
+            assertTrue(result.getName() + ".rdf was not written", new File(outputFolder, result.getName() + ".rdf").exists());
+            assertTrue(result.getAxiomCount() > 0);
+        }
+    }
+
+    @Test
+    public void convertFolderWithFailingDataset() throws Exception {
+        File inputFolder = createTempDirectory("linkedISA-folder-input");
+        File outputFolder = createTempDirectory("linkedISA-folder-output");
+        try {
+            File dataset = new File(getClass().getResource("/ISAtab-Datasets/faahKO").getFile());
+            File copy = new File(inputFolder, "faahKO");
+            copy.mkdir();
+            for(File file: dataset.listFiles()){
+                copy(file, new File(copy, file.getName()));
+            }
+            //a dataset without investigation file
+            new File(inputFolder, "broken").mkdir();
+
+            String defaultConfigDir = getClass().getResource("/configurations/isaconfig-default_v2014-01-16").getFile();
+            for(int threads = 1; threads <= 2; threads++){
+                ISAtab2LinkedFolderConverter folderConverter = new ISAtab2LinkedFolderConverter(new ISAtab2LinkedConverter(defaultConfigDir, mapping), threads);
+                FolderConversionReport report = folderConverter.convert(inputFolder.getAbsolutePath(), "http://isa-tools.org/isa/",
+                        outputFolder.getAbsolutePath() + File.separator);
+
+                assertEquals(2, report.getResults().size());
+                assertEquals(1, report.getSucceeded());
+                assertEquals(1, report.getFailed());
+                for(FolderConversionReport.DatasetResult result: report.getResults()){
+                    assertEquals(result.getName(), result.getName().equals("faahKO"), result.isSuccess());
+                }
+                assertTrue(new File(outputFolder, "faahKO.rdf").exists());
+                assertFalse(new File(outputFolder, "broken.rdf").exists());
+            }
+        } finally {
+            delete(inputFolder);
+            delete(outputFolder);
+        }
+    }
+
+    private static File createTempDirectory(String prefix) throws IOException {
+        File dir = File.createTempFile(prefix, "");
+        dir.delete();
+        dir.mkdir();
+        return dir;
+    }
+
+    private static void copy(File from, File to) throws IOException {
+        InputStream in = new FileInputStream(from);
+        try {
+            OutputStream out = new FileOutputStream(to);
+            try {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) > 0)
+                    out.write(buffer, 0, read);
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void delete(File file){
+        File[] files = file.listFiles();
+        if (files != null){
+            for(File child: files){
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+}
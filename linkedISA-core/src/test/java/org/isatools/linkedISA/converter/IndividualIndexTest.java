@@ -0,0 +1,144 @@
+package org.isatools.linkedISA.converter;
+
+import org.isatools.graph.model.impl.AssayTable;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Test class for IndividualIndex
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class IndividualIndexTest {
+
+    private OWLDataFactory factory = OWLManager.getOWLDataFactory();
+
+    private AssayTable table = new AssayTable(new Object[][]{
+            { "Sample Name", "Protocol REF", "Extract Name", "Comment[note]" },
+            { "sample1", "extraction", "extract1", "a" },
+            { "sample1", "extraction", "extract2", "b" },
+            { "sample2", "extraction", "", "c" },
+            { "sample2", "", "extract3", "d" }
+    });
+
+    private OWLNamedIndividual individual(String name){
+        return factory.getOWLNamedIndividual(IRI.create("http://example.org/" + name));
+    }
+
+    @Test
+    public void testSharedByValue() {
+        IndividualIndex index = new IndividualIndex(table);
+        OWLNamedIndividual sample1 = individual("sample1");
+        index.put(1, 0, sample1);
+        index.put(2, 0, sample1);
+        index.put(3, 0, individual("sample2"));
+
+        assertEquals(sample1, index.get(1, 0));
+        assertEquals(sample1, index.get(2, 0));
+        assertEquals(individual("sample2"), index.get(3, 0));
+        //same value as row 3, but never set
+        assertNull(index.get(4, 0));
+        assertFalse(index.isIndexedByRow(0));
+
+        //columns never set, empty cells and cells out of the table
+        assertNull(index.get(1, 3));
+        index.put(3, 2, individual("empty"));
+        assertNull(index.get(3, 2));
+        assertNull(index.get(1, -1));
+        assertNull(index.get(5, 0));
+    }
+
+    @Test
+    public void testSwitchToRows() {
+        IndividualIndex index = new IndividualIndex(table);
+        index.put(1, 1, individual("process1"));
+        index.put(2, 1, individual("process1"));
+        assertFalse(index.isIndexedByRow(1));
+
+        //same value, different individual
+        index.put(3, 1, individual("process2"));
+        assertTrue(index.isIndexedByRow(1));
+
+        assertEquals(individual("process1"), index.get(1, 1));
+        assertEquals(individual("process1"), index.get(2, 1));
+        assertEquals(individual("process2"), index.get(3, 1));
+        assertNull(index.get(4, 1));
+    }
+
+    /**
+     * The individual of a cell of the table built by testConcurrentPutAndGet, or null for an empty cell.
+     */
+    private OWLNamedIndividual expected(int row, int col){
+        switch (col){
+            case 0: return individual("sample" + (row % 7));
+            case 1: return individual("process" + row);
+            case 2: return row % 5 == 0 ? null : individual("extract" + (row % 11));
+            default: return individual("note" + row);
+        }
+    }
+
+    @Test
+    public void testConcurrentPutAndGet() throws Exception {
+        final int rows = 300;
+        final int columns = 4;
+        Object[][] data = new Object[rows + 1][];
+        data[0] = new Object[]{ "Sample Name", "Protocol REF", "Extract Name", "Comment[note]" };
+        for(int row = 1; row <= rows; row++)
+            data[row] = new Object[]{ "sample" + (row % 7), "extraction", row % 5 == 0 ? "" : "extract" + (row % 11), "note" + row };
+        final IndividualIndex index = new IndividualIndex(new AssayTable(data));
+
+        //every thread sets every cell, starting at a different row, and reads the cells it set and the ones it did not
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Object>> futures = new ArrayList<Future<Object>>();
+        for(int t = 0; t < threads; t++){
+            final int start = t * 37;
+            futures.add(executor.submit(new Callable<Object>() {
+                public Object call() {
+                    for(int i = 0; i < rows; i++){
+                        int row = (start + i) % rows + 1;
+                        int other = (start + 3 * i) % rows + 1;
+                        for(int col = 0; col < columns; col++){
+                            index.put(row, col, expected(row, col));
+                            assertEquals(expected(row, col), index.get(row, col));
+                            //a cell is either not set yet or has its own individual
+                            OWLNamedIndividual individual = index.get(other, col);
+                            if (individual != null)
+                                assertEquals(expected(other, col), individual);
+                        }
+                    }
+                    return null;
+                }
+            }));
+        }
+        for(Future<Object> future: futures)
+            future.get();
+        executor.shutdown();
+
+        //no entry lost, and a row bit for every cell set
+        for(int row = 1; row <= rows; row++){
+            for(int col = 0; col < columns; col++)
+                assertEquals(expected(row, col), index.get(row, col));
+        }
+        assertFalse(index.isIndexedByRow(0));
+        assertTrue(index.isIndexedByRow(1));
+        assertFalse(index.isIndexedByRow(2));
+        assertFalse(index.isIndexedByRow(3));
+    }
+
+}
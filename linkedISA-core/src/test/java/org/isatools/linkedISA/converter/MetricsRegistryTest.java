@@ -0,0 +1,136 @@
+package org.isatools.linkedISA.converter;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Test class for MetricsRegistry
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class MetricsRegistryTest {
+
+    private MetricsRegistry fill(boolean enabled){
+        MetricsRegistry metrics = new MetricsRegistry(enabled);
+        metrics.increment(MetricsRegistry.AXIOMS, "type", "ClassAssertion");
+        metrics.increment(MetricsRegistry.AXIOMS, "type", "ClassAssertion");
+        metrics.increment(MetricsRegistry.AXIOMS, "type", "AnnotationAssertion");
+        metrics.increment(MetricsRegistry.ONTOLOGY_LOOKUPS, "result", "hit");
+        metrics.record(MetricsRegistry.PHASE_SECONDS, "phase", MetricsRegistry.PHASE_STUDY, 1500000000L);
+        metrics.record(MetricsRegistry.PHASE_SECONDS, "phase", MetricsRegistry.PHASE_STUDY, 500000000L);
+        metrics.stopStep("groups", metrics.start());
+        return metrics;
+    }
+
+    @Test
+    public void testCountersAndTimers() {
+        MetricsRegistry metrics = fill(true);
+        assertEquals(2, metrics.getCount(MetricsRegistry.AXIOMS, "type", "ClassAssertion"));
+        assertEquals(1, metrics.getCount(MetricsRegistry.AXIOMS, "type", "AnnotationAssertion"));
+        assertEquals(0, metrics.getCount(MetricsRegistry.AXIOMS, "type", "Declaration"));
+
+        MetricsRegistry.Timer timer = metrics.getTimer(MetricsRegistry.PHASE_SECONDS, "phase", MetricsRegistry.PHASE_STUDY);
+        assertEquals(2, timer.getCount());
+        assertEquals(2000000000L, timer.getTotalNanos());
+        assertEquals(1500000000L, timer.getMaxNanos());
+        assertEquals(1, metrics.getTimer(MetricsRegistry.STEP_SECONDS, "step", "groups").getCount());
+    }
+
+    @Test
+    public void testDisabled() {
+        MetricsRegistry metrics = fill(false);
+        assertEquals(0, metrics.getCount(MetricsRegistry.AXIOMS, "type", "ClassAssertion"));
+        assertNull(metrics.getTimer(MetricsRegistry.PHASE_SECONDS, "phase", MetricsRegistry.PHASE_STUDY));
+        assertEquals(0, metrics.start());
+
+        metrics.enterPhase(MetricsRegistry.PHASE_STUDY);
+        assertFalse(metrics.individualCreated("Sample Name"));
+        metrics.finishPhase();
+        assertEquals(0, metrics.getCount(MetricsRegistry.INDIVIDUALS, "type", "Sample Name"));
+        assertNull(metrics.getTimer(MetricsRegistry.PHASE_SECONDS, "phase", MetricsRegistry.PHASE_STUDY));
+    }
+
+    @Test
+    public void testExport() {
+        MetricsRegistry metrics = fill(true);
+
+        String json = metrics.toJSON();
+        assertTrue(json.contains("{\"name\": \"linkedisa_axioms_total\", \"labels\": {\"type\": \"ClassAssertion\"}, \"value\": 2}"));
+        assertTrue(json.contains("{\"name\": \"linkedisa_phase_seconds\", \"labels\": {\"phase\": \"study\"}, \"count\": 2, \"sumSeconds\": 2.0, \"maxSeconds\": 1.5}"));
+
+        String prometheus = metrics.toPrometheus();
+        assertTrue(prometheus.contains("# TYPE linkedisa_axioms_total counter\n"));
+        assertTrue(prometheus.contains("linkedisa_axioms_total{type=\"ClassAssertion\"} 2\n"));
+        assertTrue(prometheus.contains("# TYPE linkedisa_phase_seconds summary\n"));
+        assertTrue(prometheus.contains("linkedisa_phase_seconds_count{phase=\"study\"} 2\n"));
+        assertTrue(prometheus.contains("linkedisa_phase_seconds_sum{phase=\"study\"} 2.0\n"));
+        //the longest times are a gauge family of their own
+        assertTrue(prometheus.contains("# TYPE linkedisa_phase_seconds_max gauge\n"));
+        assertTrue(prometheus.contains("linkedisa_phase_seconds_max{phase=\"study\"} 1.5\n"));
+        assertTrue(prometheus.indexOf("linkedisa_phase_seconds_max{") > prometheus.indexOf("# TYPE linkedisa_phase_seconds_max"));
+        assertTrue(prometheus.indexOf("# TYPE linkedisa_phase_seconds_max") > prometheus.lastIndexOf("linkedisa_phase_seconds_sum{"));
+        //each metric has its header once
+        assertEquals(prometheus.indexOf("# TYPE linkedisa_axioms_total"), prometheus.lastIndexOf("# TYPE linkedisa_axioms_total"));
+    }
+
+    @Test
+    public void testPhases() {
+        MetricsRegistry metrics = new MetricsRegistry(MetricsRegistry.Level.COUNTERS);
+        assertEquals(MetricsRegistry.DEFAULT_PHASE, metrics.getPhase());
+        metrics.enterPhase(MetricsRegistry.PHASE_STUDY);
+        assertFalse(metrics.individualCreated("Sample Name"));
+        metrics.individualCreated("Sample Name");
+        metrics.enterPhase(MetricsRegistry.PHASE_ASSAYS);
+        assertEquals(MetricsRegistry.PHASE_ASSAYS, metrics.getPhase());
+        metrics.individualCreated("Extract Name");
+        metrics.enterPhase(MetricsRegistry.PHASE_STUDY);
+        metrics.finishPhase();
+
+        assertEquals(2, metrics.getCount(MetricsRegistry.INDIVIDUALS, "type", "Sample Name"));
+        assertEquals(1, metrics.getCount(MetricsRegistry.INDIVIDUALS, "type", "Extract Name"));
+        assertEquals(2, metrics.getTimer(MetricsRegistry.PHASE_SECONDS, "phase", MetricsRegistry.PHASE_STUDY).getCount());
+        assertEquals(1, metrics.getTimer(MetricsRegistry.PHASE_SECONDS, "phase", MetricsRegistry.PHASE_ASSAYS).getCount());
+        assertEquals(MetricsRegistry.DEFAULT_PHASE, metrics.getPhase());
+    }
+
+    @Test
+    public void testTraceSampling() {
+        MetricsRegistry metrics = new MetricsRegistry(MetricsRegistry.Level.TRACE);
+        metrics.setTraceSampling(3);
+        int sampled = 0;
+        for(int i = 0; i < 10; i++){
+            if (metrics.individualCreated("Sample Name"))
+                sampled++;
+        }
+        //the 1st, 4th, 7th and 10th
+        assertEquals(4, sampled);
+        assertEquals(10, metrics.getCount(MetricsRegistry.INDIVIDUALS, "type", "Sample Name"));
+    }
+
+    @Test
+    public void testJMX() throws Exception {
+        MetricsRegistry metrics = fill(true);
+        metrics.registerMBean("http://isa-tools.org/isa/test.owl");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("org.isatools.linkedISA:type=ConversionMetrics,name=" + ObjectName.quote("http://isa-tools.org/isa/test.owl"));
+        try {
+            assertTrue(server.isRegistered(name));
+            assertEquals(2L, server.getAttribute(name, "linkedisa_axioms_total{type=\"ClassAssertion\"}"));
+
+            metrics.increment(MetricsRegistry.AXIOMS, "type", "ClassAssertion");
+            assertEquals(3L, server.getAttribute(name, "linkedisa_axioms_total{type=\"ClassAssertion\"}"));
+        } finally {
+            metrics.unregisterMBean();
+        }
+        assertFalse(server.isRegistered(name));
+    }
+
+}
@@ -0,0 +1,130 @@
+package org.isatools.linkedISA.converter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Test class for OntologyLookupCache
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class OntologyLookupCacheTest {
+
+    private File file = null;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("term-cache", ".tsv");
+        file.delete();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testPersistence() throws Exception {
+        OntologyLookupCache cache = new OntologyLookupCache(file, OntologyLookupCache.NO_EXPIRY, OntologyLookupCache.NO_EXPIRY);
+        cache.addSourceTermPurlMapping("OBI", "OBI_0000747", "http://purl.obolibrary.org/obo/OBI_0000747");
+        cache.addSourceTermPurlMapping("NCBITaxon", "9606\tx", "");
+        cache.close();
+
+        OntologyLookupCache reloaded = new OntologyLookupCache(file, OntologyLookupCache.NO_EXPIRY, OntologyLookupCache.NO_EXPIRY);
+        assertEquals("http://purl.obolibrary.org/obo/OBI_0000747", reloaded.getPurl("OBI", "OBI_0000747"));
+        assertEquals("", reloaded.getPurl("NCBITaxon", "9606\tx"));
+        assertNull(reloaded.getPurl("OBI", "OBI_0000001"));
+        reloaded.close();
+    }
+
+    @Test
+    public void testNegativeTimeToLive() throws Exception {
+        OntologyLookupCache cache = new OntologyLookupCache(file, OntologyLookupCache.NO_EXPIRY, 0);
+        cache.addSourceTermPurlMapping("OBI", "OBI_0000747", "http://purl.obolibrary.org/obo/OBI_0000747");
+        cache.addSourceTermPurlMapping("OBI", "OBI_9999999", "");
+        Thread.sleep(5);
+
+        assertEquals("http://purl.obolibrary.org/obo/OBI_0000747", cache.getPurl("OBI", "OBI_0000747"));
+        assertNull(cache.getPurl("OBI", "OBI_9999999"));
+
+        cache.compact();
+        assertEquals(1, cache.size());
+        cache.close();
+    }
+
+    @Test
+    public void testFlushInBatches() throws Exception {
+        OntologyLookupCache cache = new OntologyLookupCache(file, OntologyLookupCache.NO_EXPIRY, OntologyLookupCache.NO_EXPIRY);
+        cache.addSourceTermPurlMapping("OBI", "OBI_0000747", "http://purl.obolibrary.org/obo/OBI_0000747");
+        assertEquals(0, file.length());
+
+        for(int i = 1; i < OntologyLookupCache.FLUSH_INTERVAL; i++){
+            cache.addSourceTermPurlMapping("OBI", "OBI_" + i, "");
+        }
+        assertTrue(file.length() > 0);
+        cache.close();
+    }
+
+    @Test
+    public void testCompactOnLoad() throws Exception {
+        OntologyLookupCache cache = new OntologyLookupCache(file, OntologyLookupCache.NO_EXPIRY, OntologyLookupCache.NO_EXPIRY);
+        for(int i = 0; i < 10; i++){
+            cache.addSourceTermPurlMapping("OBI", "OBI_0000747", "http://purl.obolibrary.org/obo/OBI_0000747");
+        }
+        cache.addSourceTermPurlMapping("OBI", "OBI_0000001", "");
+        cache.close();
+        assertEquals(11, countLines(file));
+
+        //9 stale lines, below the threshold
+        cache = new OntologyLookupCache(file, OntologyLookupCache.NO_EXPIRY, OntologyLookupCache.NO_EXPIRY, 9);
+        cache.close();
+        assertEquals(11, countLines(file));
+
+        cache = new OntologyLookupCache(file, OntologyLookupCache.NO_EXPIRY, OntologyLookupCache.NO_EXPIRY, 8);
+        assertEquals("http://purl.obolibrary.org/obo/OBI_0000747", cache.getPurl("OBI", "OBI_0000747"));
+        assertEquals("", cache.getPurl("OBI", "OBI_0000001"));
+        cache.close();
+        assertEquals(2, countLines(file));
+    }
+
+    private static int countLines(File f) throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(f));
+        try {
+            int lines = 0;
+            while (reader.readLine() != null)
+                lines++;
+            return lines;
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testOffline() throws Exception {
+        OntologyLookupCache previous = OntologyLookup.getCache();
+        OntologyLookupCache cache = new OntologyLookupCache();
+        cache.addSourceTermPurlMapping("OBI", "OBI_0000747", "http://purl.obolibrary.org/obo/OBI_0000747");
+        OntologyLookup.setCache(cache);
+        OntologyLookup.setOffline(true);
+        try {
+            assertEquals("http://purl.obolibrary.org/obo/OBI_0000747", OntologyLookup.findOntologyPURL("OBI", "OBI_0000747"));
+            assertNull(OntologyLookup.findOntologyPURL("OBI", "OBI_0000001"));
+            assertNull(cache.getPurl("OBI", "OBI_0000001"));
+        } finally {
+            OntologyLookup.setOffline(false);
+            OntologyLookup.setCache(previous);
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package org.isatools.linkedISA.converter;
+
+import org.isatools.isacreator.ontologymanager.OntologySourceRefObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Test class for OntologyRegistry
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class OntologyRegistryTest {
+
+    private File file = null;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("ontologies", ".tsv");
+        FileWriter writer = new FileWriter(file);
+        writer.write("OBI\t47893\tOntology for Biomedical Investigations\n");
+        writer.write("NCBITAXON\t\tNCBI organismal classification\n");
+        writer.write("malformed line\n");
+        writer.close();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        OntologyRegistry registry = new OntologyRegistry();
+        assertFalse(registry.isLoaded());
+
+        registry.load(file);
+        assertEquals(2, registry.size());
+        assertEquals("47893", registry.getOntologyVersion("OBI"));
+        assertNull(registry.getOntologyVersion("NCBITAXON"));
+        assertNull(registry.getOntologyVersion("EFO"));
+
+        File copy = File.createTempFile("ontologies-copy", ".tsv");
+        try {
+            registry.save(copy);
+            OntologyRegistry reloaded = new OntologyRegistry();
+            reloaded.load(copy);
+            assertEquals(2, reloaded.size());
+            assertEquals("Ontology for Biomedical Investigations", reloaded.getOntology("OBI").getLabel());
+        } finally {
+            copy.delete();
+        }
+    }
+
+    @Test
+    public void testGetSource() throws Exception {
+        OntologyRegistry registry = new OntologyRegistry();
+        Set<OntologySourceRefObject> sources = new LinkedHashSet<OntologySourceRefObject>();
+        OntologySourceRefObject obi = new OntologySourceRefObject("OBI", "http://data.bioontology.org/ontologies/OBI", "47893", "");
+        sources.add(obi);
+        sources.add(new OntologySourceRefObject("EFO", "http://data.bioontology.org/ontologies/EFO", "49378", ""));
+
+        assertSame(obi, registry.getSource("OBI", sources));
+        assertNull(registry.getSource("NCBITAXON", sources));
+
+        //same set and same size, different content
+        sources.remove(obi);
+        OntologySourceRefObject taxon = new OntologySourceRefObject("NCBITAXON", "http://data.bioontology.org/ontologies/NCBITAXON", "", "");
+        sources.add(taxon);
+        assertNull(registry.getSource("OBI", sources));
+        assertSame(taxon, registry.getSource("NCBITAXON", sources));
+
+        //a source changed in place
+        taxon.setSourceName("NCBITaxon");
+        assertSame(taxon, registry.getSource("NCBITaxon", sources));
+    }
+
+}
@@ -0,0 +1,89 @@
+package org.isatools.linkedISA.converter;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.vocab.OWLRDFVocabulary;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Test class for StreamingRDFSink
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class StreamingRDFSinkTest {
+
+    private OWLDataFactory factory = null;
+    private OWLNamedIndividual sample = null;
+    private OWLNamedIndividual source = null;
+
+    @Before
+    public void setUp() {
+        factory = OWLManager.createOWLOntologyManager().getOWLDataFactory();
+        sample = factory.getOWLNamedIndividual(IRI.create("http://isa-tools.org/isa/test/sample/1"));
+        source = factory.getOWLNamedIndividual(IRI.create("http://isa-tools.org/isa/test/source/1"));
+    }
+
+    private String write(StreamingRDFSink.Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingRDFSink sink = new StreamingRDFSink(out, format);
+        sink.open(IRI.create("http://isa-tools.org/isa/test"));
+        sink.addImport(IRI.create("http://purl.obolibrary.org/obo/obi.owl"));
+        sink.addAxiom(factory.getOWLClassAssertionAxiom(factory.getOWLClass(IRI.create("http://purl.obolibrary.org/obo/OBI_0000747")), sample));
+        sink.addAxiom(factory.getOWLObjectPropertyAssertionAxiom(factory.getOWLObjectProperty(IRI.create("http://purl.obolibrary.org/obo/BFO_0000050")), sample, source));
+        sink.addAxiom(factory.getOWLAnnotationAssertionAxiom(sample.getIRI(),
+                factory.getOWLAnnotation(factory.getOWLAnnotationProperty(OWLRDFVocabulary.RDFS_LABEL.getIRI()), factory.getOWLLiteral("sample \"1\"\n"))));
+        sink.close();
+        assertEquals(3, sink.getAxiomCount());
+        return out.toString("UTF-8");
+    }
+
+    @Test
+    public void testNTriples() throws Exception {
+        String output = write(StreamingRDFSink.Format.NTRIPLES);
+        System.out.println(output);
+
+        assertEquals(5, output.split("\n").length);
+        assertTrue(output.contains("<http://isa-tools.org/isa/test> <http://www.w3.org/2002/07/owl#imports> <http://purl.obolibrary.org/obo/obi.owl> .\n"));
+        assertTrue(output.contains("<http://isa-tools.org/isa/test/sample/1> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://purl.obolibrary.org/obo/OBI_0000747> .\n"));
+        assertTrue(output.contains("<http://isa-tools.org/isa/test/sample/1> <http://purl.obolibrary.org/obo/BFO_0000050> <http://isa-tools.org/isa/test/source/1> .\n"));
+        assertTrue(output.contains("<http://isa-tools.org/isa/test/sample/1> <http://www.w3.org/2000/01/rdf-schema#label> \"sample \\\"1\\\"\\n\""));
+    }
+
+    @Test
+    public void testTurtle() throws Exception {
+        String output = write(StreamingRDFSink.Format.TURTLE);
+        System.out.println(output);
+
+        assertTrue(output.startsWith("@prefix rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#> ."));
+        assertTrue(output.contains("<http://isa-tools.org/isa/test/sample/1> rdf:type obo:OBI_0000747 .\n"));
+    }
+
+    @Test
+    public void testAxiomCountWithRepeatedAxioms() throws Exception {
+        OWLAxiom axiom = factory.getOWLClassAssertionAxiom(factory.getOWLClass(IRI.create("http://purl.obolibrary.org/obo/OBI_0000747")), sample);
+
+        StreamingRDFSink streamingSink = new StreamingRDFSink(new ByteArrayOutputStream(), StreamingRDFSink.Format.NTRIPLES);
+        OWLOntologySink ontologySink = new OWLOntologySink(OWLManager.createOWLOntologyManager());
+        for(AxiomSink sink: Arrays.<AxiomSink>asList(streamingSink, ontologySink)){
+            sink.open(IRI.create("http://isa-tools.org/isa/test"));
+            sink.addAxiom(axiom);
+            sink.addAxioms(Arrays.asList(axiom, axiom));
+            sink.close();
+        }
+
+        assertEquals(3, streamingSink.getAxiomCount());
+        assertEquals(streamingSink.getAxiomCount(), ontologySink.getAxiomCount());
+        assertEquals(1, ontologySink.getOntology().getAxiomCount());
+    }
+
+}
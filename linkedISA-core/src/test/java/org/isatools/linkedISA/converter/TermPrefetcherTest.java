@@ -0,0 +1,120 @@
+package org.isatools.linkedISA.converter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Test class for TermPrefetcher and HttpTermResolver, using a local stub of the BioPortal REST API.
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class TermPrefetcherTest {
+
+    private HttpServer server = null;
+    private ConcurrentHashMap<String, AtomicInteger> requests = new ConcurrentHashMap<String, AtomicInteger>();
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/ontologies/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                //path is /ontologies/<source>/classes/<accession>
+                String[] path = exchange.getRequestURI().getPath().split("/");
+                String source = path[2];
+                String accession = path[4];
+
+                requests.putIfAbsent(source + " " + accession, new AtomicInteger());
+                requests.get(source + " " + accession).incrementAndGet();
+
+                int status = 404;
+                String body = "{}";
+                if (source.equals("OBI") && accession.startsWith("OBI_")){
+                    status = 200;
+                    body = "{\"prefLabel\": \"term\", \"@id\": \"http://purl.obolibrary.org/obo/" + accession + "\"}";
+                } else if (source.equals("ERROR")){
+                    status = 500;
+                }
+                byte[] bytes = body.getBytes("UTF-8");
+                exchange.sendResponseHeaders(status, bytes.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(bytes);
+                out.close();
+            }
+        });
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testResolve() throws Exception {
+        HttpTermResolver resolver = new HttpTermResolver("http://localhost:" + server.getAddress().getPort(), null);
+        OntologyLookupCache cache = new OntologyLookupCache();
+        cache.addSourceTermPurlMapping("OBI", "OBI_0000001", "http://purl.obolibrary.org/obo/OBI_0000001");
+
+        TermPrefetcher prefetcher = new TermPrefetcher(resolver, cache, 3, 2);
+        for(int i = 0; i < 10; i++){
+            prefetcher.collect("OBI", "OBI_000010" + i);
+            prefetcher.collect("OBI", "OBI_000010" + i);
+        }
+        //already in the cache or not needing a lookup
+        prefetcher.collect("OBI", "OBI_0000001");
+        prefetcher.collect("OBI", "http://purl.obolibrary.org/obo/OBI_0000002");
+        prefetcher.collect("", "OBI_0000003");
+        //not found and failing
+        prefetcher.collect("EFO", "EFO_0000001");
+        prefetcher.collect("ERROR", "X_1");
+
+        Object[][] table = {
+                { "Source Name", "Characteristics[OBI-organism-OBI_0100026]", "Material Type" },
+                { "source1", "Homo sapiens", "OBI:specimen" },
+                { "source2", "Homo sapiens", "OBI:specimen" }
+        };
+        OntologyTermSnapshot snapshot = new OntologyTermSnapshot();
+        snapshot.addTerm("OBI:specimen", null, "OBI", "OBI_0100051");
+        prefetcher.collect(table, snapshot);
+
+        assertEquals(14, prefetcher.getCollectedCount());
+
+        List<String> unresolved = prefetcher.resolve();
+
+        assertEquals(unresolved.toString(), 2, unresolved.size());
+        assertTrue(unresolved.get(0).startsWith("EFO EFO_0000001: not found"));
+        assertTrue(unresolved.get(1).startsWith("ERROR X_1"));
+
+        assertEquals("http://purl.obolibrary.org/obo/OBI_0000105", cache.getPurl("OBI", "OBI_0000105"));
+        assertEquals("http://purl.obolibrary.org/obo/OBI_0100026", cache.getPurl("OBI", "OBI_0100026"));
+        assertEquals("http://purl.obolibrary.org/obo/OBI_0100051", cache.getPurl("OBI", "OBI_0100051"));
+        assertEquals("", cache.getPurl("EFO", "EFO_0000001"));
+        assertEquals(null, cache.getPurl("ERROR", "X_1"));
+
+        //each distinct term is requested only once
+        assertEquals(14, requests.size());
+        for(AtomicInteger count: requests.values()){
+            assertEquals(1, count.get());
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.isatools.linkedISA.converter;
+
+import org.isatools.linkedISA.mapping.ISASyntax2LinkedMapping;
+import org.isatools.linkedISA.mapping.ISASyntax2LinkedMappingFiles;
+import org.isatools.linkedISA.mapping.LinkedISAMappingParser;
+import org.isatools.owl.BFO;
+import org.isatools.owl.ISA;
+import org.isatools.owl.OBI;
+import org.isatools.util.Pair;
+import org.junit.Test;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.vocab.OWLRDFVocabulary;
+
+import java.net.URL;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by the ISATeam.
+ * User: agbeltran
+ *
+ * Test class for VocabularyRegistry
+ *
+ * @author <a href="mailto:alejandra.gonzalez.beltran@gmail.com">Alejandra Gonzalez-Beltran</a>
+ */
+public class VocabularyRegistryTest {
+
+    @Test
+    public void testConstants() {
+        VocabularyRegistry registry = new VocabularyRegistry(null);
+        int registered = registry.size();
+        //the constants are only parsed until they are used
+        assertEquals(0, registry.getEntityCount());
+
+        assertSame(registry.getIRI(ISA.EXECUTES), registry.getIRI(ISA.EXECUTES));
+        assertSame(registry.getOWLObjectProperty(ISA.HAS_PART), registry.getOWLObjectProperty(IRI.create(ISA.HAS_PART)));
+        assertEquals(IRI.create(OBI.HAS_SPECIFIED_INPUT), registry.getOWLObjectProperty(OBI.HAS_SPECIFIED_INPUT).getIRI());
+        assertEquals(IRI.create(ISA.HAS_VALUE), registry.getOWLDataProperty(ISA.HAS_VALUE).getIRI());
+        assertEquals(IRI.create(BFO.IS_PRECEDED_BY), registry.getOWLObjectProperty(BFO.IS_PRECEDED_BY).getIRI());
+        assertEquals(OWLRDFVocabulary.RDFS_LABEL.getIRI(), registry.getLabelProperty().getIRI());
+        assertEquals(OWLRDFVocabulary.RDFS_COMMENT.getIRI(), registry.getCommentProperty().getIRI());
+        //the constants were all registered by the constructor, and namespaces are not
+        assertEquals(registered, registry.size());
+        assertTrue(registered > 0);
+        //one entity per IRI, of the kind it was asked for
+        assertEquals(4, registry.getEntityCount());
+
+        //an IRI that was not registered
+        IRI other = IRI.create("http://example.org/other");
+        assertSame(registry.getOWLClass(other), registry.getOWLClass(other));
+        assertSame(registry.getIRI(other.toString()), registry.getIRI(other.toString()));
+        assertEquals(registered + 1, registry.size());
+    }
+
+    @Test
+    public void testMapping() throws Exception {
+        LinkedISAMappingParser parser = new LinkedISAMappingParser();
+        URL isa_obi_mapping_url = getClass().getClassLoader().getResource(ISASyntax2LinkedMappingFiles.ISA_OBI_MAPPING_FILENAME);
+        parser.parseCSVMappingFile(isa_obi_mapping_url.toURI().getRawPath().toString());
+        ISASyntax2LinkedMapping mapping = parser.getMapping();
+
+        VocabularyRegistry registry = new VocabularyRegistry(mapping);
+        int registered = registry.size();
+        for(List<Pair<IRI, String>> predicateObjects: mapping.getPropertyMappings().values()){
+            for(Pair<IRI, String> predicateObject: predicateObjects){
+                assertEquals(predicateObject.getFirst(), registry.getOWLObjectProperty(predicateObject.getFirst().toString()).getIRI());
+            }
+        }
+        assertEquals(registered, registry.size());
+
+        //each IRI of the mapping is registered as the kind of entity it is used as
+        Set<IRI> entities = new HashSet<IRI>();
+        for(Set<IRI> types: mapping.getTypeMappings().values()){
+            for(IRI type: types){
+                if (type != null)
+                    entities.add(type);
+            }
+        }
+        for(List<Pair<IRI, String>> predicateObjects: mapping.getPropertyMappings().values()){
+            for(Pair<IRI, String> predicateObject: predicateObjects){
+                entities.add(predicateObject.getFirst());
+            }
+        }
+        assertEquals(entities.size(), registry.getEntityCount());
+
+        //built once per mapping
+        assertSame(VocabularyRegistry.forMapping(mapping), VocabularyRegistry.forMapping(mapping));
+        assertNotSame(VocabularyRegistry.forMapping(mapping), VocabularyRegistry.forMapping(new LinkedISAMappingParser().getMapping()));
+    }
+
+}